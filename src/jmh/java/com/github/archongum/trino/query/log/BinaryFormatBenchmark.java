@@ -0,0 +1,92 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+
+
+/**
+ * A block of 100 {@link QueryCompletedEvent} serialized and encoded as {@code FILE} output commits it, in each
+ * {@link OutputFormat} and {@link OutputCompression}, or only serialized. The score is per block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private OutputFormat format;
+
+    @Param({"NONE", "GZIP"})
+    private OutputCompression compression;
+
+    private final List<QueryCompletedEvent> events = new ArrayList<>();
+    private EventSerializer serializer;
+    private BlockEncoder encoder;
+    private ByteBuffer block;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < 100; i++) {
+            events.add(queryCompletedEvent(queryMetadata("20220601_000000_" + (10000 + i) + "_abcde", "SELECT * FROM fact_order WHERE id = " + i),
+                queryStatistics(), queryContext(), queryIOMetadata("hive.ads.fact_order", "hive.dim.dim_date")));
+        }
+        boolean binary = format == OutputFormat.BINARY;
+        serializer = new EventSerializer(QueryLogListenerFactory.createObjectMapper(), QueryLogListenerProperties.defaultInstance(), null, binary);
+        encoder = compression == OutputCompression.GZIP ? new GzipBlockEncoder(6) : null;
+        if (binary) {
+            encoder = new BinaryBlockEncoder(encoder);
+        }
+        block = ByteBuffer.allocateDirect(1 << 20);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (encoder != null) {
+            encoder.close();
+        }
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        int size = 0;
+        for (QueryCompletedEvent event : events) {
+            size += serializer.serialize(event).size();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int block() throws IOException {
+        block.clear();
+        for (QueryCompletedEvent event : events) {
+            RecordBuffer record = serializer.serialize(event);
+            block.put(record.array(), 0, record.size()).put((byte) '\n');
+        }
+        block.flip();
+        return encoder == null ? block.remaining() : encoder.encode(block).remaining();
+    }
+}
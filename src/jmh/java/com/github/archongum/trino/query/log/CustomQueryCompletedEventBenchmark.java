@@ -0,0 +1,84 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+
+
+/**
+ * Conversion of a {@link QueryCompletedEvent} and its serialization, including query text truncation.
+ * {@link #serializeEvent()} is the path the listener takes, {@link #ofAndSerialize()} the bean path it replaced.
+ * Field projection only applies to {@link #serializeEvent()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomQueryCompletedEventBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    private int querySize;
+
+    @Param({"-1", "100000"})
+    private int queryMaxLength;
+
+    // all fields, or about the ones a typical dashboard reads
+    @Param({"", "metadata.queryId,metadata.query,metadata.queryState,statistics.cpuSecond,statistics.wallSecond,statistics.queuedSecond,"
+        + "statistics.peakUserMemoryMB,statistics.processedInputMB,statistics.processedInputRows,statistics.outputRows,"
+        + "context.user,context.source,context.resourceGroupId,context.queryType,createTime,endTime"})
+    private String fields;
+
+    private QueryCompletedEvent event;
+    private CustomQueryCompletedEvent customEvent;
+    private EventSerializer serializer;
+
+    @Setup
+    public void setup() {
+        event = queryCompletedEvent(queryMetadata("20220601_000000_00000_abcde", TestingEvents.query(querySize)), queryStatistics(), queryContext(),
+            queryIOMetadata("hive.ads.fact_order", "hive.dim.dim_date"));
+        customEvent = CustomQueryCompletedEvent.of(event);
+        ObjectMapper mapper = QueryLogListenerFactory.createObjectMapper();
+        serializer = new EventSerializer(mapper, QueryLogListenerProperties.defaultInstance()
+            .setQueryCompletedQueryMaxLength(queryMaxLength)
+            .setQueryCompletedFields(fields));
+    }
+
+    @Benchmark
+    public CustomQueryCompletedEvent of() {
+        return CustomQueryCompletedEvent.of(event);
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        return serializer.serialize(customEvent).size();
+    }
+
+    @Benchmark
+    public int ofAndSerialize() throws IOException {
+        return serializer.serialize(CustomQueryCompletedEvent.of(event)).size();
+    }
+
+    @Benchmark
+    public int serializeEvent() throws IOException {
+        return serializer.serialize(event).size();
+    }
+}
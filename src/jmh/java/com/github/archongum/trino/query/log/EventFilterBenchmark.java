@@ -0,0 +1,77 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryInputMetadata;
+import io.trino.spi.resourcegroups.QueryType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+
+
+/**
+ * Cost of deciding whether a completed event is logged, by {@link EventFilter} and by {@link String#matches} on the
+ * query type and every input catalog, as done before it, for queries reading many {@code $system} tables and one hive table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventFilterBenchmark {
+
+    @Param({"1", "200"})
+    private int inputs;
+
+    private QueryLogListenerProperties properties;
+    private EventFilter filter;
+    private QueryCompletedEvent event;
+
+    @Setup
+    public void setup() {
+        String[] tables = new String[inputs];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = "$system" + (i % 4) + ".s.t" + i;
+        }
+        tables[tables.length - 1] = "hive.ads.dim_date";
+        event = queryCompletedEvent(queryMetadata(), queryStatistics(), queryContext("user", Optional.of("global.etl"), QueryType.SELECT),
+            queryIOMetadata(tables));
+        properties = QueryLogListenerProperties.defaultInstance()
+            .setQueryCompletedQueryTypePattern("SELECT|INSERT")
+            .setQueryCompletedCatalogPattern("^\\w+");
+        filter = properties.getEventFilter();
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return filter.acceptCompleted(event);
+    }
+
+    @Benchmark
+    public boolean stringMatches() {
+        if (!event.getContext().getQueryType().get().name().matches(properties.getQueryCompletedQueryTypePattern())) {
+            return false;
+        }
+        for (QueryInputMetadata i : event.getIoMetadata().getInputs()) {
+            if (i.getCatalogName().matches(properties.getQueryCompletedCatalogPattern())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
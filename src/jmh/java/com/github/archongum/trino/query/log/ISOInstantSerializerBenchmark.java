@@ -0,0 +1,79 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Formatting of the timestamps, of which every completed event has at least three.
+ * {@link #dateTimeFormatter()} is the formatting the cached one replaced, as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ISOInstantSerializerBenchmark {
+
+    @Param({"SECONDS", "MILLIS", "EPOCH_MILLIS"})
+    private TimestampFormat format;
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+    private final RecordBuffer buffer = new RecordBuffer();
+    private ISOInstantSerializer serializer;
+    private JsonGenerator generator;
+    private Instant[] instants;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        serializer = new ISOInstantSerializer(format);
+        generator = new ObjectMapper().getFactory().createGenerator(buffer, JsonEncoding.UTF8);
+        // events of a busy coordinator: mostly the same second, sometimes the next
+        instants = new Instant[1024];
+        Instant start = Instant.parse("2022-06-01T00:00:00Z");
+        for (int i = 0; i < instants.length; i++) {
+            instants[i] = start.plusMillis(i * 7L);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        generator.close();
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        buffer.reset();
+        serializer.serialize(instants[next++ & (instants.length - 1)], generator, null);
+        generator.flush();
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int dateTimeFormatter() throws IOException {
+        buffer.reset();
+        generator.writeString(formatter.format(instants[next++ & (instants.length - 1)]));
+        generator.flush();
+        return buffer.size();
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.concurrent.TimeUnit;
+import ch.qos.logback.classic.LoggerContext;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import io.trino.spi.eventlistener.SplitCompletedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCreatedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+import static com.github.archongum.trino.query.log.TestingEvents.splitCompletedEvent;
+
+
+/**
+ * What a {@link QueryLogListener} callback costs the Trino thread calling it, from filtering to the bytes
+ * written. With async enabled this is the hand-off, plus back pressure once the writer thread falls behind.
+ * <p>
+ * Output goes to {@code /dev/null} through {@link OutputMode#FILE}, so the disk is not what is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryLogListenerBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    private int querySize;
+
+    @Param({"true", "false"})
+    private boolean async;
+
+    @Param({"/dev/null"})
+    private String outputFile;
+
+    private QueryLogListener listener;
+    private QueryCreatedEvent queryCreatedEvent;
+    private QueryCompletedEvent queryCompletedEvent;
+    private SplitCompletedEvent splitCompletedEvent;
+
+    @Setup
+    public void setup() {
+        QueryLogListenerProperties properties = QueryLogListenerProperties.defaultInstance()
+            .setAsyncEnabled(async)
+            .setOutputMode(OutputMode.FILE)
+            .setOutputFile(outputFile)
+            .setQueryCreatedQueryMaxLength(100000)
+            .setQueryCompletedQueryMaxLength(100000);
+        listener = new QueryLogListener(new LoggerContext(), QueryLogListenerFactory.createObjectMapper(), properties);
+        String query = TestingEvents.query(querySize);
+        queryCreatedEvent = queryCreatedEvent(queryMetadata("20220601_000000_00000_abcde", query));
+        queryCompletedEvent = queryCompletedEvent(queryMetadata("20220601_000000_00000_abcde", query), queryStatistics(), queryContext(),
+            queryIOMetadata("hive.ads.fact_order", "hive.dim.dim_date"));
+        splitCompletedEvent = splitCompletedEvent();
+    }
+
+    @TearDown
+    public void tearDown() {
+        listener.close();
+    }
+
+    @Benchmark
+    public void queryCreated() {
+        listener.queryCreated(queryCreatedEvent);
+    }
+
+    @Benchmark
+    public void queryCompleted() {
+        listener.queryCompleted(queryCompletedEvent);
+    }
+
+    @Benchmark
+    public void splitCompleted() {
+        listener.splitCompleted(splitCompletedEvent);
+    }
+}
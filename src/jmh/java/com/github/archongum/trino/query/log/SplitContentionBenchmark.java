@@ -0,0 +1,120 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Split events written straight from many threads at once, as with async disabled: through a logback file appender,
+ * {@code FILE} output with one stripe, and {@code FILE} output striped per thread. The score in ops/ms is the
+ * combined rate of all threads, so it stays flat when they only queue up on one lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SplitContentionBenchmark {
+
+    @Param({"logback", "file", "striped"})
+    private String output;
+
+    @Param({"16"})
+    private int stripes;
+
+    private Path directory;
+    private LoggerContext loggerContext;
+    private EventWriter writer;
+    private byte[] record;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("trino-query-log-benchmark");
+        Path file = directory.resolve("trino-query-log.log");
+        switch (output) {
+            case "logback":
+                loggerContext = new LoggerContext();
+                PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+                encoder.setContext(loggerContext);
+                encoder.setPattern("%msg%n");
+                encoder.start();
+                FileAppender<ILoggingEvent> appender = new FileAppender<>();
+                appender.setContext(loggerContext);
+                appender.setFile(file.toString());
+                appender.setEncoder(encoder);
+                appender.start();
+                Logger logger = loggerContext.getLogger(QueryLogListener.class);
+                logger.setLevel(Level.INFO);
+                logger.setAdditive(false);
+                logger.addAppender(appender);
+                writer = new LogbackEventWriter(loggerContext);
+                break;
+            case "file":
+            case "striped":
+                // no rolling, the output is thrown away
+                writer = new FileChannelEventWriter(file, 1 << 20, 1000, FsyncPolicy.NEVER, new FileRollingPolicy(0, 0, 0), Clock.systemDefaultZone(),
+                    null, false, output.equals("striped") ? stripes : 1);
+                break;
+            default:
+                throw new IllegalArgumentException(output);
+        }
+        RecordBuffer event = new EventSerializer(QueryLogListenerFactory.createObjectMapper(), QueryLogListenerProperties.defaultInstance())
+            .serialize(TestingEvents.splitCompletedEvent());
+        record = new byte[event.size()];
+        System.arraycopy(event.array(), 0, record, 0, event.size());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.close();
+        if (loggerContext != null) {
+            loggerContext.stop();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void threads8() throws IOException {
+        writer.write(record, 0, record.length);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void threads32() throws IOException {
+        writer.write(record, 0, record.length);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void threads64() throws IOException {
+        writer.write(record, 0, record.length);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.resourcegroups.QueryType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+
+
+/**
+ * Cost of {@link WorkloadAggregator#record(QueryCompletedEvent)} on Trino's event thread, from 4 threads
+ * recording completed queries of 64 users into the same window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class WorkloadAggregatorBenchmark {
+
+    private WorkloadAggregator aggregator;
+    private QueryCompletedEvent[] events;
+
+    @Setup
+    public void setup() {
+        aggregator = new WorkloadAggregator(1000, TimeUnit.HOURS.toMillis(1), summary -> {}, Clock.systemUTC());
+        events = new QueryCompletedEvent[64];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = queryCompletedEvent(queryMetadata(), queryStatistics(),
+                queryContext("user" + i, Optional.of("global.adhoc"), QueryType.SELECT), queryIOMetadata());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        aggregator.close();
+    }
+
+    @Benchmark
+    public void record(ThreadState state) {
+        aggregator.record(events[state.next++ & (events.length - 1)]);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int next;
+    }
+}
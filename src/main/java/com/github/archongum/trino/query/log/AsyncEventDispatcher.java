@@ -0,0 +1,191 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Hands raw Trino events over to a dedicated consumer thread through an {@link EventRingBuffer},
+ * so that conversion, serialization and writing never run on Trino's event thread.
+ * <p>
+ * An idle consumer spins, yields, then parks until a producer unparks it, so a quiet coordinator costs no wakeups.
+ */
+final class AsyncEventDispatcher implements Closeable {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final EventRingBuffer<Object> ringBuffer;
+    private final OverflowPolicy overflowPolicy;
+    private final Consumer<Object> handler;
+    private final Runnable idleHandler;
+    private final Thread consumerThread;
+    private final AtomicInteger activeProducers = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+    // set by the consumer before it parks, with no timeout, and checked by producers after they offer
+    private volatile boolean sleeping;
+
+    AsyncEventDispatcher(int capacity, OverflowPolicy overflowPolicy, Consumer<Object> handler) {
+        this(capacity, overflowPolicy, handler, () -> {});
+    }
+
+    /**
+     * @param idleHandler called on the consumer thread each time the buffer runs empty, e.g. to flush
+     */
+    AsyncEventDispatcher(int capacity, OverflowPolicy overflowPolicy, Consumer<Object> handler, Runnable idleHandler) {
+        this.ringBuffer = new EventRingBuffer<>(capacity);
+        this.overflowPolicy = requireNonNull(overflowPolicy, "overflowPolicy is null");
+        this.handler = requireNonNull(handler, "handler is null");
+        this.idleHandler = requireNonNull(idleHandler, "idleHandler is null");
+        this.consumerThread = new Thread(this::consume, "trino-query-log-dispatcher");
+        this.consumerThread.setDaemon(true);
+        this.consumerThread.start();
+    }
+
+    /**
+     * Enqueue an event, applying the overflow policy when the buffer is full.
+     *
+     * @return {@code true} if the event was accepted and will be handled.
+     */
+    boolean dispatch(Object event) {
+        activeProducers.incrementAndGet();
+        try {
+            if (!accepting) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (ringBuffer.offer(event)) {
+                wakeConsumer();
+                return true;
+            }
+            switch (overflowPolicy) {
+                case DROP:
+                    dropped.incrementAndGet();
+                    return false;
+                case DROP_OLDEST:
+                    while (!ringBuffer.offer(event)) {
+                        if (ringBuffer.poll() != null) {
+                            dropped.incrementAndGet();
+                        }
+                    }
+                    wakeConsumer();
+                    return true;
+                case WAIT:
+                default:
+                    while (!ringBuffer.offer(event)) {
+                        if (!running) {
+                            dropped.incrementAndGet();
+                            return false;
+                        }
+                        LockSupport.parkNanos(WAIT_PARK_NANOS);
+                    }
+                    wakeConsumer();
+                    return true;
+            }
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    private void wakeConsumer() {
+        if (sleeping) {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    int getQueueDepth() {
+        return ringBuffer.size();
+    }
+
+    private void consume() {
+        int idleCount = 0;
+        while (running) {
+            Object event = ringBuffer.poll();
+            if (event != null) {
+                idleCount = 0;
+                handle(event);
+            } else {
+                if (idleCount == 0) {
+                    run(idleHandler);
+                }
+                idle(++idleCount);
+            }
+        }
+        // producers have left dispatch(), everything accepted is in the buffer now
+        Object event;
+        while ((event = ringBuffer.poll()) != null) {
+            handle(event);
+        }
+        run(idleHandler);
+    }
+
+    private void handle(Object event) {
+        try {
+            handler.accept(event);
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    private static void run(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    private void idle(int idleCount) {
+        if (idleCount < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            sleeping = true;
+            // a producer offering after this check sees the flag and unparks
+            if (running && ringBuffer.size() == 0) {
+                LockSupport.park(this);
+            }
+            sleeping = false;
+        }
+    }
+
+    /**
+     * Stop accepting events and drain everything already accepted before returning.
+     */
+    @Override
+    public void close() {
+        if (Thread.currentThread() == consumerThread) {
+            return;
+        }
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            // block new producers first, then let the in-flight ones finish their offer,
+            // so that nothing accepted is enqueued after the consumer's final drain
+            accepting = false;
+            while (activeProducers.get() > 0) {
+                Thread.onSpinWait();
+            }
+            running = false;
+        }
+        LockSupport.unpark(consumerThread);
+        try {
+            consumerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
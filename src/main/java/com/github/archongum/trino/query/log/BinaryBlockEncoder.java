@@ -0,0 +1,254 @@
+package com.github.archongum.trino.query.log;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import static com.github.archongum.trino.query.log.BinaryFormat.BINARY;
+import static com.github.archongum.trino.query.log.BinaryFormat.BLOCK_HEADER_SIZE;
+import static com.github.archongum.trino.query.log.BinaryFormat.BLOCK_MAGIC;
+import static com.github.archongum.trino.query.log.BinaryFormat.DOUBLE;
+import static com.github.archongum.trino.query.log.BinaryFormat.END_ARRAY;
+import static com.github.archongum.trino.query.log.BinaryFormat.END_OBJECT;
+import static com.github.archongum.trino.query.log.BinaryFormat.FALSE;
+import static com.github.archongum.trino.query.log.BinaryFormat.FIELD_NAME;
+import static com.github.archongum.trino.query.log.BinaryFormat.FIELD_NAME_NEW;
+import static com.github.archongum.trino.query.log.BinaryFormat.FIELD_NAME_REF;
+import static com.github.archongum.trino.query.log.BinaryFormat.FLOAT;
+import static com.github.archongum.trino.query.log.BinaryFormat.INT;
+import static com.github.archongum.trino.query.log.BinaryFormat.MAX_TABLE_STRING_LENGTH;
+import static com.github.archongum.trino.query.log.BinaryFormat.NULL;
+import static com.github.archongum.trino.query.log.BinaryFormat.NUMBER;
+import static com.github.archongum.trino.query.log.BinaryFormat.START_ARRAY;
+import static com.github.archongum.trino.query.log.BinaryFormat.START_OBJECT;
+import static com.github.archongum.trino.query.log.BinaryFormat.STRING;
+import static com.github.archongum.trino.query.log.BinaryFormat.STRING_NEW;
+import static com.github.archongum.trino.query.log.BinaryFormat.STRING_REF;
+import static com.github.archongum.trino.query.log.BinaryFormat.TRUE;
+
+
+/**
+ * Turns a block of records written by {@link BinaryGenerator}, each followed by a new line, into a
+ * {@link BinaryFormat} block: the first occurrence of each string and field name of the block is added to its string
+ * table, and the next ones are references to it. The table starts empty with every block, so blocks are decoded
+ * independently, like the gzip members {@code next} may compress them into.
+ * <p>
+ * Not thread safe, the writer calls it under its I/O lock.
+ */
+final class BinaryBlockEncoder implements BlockEncoder {
+
+    private final BlockEncoder next;
+    private byte[] input = new byte[64 * 1024];
+    private byte[] output = new byte[64 * 1024];
+    private int size;
+
+    // open addressing table of the strings of the block, as ranges of input: slots hold an entry id + 1, or 0
+    private int[] slots = new int[1024];
+    private int[] offsets = new int[512];
+    private int[] lengths = new int[512];
+    private int[] hashes = new int[512];
+    private int entries;
+
+    /**
+     * @param next encodes the blocks further, such as {@link GzipBlockEncoder}, or {@code null}
+     */
+    BinaryBlockEncoder(BlockEncoder next) {
+        this.next = next;
+    }
+
+    @Override
+    public ByteBuffer encode(ByteBuffer block) {
+        int length = block.remaining();
+        if (input.length < length) {
+            input = new byte[Math.max(length, input.length * 2)];
+        }
+        block.get(input, 0, length);
+        ensureCapacity(BLOCK_HEADER_SIZE + length);
+        size = BLOCK_HEADER_SIZE;
+        Arrays.fill(slots, 0);
+        entries = 0;
+        int position = 0;
+        while (position < length) {
+            position = copyRecord(position);
+            if (input[position] != '\n') {
+                throw new IllegalStateException("Not a binary record at " + position);
+            }
+            position++;
+        }
+        System.arraycopy(BLOCK_MAGIC, 0, output, 0, BLOCK_MAGIC.length);
+        int payload = size - BLOCK_HEADER_SIZE;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            output[BLOCK_MAGIC.length + i] = (byte) (payload >>> (24 - 8 * i));
+        }
+        ByteBuffer encoded = ByteBuffer.wrap(output, 0, size);
+        return next == null ? encoded : next.encode(encoded);
+    }
+
+    @Override
+    public void close() {
+        if (next != null) {
+            next.close();
+        }
+    }
+
+    /**
+     * @return the position after the record starting at {@code position}
+     */
+    private int copyRecord(int position) {
+        int depth = 0;
+        do {
+            byte tag = input[position++];
+            switch (tag) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    output[size++] = tag;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    output[size++] = tag;
+                    break;
+                case NULL:
+                case TRUE:
+                case FALSE:
+                    output[size++] = tag;
+                    break;
+                case INT:
+                    int end = position;
+                    while ((input[end++] & 0x80) != 0) {
+                        // skip
+                    }
+                    position = copy(tag, position, end - position);
+                    break;
+                case FLOAT:
+                    position = copy(tag, position, Float.BYTES);
+                    break;
+                case DOUBLE:
+                    position = copy(tag, position, Double.BYTES);
+                    break;
+                case NUMBER:
+                case BINARY:
+                    position = copyInline(tag, position);
+                    break;
+                case STRING:
+                case FIELD_NAME:
+                    position = copyString(tag, position);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown tag " + tag + " at " + (position - 1));
+            }
+        } while (depth > 0);
+        return position;
+    }
+
+    private int copy(byte tag, int position, int length) {
+        output[size++] = tag;
+        System.arraycopy(input, position, output, size, length);
+        size += length;
+        return position + length;
+    }
+
+    private int copyInline(byte tag, int position) {
+        int start = position;
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = input[position++];
+            length |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        return copy(tag, start, position - start + length);
+    }
+
+    private int copyString(byte tag, int position) {
+        int start = position;
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = input[position++];
+            length |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (length > MAX_TABLE_STRING_LENGTH) {
+            return copy(tag, start, position - start + length);
+        }
+        int hash = hash(position, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                add(slot, hash, position, length);
+                return copy(tag == STRING ? STRING_NEW : FIELD_NAME_NEW, start, position - start + length);
+            }
+            if (hashes[id] == hash && lengths[id] == length
+                && Arrays.equals(input, offsets[id], offsets[id] + length, input, position, position + length)) {
+                if (varintSize(id) >= position - start + length) {
+                    // a reference would not be shorter, e.g. to an empty string
+                    return copy(tag, start, position - start + length);
+                }
+                output[size++] = tag == STRING ? STRING_REF : FIELD_NAME_REF;
+                writeVarint(id);
+                return position + length;
+            }
+        }
+    }
+
+    private int hash(int position, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = position; i < position + length; i++) {
+            hash = (hash ^ input[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private void add(int slot, int hash, int position, int length) {
+        if (entries == offsets.length) {
+            offsets = Arrays.copyOf(offsets, entries * 2);
+            lengths = Arrays.copyOf(lengths, entries * 2);
+            hashes = Arrays.copyOf(hashes, entries * 2);
+        }
+        offsets[entries] = position;
+        lengths[entries] = length;
+        hashes[entries] = hash;
+        entries++;
+        slots[slot] = entries;
+        if (entries * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int id = 0; id < entries; id++) {
+                int i = hashes[id] & mask;
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = id + 1;
+            }
+        }
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7f) != 0) {
+            output[size++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output[size++] = (byte) value;
+    }
+
+    /**
+     * The records of a block never grow, as a reference is only written when shorter than the string it replaces.
+     */
+    private void ensureCapacity(int capacity) {
+        if (output.length < capacity) {
+            output = new byte[Math.max(capacity, output.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.archongum.trino.query.log;
+
+
+/**
+ * Tokens of the {@link OutputFormat#BINARY} format.
+ * <p>
+ * A record is one JSON value written as tokens: a tag byte, followed for some by a payload. Integers are zigzag
+ * varints, floating point numbers IEEE 754 big-endian, and strings, field names and binary values a varint length
+ * and their UTF-8 bytes. {@link BinaryGenerator} writes records with every string inline; {@link BinaryBlockEncoder}
+ * then replaces the repeated ones by references to a string table built along the block.
+ * <p>
+ * A block is {@link #BLOCK_MAGIC}, the length of its records as a big-endian int, and its records back to back.
+ */
+final class BinaryFormat {
+
+    static final byte[] BLOCK_MAGIC = {'T', 'Q', 'L', 1};
+    static final int BLOCK_HEADER_SIZE = BLOCK_MAGIC.length + Integer.BYTES;
+
+    static final byte START_OBJECT = 1;
+    static final byte END_OBJECT = 2;
+    static final byte START_ARRAY = 3;
+    static final byte END_ARRAY = 4;
+    static final byte NULL = 5;
+    static final byte TRUE = 6;
+    static final byte FALSE = 7;
+    static final byte INT = 8;
+    static final byte FLOAT = 9;
+    static final byte DOUBLE = 10;
+    // a number as text, such as a BigDecimal
+    static final byte NUMBER = 11;
+    static final byte STRING = 12;
+    static final byte FIELD_NAME = 13;
+    static final byte BINARY = 14;
+    // in blocks only: an inline string added to the table, and a reference to an entry of the table
+    static final byte STRING_NEW = 15;
+    static final byte STRING_REF = 16;
+    static final byte FIELD_NAME_NEW = 17;
+    static final byte FIELD_NAME_REF = 18;
+
+    /**
+     * Longer strings, mostly query texts, are left inline rather than added to the table.
+     */
+    static final int MAX_TABLE_STRING_LENGTH = 256;
+
+    private BinaryFormat() {
+    }
+}
@@ -0,0 +1,263 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+import static com.github.archongum.trino.query.log.BinaryFormat.BINARY;
+import static com.github.archongum.trino.query.log.BinaryFormat.DOUBLE;
+import static com.github.archongum.trino.query.log.BinaryFormat.END_ARRAY;
+import static com.github.archongum.trino.query.log.BinaryFormat.END_OBJECT;
+import static com.github.archongum.trino.query.log.BinaryFormat.FALSE;
+import static com.github.archongum.trino.query.log.BinaryFormat.FIELD_NAME;
+import static com.github.archongum.trino.query.log.BinaryFormat.FLOAT;
+import static com.github.archongum.trino.query.log.BinaryFormat.INT;
+import static com.github.archongum.trino.query.log.BinaryFormat.NULL;
+import static com.github.archongum.trino.query.log.BinaryFormat.NUMBER;
+import static com.github.archongum.trino.query.log.BinaryFormat.START_ARRAY;
+import static com.github.archongum.trino.query.log.BinaryFormat.START_OBJECT;
+import static com.github.archongum.trino.query.log.BinaryFormat.STRING;
+import static com.github.archongum.trino.query.log.BinaryFormat.TRUE;
+
+
+/**
+ * Writes a record as {@link BinaryFormat} tokens into a {@link RecordBuffer}, in place of a JSON generator: the same
+ * serializers write the same values, without escaping text nor formatting numbers. Raw text is not supported.
+ */
+final class BinaryGenerator extends GeneratorBase {
+
+    private final RecordBuffer buffer;
+
+    BinaryGenerator(RecordBuffer buffer, int features, ObjectCodec codec) {
+        super(features, codec);
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        _verifyValueWrite("start an array");
+        _writeContext = _writeContext.createChildArrayContext();
+        buffer.write(START_ARRAY);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (!_writeContext.inArray()) {
+            _reportError("Current context not Array but " + _writeContext.typeDesc());
+        }
+        _writeContext = _writeContext.clearAndGetParent();
+        buffer.write(END_ARRAY);
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        _verifyValueWrite("start an object");
+        _writeContext = _writeContext.createChildObjectContext();
+        buffer.write(START_OBJECT);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (!_writeContext.inObject()) {
+            _reportError("Current context not Object but " + _writeContext.typeDesc());
+        }
+        _writeContext = _writeContext.clearAndGetParent();
+        buffer.write(END_OBJECT);
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (_writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE) {
+            _reportError("Can not write a field name, expecting a value");
+        }
+        writeText(FIELD_NAME, name, 0, name.length());
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        if (_writeContext.writeFieldName(name.getValue()) == JsonWriteContext.STATUS_EXPECT_VALUE) {
+            _reportError("Can not write a field name, expecting a value");
+        }
+        // the names of bean properties, encoded once
+        byte[] bytes = name.asUnquotedUTF8();
+        buffer.write(FIELD_NAME);
+        writeVarint(bytes.length);
+        buffer.write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (text == null) {
+            writeNull();
+            return;
+        }
+        _verifyValueWrite("write a string");
+        writeText(STRING, text, 0, text.length());
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int length) throws IOException {
+        _verifyValueWrite("write a string");
+        writeText(STRING, new String(text, offset, length), 0, length);
+    }
+
+    @Override
+    public void writeString(Reader reader, int length) throws IOException {
+        StringBuilder text = new StringBuilder(Math.max(length, 16));
+        char[] chunk = new char[Math.min(Math.max(length, 16), 8192)];
+        int read;
+        while ((length < 0 || text.length() < length) && (read = reader.read(chunk, 0, length < 0 ? chunk.length : Math.min(chunk.length, length - text.length()))) > 0) {
+            text.append(chunk, 0, read);
+        }
+        _verifyValueWrite("write a string");
+        writeText(STRING, text.toString(), 0, text.length());
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        _verifyValueWrite("write a string");
+        buffer.write(STRING);
+        writeVarint(length);
+        buffer.write(text, offset, length);
+    }
+
+    @Override
+    public void writeRaw(String text) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(String text, int offset, int length) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(char[] text, int offset, int length) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(char c) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeBinary(Base64Variant variant, byte[] data, int offset, int length) throws IOException {
+        _verifyValueWrite("write a binary value");
+        buffer.write(BINARY);
+        writeVarint(length);
+        buffer.write(data, offset, length);
+    }
+
+    @Override
+    public void writeNumber(int value) throws IOException {
+        writeNumber((long) value);
+    }
+
+    @Override
+    public void writeNumber(long value) throws IOException {
+        _verifyValueWrite("write a number");
+        buffer.write(INT);
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    @Override
+    public void writeNumber(BigInteger value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeNumber(value.toString());
+    }
+
+    @Override
+    public void writeNumber(double value) throws IOException {
+        _verifyValueWrite("write a number");
+        buffer.write(DOUBLE);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer.write((int) (bits >>> shift));
+        }
+    }
+
+    @Override
+    public void writeNumber(float value) throws IOException {
+        _verifyValueWrite("write a number");
+        buffer.write(FLOAT);
+        int bits = Float.floatToRawIntBits(value);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer.write(bits >>> shift);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeNumber(_asString(value));
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (encodedValue == null) {
+            writeNull();
+            return;
+        }
+        _verifyValueWrite("write a number");
+        writeText(NUMBER, encodedValue, 0, encodedValue.length());
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        _verifyValueWrite("write a boolean value");
+        buffer.write(state ? TRUE : FALSE);
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        _verifyValueWrite("write a null");
+        buffer.write(NULL);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    protected void _releaseBuffers() {
+    }
+
+    @Override
+    protected void _verifyValueWrite(String typeMsg) throws IOException {
+        if (_writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME) {
+            _reportError("Can not " + typeMsg + ", expecting field name");
+        }
+    }
+
+    private void writeText(byte tag, String text, int from, int to) {
+        int length = RecordBuffer.utf8Length(text, from, to);
+        buffer.write(tag);
+        writeVarint(length);
+        buffer.writeUtf8(text, from, to, length);
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.write((int) value);
+    }
+}
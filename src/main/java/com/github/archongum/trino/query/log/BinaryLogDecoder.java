@@ -0,0 +1,230 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import static com.github.archongum.trino.query.log.BinaryFormat.BINARY;
+import static com.github.archongum.trino.query.log.BinaryFormat.BLOCK_MAGIC;
+import static com.github.archongum.trino.query.log.BinaryFormat.DOUBLE;
+import static com.github.archongum.trino.query.log.BinaryFormat.END_ARRAY;
+import static com.github.archongum.trino.query.log.BinaryFormat.END_OBJECT;
+import static com.github.archongum.trino.query.log.BinaryFormat.FALSE;
+import static com.github.archongum.trino.query.log.BinaryFormat.FIELD_NAME;
+import static com.github.archongum.trino.query.log.BinaryFormat.FIELD_NAME_NEW;
+import static com.github.archongum.trino.query.log.BinaryFormat.FIELD_NAME_REF;
+import static com.github.archongum.trino.query.log.BinaryFormat.FLOAT;
+import static com.github.archongum.trino.query.log.BinaryFormat.INT;
+import static com.github.archongum.trino.query.log.BinaryFormat.NULL;
+import static com.github.archongum.trino.query.log.BinaryFormat.NUMBER;
+import static com.github.archongum.trino.query.log.BinaryFormat.START_ARRAY;
+import static com.github.archongum.trino.query.log.BinaryFormat.START_OBJECT;
+import static com.github.archongum.trino.query.log.BinaryFormat.STRING;
+import static com.github.archongum.trino.query.log.BinaryFormat.STRING_NEW;
+import static com.github.archongum.trino.query.log.BinaryFormat.STRING_REF;
+import static com.github.archongum.trino.query.log.BinaryFormat.TRUE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+
+/**
+ * Turns log files of the {@link OutputFormat#BINARY} format back into JSON, one record per line, as the {@code JSON}
+ * format would have written them.
+ * <pre>
+ * java -cp '&lt;TRINO_HOME&gt;/plugin/trino-query-log/*' com.github.archongum.trino.query.log.BinaryLogDecoder \
+ *     [&lt;log file&gt;]... &gt; decoded.log
+ * </pre>
+ * Log files are read in order, or stdin without any. {@code .gz} files are decompressed.
+ */
+public final class BinaryLogDecoder {
+
+    private final List<String> table = new ArrayList<>();
+    private byte[] block = new byte[64 * 1024];
+    private int length;
+    private int position;
+
+    public static void main(String[] args) throws IOException {
+        OutputStream out = new BufferedOutputStream(System.out);
+        if (args.length == 0) {
+            decode(System.in, out);
+        }
+        for (String arg : args) {
+            Path log = Paths.get(arg);
+            InputStream in = Files.newInputStream(log);
+            if (log.getFileName().toString().endsWith(".gz")) {
+                in = new GZIPInputStream(in, 64 * 1024);
+            }
+            try (InputStream blocks = in) {
+                decode(blocks, out);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Write every record of the blocks of {@code in} to {@code out} as JSON, one per line.
+     */
+    static void decode(InputStream in, OutputStream out) throws IOException {
+        DataInputStream blocks = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        JsonGenerator generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .setRootValueSeparator(null);
+        BinaryLogDecoder decoder = new BinaryLogDecoder();
+        byte[] magic = new byte[BLOCK_MAGIC.length];
+        for (int read = blocks.read(magic); read > 0; read = blocks.read(magic)) {
+            if (read < magic.length) {
+                blocks.readFully(magic, read, magic.length - read);
+            }
+            if (!Arrays.equals(magic, BLOCK_MAGIC)) {
+                throw new IOException("Not a binary query log block");
+            }
+            decoder.read(blocks);
+            decoder.decode(generator);
+        }
+        generator.close();
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid block length: " + length);
+        }
+        if (block.length < length) {
+            block = new byte[Math.max(length, block.length * 2)];
+        }
+        try {
+            in.readFully(block, 0, length);
+        } catch (EOFException e) {
+            throw new IOException("Truncated binary query log block", e);
+        }
+        position = 0;
+        table.clear();
+    }
+
+    private void decode(JsonGenerator generator) throws IOException {
+        while (position < length) {
+            int depth = 0;
+            do {
+                byte tag = block[position++];
+                switch (tag) {
+                    case START_OBJECT:
+                        depth++;
+                        generator.writeStartObject();
+                        break;
+                    case END_OBJECT:
+                        depth--;
+                        generator.writeEndObject();
+                        break;
+                    case START_ARRAY:
+                        depth++;
+                        generator.writeStartArray();
+                        break;
+                    case END_ARRAY:
+                        depth--;
+                        generator.writeEndArray();
+                        break;
+                    case NULL:
+                        generator.writeNull();
+                        break;
+                    case TRUE:
+                        generator.writeBoolean(true);
+                        break;
+                    case FALSE:
+                        generator.writeBoolean(false);
+                        break;
+                    case INT:
+                        long zigzag = readVarint();
+                        generator.writeNumber((zigzag >>> 1) ^ -(zigzag & 1));
+                        break;
+                    case FLOAT:
+                        generator.writeNumber(Float.intBitsToFloat((int) readFixed(Float.BYTES)));
+                        break;
+                    case DOUBLE:
+                        generator.writeNumber(Double.longBitsToDouble(readFixed(Double.BYTES)));
+                        break;
+                    case NUMBER:
+                        generator.writeNumber(readText());
+                        break;
+                    case BINARY:
+                        int size = (int) readVarint();
+                        generator.writeBinary(block, position, size);
+                        position += size;
+                        break;
+                    case STRING:
+                        generator.writeString(readText());
+                        break;
+                    case STRING_NEW:
+                        generator.writeString(readNew());
+                        break;
+                    case STRING_REF:
+                        generator.writeString(readReference());
+                        break;
+                    case FIELD_NAME:
+                        generator.writeFieldName(readText());
+                        break;
+                    case FIELD_NAME_NEW:
+                        generator.writeFieldName(readNew());
+                        break;
+                    case FIELD_NAME_REF:
+                        generator.writeFieldName(readReference());
+                        break;
+                    default:
+                        throw new IOException("Unknown tag " + tag + " at " + (position - 1));
+                }
+            } while (depth > 0);
+            generator.writeRaw('\n');
+        }
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = block[position++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private long readFixed(int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (block[position++] & 0xff);
+        }
+        return value;
+    }
+
+    private String readText() {
+        int size = (int) readVarint();
+        String text = new String(block, position, size, UTF_8);
+        position += size;
+        return text;
+    }
+
+    private String readNew() {
+        String text = readText();
+        table.add(text);
+        return text;
+    }
+
+    private String readReference() throws IOException {
+        int id = (int) readVarint();
+        if (id >= table.size()) {
+            throw new IOException("Unknown string reference " + id + " at " + position);
+        }
+        return table.get(id);
+    }
+}
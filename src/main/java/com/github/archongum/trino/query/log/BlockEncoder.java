@@ -0,0 +1,19 @@
+package com.github.archongum.trino.query.log;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Transforms each block of records {@link FileChannelEventWriter} commits, before it is written.
+ * <p>
+ * Not thread safe, the writer calls it under its I/O lock.
+ */
+interface BlockEncoder {
+
+    /**
+     * @return the encoding of the remaining bytes of {@code block}, valid until the next call
+     */
+    ByteBuffer encode(ByteBuffer block);
+
+    void close();
+}
@@ -0,0 +1,177 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Serialized created events held until their queries complete, for tail-based sampling: a created event is written
+ * only if the completed event of its query is {@link QueryThresholds#isInteresting interesting}, and discarded
+ * otherwise.
+ * <p>
+ * The held records, oldest first, never take more than {@code maxBytes}; an event that does not fit is handled by the
+ * {@link TailOverflowPolicy}. Synchronized, since events are emitted on the Trino threads when async is disabled.
+ */
+final class CreatedEventBuffer {
+
+    private final long maxBytes;
+    private final TailOverflowPolicy overflowPolicy;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private long bytes;
+
+    CreatedEventBuffer(long maxBytes, TailOverflowPolicy overflowPolicy) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Tail sampling buffer size must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.overflowPolicy = requireNonNull(overflowPolicy, "overflowPolicy is null");
+    }
+
+    /**
+     * Hold the record of a created event, a copy of {@code length} bytes of {@code record}.
+     *
+     * @return the entries leaving the buffer for lack of room, to be written if {@link #isWriteOverflow()} and
+     *     discarded otherwise; the new entry itself when the policy is {@code DROP} or it is larger than the buffer
+     */
+    List<Entry> hold(IndexKey key, byte[] record, int length) {
+        return hold(key, null, record, length);
+    }
+
+    /**
+     * Hold the record of a created event, to be written to {@code partition} of a partitioned output.
+     *
+     * @param partition of the record, or {@code null}
+     */
+    synchronized List<Entry> hold(IndexKey key, String partition, byte[] record, int length) {
+        byte[] copy = new byte[length];
+        System.arraycopy(record, 0, copy, 0, length);
+        Entry entry = new Entry(key, partition, copy);
+        // a created event held again replaces the previous one, whose room counts before anything is evicted
+        Entry previous = entries.remove(key.getQueryId());
+        if (previous != null) {
+            bytes -= previous.record.length;
+        }
+        if (length > maxBytes || (overflowPolicy == TailOverflowPolicy.DROP && bytes + length > maxBytes)) {
+            return Collections.singletonList(entry);
+        }
+        List<Entry> overflow = Collections.emptyList();
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (bytes + length > maxBytes) {
+            if (overflow.isEmpty()) {
+                overflow = new ArrayList<>();
+            }
+            Entry evicted = oldest.next();
+            oldest.remove();
+            bytes -= evicted.record.length;
+            overflow.add(evicted);
+        }
+        entries.put(key.getQueryId(), entry);
+        bytes += length;
+        return overflow;
+    }
+
+    /**
+     * @return the held entry of the query, or {@code null} if its created event was not held or already left
+     */
+    synchronized Entry release(String queryId) {
+        Entry entry = entries.remove(queryId);
+        if (entry != null) {
+            bytes -= entry.record.length;
+        }
+        return entry;
+    }
+
+    /**
+     * Remove every held entry, oldest first.
+     */
+    synchronized List<Entry> drain() {
+        List<Entry> drained = new ArrayList<>(entries.values());
+        entries.clear();
+        bytes = 0;
+        return drained;
+    }
+
+    boolean isWriteOverflow() {
+        return overflowPolicy == TailOverflowPolicy.WRITE_OLDEST;
+    }
+
+    synchronized int getHeldCount() {
+        return entries.size();
+    }
+
+    synchronized long getHeldBytes() {
+        return bytes;
+    }
+
+    /**
+     * The serialized record of a held created event.
+     */
+    static final class Entry {
+
+        private final IndexKey key;
+        private final String partition;
+        private final byte[] record;
+
+        private Entry(IndexKey key, String partition, byte[] record) {
+            this.key = key;
+            this.partition = partition;
+            this.record = record;
+        }
+
+        IndexKey getKey() {
+            return key;
+        }
+
+        String getPartition() {
+            return partition;
+        }
+
+        byte[] getRecord() {
+            return record;
+        }
+    }
+
+    /**
+     * A created event to serialize and hold rather than write.
+     */
+    static final class Hold {
+
+        private final QueryCreatedEvent event;
+
+        Hold(QueryCreatedEvent event) {
+            this.event = requireNonNull(event, "event is null");
+        }
+
+        QueryCreatedEvent getEvent() {
+            return event;
+        }
+    }
+
+    /**
+     * The completion of a query: write its held created event if {@code interesting}, discard it otherwise.
+     * Dispatched like the events, so it is handled after the {@link Hold} of the same query.
+     */
+    static final class Release {
+
+        private final String queryId;
+        private final boolean interesting;
+
+        Release(String queryId, boolean interesting) {
+            this.queryId = requireNonNull(queryId, "queryId is null");
+            this.interesting = interesting;
+        }
+
+        String getQueryId() {
+            return queryId;
+        }
+
+        boolean isInteresting() {
+            return interesting;
+        }
+    }
+}
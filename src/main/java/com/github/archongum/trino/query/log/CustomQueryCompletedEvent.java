@@ -6,6 +6,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.trino.spi.eventlistener.QueryCompletedEvent;
 import io.trino.spi.eventlistener.QueryContext;
 import io.trino.spi.eventlistener.QueryMetadata;
@@ -32,14 +33,34 @@ public class CustomQueryCompletedEvent {
     private Instant startTime;
     private Instant endTime;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double samplingWeight;
+
     public static CustomQueryCompletedEvent of(QueryCompletedEvent event) {
-        return new CustomQueryCompletedEvent(event);
+        return new CustomQueryCompletedEvent(event, null);
+    }
+
+    /**
+     * @param fingerprint see {@link QueryFingerprinter}, or {@code null} to leave it out
+     */
+    public static CustomQueryCompletedEvent of(QueryCompletedEvent event, String fingerprint) {
+        return new CustomQueryCompletedEvent(event, fingerprint);
     }
 
-    private CustomQueryCompletedEvent(QueryCompletedEvent event) {
+    /**
+     * @param samplingWeight see {@link QuerySampler}, or {@code null} to leave it out
+     */
+    public static CustomQueryCompletedEvent of(QueryCompletedEvent event, String fingerprint, Double samplingWeight) {
+        CustomQueryCompletedEvent custom = new CustomQueryCompletedEvent(event, fingerprint);
+        custom.setSamplingWeight(samplingWeight);
+        return custom;
+    }
+
+    private CustomQueryCompletedEvent(QueryCompletedEvent event, String fingerprint) {
         Metadata metadata = new Metadata();
         QueryMetadata _m = event.getMetadata();
         metadata.setQueryId(_m.getQueryId());
+        metadata.setFingerprint(fingerprint);
         metadata.setTransactionId(_m.getTransactionId().orElse(null));
         metadata.setQuery(_m.getQuery());
         metadata.setPreparedQuery(_m.getPreparedQuery().orElse(null));
@@ -160,8 +181,18 @@ public class CustomQueryCompletedEvent {
         this.endTime = endTime;
     }
 
+    public Double getSamplingWeight() {
+        return samplingWeight;
+    }
+
+    public void setSamplingWeight(Double samplingWeight) {
+        this.samplingWeight = samplingWeight;
+    }
+
     static class Metadata {
         private String queryId;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String fingerprint;
         private String transactionId;
         private String query;
         private String preparedQuery;
@@ -176,6 +207,14 @@ public class CustomQueryCompletedEvent {
             this.queryId = queryId;
         }
 
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public void setFingerprint(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
         public String getTransactionId() {
             return transactionId;
         }
@@ -0,0 +1,263 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryContext;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import io.trino.spi.eventlistener.QueryInputMetadata;
+import io.trino.spi.eventlistener.QueryMetadata;
+import io.trino.spi.resourcegroups.QueryType;
+
+
+/**
+ * Decides which events are logged. Everything is compiled once from {@link QueryLogListenerProperties}:
+ * query type patterns become a lookup table indexed by {@link QueryType#ordinal()}, and regex verdicts on
+ * catalogs and other low cardinality strings are memoized, so the common case costs a few map lookups.
+ * <p>
+ * An optional predicate narrows events further. It is a list of {@code field op value} clauses joined by
+ * {@code and}, e.g. {@code user ~ etl_.* and wallMs >= 60000 and table ~ hive\.ads\..*}. A value may contain
+ * {@code and}, e.g. {@code source ~ foo and bar}, unless a field and an operator follow it; quote such a value in
+ * {@code '} or {@code "}.
+ * <ul>
+ * <li>fields: {@code user}, {@code source}, {@code resourceGroup}, {@code queryState}, and for completed events
+ * {@code wallMs}, {@code cpuMs} and {@code table} ({@code catalog.schema.table} of any input)</li>
+ * <li>operators: {@code =}, {@code !=}, {@code ~} (regex), {@code !~}, and {@code >}, {@code >=}, {@code <},
+ * {@code <=} for numbers</li>
+ * </ul>
+ */
+public final class EventFilter {
+
+    private static final int MAX_MEMOIZED_VERDICTS = 4096;
+    private static final Pattern CLAUSE_START = Pattern.compile("\\s*(\\w+)\\s*(!=|!~|>=|<=|=|~|>|<)\\s*");
+    // "and" only ends a value when another field and operator follow
+    private static final Pattern NEXT_CLAUSE = Pattern.compile("\\s+(?i:and)\\s+(?=\\w+\\s*(!=|!~|>=|<=|=|~|>|<))");
+
+    private final boolean[] createdQueryTypes;
+    private final boolean[] completedQueryTypes;
+    private final Verdicts completedCatalogs;
+    private final List<Clause> createdClauses;
+    private final List<Clause> completedClauses;
+
+    private EventFilter(QueryLogListenerProperties properties) {
+        this.createdQueryTypes = compileQueryTypes(properties.getQueryCreatedQueryTypePattern());
+        this.completedQueryTypes = compileQueryTypes(properties.getQueryCompletedQueryTypePattern());
+        this.completedCatalogs = new Verdicts(Pattern.compile(properties.getQueryCompletedCatalogPattern()));
+        this.createdClauses = compilePredicate(properties.getQueryCreatedFilter(), false);
+        this.completedClauses = compilePredicate(properties.getQueryCompletedFilter(), true);
+    }
+
+    public static EventFilter of(QueryLogListenerProperties properties) {
+        return new EventFilter(properties);
+    }
+
+    public boolean acceptCreated(QueryCreatedEvent event) {
+        Optional<QueryType> queryType = event.getContext().getQueryType();
+        if (queryType.isEmpty() || !createdQueryTypes[queryType.get().ordinal()]) {
+            return false;
+        }
+        return test(createdClauses, event.getContext(), event.getMetadata(), null);
+    }
+
+    public boolean acceptCompleted(QueryCompletedEvent event) {
+        Optional<QueryType> queryType = event.getContext().getQueryType();
+        if (queryType.isEmpty() || !completedQueryTypes[queryType.get().ordinal()]) {
+            return false;
+        }
+        boolean catalogMatched = false;
+        for (QueryInputMetadata i : event.getIoMetadata().getInputs()) {
+            if (completedCatalogs.matches(i.getCatalogName())) {
+                catalogMatched = true;
+                break;
+            }
+        }
+        return catalogMatched && test(completedClauses, event.getContext(), event.getMetadata(), event);
+    }
+
+    private static boolean test(List<Clause> clauses, QueryContext context, QueryMetadata metadata, QueryCompletedEvent completed) {
+        for (int i = 0; i < clauses.size(); i++) {
+            if (!clauses.get(i).test(context, metadata, completed)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean[] compileQueryTypes(String pattern) {
+        Pattern compiled = Pattern.compile(pattern);
+        QueryType[] types = QueryType.values();
+        boolean[] accepted = new boolean[types.length];
+        for (QueryType type : types) {
+            accepted[type.ordinal()] = compiled.matcher(type.name()).matches();
+        }
+        return accepted;
+    }
+
+    private static List<Clause> compilePredicate(String predicate, boolean completed) {
+        List<Clause> clauses = new ArrayList<>();
+        if (predicate == null || predicate.isBlank()) {
+            return clauses;
+        }
+        String text = predicate.trim();
+        Matcher start = CLAUSE_START.matcher(text);
+        Matcher next = NEXT_CLAUSE.matcher(text);
+        int position = 0;
+        while (true) {
+            if (!start.region(position, text.length()).lookingAt()) {
+                throw new IllegalArgumentException("Invalid filter clause: " + text.substring(position));
+            }
+            int valueStart = start.end();
+            char quote = valueStart < text.length() ? text.charAt(valueStart) : 0;
+            String value;
+            boolean more;
+            if (quote == '\'' || quote == '"') {
+                int valueEnd = text.indexOf(quote, valueStart + 1);
+                if (valueEnd < 0) {
+                    throw new IllegalArgumentException("Unterminated quote in filter clause: " + text.substring(position));
+                }
+                value = text.substring(valueStart + 1, valueEnd);
+                more = valueEnd + 1 < text.length();
+                if (more && !next.region(valueEnd + 1, text.length()).lookingAt()) {
+                    throw new IllegalArgumentException("Invalid filter clause: " + text.substring(position));
+                }
+            } else {
+                more = next.region(valueStart, text.length()).find();
+                value = text.substring(valueStart, more ? next.start() : text.length());
+            }
+            clauses.add(compileClause(start.group(1), start.group(2), value, completed));
+            if (!more) {
+                return clauses;
+            }
+            position = next.end();
+        }
+    }
+
+    private static Clause compileClause(String field, String op, String value, boolean completed) {
+        switch (field) {
+            case "user":
+                return stringClause(op, value, (c, m) -> c.getUser());
+            case "source":
+                return stringClause(op, value, (c, m) -> c.getSource().orElse(""));
+            case "resourceGroup":
+                return stringClause(op, value, (c, m) -> c.getResourceGroupId().map(Object::toString).orElse(""));
+            case "queryState":
+                return stringClause(op, value, (c, m) -> m.getQueryState());
+            case "wallMs":
+                requireCompleted(field, completed);
+                return numberClause(op, value, e -> e.getStatistics().getWallTime().toMillis());
+            case "cpuMs":
+                requireCompleted(field, completed);
+                return numberClause(op, value, e -> e.getStatistics().getCpuTime().toMillis());
+            case "table":
+                requireCompleted(field, completed);
+                StringMatcher tableMatcher = stringMatcher(op, value);
+                return (c, m, e) -> {
+                    for (QueryInputMetadata i : e.getIoMetadata().getInputs()) {
+                        if (tableMatcher.matches(i.getCatalogName() + '.' + i.getSchema() + '.' + i.getTable())) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown filter field: " + field);
+        }
+    }
+
+    private static Clause stringClause(String op, String value, StringField field) {
+        StringMatcher matcher = stringMatcher(op, value);
+        return (c, m, e) -> matcher.matches(field.get(c, m));
+    }
+
+    private static StringMatcher stringMatcher(String op, String value) {
+        switch (op) {
+            case "=":
+                return value::equals;
+            case "!=":
+                return s -> !value.equals(s);
+            case "~":
+                return new Verdicts(Pattern.compile(value))::matches;
+            case "!~":
+                Verdicts verdicts = new Verdicts(Pattern.compile(value));
+                return s -> !verdicts.matches(s);
+            default:
+                throw new IllegalArgumentException("Operator " + op + " is not supported for strings");
+        }
+    }
+
+    private static Clause numberClause(String op, String value, NumberField field) {
+        long threshold;
+        try {
+            threshold = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in filter: " + value, e);
+        }
+        switch (op) {
+            case "=":
+                return (c, m, e) -> field.get(e) == threshold;
+            case "!=":
+                return (c, m, e) -> field.get(e) != threshold;
+            case ">":
+                return (c, m, e) -> field.get(e) > threshold;
+            case ">=":
+                return (c, m, e) -> field.get(e) >= threshold;
+            case "<":
+                return (c, m, e) -> field.get(e) < threshold;
+            case "<=":
+                return (c, m, e) -> field.get(e) <= threshold;
+            default:
+                throw new IllegalArgumentException("Operator " + op + " is not supported for numbers");
+        }
+    }
+
+    private static void requireCompleted(String field, boolean completed) {
+        if (!completed) {
+            throw new IllegalArgumentException("Filter field " + field + " is only available for completed events");
+        }
+    }
+
+    private interface Clause {
+        boolean test(QueryContext context, QueryMetadata metadata, QueryCompletedEvent completed);
+    }
+
+    private interface StringField {
+        String get(QueryContext context, QueryMetadata metadata);
+    }
+
+    private interface NumberField {
+        long get(QueryCompletedEvent event);
+    }
+
+    private interface StringMatcher {
+        boolean matches(String value);
+    }
+
+    /**
+     * Regex verdicts memoized per input string. Only meant for low cardinality values (catalogs, users,
+     * sources), the memo stops growing once full and falls back to matching.
+     */
+    private static final class Verdicts {
+        private final Pattern pattern;
+        private final Map<String, Boolean> memo = new ConcurrentHashMap<>();
+
+        Verdicts(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        boolean matches(String value) {
+            Boolean verdict = memo.get(value);
+            if (verdict == null) {
+                verdict = pattern.matcher(value).matches();
+                if (memo.size() < MAX_MEMOIZED_VERDICTS) {
+                    memo.put(value, verdict);
+                }
+            }
+            return verdict;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryContext;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+
+
+/**
+ * Serializes events with a {@link JsonGenerator} writing UTF-8 straight into a thread-confined
+ * {@link RecordBuffer}, instead of building an intermediate String.
+ * <p>
+ * A {@link QueryCompletedEvent} is written by {@link QueryCompletedEventSerializer} in the
+ * {@link CustomQueryCompletedEvent} schema, without converting it first. For {@link OutputFormat#BINARY}, a
+ * {@link BinaryGenerator} takes the place of the JSON one.
+ */
+final class EventSerializer {
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter createdWriter;
+    private final ObjectWriter completedWriter;
+    private final ObjectWriter defaultWriter;
+    private final boolean binary;
+    private final QueryFingerprinter fingerprinter;
+    private final ThreadLocal<RecordBuffer> buffers = ThreadLocal.withInitial(RecordBuffer::new);
+
+    EventSerializer(ObjectMapper mapper, QueryLogListenerProperties properties) {
+        this(mapper, properties, null);
+    }
+
+    /**
+     * @param dictionary replaces the query text of created and completed events by its hash, or {@code null}
+     */
+    EventSerializer(ObjectMapper mapper, QueryLogListenerProperties properties, QueryTextDictionary dictionary) {
+        this(mapper, properties, dictionary, false);
+    }
+
+    /**
+     * @param dictionary replaces the query text of created and completed events by its hash, or {@code null}
+     * @param binary     write records with a {@link BinaryGenerator}, for {@link BinaryBlockEncoder}
+     */
+    EventSerializer(ObjectMapper mapper, QueryLogListenerProperties properties, QueryTextDictionary dictionary, boolean binary) {
+        FieldProjection fields = FieldProjection.of(properties.getQueryCompletedFields());
+        this.fingerprinter = properties.isQueryCompletedFingerprint() ? new QueryFingerprinter(properties.getQueryCompletedFingerprintCacheSize()) : null;
+        // a copy, so the query text handling does not depend on how the caller configured its mapper
+        this.mapper = mapper.copy()
+            .registerModule(new QueryTextModule())
+            .registerModule(new SimpleModule(QueryCompletedEventSerializer.class.getSimpleName())
+                .addSerializer(QueryCompletedEvent.class, new QueryCompletedEventSerializer(fields, fields.isAll() ? Collections.emptyList() : contextFields(mapper))));
+        this.createdWriter = this.mapper.writer()
+            .withAttribute(QueryTextModule.MAX_LENGTH, properties.getQueryCreatedQueryMaxLength())
+            .withAttribute(QueryTextModule.LENGTH_UNIT, properties.getQueryMaxLengthUnit())
+            .withAttribute(QueryTextModule.DICTIONARY, dictionary);
+        this.completedWriter = this.mapper.writer()
+            .withAttribute(QueryTextModule.MAX_LENGTH, properties.getQueryCompletedQueryMaxLength())
+            .withAttribute(QueryTextModule.LENGTH_UNIT, properties.getQueryMaxLengthUnit())
+            .withAttribute(QueryTextModule.DICTIONARY, dictionary)
+            .withAttribute(QueryTextModule.FINGERPRINTER, fingerprinter);
+        this.defaultWriter = this.mapper.writer();
+        this.binary = binary;
+    }
+
+    /**
+     * @return the fingerprinter of completed events, or {@code null} when they are not fingerprinted
+     */
+    QueryFingerprinter getFingerprinter() {
+        return fingerprinter;
+    }
+
+    /**
+     * @return the properties {@code mapper} writes a {@link QueryContext} with
+     */
+    private static List<String> contextFields(ObjectMapper mapper) {
+        return mapper.getSerializationConfig().introspect(mapper.constructType(QueryContext.class)).findProperties().stream()
+            .map(BeanPropertyDefinition::getName)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the calling thread's buffer holding the record, valid until its next call.
+     */
+    RecordBuffer serialize(Object value) throws IOException {
+        ObjectWriter writer = defaultWriter;
+        if (value instanceof CreatedEventBuffer.Hold) {
+            value = ((CreatedEventBuffer.Hold) value).getEvent();
+        }
+        if (value instanceof SampledQueryCompletedEvent) {
+            SampledQueryCompletedEvent sampled = (SampledQueryCompletedEvent) value;
+            writer = completedWriter.withAttribute(QueryCompletedEventSerializer.SAMPLING_WEIGHT, sampled.getSamplingWeight());
+            value = sampled.getEvent();
+        } else if (value instanceof QueryCompletedEvent || value instanceof CustomQueryCompletedEvent) {
+            writer = completedWriter;
+        } else if (value instanceof QueryCreatedEvent) {
+            writer = createdWriter;
+        }
+        RecordBuffer buffer = buffers.get();
+        buffer.reset();
+        try (JsonGenerator generator = binary
+            ? new BinaryGenerator(buffer, mapper.getFactory().getGeneratorFeatures(), mapper)
+            : mapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8)) {
+            writer.writeValue(generator, value);
+        }
+        return buffer;
+    }
+}
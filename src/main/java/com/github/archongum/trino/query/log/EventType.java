@@ -0,0 +1,58 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import io.trino.spi.eventlistener.SplitCompletedEvent;
+
+
+/**
+ * Kinds of records, which outputs and sinks are routed.
+ */
+public enum EventType {
+    QUERY_CREATED,
+    QUERY_COMPLETED,
+    SPLIT_COMPLETED,
+    WORKLOAD_SUMMARY,
+    IN_FLIGHT_SNAPSHOT;
+
+    public static EventType of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @param value comma separated types, or {@code ALL}
+     */
+    public static Set<EventType> setOf(String value) {
+        if (value.trim().equalsIgnoreCase("ALL")) {
+            return EnumSet.allOf(EventType.class);
+        }
+        Set<EventType> types = EnumSet.noneOf(EventType.class);
+        for (String type : value.split(",")) {
+            if (!type.isBlank()) {
+                types.add(of(type));
+            }
+        }
+        return types;
+    }
+
+    /**
+     * @return the type of an event handed to the writer, split rollups being split events
+     */
+    static EventType of(Object event) {
+        if (event instanceof QueryCreatedEvent || event instanceof CreatedEventBuffer.Hold || event instanceof CreatedEventBuffer.Entry) {
+            return QUERY_CREATED;
+        }
+        if (event instanceof SplitCompletedEvent || event instanceof SplitRollup) {
+            return SPLIT_COMPLETED;
+        }
+        if (event instanceof WorkloadSummary) {
+            return WORKLOAD_SUMMARY;
+        }
+        if (event instanceof InFlightSnapshot) {
+            return IN_FLIGHT_SNAPSHOT;
+        }
+        return QUERY_COMPLETED;
+    }
+}
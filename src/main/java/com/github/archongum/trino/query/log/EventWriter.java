@@ -0,0 +1,39 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+
+/**
+ * Destination of serialized events, one record per line.
+ */
+interface EventWriter extends Closeable {
+
+    /**
+     * Write one UTF-8 encoded record, without line separator. The bytes may be reused by the caller
+     * as soon as this method returns.
+     */
+    void write(byte[] record, int offset, int length) throws IOException;
+
+    /**
+     * Write one record, to be found by {@code key} in an index, if the destination keeps one.
+     *
+     * @param key of the record, or {@code null}
+     */
+    default void write(byte[] record, int offset, int length, IndexKey key) throws IOException {
+        write(record, offset, length);
+    }
+
+    /**
+     * Push buffered records to the destination. Called when there is nothing more to write for now.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Write buffered records to the destination before returning, even where {@link #flush()} leaves them to a
+     * timer, e.g. before records are let go of elsewhere.
+     */
+    default void commit() throws IOException {
+        flush();
+    }
+}
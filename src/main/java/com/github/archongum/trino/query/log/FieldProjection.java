@@ -0,0 +1,108 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Which fields of a JSON schema are written, from a comma separated list of paths such as
+ * {@code metadata.queryId,statistics,-statistics.failedCpuSecond}.
+ * <p>
+ * A path names a top level field, or a field of a top level object. Without any included path, every field is
+ * written; otherwise the included ones are, with all their fields for objects, along with the objects holding
+ * them. A path prefixed with {@code -} is excluded, with all its fields, whether it is included or not.
+ */
+final class FieldProjection {
+
+    static final FieldProjection ALL = new FieldProjection(new HashSet<>(), new HashSet<>());
+
+    private final Set<String> includes;
+    private final Set<String> excludes;
+
+    private FieldProjection(Set<String> includes, Set<String> excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    static FieldProjection of(String paths) {
+        Set<String> includes = new HashSet<>();
+        Set<String> excludes = new HashSet<>();
+        for (String path : paths.split(",")) {
+            path = path.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+            boolean excluded = path.startsWith("-");
+            if (excluded) {
+                path = path.substring(1).trim();
+            }
+            String[] names = path.split("\\.", -1);
+            if (names.length > 2 || names[0].isEmpty() || (names.length == 2 && names[1].isEmpty())) {
+                throw new IllegalArgumentException("Invalid field path: " + path);
+            }
+            (excluded ? excludes : includes).add(path);
+        }
+        return includes.isEmpty() && excludes.isEmpty() ? ALL : new FieldProjection(includes, excludes);
+    }
+
+    /**
+     * Fail on a path naming no field of {@code schema}, the fields of each top level object, or an empty
+     * collection for the other top level fields.
+     */
+    void validate(Map<String, ? extends Collection<String>> schema) {
+        List<String> paths = new ArrayList<>(includes);
+        paths.addAll(excludes);
+        for (String path : paths) {
+            int dot = path.indexOf('.');
+            Collection<String> fields = schema.get(dot < 0 ? path : path.substring(0, dot));
+            if (fields == null || (dot >= 0 && !fields.contains(path.substring(dot + 1)))) {
+                throw new IllegalArgumentException("Unknown field path: " + path);
+            }
+        }
+    }
+
+    /**
+     * @param path a top level field, or {@code object.field}
+     */
+    boolean writes(String path) {
+        int dot = path.indexOf('.');
+        String parent = dot < 0 ? null : path.substring(0, dot);
+        if (excludes.contains(path) || (parent != null && excludes.contains(parent))) {
+            return false;
+        }
+        if (includes.isEmpty() || includes.contains(path) || (parent != null && includes.contains(parent))) {
+            return true;
+        }
+        String prefix = path + '.';
+        for (String include : includes) {
+            if (include.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether {@code object} is written with all its fields
+     */
+    boolean writesAll(String object) {
+        if (!writes(object) || (!includes.isEmpty() && !includes.contains(object))) {
+            return false;
+        }
+        String prefix = object + '.';
+        for (String exclude : excludes) {
+            if (exclude.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isAll() {
+        return this == ALL;
+    }
+}
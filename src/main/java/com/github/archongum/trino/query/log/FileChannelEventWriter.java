@@ -0,0 +1,450 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Appends records straight to a file channel, skipping logback's String, LoggingEvent and layout re-encoding.
+ * <p>
+ * Records from any number of threads are copied into a large direct buffer and written as one group commit
+ * when it is full or every {@code flushIntervalMillis}. There are two buffers, so appending goes on into
+ * one while the other is being written. With a flush interval of 0, {@link #flush()} commits instead,
+ * i.e. whenever the listener has nothing more to write.
+ * <p>
+ * With several {@code stripes}, each has its own pair of buffers and lock, and a thread always appends to the
+ * stripe of its id, so threads writing at once rarely wait for each other. A commit writes the stripes one after
+ * the other: records stay whole and in order per thread, but records of different threads may be reordered.
+ * <p>
+ * With {@link OutputCompression#GZIP} every commit is compressed into an independent gzip member as it is
+ * written, rather than compressing whole files when they roll. Likewise, {@link OutputFormat#BINARY} turns every
+ * commit into a {@link BinaryBlockEncoder block} with its own string table.
+ * <p>
+ * When indexed, the {@link IndexKey}s of the records of a commit are appended to the {@link QueryLogIndex} sidecar
+ * of the file once the commit is written, by the same thread, and the sidecar rolls along with the file.
+ * <p>
+ * A buffer that fails to be written is kept, the file cut back to where it began, and written again whole before
+ * anything else: until then, {@link #write} and {@link #flush()} try again and throw while it still fails, so a
+ * failing flusher is not missed. A buffer failing once written, e.g. to fsync, may be written twice.
+ */
+final class FileChannelEventWriter implements EventWriter {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final Path file;
+    private final FsyncPolicy fsyncPolicy;
+    private final FileRollingPolicy rollingPolicy;
+    private final Clock clock;
+    private final ScheduledExecutorService flusher;
+    private final boolean ownFlusher;
+    private final ScheduledFuture<?> flushing;
+    private final BlockEncoder encoder;
+    private final QueryLogIndexWriter index;
+    private final ChannelOpener opener;
+
+    private final Stripe[] stripes;
+    private volatile boolean closed;
+    // the last failure to commit, until a commit of every stripe succeeds
+    private volatile IOException failure;
+
+    // guarded by ioLock, which is taken before the lock of a stripe
+    private final Object ioLock = new Object();
+    private FileChannel channel;
+    private boolean rollable;
+    private long fileSize;
+    private LocalDate fileDate;
+
+    FileChannelEventWriter(Path file, int bufferSize, long flushIntervalMillis, FsyncPolicy fsyncPolicy, FileRollingPolicy rollingPolicy, Clock clock) throws IOException {
+        this(file, bufferSize, flushIntervalMillis, fsyncPolicy, rollingPolicy, clock, null, false);
+    }
+
+    /**
+     * @param encoder encodes each commit, such as {@link GzipBlockEncoder}, or {@code null}
+     */
+    FileChannelEventWriter(Path file, int bufferSize, long flushIntervalMillis, FsyncPolicy fsyncPolicy, FileRollingPolicy rollingPolicy, Clock clock,
+        BlockEncoder encoder) throws IOException {
+        this(file, bufferSize, flushIntervalMillis, fsyncPolicy, rollingPolicy, clock, encoder, false);
+    }
+
+    /**
+     * @param encoder encodes each commit, such as {@link GzipBlockEncoder}, or {@code null}
+     * @param indexed keep a {@link QueryLogIndex} sidecar of the records written with a key
+     */
+    FileChannelEventWriter(Path file, int bufferSize, long flushIntervalMillis, FsyncPolicy fsyncPolicy, FileRollingPolicy rollingPolicy, Clock clock,
+        BlockEncoder encoder, boolean indexed) throws IOException {
+        this(file, bufferSize, flushIntervalMillis, fsyncPolicy, rollingPolicy, clock, encoder, indexed, 1);
+    }
+
+    /**
+     * @param encoder encodes each commit, such as {@link GzipBlockEncoder}, or {@code null}
+     * @param indexed keep a {@link QueryLogIndex} sidecar of the records written with a key
+     * @param stripes number of buffer pairs, of {@code bufferSize} each, threads append to
+     */
+    FileChannelEventWriter(Path file, int bufferSize, long flushIntervalMillis, FsyncPolicy fsyncPolicy, FileRollingPolicy rollingPolicy, Clock clock,
+        BlockEncoder encoder, boolean indexed, int stripes) throws IOException {
+        this(file, bufferSize, flushIntervalMillis, fsyncPolicy, rollingPolicy, clock, encoder, indexed, stripes, null);
+    }
+
+    /**
+     * @param encoder encodes each commit, such as {@link GzipBlockEncoder}, or {@code null}
+     * @param indexed keep a {@link QueryLogIndex} sidecar of the records written with a key
+     * @param stripes number of buffer pairs, of {@code bufferSize} each, threads append to
+     * @param flusher commits every {@code flushIntervalMillis}, shared with other writers and left running on close,
+     *                or {@code null} for a thread of this writer
+     */
+    FileChannelEventWriter(Path file, int bufferSize, long flushIntervalMillis, FsyncPolicy fsyncPolicy, FileRollingPolicy rollingPolicy, Clock clock,
+        BlockEncoder encoder, boolean indexed, int stripes, ScheduledExecutorService flusher) throws IOException {
+        this(file, bufferSize, flushIntervalMillis, fsyncPolicy, rollingPolicy, clock, encoder, indexed, stripes, flusher,
+            path -> FileChannel.open(path, CREATE, WRITE, APPEND));
+    }
+
+    /**
+     * @param opener opens the file, and the next one after rolling, for appending
+     */
+    FileChannelEventWriter(Path file, int bufferSize, long flushIntervalMillis, FsyncPolicy fsyncPolicy, FileRollingPolicy rollingPolicy, Clock clock,
+        BlockEncoder encoder, boolean indexed, int stripes, ScheduledExecutorService flusher, ChannelOpener opener) throws IOException {
+        if (bufferSize < 1 || flushIntervalMillis < 0 || stripes < 1) {
+            throw new IllegalArgumentException("Invalid buffer size, flush interval or stripes");
+        }
+        this.fsyncPolicy = requireNonNull(fsyncPolicy, "fsyncPolicy is null");
+        this.rollingPolicy = requireNonNull(rollingPolicy, "rollingPolicy is null");
+        this.file = rollingPolicy.activeFile(file.toAbsolutePath());
+        this.encoder = encoder;
+        this.clock = requireNonNull(clock, "clock is null");
+        this.opener = requireNonNull(opener, "opener is null");
+        Files.createDirectories(this.file.getParent());
+        open();
+        // devices are not indexed either
+        this.index = indexed && rollable ? new QueryLogIndexWriter(this.file) : null;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(bufferSize, index != null);
+        }
+        if (flushIntervalMillis > 0) {
+            this.ownFlusher = flusher == null;
+            this.flusher = ownFlusher ? newFlusher() : flusher;
+            this.flushing = this.flusher.scheduleWithFixedDelay(() -> {
+                try {
+                    commit();
+                } catch (IOException ignored) {
+                }
+            }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+            this.ownFlusher = false;
+            this.flushing = null;
+        }
+    }
+
+    /**
+     * @return a thread to commit writers every flush interval
+     */
+    static ScheduledExecutorService newFlusher() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trino-query-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length) throws IOException {
+        write(record, offset, length, null);
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length, IndexKey key) throws IOException {
+        if (failure != null && !closed) {
+            commit();
+        }
+        Stripe stripe = stripes.length == 1 ? stripes[0] : stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+        while (true) {
+            synchronized (stripe) {
+                if (closed) {
+                    throw new IOException("Writer is closed");
+                }
+                if (length + 1 <= stripe.active.remaining()) {
+                    if (key != null && stripe.activeKeys != null) {
+                        stripe.activeKeys.add(key, stripe.active.position());
+                    }
+                    stripe.active.put(record, offset, length).put(NEW_LINE);
+                    return;
+                }
+                if (length + 1 > stripe.active.capacity()) {
+                    break;
+                }
+            }
+            synchronized (ioLock) {
+                commit(stripe);
+            }
+        }
+        // larger than a buffer: commit what is pending in the stripe, then write it as is
+        synchronized (ioLock) {
+            commit(stripe);
+            ByteBuffer large = ByteBuffer.allocate(length + 1);
+            large.put(record, offset, length).put(NEW_LINE).flip();
+            PendingKeys keys = null;
+            if (key != null && index != null) {
+                keys = new PendingKeys();
+                keys.add(key, 0);
+            }
+            writeLocked(large, keys);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (flushing == null || failure != null) {
+            commit();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flushing != null) {
+            flushing.cancel(false);
+        }
+        if (ownFlusher) {
+            flusher.shutdown();
+        }
+        synchronized (ioLock) {
+            try {
+                commit();
+                if (fsyncPolicy != FsyncPolicy.NEVER) {
+                    channel.force(false);
+                }
+            } finally {
+                closed = true;
+                if (encoder != null) {
+                    encoder.close();
+                }
+                try {
+                    if (index != null) {
+                        index.close();
+                    }
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Commit every stripe, written to the file once this returns, whatever the flush interval.
+     */
+    @Override
+    public void commit() throws IOException {
+        synchronized (ioLock) {
+            for (Stripe stripe : stripes) {
+                commit(stripe);
+            }
+            failure = null;
+        }
+    }
+
+    /**
+     * Write the buffer of a stripe that failed, if any, then swap the buffers and write the one records were
+     * appended to. Called with ioLock held.
+     */
+    private void commit(Stripe stripe) throws IOException {
+        if (stripe.failed != null) {
+            ByteBuffer failed = stripe.failed;
+            PendingKeys failedKeys = stripe.failedKeys;
+            failed.rewind();
+            writeOrKeep(stripe, failed, failedKeys);
+            stripe.failed = null;
+            stripe.failedKeys = null;
+            release(stripe, failed, failedKeys);
+        }
+        ByteBuffer full;
+        PendingKeys keys;
+        synchronized (stripe) {
+            if (stripe.active.position() == 0) {
+                return;
+            }
+            full = stripe.active;
+            stripe.active = stripe.spare;
+            stripe.spare = null;
+            keys = stripe.activeKeys;
+            stripe.activeKeys = stripe.spareKeys;
+            stripe.spareKeys = null;
+        }
+        full.flip();
+        writeOrKeep(stripe, full, keys);
+        release(stripe, full, keys);
+    }
+
+    /**
+     * Write a buffer of a stripe, keeping it as the failed one of the stripe if that fails.
+     */
+    private void writeOrKeep(Stripe stripe, ByteBuffer records, PendingKeys keys) throws IOException {
+        try {
+            writeLocked(records, keys);
+        } catch (IOException | RuntimeException e) {
+            stripe.failed = records;
+            stripe.failedKeys = keys;
+            IOException failed = e instanceof IOException ? (IOException) e : new IOException("Failed to write " + file, e);
+            failure = failed;
+            throw failed;
+        }
+    }
+
+    /**
+     * Give a written buffer back to its stripe, to append to once the other one is full.
+     */
+    private static void release(Stripe stripe, ByteBuffer buffer, PendingKeys keys) {
+        buffer.clear();
+        if (keys != null) {
+            keys.clear();
+        }
+        synchronized (stripe) {
+            stripe.spare = buffer;
+            stripe.spareKeys = keys;
+        }
+    }
+
+    /**
+     * @param keys of the records, or {@code null}
+     */
+    private void writeLocked(ByteBuffer records, PendingKeys keys) throws IOException {
+        if (encoder != null) {
+            records = encoder.encode(records);
+        }
+        LocalDate today = LocalDate.now(clock);
+        if (fileSize == 0) {
+            fileDate = today;
+        }
+        if (rollable && rollingPolicy.shouldRoll(fileSize, records.remaining(), fileDate, today)) {
+            roll(today);
+        }
+        long blockOffset = fileSize;
+        int length = records.remaining();
+        try {
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+        } catch (IOException e) {
+            // no line written in part, nor a gzip member, when it is written again
+            try {
+                channel.truncate(blockOffset);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        fileSize += length;
+        if (fsyncPolicy == FsyncPolicy.COMMIT) {
+            channel.force(false);
+        }
+        if (index != null && keys != null) {
+            keys.appendTo(index, blockOffset, encoder != null);
+            index.flush();
+        }
+    }
+
+    private void roll(LocalDate today) throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            channel.force(false);
+        }
+        channel.close();
+        Path rolled = rollingPolicy.rolledFile(file, fileDate);
+        Files.createDirectories(rolled.getParent());
+        Files.move(file, rolled, ATOMIC_MOVE);
+        if (index != null) {
+            index.roll(rolled);
+        }
+        open();
+        rollingPolicy.applyRetention(file, today);
+    }
+
+    private void open() throws IOException {
+        channel = opener.open(file);
+        // devices such as /dev/null are written to, but never rolled
+        rollable = Files.isRegularFile(file);
+        fileSize = channel.size();
+        // an existing file holds records of the day it was last written to
+        fileDate = fileSize == 0 ? LocalDate.now(clock) : LocalDate.ofInstant(Files.getLastModifiedTime(file).toInstant(), clock.getZone());
+    }
+
+    /**
+     * Opens the file channel records are appended to.
+     */
+    interface ChannelOpener {
+        FileChannel open(Path file) throws IOException;
+    }
+
+    /**
+     * Buffers records are appended to, guarded by the stripe itself. The spare one is taken, or failed, only
+     * under ioLock.
+     */
+    private static final class Stripe {
+        private ByteBuffer active;
+        private ByteBuffer spare;
+        private PendingKeys activeKeys;
+        private PendingKeys spareKeys;
+        // instead of the spare one until written, guarded by ioLock
+        private ByteBuffer failed;
+        private PendingKeys failedKeys;
+
+        private Stripe(int bufferSize, boolean indexed) {
+            this.active = ByteBuffer.allocateDirect(bufferSize);
+            this.spare = ByteBuffer.allocateDirect(bufferSize);
+            if (indexed) {
+                this.activeKeys = new PendingKeys();
+                this.spareKeys = new PendingKeys();
+            }
+        }
+    }
+
+    /**
+     * Keys of the records appended to a buffer, with their positions in it.
+     */
+    private static final class PendingKeys {
+        private IndexKey[] keys = new IndexKey[64];
+        private int[] positions = new int[64];
+        private int size;
+
+        private void add(IndexKey key, int position) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            keys[size] = key;
+            positions[size] = position;
+            size++;
+        }
+
+        /**
+         * @param blockOffset where the buffer was written, as a gzip member when {@code compressed}
+         */
+        private void appendTo(QueryLogIndexWriter index, long blockOffset, boolean compressed) {
+            for (int i = 0; i < size; i++) {
+                if (compressed) {
+                    index.append(keys[i], blockOffset, positions[i]);
+                } else {
+                    index.append(keys[i], blockOffset + positions[i], 0);
+                }
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(keys, 0, size, null);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Size and time based rolling in the directory layout of the bundled logback configuration:
+ * {@code <dir>/trino-query-log.log} is the active file, rolled into
+ * {@code <dir>/yyyy-MM-dd/trino-query-log.yyyy-MM-dd.<index>.log} (or {@code .gz} when compressed) when it exceeds {@code maxFileSize}
+ * or the day changes. Day directories older than {@code maxHistory} days are deleted, then the oldest
+ * rolled files until they fit in {@code totalSizeCap}. A {@link QueryLogIndex} sidecar of a rolled file is deleted with it.
+ */
+final class FileRollingPolicy {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final String EXTENSION = ".log";
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private final long maxFileSize;
+    private final int maxHistory;
+    private final long totalSizeCap;
+    private final String rolledExtension;
+
+    FileRollingPolicy(long maxFileSize, int maxHistory, long totalSizeCap) {
+        this(maxFileSize, maxHistory, totalSizeCap, OutputCompression.NONE);
+    }
+
+    /**
+     * @param maxFileSize  bytes, or 0 for no size based rolling
+     * @param maxHistory   days, or 0 to keep every day
+     * @param totalSizeCap bytes, or 0 for no cap
+     */
+    FileRollingPolicy(long maxFileSize, int maxHistory, long totalSizeCap, OutputCompression compression) {
+        if (maxFileSize < 0 || maxHistory < 0 || totalSizeCap < 0) {
+            throw new IllegalArgumentException("Invalid rolling limits");
+        }
+        this.maxFileSize = maxFileSize;
+        this.maxHistory = maxHistory;
+        this.totalSizeCap = totalSizeCap;
+        this.rolledExtension = compression == OutputCompression.GZIP ? GZIP_EXTENSION : EXTENSION;
+    }
+
+    /**
+     * @return the active file for {@code file}, with a {@code .gz} suffix when compressed
+     */
+    Path activeFile(Path file) {
+        if (rolledExtension.equals(GZIP_EXTENSION) && !file.getFileName().toString().endsWith(GZIP_EXTENSION)) {
+            return file.resolveSibling(file.getFileName() + GZIP_EXTENSION);
+        }
+        return file;
+    }
+
+    /**
+     * @param fileSize bytes already in the active file
+     * @param incoming bytes about to be appended
+     */
+    boolean shouldRoll(long fileSize, long incoming, LocalDate fileDate, LocalDate today) {
+        if (fileSize == 0) {
+            return false;
+        }
+        return !fileDate.equals(today) || (maxFileSize > 0 && fileSize + incoming > maxFileSize);
+    }
+
+    /**
+     * @return the rolled file name for the records of {@code date}, after the ones rolled already that day
+     */
+    Path rolledFile(Path activeFile, LocalDate date) throws IOException {
+        Path directory = historyDirectory(activeFile, date);
+        String prefix = baseName(activeFile) + "." + DATE.format(date) + ".";
+        int index = 0;
+        if (Files.isDirectory(directory)) {
+            List<Path> rolled = rolledFiles(directory, activeFile);
+            if (!rolled.isEmpty()) {
+                index = index(rolled.get(rolled.size() - 1), prefix) + 1;
+            }
+        }
+        return directory.resolve(prefix + index + rolledExtension);
+    }
+
+    void applyRetention(Path activeFile, LocalDate today) throws IOException {
+        Path root = activeFile.toAbsolutePath().getParent();
+        List<Path> days = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path entry : entries) {
+                if (parseDate(entry) != null) {
+                    days.add(entry);
+                }
+            }
+        }
+        days.sort(Comparator.comparing(FileRollingPolicy::parseDate));
+        if (maxHistory > 0) {
+            LocalDate oldestKept = today.minusDays(maxHistory);
+            for (Path day : new ArrayList<>(days)) {
+                if (parseDate(day).isBefore(oldestKept)) {
+                    deleteRolledFiles(day, activeFile, Long.MAX_VALUE);
+                    days.remove(day);
+                }
+            }
+        }
+        if (totalSizeCap > 0) {
+            long total = 0;
+            for (Path day : days) {
+                for (Path file : rolledFiles(day, activeFile)) {
+                    total += Files.size(file);
+                }
+            }
+            for (Path day : days) {
+                if (total <= totalSizeCap) {
+                    break;
+                }
+                total -= deleteRolledFiles(day, activeFile, total - totalSizeCap);
+            }
+        }
+    }
+
+    /**
+     * @param from first day, or {@code null} for the oldest
+     * @param to   last day, or {@code null} for the latest
+     * @return the rolled files of {@code activeFile} from {@code from} to {@code to}, oldest first
+     */
+    static List<Path> historyFiles(Path activeFile, LocalDate from, LocalDate to) throws IOException {
+        Path root = activeFile.toAbsolutePath().getParent();
+        List<Path> days = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path entry : entries) {
+                LocalDate date = parseDate(entry);
+                if (date != null && (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to))) {
+                    days.add(entry);
+                }
+            }
+        }
+        days.sort(Comparator.comparing(FileRollingPolicy::parseDate));
+        List<Path> files = new ArrayList<>();
+        for (Path day : days) {
+            files.addAll(rolledFiles(day, activeFile));
+        }
+        return files;
+    }
+
+    private static Path historyDirectory(Path activeFile, LocalDate date) {
+        return activeFile.toAbsolutePath().getParent().resolve(DATE.format(date));
+    }
+
+    private static String baseName(Path activeFile) {
+        String name = activeFile.getFileName().toString();
+        if (name.endsWith(GZIP_EXTENSION)) {
+            name = name.substring(0, name.length() - GZIP_EXTENSION.length());
+        }
+        return name.endsWith(EXTENSION) ? name.substring(0, name.length() - EXTENSION.length()) : name;
+    }
+
+    private static LocalDate parseDate(Path directory) {
+        try {
+            return LocalDate.parse(directory.getFileName().toString(), DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the rolled files of one day directory, oldest first
+     */
+    private static List<Path> rolledFiles(Path day, Path activeFile) throws IOException {
+        String prefix = baseName(activeFile) + "." + day.getFileName() + ".";
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(day,
+            entry -> entry.getFileName().toString().startsWith(prefix) && !entry.getFileName().toString().endsWith(QueryLogIndex.EXTENSION)
+                && index(entry, prefix) != Integer.MAX_VALUE)) {
+            entries.forEach(files::add);
+        }
+        files.sort(Comparator.comparingInt(file -> index(file, prefix)));
+        return files;
+    }
+
+    private static int index(Path file, String prefix) {
+        String name = file.getFileName().toString();
+        int end = name.indexOf('.', prefix.length());
+        try {
+            return Integer.parseInt(name.substring(prefix.length(), end < 0 ? name.length() : end));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Delete rolled files of a day, oldest first, until {@code bytes} are freed.
+     *
+     * @return bytes freed
+     */
+    private static long deleteRolledFiles(Path day, Path activeFile, long bytes) throws IOException {
+        long freed = 0;
+        for (Path file : rolledFiles(day, activeFile)) {
+            if (freed >= bytes) {
+                break;
+            }
+            long size = Files.size(file);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(QueryLogIndex.indexFile(file));
+            freed += size;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(day)) {
+            if (!entries.iterator().hasNext()) {
+                Files.deleteIfExists(day);
+            }
+        }
+        return freed;
+    }
+}
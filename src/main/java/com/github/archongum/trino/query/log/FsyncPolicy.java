@@ -0,0 +1,26 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * When {@code FILE} output forces written records to disk, on top of what the OS does by itself.
+ */
+public enum FsyncPolicy {
+    /**
+     * Leave it to the OS.
+     */
+    NEVER,
+    /**
+     * Before a file is rolled.
+     */
+    ROLL,
+    /**
+     * After every group commit.
+     */
+    COMMIT;
+
+    public static FsyncPolicy of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.archongum.trino.query.log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+/**
+ * Compresses blocks of records into independent gzip members. Concatenated members are a valid gzip
+ * file (RFC 1952), so {@code zcat} and {@code GZIPInputStream} read the whole file, while a reader can
+ * also start decoding at any member boundary.
+ * <p>
+ * Not thread safe, the writer calls it under its I/O lock.
+ */
+final class GzipBlockEncoder implements BlockEncoder {
+
+    private static final byte[] HEADER = {
+        0x1f, (byte) 0x8b, // magic
+        Deflater.DEFLATED, // method
+        0, // flags
+        0, 0, 0, 0, // mtime
+        0, // extra flags
+        (byte) 0xff // OS: unknown
+    };
+    private static final int TRAILER_SIZE = 8;
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer output;
+
+    GzipBlockEncoder(int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 1 and 9: " + level);
+        }
+        this.deflater = new Deflater(level, true);
+        this.output = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return a gzip member of the remaining bytes of {@code block}, valid until the next call
+     */
+    @Override
+    public ByteBuffer encode(ByteBuffer block) {
+        int length = block.remaining();
+        crc.reset();
+        crc.update(block.duplicate());
+        ensureCapacity(HEADER.length + length + length / 1000 + 64 + TRAILER_SIZE);
+        output.clear();
+        output.put(HEADER);
+        deflater.reset();
+        deflater.setInput(block);
+        deflater.finish();
+        while (!deflater.finished()) {
+            if (!output.hasRemaining()) {
+                ensureCapacity(output.capacity() * 2);
+            }
+            deflater.deflate(output);
+        }
+        if (output.remaining() < TRAILER_SIZE) {
+            ensureCapacity(output.capacity() + TRAILER_SIZE);
+        }
+        output.putInt((int) crc.getValue());
+        output.putInt(length);
+        output.flip();
+        return output;
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (output.capacity() >= capacity) {
+            return;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        output.flip();
+        larger.put(output);
+        output = larger;
+    }
+}
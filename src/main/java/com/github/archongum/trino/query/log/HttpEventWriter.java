@@ -0,0 +1,91 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * POSTs records as newline delimited JSON, one request per {@link #flush()}, e.g. to the HTTP source of a log
+ * agent. With {@link OutputCompression#GZIP} the body is a gzip member sent with {@code Content-Encoding: gzip}.
+ * <p>
+ * A flush fails on any status but 2xx, and discards the buffered records either way, so they are sent again, or
+ * not, by the caller.
+ * <p>
+ * Not thread safe.
+ */
+final class HttpEventWriter implements EventWriter {
+
+    private static final byte NEW_LINE = '\n';
+    private static final int GZIP_LEVEL = 6;
+
+    private final URI uri;
+    private final Duration timeout;
+    private final HttpClient client;
+    private final GzipBlockEncoder encoder;
+    private final RecordBuffer buffer = new RecordBuffer();
+
+    HttpEventWriter(URI uri, Duration timeout, OutputCompression compression) {
+        this.uri = requireNonNull(uri, "uri is null");
+        this.timeout = requireNonNull(timeout, "timeout is null");
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.encoder = compression == OutputCompression.GZIP ? new GzipBlockEncoder(GZIP_LEVEL) : null;
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length) {
+        buffer.write(record, offset, length);
+        buffer.write(NEW_LINE);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffer.size() == 0) {
+            return;
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+            .timeout(timeout)
+            .header("Content-Type", "application/x-ndjson");
+        byte[] body;
+        try {
+            if (encoder != null) {
+                ByteBuffer encoded = encoder.encode(ByteBuffer.wrap(buffer.array(), 0, buffer.size()));
+                body = new byte[encoded.remaining()];
+                encoded.get(body);
+                request.header("Content-Encoding", "gzip");
+            } else {
+                body = Arrays.copyOf(buffer.array(), buffer.size());
+            }
+        } finally {
+            buffer.reset();
+        }
+        HttpResponse<Void> response;
+        try {
+            response = client.send(request.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(), HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted sending to " + uri);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Failed to send to " + uri + ": HTTP " + response.statusCode());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (encoder != null) {
+                encoder.close();
+            }
+        }
+    }
+}
@@ -6,19 +6,25 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 
 
 /**
  * see: https://stackoverflow.com/a/64555340/9756912
+ * <p>
+ * Reads every {@link TimestampFormat}.
  */
 public class ISOInstantDeserializer extends JsonDeserializer<Instant> {
 
-    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[.SSS]").withZone(ZoneOffset.UTC);
 
     @Override
     public Instant deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
+        if (jsonParser.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+            return Instant.ofEpochMilli(jsonParser.getLongValue());
+        }
         return Instant.from(dateTimeFormatter.parse(jsonParser.getText()));
     }
 }
@@ -2,23 +2,90 @@ package com.github.archongum.trino.query.log;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import static java.util.Objects.requireNonNull;
 
 
 /**
  * see: https://stackoverflow.com/a/64555340/9756912
+ * <p>
+ * Each thread caches the {@code "yyyy-MM-dd HH:mm:"} prefix of the last minute it wrote, and only puts the
+ * seconds (and millis) digits into its char buffer, so a timestamp costs no allocation.
  */
 public class ISOInstantSerializer extends JsonSerializer<Instant> {
 
+    private static final int MAX_CACHED_YEAR = 9999;
+
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+    private final TimestampFormat format;
+    private final ThreadLocal<MinuteCache> caches = ThreadLocal.withInitial(MinuteCache::new);
+
+    public ISOInstantSerializer() {
+        this(TimestampFormat.SECONDS);
+    }
+
+    public ISOInstantSerializer(TimestampFormat format) {
+        this.format = requireNonNull(format, "format is null");
+    }
 
     @Override
     public void serialize(Instant instant, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException, JsonProcessingException {
-        jsonGenerator.writeString(dateTimeFormatter.format(instant));
+        if (format == TimestampFormat.EPOCH_MILLIS) {
+            jsonGenerator.writeNumber(instant.toEpochMilli());
+            return;
+        }
+        long epochSecond = instant.getEpochSecond();
+        long epochMinute = Math.floorDiv(epochSecond, 60);
+        MinuteCache cache = caches.get();
+        if (cache.epochMinute != epochMinute && !cache.setMinute(epochMinute)) {
+            // outside of years 1-9999 the fixed width layout does not hold
+            String text = dateTimeFormatter.format(instant);
+            jsonGenerator.writeString(format == TimestampFormat.MILLIS ? text + String.format(".%03d", instant.getNano() / 1_000_000) : text);
+            return;
+        }
+        char[] chars = cache.chars;
+        writeDigits(chars, 17, Math.floorMod(epochSecond, 60), 2);
+        if (format == TimestampFormat.MILLIS) {
+            chars[19] = '.';
+            writeDigits(chars, 20, instant.getNano() / 1_000_000, 3);
+            jsonGenerator.writeString(chars, 0, 23);
+        } else {
+            jsonGenerator.writeString(chars, 0, 19);
+        }
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static final class MinuteCache {
+        private final char[] chars = "0000-00-00 00:00:00.000".toCharArray();
+        private long epochMinute = Long.MIN_VALUE;
+
+        /**
+         * @return {@code false} if the minute can not be cached
+         */
+        private boolean setMinute(long epochMinute) {
+            LocalDateTime time = LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+            if (time.getYear() < 1 || time.getYear() > MAX_CACHED_YEAR) {
+                return false;
+            }
+            writeDigits(chars, 0, time.getYear(), 4);
+            writeDigits(chars, 5, time.getMonthValue(), 2);
+            writeDigits(chars, 8, time.getDayOfMonth(), 2);
+            writeDigits(chars, 11, time.getHour(), 2);
+            writeDigits(chars, 14, time.getMinute(), 2);
+            this.epochMinute = epochMinute;
+            return true;
+        }
     }
 }
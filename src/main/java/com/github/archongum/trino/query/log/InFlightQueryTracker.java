@@ -0,0 +1,298 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Queries created and not completed yet, in an open addressing hash table of fixed size slots in a direct buffer:
+ * tracking thousands of queries costs no heap objects, and {@code maxQueries} bounds the memory. An
+ * {@link InFlightSnapshot} is handed to the sink every {@code intervalMillis}, aligned to the clock.
+ * <p>
+ * Query ids are ASCII and about 27 characters: longer ones are not tracked. Resource group names are
+ * interned up to {@value #MAX_RESOURCE_GROUPS}, further ones are tracked as {@link WorkloadSummary#OTHER}.
+ */
+final class InFlightQueryTracker implements Closeable {
+
+    static final int MAX_QUERY_ID_LENGTH = 40;
+
+    // the slots of more, up to 4 per query, would not fit in a buffer
+    static final int MAX_QUERIES = 1 << 23;
+
+    private static final int MAX_RESOURCE_GROUPS = 1024;
+    private static final int NO_RESOURCE_GROUP = -1;
+
+    // slot layout
+    private static final int SLOT_SIZE = 64;
+    private static final int USED = 0; // byte
+    private static final int FLAGGED = 1; // byte, reported as long running
+    private static final int ID_LENGTH = 2; // byte
+    private static final int RESOURCE_GROUP = 4; // int
+    private static final int CREATE_TIME = 8; // long, epoch millis
+    private static final int HASH = 16; // int
+    private static final int QUERY_ID = 24; // MAX_QUERY_ID_LENGTH bytes
+
+    private final int maxQueries;
+    private final long longRunningMillis;
+    private final long ttlMillis;
+    private final Consumer<InFlightSnapshot> sink;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+
+    // guarded by this
+    private final ByteBuffer slots;
+    private final int mask;
+    private final List<String> resourceGroups = new ArrayList<>();
+    private final Map<String, Integer> resourceGroupIds = new HashMap<>();
+    private int size;
+    private long untracked;
+
+    InFlightQueryTracker(int maxQueries, long intervalMillis, long longRunningMillis, long ttlMillis, Consumer<InFlightSnapshot> sink, Clock clock) {
+        if (maxQueries < 1 || maxQueries > MAX_QUERIES) {
+            throw new IllegalArgumentException("In-flight max queries must be between 1 and " + MAX_QUERIES + ": " + maxQueries);
+        }
+        if (intervalMillis < 1 || longRunningMillis < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("Invalid in-flight tracking limits");
+        }
+        this.maxQueries = maxQueries;
+        this.longRunningMillis = longRunningMillis;
+        this.ttlMillis = ttlMillis;
+        this.sink = requireNonNull(sink, "sink is null");
+        this.clock = requireNonNull(clock, "clock is null");
+        // at most half full, so probes stay short and always end at a free slot
+        int capacity = Integer.highestOneBit(maxQueries * 2 - 1) << 1;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        this.mask = capacity - 1;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trino-query-log-inflight");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(() -> {
+            try {
+                sink.accept(snapshot());
+            } catch (RuntimeException ignored) {
+            }
+        }, intervalMillis - Math.floorMod(clock.millis(), intervalMillis), intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void created(QueryCreatedEvent event) {
+        String queryId = event.getMetadata().getQueryId();
+        String resourceGroup = event.getContext().getResourceGroupId().map(Object::toString).orElse(null);
+        long createTime = event.getCreateTime().toEpochMilli();
+        if (!trackable(queryId)) {
+            synchronized (this) {
+                untracked++;
+            }
+            return;
+        }
+        int hash = hash(queryId);
+        synchronized (this) {
+            int slot = find(queryId, hash);
+            if (slot >= 0) {
+                return;
+            }
+            if (size >= maxQueries) {
+                untracked++;
+                return;
+            }
+            int base = (-slot - 1) * SLOT_SIZE;
+            slots.put(base + USED, (byte) 1);
+            slots.put(base + FLAGGED, (byte) 0);
+            slots.put(base + ID_LENGTH, (byte) queryId.length());
+            slots.putInt(base + RESOURCE_GROUP, resourceGroupId(resourceGroup));
+            slots.putLong(base + CREATE_TIME, createTime);
+            slots.putInt(base + HASH, hash);
+            for (int i = 0; i < queryId.length(); i++) {
+                slots.put(base + QUERY_ID + i, (byte) queryId.charAt(i));
+            }
+            size++;
+        }
+    }
+
+    void completed(String queryId) {
+        if (!trackable(queryId)) {
+            return;
+        }
+        int hash = hash(queryId);
+        synchronized (this) {
+            int slot = find(queryId, hash);
+            if (slot >= 0) {
+                remove(slot);
+            }
+        }
+    }
+
+    synchronized int getRunning() {
+        return size;
+    }
+
+    /**
+     * Count the running queries, report the ones newly past {@code longRunningMillis}, and stop tracking the
+     * ones past {@code ttlMillis}.
+     */
+    InFlightSnapshot snapshot() {
+        long now = clock.millis();
+        InFlightSnapshot snapshot = new InFlightSnapshot();
+        List<InFlightSnapshot.Query> longRunning = new ArrayList<>();
+        List<InFlightSnapshot.Query> expired = new ArrayList<>();
+        Map<String, Long> running = new TreeMap<>();
+        synchronized (this) {
+            long[] counts = new long[resourceGroups.size() + 1];
+            for (int slot = 0; slot <= mask; slot++) {
+                int base = slot * SLOT_SIZE;
+                if (slots.get(base + USED) == 0) {
+                    continue;
+                }
+                long age = now - slots.getLong(base + CREATE_TIME);
+                if (age >= ttlMillis) {
+                    expired.add(query(base, age));
+                    continue;
+                }
+                counts[slots.getInt(base + RESOURCE_GROUP) + 1]++;
+                if (age >= longRunningMillis && slots.get(base + FLAGGED) == 0) {
+                    slots.put(base + FLAGGED, (byte) 1);
+                    longRunning.add(query(base, age));
+                }
+            }
+            // after the scan, as removing moves slots
+            for (InFlightSnapshot.Query query : expired) {
+                remove(find(query.getQueryId(), hash(query.getQueryId())));
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    running.put(resourceGroupName(i - 1), counts[i]);
+                }
+            }
+            snapshot.setRunning(size);
+            snapshot.setUntracked(untracked);
+            untracked = 0;
+        }
+        snapshot.setTime(Instant.ofEpochMilli(now));
+        snapshot.setResourceGroups(running);
+        snapshot.setLongRunning(longRunning);
+        snapshot.setExpired(expired);
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static boolean trackable(String queryId) {
+        if (queryId.length() > MAX_QUERY_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < queryId.length(); i++) {
+            if (queryId.charAt(i) > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(String queryId) {
+        // the query ids of a second share their prefix: spread the bits
+        int h = queryId.hashCode() * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the slot of {@code queryId}, or {@code -(free slot) - 1}
+     */
+    private int find(String queryId, int hash) {
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int base = slot * SLOT_SIZE;
+            if (slots.get(base + USED) == 0) {
+                return -slot - 1;
+            }
+            if (slots.getInt(base + HASH) == hash && matches(base, queryId)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean matches(int base, String queryId) {
+        if (slots.get(base + ID_LENGTH) != queryId.length()) {
+            return false;
+        }
+        for (int i = 0; i < queryId.length(); i++) {
+            if (slots.get(base + QUERY_ID + i) != (byte) queryId.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Free a slot, moving back the entries probed past it, so lookups never need tombstones.
+     */
+    private void remove(int slot) {
+        int hole = slot;
+        for (int next = (hole + 1) & mask; slots.get(next * SLOT_SIZE + USED) != 0; next = (next + 1) & mask) {
+            int home = slots.getInt(next * SLOT_SIZE + HASH) & mask;
+            // an entry may fill the hole unless its home slot lies cyclically after the hole, up to itself
+            boolean stays = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (!stays) {
+                for (int i = 0; i < SLOT_SIZE; i += Long.BYTES) {
+                    slots.putLong(hole * SLOT_SIZE + i, slots.getLong(next * SLOT_SIZE + i));
+                }
+                hole = next;
+            }
+        }
+        slots.put(hole * SLOT_SIZE + USED, (byte) 0);
+        size--;
+    }
+
+    private InFlightSnapshot.Query query(int base, long age) {
+        byte[] queryId = new byte[slots.get(base + ID_LENGTH)];
+        for (int i = 0; i < queryId.length; i++) {
+            queryId[i] = slots.get(base + QUERY_ID + i);
+        }
+        InFlightSnapshot.Query query = new InFlightSnapshot.Query();
+        query.setQueryId(new String(queryId, US_ASCII));
+        query.setResourceGroup(resourceGroupName(slots.getInt(base + RESOURCE_GROUP)));
+        query.setCreateTime(Instant.ofEpochMilli(slots.getLong(base + CREATE_TIME)));
+        query.setRunningMs(age);
+        return query;
+    }
+
+    private int resourceGroupId(String resourceGroup) {
+        if (resourceGroup == null) {
+            return NO_RESOURCE_GROUP;
+        }
+        Integer id = resourceGroupIds.get(resourceGroup);
+        if (id != null) {
+            return id;
+        }
+        if (resourceGroups.size() >= MAX_RESOURCE_GROUPS) {
+            resourceGroup = WorkloadSummary.OTHER;
+            id = resourceGroupIds.get(resourceGroup);
+            if (id != null) {
+                return id;
+            }
+        }
+        resourceGroups.add(resourceGroup);
+        resourceGroupIds.put(resourceGroup, resourceGroups.size() - 1);
+        return resourceGroups.size() - 1;
+    }
+
+    private String resourceGroupName(int id) {
+        return id == NO_RESOURCE_GROUP ? InFlightSnapshot.NO_RESOURCE_GROUP : resourceGroups.get(id);
+    }
+}
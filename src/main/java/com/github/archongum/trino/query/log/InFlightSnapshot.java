@@ -0,0 +1,126 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Queries created but not completed yet, logged every {@code inFlight.intervalSeconds}.
+ */
+public class InFlightSnapshot {
+
+    /**
+     * Resource group of queries without one.
+     */
+    static final String NO_RESOURCE_GROUP = "<none>";
+
+    private Instant time;
+    private long running;
+    private long untracked;
+    private Map<String, Long> resourceGroups;
+    private List<Query> longRunning;
+    private List<Query> expired;
+
+    public Instant getTime() {
+        return time;
+    }
+
+    public void setTime(Instant time) {
+        this.time = time;
+    }
+
+    /**
+     * Queries tracked as running.
+     */
+    public long getRunning() {
+        return running;
+    }
+
+    public void setRunning(long running) {
+        this.running = running;
+    }
+
+    /**
+     * Queries created since the previous snapshot and not tracked, because {@code inFlight.maxQueries} were running.
+     */
+    public long getUntracked() {
+        return untracked;
+    }
+
+    public void setUntracked(long untracked) {
+        this.untracked = untracked;
+    }
+
+    /**
+     * Running queries per resource group.
+     */
+    public Map<String, Long> getResourceGroups() {
+        return resourceGroups;
+    }
+
+    public void setResourceGroups(Map<String, Long> resourceGroups) {
+        this.resourceGroups = resourceGroups;
+    }
+
+    /**
+     * Queries running past {@code inFlight.longRunningSeconds} since the previous snapshot, each reported once.
+     */
+    public List<Query> getLongRunning() {
+        return longRunning;
+    }
+
+    public void setLongRunning(List<Query> longRunning) {
+        this.longRunning = longRunning;
+    }
+
+    /**
+     * Queries running past {@code inFlight.ttlSeconds}, no longer tracked: their completed event was most likely lost.
+     */
+    public List<Query> getExpired() {
+        return expired;
+    }
+
+    public void setExpired(List<Query> expired) {
+        this.expired = expired;
+    }
+
+    public static class Query {
+        private String queryId;
+        private String resourceGroup;
+        private Instant createTime;
+        private long runningMs;
+
+        public String getQueryId() {
+            return queryId;
+        }
+
+        public void setQueryId(String queryId) {
+            this.queryId = queryId;
+        }
+
+        public String getResourceGroup() {
+            return resourceGroup;
+        }
+
+        public void setResourceGroup(String resourceGroup) {
+            this.resourceGroup = resourceGroup;
+        }
+
+        public Instant getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(Instant createTime) {
+            this.createTime = createTime;
+        }
+
+        public long getRunningMs() {
+            return runningMs;
+        }
+
+        public void setRunningMs(long runningMs) {
+            this.runningMs = runningMs;
+        }
+    }
+}
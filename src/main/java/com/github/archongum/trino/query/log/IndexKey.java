@@ -0,0 +1,68 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Instant;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import io.trino.spi.eventlistener.SplitCompletedEvent;
+
+
+/**
+ * What a record is looked up by in a {@link QueryLogIndex}: query id, user if the event has one, and create time.
+ */
+final class IndexKey {
+
+    private final String queryId;
+    private final String user;
+    private final long createTimeMillis;
+
+    IndexKey(String queryId, String user, long createTimeMillis) {
+        this.queryId = queryId;
+        this.user = user;
+        this.createTimeMillis = createTimeMillis;
+    }
+
+    /**
+     * @return the key of an event, or {@code null} for events of no single query, such as workload summaries
+     */
+    static IndexKey of(Object event) {
+        if (event instanceof SampledQueryCompletedEvent) {
+            event = ((SampledQueryCompletedEvent) event).getEvent();
+        }
+        if (event instanceof CreatedEventBuffer.Hold) {
+            event = ((CreatedEventBuffer.Hold) event).getEvent();
+        }
+        if (event instanceof QueryCompletedEvent) {
+            QueryCompletedEvent completed = (QueryCompletedEvent) event;
+            return new IndexKey(completed.getMetadata().getQueryId(), completed.getContext().getUser(), millis(completed.getCreateTime()));
+        }
+        if (event instanceof QueryCreatedEvent) {
+            QueryCreatedEvent created = (QueryCreatedEvent) event;
+            return new IndexKey(created.getMetadata().getQueryId(), created.getContext().getUser(), millis(created.getCreateTime()));
+        }
+        if (event instanceof SplitCompletedEvent) {
+            SplitCompletedEvent split = (SplitCompletedEvent) event;
+            return new IndexKey(split.getQueryId(), null, millis(split.getCreateTime()));
+        }
+        if (event instanceof SplitRollup) {
+            SplitRollup rollup = (SplitRollup) event;
+            return new IndexKey(rollup.getQueryId(), null, millis(rollup.getCreateTime()));
+        }
+        return null;
+    }
+
+    private static long millis(Instant instant) {
+        return instant == null ? 0 : instant.toEpochMilli();
+    }
+
+    String getQueryId() {
+        return queryId;
+    }
+
+    String getUser() {
+        return user;
+    }
+
+    long getCreateTimeMillis() {
+        return createTimeMillis;
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Lock-free log-linear histogram of non-negative longs, in the spirit of HdrHistogram.
+ * <p>
+ * Values below {@code 2^precisionBits} get a bucket each; above that every power of two is split into
+ * {@code 2^(precisionBits - 1)} buckets, so the relative error stays below {@code 2^(1 - precisionBits)}.
+ * Recording is a single {@code getAndIncrement} on a pre-allocated array, and histograms of the same
+ * shape merge by adding counts.
+ */
+final class LogHistogram {
+
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int halfSubBucketCount;
+    private final long maxValue;
+    private final AtomicLongArray counts;
+
+    /**
+     * @param precisionBits linear buckets per power of two is {@code 2^(precisionBits - 1)}
+     * @param maxValueBits  values from {@code 2^maxValueBits} on are counted in the last bucket
+     */
+    LogHistogram(int precisionBits, int maxValueBits) {
+        if (precisionBits < 1 || precisionBits > 16 || maxValueBits <= precisionBits || maxValueBits > 63) {
+            throw new IllegalArgumentException("Invalid histogram shape: " + precisionBits + "/" + maxValueBits);
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.halfSubBucketCount = subBucketCount >> 1;
+        this.maxValue = (1L << maxValueBits) - 1;
+        this.counts = new AtomicLongArray(indexOf(maxValue) + 1);
+    }
+
+    void record(long value) {
+        counts.getAndIncrement(indexOf(Math.min(Math.max(value, 0), maxValue)));
+    }
+
+    /**
+     * Add the counts of a histogram of the same shape to this one.
+     */
+    void add(LogHistogram other) {
+        if (other.counts.length() != counts.length() || other.precisionBits != precisionBits) {
+            throw new IllegalArgumentException("Histograms have different shapes");
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.getAndAdd(i, count);
+            }
+        }
+    }
+
+    long[] snapshot() {
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    long getValueAtPercentile(double percentile) {
+        return getValueAtPercentile(snapshot(), percentile);
+    }
+
+    long getValueAtPercentile(long[] snapshot, double percentile) {
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestValueAt(i);
+            }
+        }
+        return maxValue;
+    }
+
+    private int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - precisionBits + 1;
+        int mantissa = (int) (value >>> shift);
+        return subBucketCount + (exponent - precisionBits) * halfSubBucketCount + mantissa - halfSubBucketCount;
+    }
+
+    private long highestValueAt(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int offset = index - subBucketCount;
+        int exponent = offset / halfSubBucketCount + precisionBits;
+        long mantissa = offset % halfSubBucketCount + halfSubBucketCount;
+        int shift = exponent - precisionBits + 1;
+        return Math.min(((mantissa + 1) << shift) - 1, maxValue);
+    }
+}
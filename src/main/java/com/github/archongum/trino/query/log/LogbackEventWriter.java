@@ -0,0 +1,35 @@
+package com.github.archongum.trino.query.log;
+
+import ch.qos.logback.classic.LoggerContext;
+import org.slf4j.Logger;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+
+/**
+ * Writes records through the logback configuration of {@code trino.query.log.config.fileLocation}.
+ */
+final class LogbackEventWriter implements EventWriter {
+
+    private final Logger logger;
+
+    LogbackEventWriter(LoggerContext loggerContext) {
+        this(loggerContext, QueryLogListener.class.getName());
+    }
+
+    LogbackEventWriter(LoggerContext loggerContext, String loggerName) {
+        this.logger = loggerContext.getLogger(loggerName);
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length) {
+        logger.info(new String(record, offset, length, UTF_8));
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * Compression of {@code FILE} output.
+ */
+public enum OutputCompression {
+    NONE,
+    /**
+     * Every group commit is an independent gzip member, holding whole records only.
+     */
+    GZIP;
+
+    public static OutputCompression of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
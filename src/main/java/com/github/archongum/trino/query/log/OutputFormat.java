@@ -0,0 +1,22 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * Encoding of the records of {@code FILE} mode.
+ */
+public enum OutputFormat {
+    /**
+     * One JSON object per line.
+     */
+    JSON,
+    /**
+     * Compact binary blocks with a string table each, turned back into JSON lines by {@link BinaryLogDecoder}.
+     */
+    BINARY;
+
+    public static OutputFormat of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * Where serialized events are written.
+ */
+public enum OutputMode {
+    /**
+     * Through the logback configuration of {@code trino.query.log.config.fileLocation}.
+     */
+    LOGBACK,
+    /**
+     * Straight to {@code trino.query.log.output.file} through a file channel.
+     */
+    FILE;
+
+    public static OutputMode of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.archongum.trino.query.log;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryContext;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Names the partition an event is written to, from the {@link PartitionKey} of its query.
+ * <p>
+ * Rules are a comma separated list of {@code partition:regex}: a value matching a regex is routed to the partition
+ * of the first such rule, e.g. {@code etl:etl_.*,adhoc:.*} puts ETL users apart from everyone else. A value matching
+ * no rule is a partition of its own, with the UTF-8 bytes unfit for a directory name, and a leading {@code .},
+ * percent-encoded, e.g. {@code alice%40example.com}: distinct values never share a partition.
+ * <p>
+ * Events of no single query, split events and in-flight snapshots, and queries without the key, such as a session
+ * without catalog, go to {@link #DEFAULT_PARTITION}, a name no value nor rule is routed to, since {@code @} is always
+ * encoded. Verdicts are memoized like those of {@link EventFilter}.
+ */
+final class OutputPartitioner {
+
+    static final String DEFAULT_PARTITION = "@default";
+
+    private static final int MAX_MEMOIZED_PARTITIONS = 4096;
+    private static final Pattern PARTITION_NAME = Pattern.compile("[A-Za-z0-9_\\-][A-Za-z0-9_.\\-]*");
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final PartitionKey key;
+    private final List<Rule> rules;
+    private final Map<String, String> memo = new ConcurrentHashMap<>();
+
+    OutputPartitioner(PartitionKey key, String rules) {
+        this.key = requireNonNull(key, "key is null");
+        this.rules = compileRules(requireNonNull(rules, "rules is null"));
+    }
+
+    String partition(Object event) {
+        if (event instanceof SampledQueryCompletedEvent) {
+            event = ((SampledQueryCompletedEvent) event).getEvent();
+        }
+        if (event instanceof CreatedEventBuffer.Hold) {
+            event = ((CreatedEventBuffer.Hold) event).getEvent();
+        }
+        String value;
+        if (event instanceof QueryCompletedEvent) {
+            value = value(((QueryCompletedEvent) event).getContext());
+        } else if (event instanceof QueryCreatedEvent) {
+            value = value(((QueryCreatedEvent) event).getContext());
+        } else if (event instanceof WorkloadSummary) {
+            value = value((WorkloadSummary) event);
+        } else {
+            value = null;
+        }
+        if (value == null || value.isEmpty()) {
+            return DEFAULT_PARTITION;
+        }
+        String partition = memo.get(value);
+        if (partition == null) {
+            partition = route(value);
+            if (memo.size() < MAX_MEMOIZED_PARTITIONS) {
+                memo.put(value, partition);
+            }
+        }
+        return partition;
+    }
+
+    private String value(QueryContext context) {
+        switch (key) {
+            case CATALOG:
+                return context.getCatalog().orElse(null);
+            case USER:
+                return context.getUser();
+            case SOURCE:
+                return context.getSource().orElse(null);
+            case RESOURCE_GROUP:
+                return context.getResourceGroupId().map(Object::toString).orElse(null);
+            case NONE:
+            default:
+                return null;
+        }
+    }
+
+    private String value(WorkloadSummary summary) {
+        switch (key) {
+            case CATALOG:
+                return summary.getCatalog();
+            case USER:
+                return summary.getUser();
+            case SOURCE:
+                return summary.getSource();
+            case RESOURCE_GROUP:
+                return summary.getResourceGroup();
+            case NONE:
+            default:
+                return null;
+        }
+    }
+
+    private String route(String value) {
+        for (Rule rule : rules) {
+            if (rule.pattern.matcher(value).matches()) {
+                return rule.partition;
+            }
+        }
+        return encode(value);
+    }
+
+    private static String encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder partition = new StringBuilder(bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xff;
+            // never a hidden file nor a parent directory
+            if (isSafe(b) && (b != '.' || i > 0)) {
+                partition.append((char) b);
+            } else {
+                partition.append('%').append(HEX_DIGITS[b >>> 4]).append(HEX_DIGITS[b & 0xf]);
+            }
+        }
+        return partition.toString();
+    }
+
+    private static boolean isSafe(int b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '_' || b == '.' || b == '-';
+    }
+
+    private static List<Rule> compileRules(String rules) {
+        List<Rule> compiled = new ArrayList<>();
+        for (String rule : rules.split(",")) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            int colon = rule.indexOf(':');
+            String partition = colon < 0 ? "" : rule.substring(0, colon).trim();
+            if (!PARTITION_NAME.matcher(partition).matches()) {
+                throw new IllegalArgumentException("Invalid partition rule, expected partition:regex: " + rule);
+            }
+            compiled.add(new Rule(partition, Pattern.compile(rule.substring(colon + 1).trim())));
+        }
+        return compiled;
+    }
+
+    private static final class Rule {
+        private final String partition;
+        private final Pattern pattern;
+
+        Rule(String partition, Pattern pattern) {
+            this.partition = partition;
+            this.pattern = pattern;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * What the Trino event thread does when the async ring buffer is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Park the event thread until the consumer frees a slot.
+     */
+    WAIT,
+    /**
+     * Discard the incoming event.
+     */
+    DROP,
+    /**
+     * Discard the oldest queued event to make room for the incoming one.
+     */
+    DROP_OLDEST;
+
+    public static OverflowPolicy of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
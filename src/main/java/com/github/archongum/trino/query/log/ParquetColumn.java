@@ -0,0 +1,438 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * A flat column of a {@link ParquetFileWriter}, buffering the values of the rows of the open row group in a
+ * column vector until they are written as one {@code PLAIN} page. String and timestamp columns are optional, a
+ * {@code null} getting no value.
+ *
+ * @param <T> the rows
+ */
+abstract class ParquetColumn<T> {
+
+    // physical types and converted types of the Parquet format
+    static final int BOOLEAN = 0;
+    static final int INT64 = 2;
+    static final int DOUBLE = 5;
+    static final int BYTE_ARRAY = 6;
+    static final int NONE = -1;
+    static final int UTF8 = 0;
+    static final int TIMESTAMP_MILLIS = 9;
+
+    private final String name;
+    private final int type;
+    private final int convertedType;
+    private final boolean optional;
+    // whether each row has a value, for optional columns
+    private boolean[] defined = new boolean[1024];
+    private int rows;
+    private int nulls;
+
+    private ParquetColumn(String name, int type, int convertedType, boolean optional) {
+        this.name = requireNonNull(name, "name is null");
+        this.type = type;
+        this.convertedType = convertedType;
+        this.optional = optional;
+    }
+
+    static <T> ParquetColumn<T> int64(String name, ToLongFunction<T> getter) {
+        return new Int64Column<>(name, NONE, null, getter);
+    }
+
+    static <T> ParquetColumn<T> timestamp(String name, Function<T, Instant> getter) {
+        return new Int64Column<>(name, TIMESTAMP_MILLIS, row -> getter.apply(row) != null, row -> getter.apply(row).toEpochMilli());
+    }
+
+    static <T> ParquetColumn<T> float64(String name, ToDoubleFunction<T> getter) {
+        return new DoubleColumn<>(name, false, row -> getter.applyAsDouble(row));
+    }
+
+    static <T> ParquetColumn<T> optionalFloat64(String name, Function<T, Double> getter) {
+        return new DoubleColumn<>(name, true, getter);
+    }
+
+    static <T> ParquetColumn<T> bool(String name, Predicate<T> getter) {
+        return new BooleanColumn<>(name, getter);
+    }
+
+    static <T> ParquetColumn<T> string(String name, Function<T, String> getter) {
+        return new StringColumn<>(name, getter);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getType() {
+        return type;
+    }
+
+    int getConvertedType() {
+        return convertedType;
+    }
+
+    boolean isOptional() {
+        return optional;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getNulls() {
+        return nulls;
+    }
+
+    /**
+     * Buffer the value of {@code row}.
+     */
+    abstract void append(T row);
+
+    /**
+     * @return the bytes of the buffered values once written
+     */
+    abstract long getBufferedBytes();
+
+    /**
+     * Write the buffered values in the {@code PLAIN} encoding, nulls left out.
+     */
+    abstract void writeValues(RecordBuffer out);
+
+    /**
+     * @return the smallest buffered value in the {@code PLAIN} encoding, or {@code null} without statistics
+     */
+    abstract byte[] getMin();
+
+    abstract byte[] getMax();
+
+    /**
+     * Write whether each buffered row has a value, as definition levels of 1 bit in bit-packed runs, prefixed by
+     * their length like in a v1 data page.
+     */
+    void writeDefinitionLevels(RecordBuffer out) {
+        int groups = (rows + 7) / 8;
+        RecordBuffer levels = new RecordBuffer();
+        long header = ((long) groups << 1) | 1;
+        while ((header & ~0x7fL) != 0) {
+            levels.write((int) ((header & 0x7f) | 0x80));
+            header >>>= 7;
+        }
+        levels.write((int) header);
+        for (int group = 0; group < groups; group++) {
+            int bits = 0;
+            for (int i = 0; i < 8 && group * 8 + i < rows; i++) {
+                if (defined[group * 8 + i]) {
+                    bits |= 1 << i;
+                }
+            }
+            levels.write(bits);
+        }
+        writeIntLE(out, levels.size());
+        out.write(levels.array(), 0, levels.size());
+    }
+
+    /**
+     * Forget the buffered values, once written.
+     */
+    void reset() {
+        rows = 0;
+        nulls = 0;
+        resetValues();
+    }
+
+    abstract void resetValues();
+
+    /**
+     * Count a row, with a value or not.
+     */
+    void row(boolean hasValue) {
+        if (rows == defined.length) {
+            defined = Arrays.copyOf(defined, rows * 2);
+        }
+        defined[rows++] = hasValue;
+        if (!hasValue) {
+            nulls++;
+        }
+    }
+
+    static void writeIntLE(RecordBuffer out, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            out.write(value >>> shift);
+        }
+    }
+
+    static void writeLongLE(RecordBuffer out, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    static byte[] longLE(long value) {
+        RecordBuffer out = new RecordBuffer();
+        writeLongLE(out, value);
+        return Arrays.copyOf(out.array(), Long.BYTES);
+    }
+
+    private static final class Int64Column<T> extends ParquetColumn<T> {
+
+        private final Predicate<T> present;
+        private final ToLongFunction<T> getter;
+        private long[] values = new long[1024];
+        private int size;
+        private long min;
+        private long max;
+
+        /**
+         * @param present whether a row has a value, or {@code null} for a required column
+         */
+        Int64Column(String name, int convertedType, Predicate<T> present, ToLongFunction<T> getter) {
+            super(name, INT64, convertedType, present != null);
+            this.present = present;
+            this.getter = getter;
+        }
+
+        @Override
+        void append(T row) {
+            boolean hasValue = present == null || present.test(row);
+            row(hasValue);
+            if (!hasValue) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            long value = getter.applyAsLong(row);
+            values[size++] = value;
+            min = size == 1 ? value : Math.min(min, value);
+            max = size == 1 ? value : Math.max(max, value);
+        }
+
+        @Override
+        long getBufferedBytes() {
+            return (long) size * Long.BYTES;
+        }
+
+        @Override
+        void writeValues(RecordBuffer out) {
+            for (int i = 0; i < size; i++) {
+                writeLongLE(out, values[i]);
+            }
+        }
+
+        @Override
+        byte[] getMin() {
+            return size == 0 ? null : longLE(min);
+        }
+
+        @Override
+        byte[] getMax() {
+            return size == 0 ? null : longLE(max);
+        }
+
+        @Override
+        void resetValues() {
+            size = 0;
+        }
+    }
+
+    private static final class DoubleColumn<T> extends ParquetColumn<T> {
+
+        private final Function<T, Double> getter;
+        private double[] values = new double[1024];
+        private int size;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        DoubleColumn(String name, boolean optional, Function<T, Double> getter) {
+            super(name, DOUBLE, NONE, optional);
+            this.getter = getter;
+        }
+
+        @Override
+        void append(T row) {
+            Double value = getter.apply(row);
+            row(value != null);
+            if (value == null) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+            // NaN is left out of the statistics
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        @Override
+        long getBufferedBytes() {
+            return (long) size * Double.BYTES;
+        }
+
+        @Override
+        void writeValues(RecordBuffer out) {
+            for (int i = 0; i < size; i++) {
+                writeLongLE(out, Double.doubleToLongBits(values[i]));
+            }
+        }
+
+        @Override
+        byte[] getMin() {
+            return min > max ? null : longLE(Double.doubleToLongBits(min));
+        }
+
+        @Override
+        byte[] getMax() {
+            return min > max ? null : longLE(Double.doubleToLongBits(max));
+        }
+
+        @Override
+        void resetValues() {
+            size = 0;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    private static final class BooleanColumn<T> extends ParquetColumn<T> {
+
+        private final Predicate<T> getter;
+        private boolean[] values = new boolean[1024];
+        private int size;
+        private int trues;
+
+        BooleanColumn(String name, Predicate<T> getter) {
+            super(name, BOOLEAN, NONE, false);
+            this.getter = getter;
+        }
+
+        @Override
+        void append(T row) {
+            row(true);
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            boolean value = getter.test(row);
+            values[size++] = value;
+            if (value) {
+                trues++;
+            }
+        }
+
+        @Override
+        long getBufferedBytes() {
+            return (size + 7) / 8;
+        }
+
+        @Override
+        void writeValues(RecordBuffer out) {
+            for (int group = 0; group * 8 < size; group++) {
+                int bits = 0;
+                for (int i = 0; i < 8 && group * 8 + i < size; i++) {
+                    if (values[group * 8 + i]) {
+                        bits |= 1 << i;
+                    }
+                }
+                out.write(bits);
+            }
+        }
+
+        @Override
+        byte[] getMin() {
+            return size == 0 ? null : new byte[] {(byte) (trues == size ? 1 : 0)};
+        }
+
+        @Override
+        byte[] getMax() {
+            return size == 0 ? null : new byte[] {(byte) (trues > 0 ? 1 : 0)};
+        }
+
+        @Override
+        void resetValues() {
+            size = 0;
+            trues = 0;
+        }
+    }
+
+    private static final class StringColumn<T> extends ParquetColumn<T> {
+
+        // longer values, mostly query texts, are left out of the statistics
+        private static final int MAX_STATISTICS_LENGTH = 256;
+
+        private final Function<T, String> getter;
+        // the values in the PLAIN encoding: a little-endian length and the UTF-8 bytes of each
+        private final RecordBuffer values = new RecordBuffer();
+        private byte[] min;
+        private byte[] max;
+        private boolean statistics = true;
+
+        StringColumn(String name, Function<T, String> getter) {
+            super(name, BYTE_ARRAY, UTF8, true);
+            this.getter = getter;
+        }
+
+        @Override
+        void append(T row) {
+            String value = getter.apply(row);
+            row(value != null);
+            if (value == null) {
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF_8);
+            writeIntLE(values, bytes.length);
+            values.write(bytes, 0, bytes.length);
+            if (bytes.length > MAX_STATISTICS_LENGTH) {
+                statistics = false;
+            }
+            if (statistics) {
+                if (min == null || Arrays.compareUnsigned(bytes, min) < 0) {
+                    min = bytes;
+                }
+                if (max == null || Arrays.compareUnsigned(bytes, max) > 0) {
+                    max = bytes;
+                }
+            }
+        }
+
+        @Override
+        long getBufferedBytes() {
+            return values.size();
+        }
+
+        @Override
+        void writeValues(RecordBuffer out) {
+            out.write(values.array(), 0, values.size());
+        }
+
+        @Override
+        byte[] getMin() {
+            return statistics ? min : null;
+        }
+
+        @Override
+        byte[] getMax() {
+            return statistics ? max : null;
+        }
+
+        @Override
+        void resetValues() {
+            values.reset();
+            min = null;
+            max = null;
+            statistics = true;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Writes rows to a Parquet file, one row group at a time: every column of a row group is a single v1 data page of
+ * {@code PLAIN} values, gzip compressed or not, along with min/max statistics so readers skip row groups by predicate.
+ * Columns are flat, optional ones with 1 bit definition levels. The footer is written on {@link #close()}.
+ * <p>
+ * Not thread safe.
+ *
+ * @param <T> the rows
+ */
+final class ParquetFileWriter<T> implements Closeable {
+
+    private static final byte[] MAGIC = {'P', 'A', 'R', '1'};
+    private static final String CREATED_BY = "trino-query-log";
+    private static final int DATA_PAGE = 0;
+    private static final int PLAIN = 0;
+    private static final int RLE = 3;
+    private static final int UNCOMPRESSED = 0;
+    private static final int GZIP = 2;
+
+    private final OutputStream out;
+    private final List<ParquetColumn<T>> columns;
+    private final int codec;
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private final RecordBuffer page = new RecordBuffer();
+    private final RecordBuffer compressed = new RecordBuffer();
+    private final RecordBuffer header = new RecordBuffer();
+    private long position;
+    private long rows;
+    private int bufferedRows;
+
+    /**
+     * @param out     the file, closed along with the writer
+     * @param columns buffers of the open row group, owned by the writer
+     */
+    ParquetFileWriter(OutputStream out, List<ParquetColumn<T>> columns, OutputCompression compression) throws IOException {
+        this.out = requireNonNull(out, "out is null");
+        this.columns = requireNonNull(columns, "columns is null");
+        this.codec = compression == OutputCompression.GZIP ? GZIP : UNCOMPRESSED;
+        write(MAGIC, MAGIC.length);
+    }
+
+    void append(T row) {
+        for (ParquetColumn<T> column : columns) {
+            column.append(row);
+        }
+        bufferedRows++;
+    }
+
+    /**
+     * @return the bytes of the rows of the open row group, once encoded and before compression
+     */
+    long getBufferedBytes() {
+        long bytes = 0;
+        for (ParquetColumn<T> column : columns) {
+            bytes += column.getBufferedBytes();
+        }
+        return bytes;
+    }
+
+    int getBufferedRows() {
+        return bufferedRows;
+    }
+
+    /**
+     * @return the bytes written to the file so far, without the open row group
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Write the buffered rows as a row group, if any.
+     */
+    void flushRowGroup() throws IOException {
+        if (bufferedRows == 0) {
+            return;
+        }
+        RowGroup rowGroup = new RowGroup(bufferedRows);
+        for (ParquetColumn<T> column : columns) {
+            page.reset();
+            if (column.isOptional()) {
+                column.writeDefinitionLevels(page);
+            }
+            column.writeValues(page);
+            RecordBuffer data = page;
+            if (codec == GZIP) {
+                compressed.reset();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(page.array(), 0, page.size());
+                }
+                data = compressed;
+            }
+            header.reset();
+            ThriftCompactWriter thrift = new ThriftCompactWriter(header);
+            thrift.beginStruct();
+            thrift.fieldI32(1, DATA_PAGE);
+            thrift.fieldI32(2, page.size());
+            thrift.fieldI32(3, data.size());
+            thrift.fieldStruct(5);
+            thrift.fieldI32(1, bufferedRows);
+            thrift.fieldI32(2, PLAIN);
+            thrift.fieldI32(3, RLE);
+            thrift.fieldI32(4, RLE);
+            thrift.endStruct();
+            thrift.endStruct();
+
+            Chunk chunk = new Chunk(position, header.size() + page.size(), header.size() + data.size(), column.getNulls(), column.getMin(), column.getMax());
+            write(header.array(), header.size());
+            write(data.array(), data.size());
+            rowGroup.chunks.add(chunk);
+            rowGroup.bytes += chunk.uncompressedSize;
+            column.reset();
+        }
+        rowGroups.add(rowGroup);
+        rows += bufferedRows;
+        bufferedRows = 0;
+    }
+
+    /**
+     * Write the open row group and the footer, and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushRowGroup();
+            header.reset();
+            writeFileMetaData(new ThriftCompactWriter(header));
+            write(header.array(), header.size());
+            page.reset();
+            ParquetColumn.writeIntLE(page, header.size());
+            write(page.array(), page.size());
+            write(MAGIC, MAGIC.length);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Close the file without a footer, after a failed write.
+     */
+    void abort() throws IOException {
+        out.close();
+    }
+
+    private void writeFileMetaData(ThriftCompactWriter thrift) {
+        thrift.beginStruct();
+        thrift.fieldI32(1, 1);
+        thrift.fieldList(2, ThriftCompactWriter.STRUCT, columns.size() + 1);
+        thrift.beginStruct();
+        thrift.fieldString(4, "schema");
+        thrift.fieldI32(5, columns.size());
+        thrift.endStruct();
+        for (ParquetColumn<T> column : columns) {
+            thrift.beginStruct();
+            thrift.fieldI32(1, column.getType());
+            thrift.fieldI32(3, column.isOptional() ? 1 : 0);
+            thrift.fieldString(4, column.getName());
+            if (column.getConvertedType() != ParquetColumn.NONE) {
+                thrift.fieldI32(6, column.getConvertedType());
+            }
+            thrift.endStruct();
+        }
+        thrift.fieldI64(3, rows);
+        thrift.fieldList(4, ThriftCompactWriter.STRUCT, rowGroups.size());
+        for (RowGroup rowGroup : rowGroups) {
+            thrift.beginStruct();
+            thrift.fieldList(1, ThriftCompactWriter.STRUCT, columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                writeColumnChunk(thrift, columns.get(i), rowGroup.chunks.get(i), rowGroup.rows);
+            }
+            thrift.fieldI64(2, rowGroup.bytes);
+            thrift.fieldI64(3, rowGroup.rows);
+            thrift.endStruct();
+        }
+        thrift.fieldString(6, CREATED_BY);
+        thrift.endStruct();
+    }
+
+    private void writeColumnChunk(ThriftCompactWriter thrift, ParquetColumn<T> column, Chunk chunk, int rows) {
+        thrift.beginStruct();
+        thrift.fieldI64(2, chunk.offset);
+        thrift.fieldStruct(3);
+        thrift.fieldI32(1, column.getType());
+        thrift.fieldList(2, ThriftCompactWriter.I32, 2);
+        thrift.i32(PLAIN);
+        thrift.i32(RLE);
+        thrift.fieldList(3, ThriftCompactWriter.BINARY, 1);
+        thrift.binary(column.getName().getBytes(UTF_8));
+        thrift.fieldI32(4, codec);
+        thrift.fieldI64(5, rows);
+        thrift.fieldI64(6, chunk.uncompressedSize);
+        thrift.fieldI64(7, chunk.compressedSize);
+        thrift.fieldI64(9, chunk.offset);
+        thrift.fieldStruct(12);
+        thrift.fieldI64(3, chunk.nulls);
+        if (chunk.min != null) {
+            thrift.fieldBinary(5, chunk.max);
+            thrift.fieldBinary(6, chunk.min);
+        }
+        thrift.endStruct();
+        thrift.endStruct();
+        thrift.endStruct();
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        out.write(bytes, 0, length);
+        position += length;
+    }
+
+    private static final class RowGroup {
+
+        private final int rows;
+        private final List<Chunk> chunks = new ArrayList<>();
+        private long bytes;
+
+        RowGroup(int rows) {
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Where a column chunk of a row group is, and its statistics.
+     */
+    private static final class Chunk {
+
+        private final long offset;
+        private final long uncompressedSize;
+        private final long compressedSize;
+        private final long nulls;
+        private final byte[] min;
+        private final byte[] max;
+
+        Chunk(long offset, long uncompressedSize, long compressedSize, long nulls, byte[] min, byte[] max) {
+            this.offset = offset;
+            this.uncompressedSize = uncompressedSize;
+            this.compressedSize = compressedSize;
+            this.nulls = nulls;
+            this.min = min;
+            this.max = max;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import static com.github.archongum.trino.query.log.ParquetColumn.bool;
+import static com.github.archongum.trino.query.log.ParquetColumn.float64;
+import static com.github.archongum.trino.query.log.ParquetColumn.int64;
+import static com.github.archongum.trino.query.log.ParquetColumn.optionalFloat64;
+import static com.github.archongum.trino.query.log.ParquetColumn.string;
+import static com.github.archongum.trino.query.log.ParquetColumn.timestamp;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Writes completed queries as Parquet files partitioned by the UTC hour they ended, the layout of a Hive table
+ * partitioned by {@code dt} and {@code hour}: {@code <directory>/dt=yyyy-MM-dd/hour=HH/query_log.<yyyyMMddHHmmss>.<i>.parquet}.
+ * <p>
+ * Rows are buffered in column vectors until they take {@code rowGroupSize} bytes, then written as a row group, so the
+ * memory of the open file stays bounded. A file is written as a hidden {@code .<name>.tmp}, which Hive and Trino skip,
+ * and renamed atomically once complete: past {@code maxFileSize}, when a row of another hour comes, once its hour is
+ * over, and on close.
+ * <p>
+ * Synchronized, since events are emitted on the Trino threads when async is disabled.
+ */
+final class ParquetQueryLogWriter implements Closeable {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter HOUR = DateTimeFormatter.ofPattern("HH").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter OPENED = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+    private static final String PREFIX = "query_log.";
+    private static final String EXTENSION = ".parquet";
+
+    private final Path directory;
+    private final long rowGroupSize;
+    private final long maxFileSize;
+    private final OutputCompression compression;
+    private final Clock clock;
+    private final ScheduledExecutorService closer;
+
+    private ParquetFileWriter<CustomQueryCompletedEvent> file;
+    private Path tempFile;
+    private Path targetFile;
+    private Instant hour;
+    private boolean closed;
+
+    /**
+     * @param rowGroupSize        bytes of buffered rows written as a row group
+     * @param maxFileSize         bytes past which a file is complete
+     * @param checkIntervalMillis how often to complete the file of an hour that is over, or 0 to only do it on writes
+     */
+    ParquetQueryLogWriter(Path directory, long rowGroupSize, long maxFileSize, OutputCompression compression, Clock clock, long checkIntervalMillis)
+        throws IOException {
+        if (rowGroupSize <= 0 || maxFileSize <= 0 || checkIntervalMillis < 0) {
+            throw new IllegalArgumentException("Invalid row group size, file size or check interval");
+        }
+        this.directory = directory.toAbsolutePath();
+        this.rowGroupSize = rowGroupSize;
+        this.maxFileSize = maxFileSize;
+        this.compression = requireNonNull(compression, "compression is null");
+        this.clock = requireNonNull(clock, "clock is null");
+        Files.createDirectories(this.directory);
+        if (checkIntervalMillis > 0) {
+            this.closer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "trino-query-log-parquet");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.closer.scheduleWithFixedDelay(() -> {
+                try {
+                    completeExpired();
+                } catch (IOException ignored) {
+                }
+            }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.closer = null;
+        }
+    }
+
+    /**
+     * @return the columns of the query log table, a flat version of the {@link CustomQueryCompletedEvent} schema
+     */
+    static List<ParquetColumn<CustomQueryCompletedEvent>> columns() {
+        List<ParquetColumn<CustomQueryCompletedEvent>> columns = new ArrayList<>();
+        columns.add(string("query_id", e -> e.getMetadata().getQueryId()));
+        columns.add(string("transaction_id", e -> e.getMetadata().getTransactionId()));
+        columns.add(string("query", e -> e.getMetadata().getQuery()));
+        columns.add(string("prepared_query", e -> e.getMetadata().getPreparedQuery()));
+        columns.add(string("query_state", e -> e.getMetadata().getQueryState()));
+        columns.add(string("uri", e -> e.getMetadata().getUri() == null ? null : e.getMetadata().getUri().toString()));
+        columns.add(int64("cpu_second", e -> e.getStatistics().getCpuSecond()));
+        columns.add(int64("failed_cpu_second", e -> e.getStatistics().getFailedCpuSecond()));
+        columns.add(int64("wall_second", e -> e.getStatistics().getWallSecond()));
+        columns.add(int64("queued_second", e -> e.getStatistics().getQueuedSecond()));
+        columns.add(int64("scheduled_second", e -> e.getStatistics().getScheduledSecond()));
+        columns.add(int64("failed_scheduled_second", e -> e.getStatistics().getFailedScheduledSecond()));
+        columns.add(int64("analysis_second", e -> e.getStatistics().getAnalysisSecond()));
+        columns.add(int64("planning_second", e -> e.getStatistics().getPlanningSecond()));
+        columns.add(int64("execution_second", e -> e.getStatistics().getExecutionSecond()));
+        columns.add(int64("input_blocked_second", e -> e.getStatistics().getInputBlockedSecond()));
+        columns.add(int64("failed_input_blocked_second", e -> e.getStatistics().getFailedInputBlockedSecond()));
+        columns.add(int64("output_blocked_second", e -> e.getStatistics().getOutputBlockedSecond()));
+        columns.add(int64("failed_output_blocked_second", e -> e.getStatistics().getFailedOutputBlockedSecond()));
+        columns.add(int64("peak_user_memory_mb", e -> e.getStatistics().getPeakUserMemoryMB()));
+        columns.add(int64("peak_task_user_memory_mb", e -> e.getStatistics().getPeakTaskUserMemoryMB()));
+        columns.add(int64("peak_task_total_memory_mb", e -> e.getStatistics().getPeakTaskTotalMemoryMB()));
+        columns.add(int64("physical_input_mb", e -> e.getStatistics().getPhysicalInputMB()));
+        columns.add(int64("physical_input_rows", e -> e.getStatistics().getPhysicalInputRows()));
+        columns.add(int64("processed_input_mb", e -> e.getStatistics().getProcessedInputMB()));
+        columns.add(int64("processed_input_rows", e -> e.getStatistics().getProcessedInputRows()));
+        columns.add(int64("internal_network_mb", e -> e.getStatistics().getInternalNetworkMB()));
+        columns.add(int64("internal_network_rows", e -> e.getStatistics().getInternalNetworkRows()));
+        columns.add(int64("total_mb", e -> e.getStatistics().getTotalMB()));
+        columns.add(int64("total_rows", e -> e.getStatistics().getTotalRows()));
+        columns.add(int64("output_mb", e -> e.getStatistics().getOutputMB()));
+        columns.add(int64("output_rows", e -> e.getStatistics().getOutputRows()));
+        columns.add(int64("written_mb", e -> e.getStatistics().getWrittenMB()));
+        columns.add(int64("written_rows", e -> e.getStatistics().getWrittenRows()));
+        columns.add(float64("cumulative_memory_mb", e -> e.getStatistics().getCumulativeMemoryMB()));
+        columns.add(float64("failed_cumulative_memory_mb", e -> e.getStatistics().getFailedCumulativeMemoryMB()));
+        columns.add(int64("completed_splits", e -> e.getStatistics().getCompletedSplits()));
+        columns.add(bool("complete", e -> e.getStatistics().isComplete()));
+        columns.add(int64("resource_waiting_second", e -> e.getStatistics().getResourceWaitingSecond()));
+        columns.add(string("user", e -> e.getContext().getUser()));
+        columns.add(string("principal", e -> e.getContext().getPrincipal().orElse(null)));
+        columns.add(string("trace_token", e -> e.getContext().getTraceToken().orElse(null)));
+        columns.add(string("remote_client_address", e -> e.getContext().getRemoteClientAddress().orElse(null)));
+        columns.add(string("user_agent", e -> e.getContext().getUserAgent().orElse(null)));
+        columns.add(string("client_info", e -> e.getContext().getClientInfo().orElse(null)));
+        columns.add(string("source", e -> e.getContext().getSource().orElse(null)));
+        columns.add(string("catalog", e -> e.getContext().getCatalog().orElse(null)));
+        columns.add(string("schema", e -> e.getContext().getSchema().orElse(null)));
+        columns.add(string("resource_group_id", e -> e.getContext().getResourceGroupId().map(Object::toString).orElse(null)));
+        columns.add(string("server_address", e -> e.getContext().getServerAddress()));
+        columns.add(string("server_version", e -> e.getContext().getServerVersion()));
+        columns.add(string("environment", e -> e.getContext().getEnvironment()));
+        columns.add(string("query_type", e -> e.getContext().getQueryType().map(Enum::name).orElse(null)));
+        // catalog.schema.table of every input, comma separated
+        columns.add(string("input_tables", e -> e.getInputMetaDataList().isEmpty() ? null : e.getInputMetaDataList().stream()
+            .map(input -> input.getCatalogName() + "." + input.getSchema() + "." + input.getTable())
+            .collect(Collectors.joining(","))));
+        columns.add(timestamp("create_time", CustomQueryCompletedEvent::getCreateTime));
+        columns.add(timestamp("start_time", CustomQueryCompletedEvent::getStartTime));
+        columns.add(timestamp("end_time", CustomQueryCompletedEvent::getEndTime));
+        columns.add(optionalFloat64("sampling_weight", CustomQueryCompletedEvent::getSamplingWeight));
+        columns.add(string("fingerprint", e -> e.getMetadata().getFingerprint()));
+        return columns;
+    }
+
+    synchronized void write(CustomQueryCompletedEvent event) throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        Instant eventHour = (event.getEndTime() != null ? event.getEndTime() : clock.instant()).truncatedTo(ChronoUnit.HOURS);
+        if (file != null && !eventHour.equals(hour)) {
+            complete();
+        }
+        if (file == null) {
+            open(eventHour);
+        }
+        file.append(event);
+        if (file.getBufferedBytes() >= rowGroupSize) {
+            try {
+                file.flushRowGroup();
+            } catch (IOException e) {
+                // the rows of the file are lost, rather than writing on after a partial row group
+                abort();
+                throw e;
+            }
+            if (file.getPosition() >= maxFileSize) {
+                complete();
+            }
+        }
+    }
+
+    /**
+     * Complete the open file if its hour is over.
+     */
+    synchronized void completeExpired() throws IOException {
+        if (file != null && !clock.instant().isBefore(hour.plus(1, ChronoUnit.HOURS))) {
+            complete();
+        }
+    }
+
+    /**
+     * Write the buffered rows and complete the open file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closer != null) {
+            closer.shutdown();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            complete();
+        }
+    }
+
+    private void open(Instant eventHour) throws IOException {
+        Path partition = directory.resolve("dt=" + DAY.format(eventHour)).resolve("hour=" + HOUR.format(eventHour));
+        Files.createDirectories(partition);
+        String name = PREFIX + OPENED.format(clock.instant()) + ".";
+        int index = 0;
+        while (Files.exists(partition.resolve(name + index + EXTENSION)) || Files.exists(partition.resolve("." + name + index + EXTENSION + ".tmp"))) {
+            index++;
+        }
+        targetFile = partition.resolve(name + index + EXTENSION);
+        tempFile = partition.resolve("." + targetFile.getFileName() + ".tmp");
+        file = new ParquetFileWriter<>(new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024), columns(), compression);
+        hour = eventHour;
+    }
+
+    private void abort() throws IOException {
+        ParquetFileWriter<CustomQueryCompletedEvent> aborted = file;
+        file = null;
+        try {
+            aborted.abort();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void complete() throws IOException {
+        if (file == null) {
+            return;
+        }
+        ParquetFileWriter<CustomQueryCompletedEvent> completed = file;
+        file = null;
+        try {
+            completed.close();
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, targetFile, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
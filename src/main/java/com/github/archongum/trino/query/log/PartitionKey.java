@@ -0,0 +1,34 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * What events are routed to the files of {@code trino.query.log.output.partitionBy} by.
+ */
+public enum PartitionKey {
+    /**
+     * One output file, not partitioned.
+     */
+    NONE,
+    /**
+     * The session catalog of the query.
+     */
+    CATALOG,
+    /**
+     * The user of the query.
+     */
+    USER,
+    /**
+     * The client source of the query, e.g. {@code trino-cli}.
+     */
+    SOURCE,
+    /**
+     * The resource group the query ran in, e.g. {@code global.etl}.
+     */
+    RESOURCE_GROUP;
+
+    public static PartitionKey of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
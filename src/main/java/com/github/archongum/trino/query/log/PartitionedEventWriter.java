@@ -0,0 +1,145 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Writes each partition of the events, e.g. {@link PartitionKey#CATALOG catalog}, to a writer of its own, with its own
+ * buffers and rolling, opened on the first record of the partition.
+ * <p>
+ * At most {@code maxOpen} writers are open at once: opening one more closes the least recently written one, which is
+ * opened again, appending, when its partition comes back. So high cardinality costs reopening files rather than file
+ * descriptors and buffers. A writer failing to close fails the write that evicted it.
+ * <p>
+ * Synchronized, since events are emitted on the Trino threads when async is disabled.
+ */
+final class PartitionedEventWriter implements EventWriter {
+
+    private final Opener opener;
+    private final int maxOpen;
+    private final LinkedHashMap<String, EventWriter> writers = new LinkedHashMap<>(16, 0.75f, true);
+    // written under the lock, read by metrics without it
+    private volatile int openCount;
+    private volatile long opened;
+    private volatile long evicted;
+
+    PartitionedEventWriter(Opener opener, int maxOpen) {
+        if (maxOpen <= 0) {
+            throw new IllegalArgumentException("Open partitions must be positive: " + maxOpen);
+        }
+        this.opener = requireNonNull(opener, "opener is null");
+        this.maxOpen = maxOpen;
+    }
+
+    /**
+     * Write to the {@link OutputPartitioner#DEFAULT_PARTITION default partition}.
+     */
+    @Override
+    public void write(byte[] record, int offset, int length) throws IOException {
+        write(OutputPartitioner.DEFAULT_PARTITION, record, offset, length, null);
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length, IndexKey key) throws IOException {
+        write(OutputPartitioner.DEFAULT_PARTITION, record, offset, length, key);
+    }
+
+    synchronized void write(String partition, byte[] record, int offset, int length, IndexKey key) throws IOException {
+        writer(partition).write(record, offset, length, key);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        IOException failure = null;
+        for (EventWriter writer : writers.values()) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public synchronized void commit() throws IOException {
+        IOException failure = null;
+        for (EventWriter writer : writers.values()) {
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (EventWriter writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        writers.clear();
+        openCount = 0;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    int getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * @return writers opened, including reopened ones
+     */
+    long getOpenedCount() {
+        return opened;
+    }
+
+    /**
+     * @return writers closed to make room for another
+     */
+    long getEvictedCount() {
+        return evicted;
+    }
+
+    private EventWriter writer(String partition) throws IOException {
+        EventWriter writer = writers.get(partition);
+        if (writer != null) {
+            return writer;
+        }
+        if (writers.size() >= maxOpen) {
+            Iterator<Map.Entry<String, EventWriter>> eldest = writers.entrySet().iterator();
+            EventWriter evictee = eldest.next().getValue();
+            eldest.remove();
+            evicted++;
+            evictee.close();
+        }
+        writer = opener.open(partition);
+        writers.put(partition, writer);
+        openCount = writers.size();
+        opened++;
+        return writer;
+    }
+
+    /**
+     * Opens the writer of a partition.
+     */
+    interface Opener {
+        EventWriter open(String partition) throws IOException;
+    }
+}
@@ -0,0 +1,331 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryContext;
+import io.trino.spi.eventlistener.QueryInputMetadata;
+import io.trino.spi.eventlistener.QueryMetadata;
+import io.trino.spi.eventlistener.QueryStatistics;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Writes the {@link CustomQueryCompletedEvent} schema straight from Trino's {@link QueryCompletedEvent}
+ * in one pass, without copying it into the intermediate beans first.
+ * <p>
+ * The output is byte-for-byte the one of serializing {@code CustomQueryCompletedEvent.of(event)}. A
+ * {@link #SAMPLING_WEIGHT} attribute of the {@code ObjectWriter} is written last, as {@code samplingWeight}.
+ * {@link QueryContext}, the connector info and timestamps still go through the serializers registered on the
+ * mapper, resolved once: they are Trino's or the user's types, whose shape follows the SPI version.
+ * <p>
+ * With a {@link FieldProjection}, the fields of each object are picked once, when the serializer is created, so
+ * the getters of the fields left out are never called. {@code samplingWeight} is always written.
+ */
+final class QueryCompletedEventSerializer extends StdSerializer<QueryCompletedEvent> implements ResolvableSerializer {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String SAMPLING_WEIGHT = "trino.query.log.samplingWeight";
+
+    private static final long MB_BYTES = 1_048_576;
+
+    private static final List<Field<QueryMetadata>> METADATA = Arrays.asList(
+        new Field<>("queryId", (metadata, generator, provider) -> generator.writeStringField("queryId", metadata.getQueryId())),
+        new Field<>("fingerprint", (metadata, generator, provider) -> {
+            Object fingerprinter = provider.getAttribute(QueryTextModule.FINGERPRINTER);
+            if (fingerprinter != null) {
+                generator.writeStringField("fingerprint", ((QueryFingerprinter) fingerprinter).fingerprint(metadata.getQuery()));
+            }
+        }),
+        new Field<>("transactionId", (metadata, generator, provider) -> writeStringField("transactionId", metadata.getTransactionId(), generator)),
+        // queryHash instead with a dictionary
+        new Field<>("query", (metadata, generator, provider) -> {
+            Object dictionary = provider.getAttribute(QueryTextModule.DICTIONARY);
+            if (dictionary != null) {
+                generator.writeStringField("queryHash", ((QueryTextDictionary) dictionary).reference(metadata.getQuery()));
+            } else {
+                generator.writeFieldName("query");
+                writeQueryText(metadata.getQuery(), generator, provider);
+            }
+        }),
+        new Field<>("preparedQuery", (metadata, generator, provider) -> {
+            generator.writeFieldName("preparedQuery");
+            if (metadata.getPreparedQuery().isPresent()) {
+                writeQueryText(metadata.getPreparedQuery().get(), generator, provider);
+            } else {
+                generator.writeNull();
+            }
+        }),
+        new Field<>("queryState", (metadata, generator, provider) -> generator.writeStringField("queryState", metadata.getQueryState())),
+        new Field<>("uri", (metadata, generator, provider) -> generator.writeStringField("uri", metadata.getUri().toString())));
+
+    private static final List<Field<QueryStatistics>> STATISTICS = Arrays.asList(
+        new Field<>("cpuSecond", (statistics, generator, provider) -> generator.writeNumberField("cpuSecond", statistics.getCpuTime().getSeconds())),
+        new Field<>("failedCpuSecond", (statistics, generator, provider) ->
+            generator.writeNumberField("failedCpuSecond", statistics.getFailedCpuTime().getSeconds())),
+        new Field<>("wallSecond", (statistics, generator, provider) -> generator.writeNumberField("wallSecond", statistics.getWallTime().getSeconds())),
+        new Field<>("queuedSecond", (statistics, generator, provider) -> generator.writeNumberField("queuedSecond", statistics.getQueuedTime().getSeconds())),
+        seconds("scheduledSecond", QueryStatistics::getScheduledTime),
+        seconds("failedScheduledSecond", QueryStatistics::getFailedScheduledTime),
+        seconds("analysisSecond", QueryStatistics::getAnalysisTime),
+        seconds("planningSecond", QueryStatistics::getPlanningTime),
+        seconds("executionSecond", QueryStatistics::getExecutionTime),
+        seconds("inputBlockedSecond", QueryStatistics::getInputBlockedTime),
+        seconds("failedInputBlockedSecond", QueryStatistics::getFailedInputBlockedTime),
+        seconds("outputBlockedSecond", QueryStatistics::getOutputBlockedTime),
+        seconds("failedOutputBlockedSecond", QueryStatistics::getFailedOutputBlockedTime),
+        megabytes("peakUserMemoryMB", QueryStatistics::getPeakUserMemoryBytes),
+        megabytes("peakTaskUserMemoryMB", QueryStatistics::getPeakTaskUserMemory),
+        megabytes("peakTaskTotalMemoryMB", QueryStatistics::getPeakTaskTotalMemory),
+        megabytes("physicalInputMB", QueryStatistics::getPhysicalInputBytes),
+        number("physicalInputRows", QueryStatistics::getPhysicalInputRows),
+        megabytes("processedInputMB", QueryStatistics::getProcessedInputBytes),
+        number("processedInputRows", QueryStatistics::getProcessedInputRows),
+        megabytes("internalNetworkMB", QueryStatistics::getInternalNetworkBytes),
+        number("internalNetworkRows", QueryStatistics::getInternalNetworkRows),
+        megabytes("totalMB", QueryStatistics::getTotalBytes),
+        number("totalRows", QueryStatistics::getTotalRows),
+        megabytes("outputMB", QueryStatistics::getOutputBytes),
+        number("outputRows", QueryStatistics::getOutputRows),
+        megabytes("writtenMB", QueryStatistics::getWrittenBytes),
+        number("writtenRows", QueryStatistics::getWrittenRows),
+        new Field<>("cumulativeMemoryMB", (statistics, generator, provider) ->
+            generator.writeNumberField("cumulativeMemoryMB", statistics.getCumulativeMemory() / MB_BYTES)),
+        new Field<>("failedCumulativeMemoryMB", (statistics, generator, provider) ->
+            generator.writeNumberField("failedCumulativeMemoryMB", statistics.getFailedCumulativeMemory() / MB_BYTES)),
+        new Field<>("completedSplits", (statistics, generator, provider) -> generator.writeNumberField("completedSplits", statistics.getCompletedSplits())),
+        new Field<>("complete", (statistics, generator, provider) -> generator.writeBooleanField("complete", statistics.isComplete())),
+        seconds("resourceWaitingSecond", QueryStatistics::getResourceWaitingTime));
+
+    private static final List<Field<QueryInputMetadata>> INPUT = Arrays.asList(
+        new Field<>("catalogName", (input, generator, provider) -> generator.writeStringField("catalogName", input.getCatalogName())),
+        new Field<>("schema", (input, generator, provider) -> generator.writeStringField("schema", input.getSchema())),
+        new Field<>("table", (input, generator, provider) -> generator.writeStringField("table", input.getTable())),
+        new Field<>("connectorInfo", (input, generator, provider) -> {
+            generator.writeFieldName("connectorInfo");
+            provider.defaultSerializeValue(input.getConnectorInfo().orElse(null), generator);
+        }),
+        new Field<>("physicalInputMB", (input, generator, provider) ->
+            generator.writeNumberField("physicalInputMB", input.getPhysicalInputBytes().orElse(0) / MB_BYTES)),
+        new Field<>("physicalInputRows", (input, generator, provider) ->
+            generator.writeNumberField("physicalInputRows", input.getPhysicalInputRows().orElse(0))));
+
+    private final FieldProjection projection;
+    private final List<Field<QueryMetadata>> metadataFields;
+    private final List<Field<QueryStatistics>> statisticsFields;
+    private final List<Field<QueryInputMetadata>> inputFields;
+    private final boolean context;
+    private final boolean createTime;
+    private final boolean startTime;
+    private final boolean endTime;
+
+    private JsonSerializer<Object> instantSerializer;
+    private JsonSerializer<Object> contextSerializer;
+    // the context properties written, or null for all of them
+    private PropertyWriter[] contextProperties;
+
+    QueryCompletedEventSerializer() {
+        this(FieldProjection.ALL, Collections.emptyList());
+    }
+
+    /**
+     * @param contextFields names of the {@link QueryContext} properties, to validate the projection against
+     */
+    QueryCompletedEventSerializer(FieldProjection projection, Collection<String> contextFields) {
+        super(QueryCompletedEvent.class);
+        this.projection = requireNonNull(projection, "projection is null");
+        if (!projection.isAll()) {
+            Map<String, Collection<String>> schema = new HashMap<>();
+            schema.put("metadata", names(METADATA));
+            schema.put("statistics", names(STATISTICS));
+            schema.put("context", contextFields);
+            schema.put("inputMetaDataList", names(INPUT));
+            schema.put("createTime", Collections.emptyList());
+            schema.put("startTime", Collections.emptyList());
+            schema.put("endTime", Collections.emptyList());
+            projection.validate(schema);
+        }
+        this.metadataFields = project("metadata", METADATA, projection);
+        this.statisticsFields = project("statistics", STATISTICS, projection);
+        this.context = projection.writes("context");
+        this.inputFields = project("inputMetaDataList", INPUT, projection);
+        this.createTime = projection.writes("createTime");
+        this.startTime = projection.writes("startTime");
+        this.endTime = projection.writes("endTime");
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        instantSerializer = provider.findValueSerializer(Instant.class);
+        contextSerializer = provider.findValueSerializer(QueryContext.class);
+        if (context && !projection.writesAll("context")) {
+            List<PropertyWriter> properties = new ArrayList<>();
+            for (Iterator<PropertyWriter> iterator = contextSerializer.properties(); iterator.hasNext(); ) {
+                PropertyWriter property = iterator.next();
+                if (projection.writes("context." + property.getName())) {
+                    properties.add(property);
+                }
+            }
+            contextProperties = properties.toArray(new PropertyWriter[0]);
+        }
+    }
+
+    @Override
+    public void serialize(QueryCompletedEvent event, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        if (metadataFields != null) {
+            generator.writeFieldName("metadata");
+            writeObject(event.getMetadata(), metadataFields, generator, provider);
+        }
+        if (statisticsFields != null) {
+            generator.writeFieldName("statistics");
+            writeObject(event.getStatistics(), statisticsFields, generator, provider);
+        }
+        if (context) {
+            generator.writeFieldName("context");
+            writeContext(event.getContext(), generator, provider);
+        }
+        if (inputFields != null) {
+            generator.writeFieldName("inputMetaDataList");
+            generator.writeStartArray();
+            for (QueryInputMetadata input : event.getIoMetadata().getInputs()) {
+                writeObject(input, inputFields, generator, provider);
+            }
+            generator.writeEndArray();
+        }
+        if (createTime) {
+            writeInstant("createTime", event.getCreateTime(), generator, provider);
+        }
+        if (startTime) {
+            writeInstant("startTime", event.getExecutionStartTime(), generator, provider);
+        }
+        if (endTime) {
+            writeInstant("endTime", event.getEndTime(), generator, provider);
+        }
+        Object samplingWeight = provider.getAttribute(SAMPLING_WEIGHT);
+        if (samplingWeight != null) {
+            generator.writeNumberField("samplingWeight", (Double) samplingWeight);
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeContext(QueryContext context, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (contextProperties == null) {
+            contextSerializer.serialize(context, generator, provider);
+            return;
+        }
+        generator.writeStartObject();
+        for (PropertyWriter property : contextProperties) {
+            try {
+                property.serializeAsField(context, generator, provider);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw JsonMappingException.from(generator, "Failed to write context." + property.getName(), e);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static <T> void writeObject(T value, List<Field<T>> fields, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < fields.size(); i++) {
+            fields.get(i).writer.write(value, generator, provider);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeQueryText(String query, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        Object maxLength = provider.getAttribute(QueryTextModule.MAX_LENGTH);
+        Object unit = provider.getAttribute(QueryTextModule.LENGTH_UNIT);
+        QueryTextModule.writeQueryText(generator, query, maxLength == null ? -1 : (Integer) maxLength,
+            unit == null ? QueryLengthUnit.CHARS : (QueryLengthUnit) unit);
+    }
+
+    private void writeInstant(String name, Instant instant, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeFieldName(name);
+        if (instant == null) {
+            generator.writeNull();
+        } else {
+            instantSerializer.serialize(instant, generator, provider);
+        }
+    }
+
+    private static void writeStringField(String name, Optional<String> value, JsonGenerator generator) throws IOException {
+        if (value.isPresent()) {
+            generator.writeStringField(name, value.get());
+        } else {
+            generator.writeNullField(name);
+        }
+    }
+
+    /**
+     * @return the fields of {@code object} written, or {@code null} to leave the object out
+     */
+    private static <T> List<Field<T>> project(String object, List<Field<T>> fields, FieldProjection projection) {
+        if (!projection.writes(object)) {
+            return null;
+        }
+        return fields.stream()
+            .filter(field -> projection.writes(object + '.' + field.name))
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static <T> List<String> names(List<Field<T>> fields) {
+        return fields.stream().map(field -> field.name).collect(Collectors.toList());
+    }
+
+    private static Field<QueryStatistics> seconds(String name, Function<QueryStatistics, Optional<Duration>> getter) {
+        return new Field<>(name, (statistics, generator, provider) -> {
+            Optional<Duration> value = getter.apply(statistics);
+            generator.writeNumberField(name, value.isPresent() ? value.get().getSeconds() : 0);
+        });
+    }
+
+    private static Field<QueryStatistics> megabytes(String name, ToLongFunction<QueryStatistics> getter) {
+        return new Field<>(name, (statistics, generator, provider) -> generator.writeNumberField(name, getter.applyAsLong(statistics) / MB_BYTES));
+    }
+
+    private static Field<QueryStatistics> number(String name, ToLongFunction<QueryStatistics> getter) {
+        return new Field<>(name, (statistics, generator, provider) -> generator.writeNumberField(name, getter.applyAsLong(statistics)));
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter<T> {
+        void write(T value, JsonGenerator generator, SerializerProvider provider) throws IOException;
+    }
+
+    /**
+     * A field of the schema, named by its path in a {@link FieldProjection}.
+     */
+    private static final class Field<T> {
+        private final String name;
+        private final FieldWriter<T> writer;
+
+        private Field(String name, FieldWriter<T> writer) {
+            this.name = name;
+            this.writer = writer;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Fingerprints a query as the hash of its normalized text, so that "the same query" with other literals,
+ * casing or formatting gets the same key.
+ * <p>
+ * Normalization is one pass of a tokenizer, not a parser: comments are dropped, whitespace collapsed,
+ * string and numeric literals replaced by {@code ?}, signs included where they are unary, literal {@code IN}
+ * lists by {@code (?+)} and unquoted identifiers and keywords lower-cased. Fingerprints are cached by the hash of the raw text, in an LRU of
+ * {@code cacheSize} entries, since the same generated texts come again and again.
+ */
+final class QueryFingerprinter {
+
+    private static final String LIST = "?+";
+    // keywords an operand follows, so that a sign after them is unary
+    private static final Set<String> OPERAND_KEYWORDS = Set.of(
+        "select", "distinct", "all", "where", "and", "or", "not", "on", "having", "by", "when", "then", "else", "case",
+        "between", "like", "in", "is", "limit", "offset", "values", "return");
+
+    private final Map<String, String> cache;
+
+    QueryFingerprinter(int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+        }
+        this.cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @return 32 hex digits, the same for queries differing only by literals, casing, comments or whitespace
+     */
+    String fingerprint(String query) {
+        String key = QueryTextDictionary.hash(query);
+        synchronized (cache) {
+            String fingerprint = cache.get(key);
+            if (fingerprint != null) {
+                return fingerprint;
+            }
+        }
+        String fingerprint = QueryTextDictionary.hash(normalize(query));
+        synchronized (cache) {
+            cache.put(key, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    static String normalize(String query) {
+        Normalizer normalizer = new Normalizer(query.length());
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char c = query.charAt(i);
+            char next = i + 1 < length ? query.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && next == '-') {
+                i = skipPast(query, i + 2, "\n");
+            } else if (c == '/' && next == '*') {
+                i = skipPast(query, i + 2, "*/");
+            } else if (c == '\'') {
+                i = skipQuoted(query, i, '\'');
+                normalizer.literal();
+            } else if ((c == '-' || c == '+') && normalizer.expectsOperand() && isNumberStart(query, skipWhitespace(query, i + 1))) {
+                // unary sign of -3, folded with the number
+                i = skipNumber(query, skipWhitespace(query, i + 1));
+                normalizer.literal();
+            } else if (isDigit(c) || (c == '.' && isDigit(next))) {
+                i = skipNumber(query, i);
+                normalizer.literal();
+            } else if (c == '"') {
+                int end = skipQuoted(query, i, '"');
+                normalizer.word(query, i, end, false);
+                i = end;
+            } else if (Character.isLetter(c) || c == '_') {
+                int end = i + 1;
+                while (end < length && isWordPart(query.charAt(end))) {
+                    end++;
+                }
+                if (end < length && query.charAt(end) == '\'' && end - i == 1 && (c == 'x' || c == 'X')) {
+                    // binary literal X'00ff'
+                    i = skipQuoted(query, end, '\'');
+                    normalizer.literal();
+                } else {
+                    normalizer.word(query, i, end, true);
+                    i = end;
+                }
+            } else if (c == '?') {
+                i++;
+                normalizer.literal();
+            } else {
+                int end = isOperatorPair(c, next) ? i + 2 : i + 1;
+                normalizer.symbol(query, i, end);
+                i = end;
+            }
+        }
+        return normalizer.finish();
+    }
+
+    private static int skipPast(String query, int from, String end) {
+        int index = query.indexOf(end, from);
+        return index == -1 ? query.length() : index + end.length();
+    }
+
+    /**
+     * @return index after the closing quote, a doubled quote being an escaped one
+     */
+    private static int skipQuoted(String query, int start, char quote) {
+        int i = start + 1;
+        while (i < query.length()) {
+            if (query.charAt(i) == quote) {
+                if (i + 1 < query.length() && query.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNumber(String query, int start) {
+        int i = start;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (isDigit(c) || c == '.' || c == '_' || Character.isLetter(c)) {
+                i++;
+            } else if ((c == '+' || c == '-') && (query.charAt(i - 1) == 'e' || query.charAt(i - 1) == 'E')) {
+                // exponent sign of 1.5E-3
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(String query, int from) {
+        int i = from;
+        while (i < query.length() && Character.isWhitespace(query.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isNumberStart(String query, int i) {
+        if (i >= query.length()) {
+            return false;
+        }
+        char c = query.charAt(i);
+        return isDigit(c) || (c == '.' && i + 1 < query.length() && isDigit(query.charAt(i + 1)));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isOperatorPair(char c, char next) {
+        switch (c) {
+            case '<':
+                return next == '=' || next == '>';
+            case '>':
+            case '!':
+                return next == '=';
+            case '|':
+                return next == '|';
+            case '-':
+            case '=':
+                return next == '>';
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Appends tokens separated by one space, and folds the literals of an {@code IN} list.
+     */
+    private static final class Normalizer {
+
+        private final StringBuilder out;
+        private boolean afterIn;
+        private boolean inList;
+        private boolean listHasLiterals;
+        // nothing yet, an operator, a separator or a keyword: a sign here is unary
+        private boolean operandExpected = true;
+
+        private Normalizer(int capacity) {
+            this.out = new StringBuilder(Math.min(capacity, 4096));
+        }
+
+        boolean expectsOperand() {
+            return operandExpected;
+        }
+
+        void literal() {
+            operandExpected = false;
+            if (inList) {
+                listHasLiterals = true;
+                return;
+            }
+            append("?", 0, 1);
+        }
+
+        void word(String query, int start, int end, boolean fold) {
+            endList();
+            separate(query.charAt(start));
+            int from = out.length();
+            out.append(query, start, end);
+            if (fold) {
+                for (int i = from; i < out.length(); i++) {
+                    out.setCharAt(i, Character.toLowerCase(out.charAt(i)));
+                }
+            }
+            afterIn = fold && end - start == 2 && out.charAt(from) == 'i' && out.charAt(from + 1) == 'n';
+            operandExpected = fold && end - start <= 8 && OPERAND_KEYWORDS.contains(out.substring(from));
+        }
+
+        void symbol(String query, int start, int end) {
+            char c = query.charAt(start);
+            operandExpected = end - start > 1 || (c != ')' && c != ']');
+            if (inList) {
+                if (end - start == 1 && (c == ',' || c == '-' || c == '+')) {
+                    return;
+                }
+                if (c == ')' && listHasLiterals) {
+                    append(LIST, 0, LIST.length());
+                    inList = false;
+                    append(query, start, end);
+                    return;
+                }
+                endList();
+            }
+            boolean openList = afterIn && c == '(';
+            append(query, start, end);
+            if (openList) {
+                inList = true;
+                listHasLiterals = false;
+            }
+        }
+
+        String finish() {
+            endList();
+            return out.toString();
+        }
+
+        /**
+         * A list mixing literals with anything else still gets its literals folded, ahead of the rest.
+         */
+        private void endList() {
+            if (inList) {
+                inList = false;
+                if (listHasLiterals) {
+                    append(LIST, 0, LIST.length());
+                }
+            }
+        }
+
+        private void append(CharSequence token, int start, int end) {
+            separate(token.charAt(start));
+            out.append(token, start, end);
+            afterIn = false;
+        }
+
+        /**
+         * One space between tokens, but none after {@code (} or {@code .} and before {@code ) , .}
+         */
+        private void separate(char first) {
+            if (out.length() == 0) {
+                return;
+            }
+            char last = out.charAt(out.length() - 1);
+            if (last == '(' || last == '.' || first == ')' || first == ',' || first == '.') {
+                return;
+            }
+            out.append(' ');
+        }
+    }
+}
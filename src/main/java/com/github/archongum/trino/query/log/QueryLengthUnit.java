@@ -0,0 +1,22 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * Unit of {@code queryMaxLength}.
+ */
+public enum QueryLengthUnit {
+    /**
+     * UTF-16 chars, i.e. {@link String#length()}.
+     */
+    CHARS,
+    /**
+     * UTF-8 encoded bytes, i.e. what ends up in the log file.
+     */
+    BYTES;
+
+    public static QueryLengthUnit of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,471 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+
+
+/**
+ * Finds records of the {@code FILE} output by query id, user and create time, without reading whole log files.
+ * <pre>
+ * java -cp '&lt;TRINO_HOME&gt;/plugin/trino-query-log/*' com.github.archongum.trino.query.log.QueryLogIndex \
+ *     lookup &lt;active log file&gt; [--query-id &lt;id&gt;] [--user &lt;user&gt;] [--from &lt;instant&gt;] [--to &lt;instant&gt;]
+ * java -cp '&lt;TRINO_HOME&gt;/plugin/trino-query-log/*' com.github.archongum.trino.query.log.QueryLogIndex \
+ *     rebuild &lt;log file&gt;...
+ * </pre>
+ * Every log file has a sidecar {@code <log file>.idx}, one line per record:
+ * {@code queryId TAB user TAB createTimeMillis TAB blockOffset TAB offsetInBlock}. In a {@code .gz} file the block
+ * is the gzip member holding the record, so a lookup seeks to it and decompresses a single member; otherwise
+ * the record is at {@code blockOffset}.
+ * <p>
+ * Lookups only read the indexes of the day directories around the date of the query id or the time range,
+ * as records are rolled by the day they are written: records of queries running for more than a day are
+ * found with a wider {@code --from}. Instants are ISO-8601, e.g. {@code 2022-06-01T10:00:00Z}.
+ * <p>
+ * {@code rebuild} rewrites the indexes of existing log files, e.g. written before indexing was enabled, or
+ * after a crash. The active log file is only rebuilt while Trino is stopped.
+ */
+public final class QueryLogIndex {
+
+    static final String EXTENSION = ".idx";
+
+    private static final char SEPARATOR = '\t';
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int GZIP_TRAILER_SIZE = 8;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int FHCRC = 2;
+    private static final DateTimeFormatter QUERY_ID_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .registerModule(new SimpleModule(QueryLogIndex.class.getSimpleName()).addDeserializer(Instant.class, new ISOInstantDeserializer()));
+
+    private QueryLogIndex() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && "rebuild".equals(args[0])) {
+            for (int i = 1; i < args.length; i++) {
+                rebuild(Paths.get(args[i]));
+            }
+            return;
+        }
+        if (args.length < 2 || !"lookup".equals(args[0])) {
+            System.err.println("usage: QueryLogIndex lookup <active log file> [--query-id <id>] [--user <user>] [--from <instant>] [--to <instant>]");
+            System.err.println("       QueryLogIndex rebuild <log file>...");
+            System.exit(2);
+        }
+        Lookup lookup = new Lookup();
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--query-id":
+                    lookup.queryId = args[i + 1];
+                    break;
+                case "--user":
+                    lookup.user = args[i + 1];
+                    break;
+                case "--from":
+                    lookup.from = Instant.parse(args[i + 1]);
+                    break;
+                case "--to":
+                    lookup.to = Instant.parse(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+        lookup(Paths.get(args[1]), lookup, out);
+        out.flush();
+    }
+
+    /**
+     * @return the sidecar index of a log file
+     */
+    static Path indexFile(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + EXTENSION);
+    }
+
+    static void appendEntry(StringBuilder entries, IndexKey key, long blockOffset, long offsetInBlock) {
+        entries.append(key.getQueryId()).append(SEPARATOR);
+        String user = key.getUser();
+        if (user != null) {
+            for (int i = 0; i < user.length(); i++) {
+                char c = user.charAt(i);
+                entries.append(c == SEPARATOR || c == '\n' || c == '\r' ? ' ' : c);
+            }
+        }
+        entries.append(SEPARATOR).append(key.getCreateTimeMillis())
+            .append(SEPARATOR).append(blockOffset)
+            .append(SEPARATOR).append(offsetInBlock)
+            .append('\n');
+    }
+
+    /**
+     * Write the records matching {@code lookup} to {@code out}, one per line, oldest log file first.
+     */
+    static void lookup(Path activeFile, Lookup lookup, Writer out) throws IOException {
+        List<Path> segments = new ArrayList<>(FileRollingPolicy.historyFiles(activeFile, lookup.firstDay(), lookup.lastDay()));
+        segments.add(activeFile);
+        segments.add(activeFile.resolveSibling(activeFile.getFileName() + GZIP_EXTENSION));
+        for (Path segment : segments) {
+            Path index = indexFile(segment);
+            if (!Files.exists(segment) || !Files.exists(index)) {
+                continue;
+            }
+            List<Entry> matches = new ArrayList<>();
+            for (String line : Files.readAllLines(index, UTF_8)) {
+                Entry entry = Entry.parse(line);
+                if (entry != null && lookup.matches(entry)) {
+                    matches.add(entry);
+                }
+            }
+            if (!matches.isEmpty()) {
+                for (String record : readRecords(segment, matches)) {
+                    out.write(record);
+                    out.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the records at {@code entries} of a log file
+     */
+    static List<String> readRecords(Path segment, List<Entry> entries) throws IOException {
+        boolean compressed = segment.getFileName().toString().endsWith(GZIP_EXTENSION);
+        List<String> records = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            try (InputStream in = open(segment, entry, compressed)) {
+                ByteArrayOutputStream record = new ByteArrayOutputStream();
+                for (int b = in.read(); b != -1 && b != '\n'; b = in.read()) {
+                    record.write(b);
+                }
+                records.add(record.toString(UTF_8));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Rewrite the index of a log file from its records.
+     */
+    static void rebuild(Path segment) throws IOException {
+        Path index = indexFile(segment);
+        Path temporary = index.resolveSibling(index.getFileName() + ".tmp");
+        StringBuilder entry = new StringBuilder();
+        try (Writer out = Files.newBufferedWriter(temporary, UTF_8)) {
+            scan(segment, (record, length, blockOffset, offsetInBlock) -> {
+                IndexKey key = key(record, length);
+                if (key != null) {
+                    entry.setLength(0);
+                    appendEntry(entry, key, blockOffset, offsetInBlock);
+                    out.append(entry);
+                }
+            });
+        }
+        Files.move(temporary, index, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the key of a serialized event, as {@link IndexKey#of(Object)} gives it when writing, or {@code null}
+     */
+    static IndexKey key(byte[] record, int length) {
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(record, 0, length);
+        } catch (IOException e) {
+            return null;
+        }
+        if (node == null || !node.isObject()) {
+            return null;
+        }
+        JsonNode metadata = node.get("metadata");
+        JsonNode queryId = metadata != null ? metadata.get("queryId") : node.get("queryId");
+        if (queryId == null || !queryId.isTextual()) {
+            return null;
+        }
+        JsonNode context = node.get("context");
+        JsonNode user = context == null ? null : context.get("user");
+        JsonNode createTime = node.get("createTime");
+        long createTimeMillis = 0;
+        if (createTime != null && !createTime.isNull()) {
+            try {
+                createTimeMillis = MAPPER.convertValue(createTime, Instant.class).toEpochMilli();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return new IndexKey(queryId.asText(), user == null || user.isNull() ? null : user.asText(), createTimeMillis);
+    }
+
+    /**
+     * Hand every whole record of a log file to {@code visitor}, with its location.
+     */
+    private static void scan(Path segment, RecordVisitor visitor) throws IOException {
+        if (!segment.getFileName().toString().endsWith(GZIP_EXTENSION)) {
+            Lines lines = new Lines(visitor, 0, false);
+            byte[] chunk = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(segment)) {
+                for (int n = in.read(chunk); n != -1; n = in.read(chunk)) {
+                    lines.accept(chunk, n);
+                }
+            }
+            return;
+        }
+        Inflater inflater = new Inflater(true);
+        try (FileChannel channel = FileChannel.open(segment, READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Too large to index: " + segment);
+            }
+            ByteBuffer input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] chunk = new byte[64 * 1024];
+            // members one by one, each starting a block
+            while (input.remaining() >= GZIP_HEADER_SIZE + GZIP_TRAILER_SIZE) {
+                long blockOffset = input.position();
+                skipHeader(input);
+                Lines lines = new Lines(visitor, blockOffset, true);
+                inflater.reset();
+                inflater.setInput(input);
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(chunk);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        // truncated by a crash: keep the members before
+                        return;
+                    }
+                    lines.accept(chunk, n);
+                }
+                input.position(Math.min(input.limit(), input.position() + GZIP_TRAILER_SIZE));
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid gzip data in " + segment, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return the log file from the record of {@code entry} on
+     */
+    private static InputStream open(Path segment, Entry entry, boolean compressed) throws IOException {
+        InputStream in = new BufferedInputStream(Channels.newInputStream(FileChannel.open(segment, READ).position(entry.blockOffset)));
+        if (!compressed) {
+            return in;
+        }
+        try {
+            InputStream decompressed = new GZIPInputStream(in);
+            skipFully(decompressed, entry.offsetInBlock);
+            return new BufferedInputStream(decompressed);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static void skipHeader(ByteBuffer input) throws IOException {
+        int start = input.position();
+        if (input.get(start) != (byte) 0x1f || input.get(start + 1) != (byte) 0x8b) {
+            throw new IOException("Not a gzip member at " + start);
+        }
+        int flags = input.get(start + 3);
+        input.position(start + GZIP_HEADER_SIZE);
+        if ((flags & FEXTRA) != 0) {
+            int length = (input.get() & 0xff) | (input.get() & 0xff) << 8;
+            input.position(input.position() + length);
+        }
+        if ((flags & FNAME) != 0) {
+            while (input.get() != 0) {
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (input.get() != 0) {
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            input.position(input.position() + 2);
+        }
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                throw new IOException("Record beyond the end of its block");
+            }
+            bytes -= skipped;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(byte[] record, int length, long blockOffset, long offsetInBlock) throws IOException;
+    }
+
+    /**
+     * Splits decompressed bytes into records, keeping track of where each one starts.
+     */
+    private static final class Lines {
+        private final RecordVisitor visitor;
+        private final long blockOffset;
+        private final boolean compressed;
+        private long position;
+        private long recordStart;
+        private byte[] record = new byte[8192];
+        private int length;
+
+        private Lines(RecordVisitor visitor, long blockOffset, boolean compressed) {
+            this.visitor = visitor;
+            this.blockOffset = blockOffset;
+            this.compressed = compressed;
+        }
+
+        private void accept(byte[] bytes, int count) throws IOException {
+            for (int i = 0; i < count; i++, position++) {
+                if (bytes[i] == '\n') {
+                    if (compressed) {
+                        visitor.visit(record, length, blockOffset, recordStart);
+                    } else {
+                        visitor.visit(record, length, blockOffset + recordStart, 0);
+                    }
+                    recordStart = position + 1;
+                    length = 0;
+                    continue;
+                }
+                if (length == record.length) {
+                    byte[] larger = new byte[record.length * 2];
+                    System.arraycopy(record, 0, larger, 0, length);
+                    record = larger;
+                }
+                record[length++] = bytes[i];
+            }
+        }
+    }
+
+    /**
+     * One line of an index.
+     */
+    static final class Entry {
+        private final String queryId;
+        private final String user;
+        private final long createTimeMillis;
+        private final long blockOffset;
+        private final long offsetInBlock;
+
+        Entry(String queryId, String user, long createTimeMillis, long blockOffset, long offsetInBlock) {
+            this.queryId = queryId;
+            this.user = user;
+            this.createTimeMillis = createTimeMillis;
+            this.blockOffset = blockOffset;
+            this.offsetInBlock = offsetInBlock;
+        }
+
+        /**
+         * @return the entry, or {@code null} for a partly written line
+         */
+        static Entry parse(String line) {
+            String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+            if (fields.length != 5) {
+                return null;
+            }
+            try {
+                return new Entry(fields[0], fields[1].isEmpty() ? null : fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                    Long.parseLong(fields[4]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        String getQueryId() {
+            return queryId;
+        }
+
+        String getUser() {
+            return user;
+        }
+
+        long getCreateTimeMillis() {
+            return createTimeMillis;
+        }
+    }
+
+    /**
+     * Criteria of {@link #lookup(Path, Lookup, Writer)}, all optional.
+     */
+    static final class Lookup {
+        String queryId;
+        String user;
+        Instant from;
+        Instant to;
+
+        private boolean matches(Entry entry) {
+            return (queryId == null || queryId.equals(entry.queryId))
+                && (user == null || user.equals(entry.user))
+                && (from == null || entry.createTimeMillis >= from.toEpochMilli())
+                && (to == null || entry.createTimeMillis < to.toEpochMilli());
+        }
+
+        /**
+         * @return the first day directory to read, a day early for time zones, or {@code null} for all
+         */
+        private LocalDate firstDay() {
+            LocalDate day = queryIdDate();
+            if (from != null && (day == null || LocalDate.ofInstant(from, ZoneId.systemDefault()).isAfter(day))) {
+                day = LocalDate.ofInstant(from, ZoneId.systemDefault());
+            }
+            return day == null ? null : day.minusDays(1);
+        }
+
+        /**
+         * @return the last day directory to read, a day late for queries completing after midnight, or {@code null} for all
+         */
+        private LocalDate lastDay() {
+            LocalDate day = queryIdDate();
+            if (to != null && (day == null || LocalDate.ofInstant(to, ZoneId.systemDefault()).isBefore(day))) {
+                day = LocalDate.ofInstant(to, ZoneId.systemDefault());
+            }
+            return day == null ? null : day.plusDays(1);
+        }
+
+        /**
+         * Query ids start with the UTC date they were created, e.g. {@code 20220601_101530_00001_abcde}.
+         */
+        private LocalDate queryIdDate() {
+            if (queryId == null || queryId.length() < 8) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(queryId.substring(0, 8), QUERY_ID_DATE);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+
+/**
+ * Appends the entries of one log file to its {@link QueryLogIndex#indexFile(Path) sidecar index}. Entries are
+ * buffered until {@link #flush()}, which the file writer calls after each commit, and never fsynced: an index
+ * lost in a crash is rebuilt from its log file.
+ * <p>
+ * Not thread safe, the writer calls it under its I/O lock.
+ */
+final class QueryLogIndexWriter implements Closeable {
+
+    private final Path segment;
+    private final StringBuilder pending = new StringBuilder();
+    private FileChannel channel;
+
+    QueryLogIndexWriter(Path segment) throws IOException {
+        this.segment = segment;
+        open();
+    }
+
+    /**
+     * @param blockOffset   offset of the gzip member holding the record, or of the record itself when not compressed
+     * @param offsetInBlock offset of the record in the decompressed member, or 0 when not compressed
+     */
+    void append(IndexKey key, long blockOffset, long offsetInBlock) {
+        QueryLogIndex.appendEntry(pending, key, blockOffset, offsetInBlock);
+    }
+
+    void flush() throws IOException {
+        if (pending.length() == 0) {
+            return;
+        }
+        ByteBuffer entries = ByteBuffer.wrap(pending.toString().getBytes(UTF_8));
+        pending.setLength(0);
+        while (entries.hasRemaining()) {
+            channel.write(entries);
+        }
+    }
+
+    /**
+     * Move the index next to the log file rolled to {@code rolledSegment}, and start a new one.
+     */
+    void roll(Path rolledSegment) throws IOException {
+        flush();
+        channel.close();
+        Files.move(QueryLogIndex.indexFile(segment), QueryLogIndex.indexFile(rolledSegment), ATOMIC_MOVE);
+        open();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(QueryLogIndex.indexFile(segment), CREATE, WRITE, APPEND);
+    }
+}
@@ -1,109 +1,536 @@
 package com.github.archongum.trino.query.log;
 
-import java.lang.reflect.Field;
-import java.util.Optional;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import ch.qos.logback.classic.LoggerContext;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.trino.spi.eventlistener.EventListener;
 import io.trino.spi.eventlistener.QueryCompletedEvent;
 import io.trino.spi.eventlistener.QueryCreatedEvent;
-import io.trino.spi.eventlistener.QueryInputMetadata;
-import io.trino.spi.eventlistener.QueryMetadata;
 import io.trino.spi.eventlistener.SplitCompletedEvent;
-import io.trino.spi.resourcegroups.QueryType;
-import org.slf4j.Logger;
 
 
-public class QueryLogListener implements EventListener {
-    private final Logger logger;
-    private final ObjectMapper mapper;
+public class QueryLogListener implements EventListener, Closeable {
+    private static final long MB_BYTES = 1_048_576;
+    private static final long PARQUET_CHECK_INTERVAL_MS = 60_000;
+    // a partition is one of many files written at once, and reopened when it comes back
+    private static final int MAX_PARTITION_BUFFER_SIZE = 65_536;
+
+    private final EventWriter writer;
+    private final SpillingEventWriter spill;
+    private final OutputPartitioner partitioner;
+    private final PartitionedEventWriter partitions;
+    private final ScheduledExecutorService partitionFlusher;
+    private final Set<EventType> outputEvents;
+    private final List<Sink> sinks;
+    private final QueryTextDictionary dictionary;
+    private final EventSerializer serializer;
     private final QueryLogListenerProperties properties;
+    private final EventFilter filter;
+    private final AsyncEventDispatcher dispatcher;
+    private final SplitRollupAggregator splitRollups;
+    private final WorkloadAggregator workloads;
+    private final InFlightQueryTracker inFlight;
+    private final QueryThresholds thresholds;
+    private final QuerySampler sampler;
+    private final CreatedEventBuffer createdEvents;
+    private final boolean mergeCreated;
+    private final QueryLogMetrics metrics;
+    private final boolean indexed;
+    private final ParquetQueryLogWriter parquet;
 
     public QueryLogListener(LoggerContext loggerContext, ObjectMapper mapper, QueryLogListenerProperties properties) {
-        this.logger = loggerContext.getLogger(QueryLogListener.class);
-        this.mapper = mapper;
+        boolean binary = properties.getOutputMode() == OutputMode.FILE && properties.getOutputFormat() == OutputFormat.BINARY;
+        // the index points into the records as serialized, which binary blocks rewrite
+        boolean outputIndexed = properties.isOutputIndex() && !binary;
+        if (properties.getOutputPartitionBy() != PartitionKey.NONE) {
+            if (properties.getOutputMode() != OutputMode.FILE || properties.isSpill()) {
+                // a spilled record does not keep its partition
+                throw new IllegalArgumentException("output.partitionBy takes FILE mode, without spill");
+            }
+            this.partitioner = new OutputPartitioner(properties.getOutputPartitionBy(), properties.getOutputPartitionRules());
+            // one flusher for all partitions, each with a single small pair of buffers
+            this.partitionFlusher = properties.getOutputFlushIntervalMs() > 0 ? FileChannelEventWriter.newFlusher() : null;
+            int bufferSize = Math.min(properties.getOutputBufferSize(), MAX_PARTITION_BUFFER_SIZE);
+            this.partitions = new PartitionedEventWriter(
+                partition -> createFileWriter(properties, partitionFile(properties.getOutputFile(), partition), outputIndexed, binary,
+                    bufferSize, 1, partitionFlusher),
+                properties.getOutputMaxOpenPartitions());
+        } else {
+            this.partitioner = null;
+            this.partitions = null;
+            this.partitionFlusher = null;
+        }
+        EventWriter sink = partitions != null
+            ? partitions
+            : createWriter(loggerContext, properties, properties.getOutputFile(), QueryLogListener.class.getName(), outputIndexed, binary);
+        this.spill = properties.isSpill() ? createSpillingWriter(sink, properties, this::isBackedUp) : null;
+        this.writer = spill != null ? spill : sink;
+        this.outputEvents = EventType.setOf(properties.getOutputEvents());
+        this.sinks = createSinks(properties, binary);
+        this.dictionary = properties.isQueryDedup()
+            ? new QueryTextDictionary(properties.getQueryDedupCacheSize(),
+                createWriter(loggerContext, properties, properties.getOutputQueryDictionaryFile(), QueryTextDictionary.class.getName(), false, false),
+                mapper.getFactory(), Clock.systemDefaultZone())
+            : null;
+        this.serializer = new EventSerializer(mapper, properties, dictionary, binary);
         this.properties = properties;
+        this.filter = properties.getEventFilter();
+        this.thresholds = new QueryThresholds(properties.getQueryCompletedSamplingWallMs(), properties.getQueryCompletedSamplingCpuMs(),
+            properties.getQueryCompletedSamplingMemoryMB() * MB_BYTES);
+        this.sampler = properties.isQueryCompletedSampling()
+            ? new QuerySampler(properties.getQueryCompletedSamplingPerSecond(), thresholds)
+            : null;
+        // completed events carry the metadata, context and create time of created events
+        this.mergeCreated = properties.isInFlight() && properties.isInFlightMergeCreated();
+        this.createdEvents = properties.isQueryCreated() && !mergeCreated && properties.isQueryCreatedTailSampling()
+            ? new CreatedEventBuffer(properties.getQueryCreatedTailSamplingMaxMB() * MB_BYTES, properties.getQueryCreatedTailSamplingOverflow())
+            : null;
+        this.indexed = properties.getOutputMode() == OutputMode.FILE && properties.isOutputIndex() && !binary;
+        this.parquet = properties.isParquet() ? createParquetWriter(properties) : null;
+        this.metrics = new QueryLogMetrics(this::getDispatchDropped, this::getDispatchQueueDepth, spill, sinkWriters(), partitions);
+        // everything emit uses is set by now: the components below start threads emitting events
+        this.dispatcher = properties.isAsyncEnabled()
+            ? new AsyncEventDispatcher(properties.getAsyncBufferSize(), properties.getAsyncOverflowPolicy(), this::emit, this::flush)
+            : null;
+        this.splitRollups = properties.getSplitCompletedMode() == SplitLogMode.ROLLUP
+            ? new SplitRollupAggregator(properties.getSplitRollupMaxQueries(), TimeUnit.SECONDS.toMillis(properties.getSplitRollupTtlSeconds()),
+                properties.getSplitRollupSlowestSplits(), this::dispatch)
+            : null;
+        this.workloads = properties.isWorkloadSummary()
+            ? new WorkloadAggregator(properties.getWorkloadSummaryMaxKeys(), TimeUnit.SECONDS.toMillis(properties.getWorkloadSummaryIntervalSeconds()),
+                this::dispatch, Clock.systemUTC())
+            : null;
+        this.inFlight = properties.isInFlight()
+            ? new InFlightQueryTracker(properties.getInFlightMaxQueries(), TimeUnit.SECONDS.toMillis(properties.getInFlightIntervalSeconds()),
+                TimeUnit.SECONDS.toMillis(properties.getInFlightLongRunningSeconds()), TimeUnit.SECONDS.toMillis(properties.getInFlightTtlSeconds()),
+                this::dispatch, Clock.systemUTC())
+            : null;
+    }
+
+    /**
+     * @param binary whether records are serialized in {@link OutputFormat#BINARY}, which only the output takes
+     */
+    private static List<Sink> createSinks(QueryLogListenerProperties properties, boolean binary) {
+        List<Sink> sinks = new ArrayList<>();
+        for (String name : properties.getSinks().split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            if (binary) {
+                throw new IllegalArgumentException("Sinks take JSON records, not output.format BINARY");
+            }
+            switch (SinkType.of(name)) {
+                case SOCKET:
+                    sinks.add(new Sink(EventType.setOf(properties.getSinkSocketEvents()), new QueuedEventWriter("socket",
+                        new SocketEventWriter(properties.getSinkSocketAddress()),
+                        properties.getSinkSocketQueueSize(),
+                        properties.getSinkSocketBatchSize(),
+                        properties.getSinkSocketLingerMs(),
+                        properties.getSinkSocketFailurePolicy())));
+                    break;
+                case HTTP:
+                    sinks.add(new Sink(EventType.setOf(properties.getSinkHttpEvents()), new QueuedEventWriter("http",
+                        new HttpEventWriter(URI.create(properties.getSinkHttpUrl()), Duration.ofMillis(properties.getSinkHttpTimeoutMs()),
+                            properties.getSinkHttpCompression()),
+                        properties.getSinkHttpQueueSize(),
+                        properties.getSinkHttpBatchSize(),
+                        properties.getSinkHttpLingerMs(),
+                        properties.getSinkHttpFailurePolicy())));
+                    break;
+                case STDOUT:
+                default:
+                    sinks.add(new Sink(EventType.setOf(properties.getSinkStdoutEvents()), new QueuedEventWriter("stdout",
+                        new StdoutEventWriter(),
+                        properties.getSinkStdoutQueueSize(),
+                        properties.getSinkStdoutBatchSize(),
+                        properties.getSinkStdoutLingerMs(),
+                        SinkFailurePolicy.DROP)));
+            }
+        }
+        return sinks;
+    }
+
+    private List<QueuedEventWriter> sinkWriters() {
+        List<QueuedEventWriter> writers = new ArrayList<>();
+        for (Sink sink : sinks) {
+            writers.add(sink.writer);
+        }
+        return writers;
+    }
+
+    private static SpillingEventWriter createSpillingWriter(EventWriter sink, QueryLogListenerProperties properties, BooleanSupplier backpressure) {
+        try {
+            return new SpillingEventWriter(
+                sink,
+                new SpillQueue(
+                    Paths.get(properties.getSpillDirectory()),
+                    (int) (properties.getSpillSegmentSizeMB() * MB_BYTES),
+                    properties.getSpillMaxSizeMB() * MB_BYTES),
+                backpressure,
+                properties.getSpillRetryIntervalMs());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + properties.getSpillDirectory(), e);
+        }
+    }
+
+    private static ParquetQueryLogWriter createParquetWriter(QueryLogListenerProperties properties) {
+        try {
+            return new ParquetQueryLogWriter(
+                Paths.get(properties.getParquetDirectory()),
+                properties.getParquetRowGroupMB() * MB_BYTES,
+                properties.getParquetMaxFileMB() * MB_BYTES,
+                properties.getParquetCompression(),
+                Clock.systemUTC(),
+                PARQUET_CHECK_INTERVAL_MS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + properties.getParquetDirectory(), e);
+        }
+    }
+
+    /**
+     * @param file output of {@code FILE} mode
+     * @param loggerName logger of {@code LOGBACK} mode
+     * @param indexed    keep a {@link QueryLogIndex} of {@code file}
+     * @param binary     write {@code file} in {@link OutputFormat#BINARY} blocks
+     */
+    private static EventWriter createWriter(LoggerContext loggerContext, QueryLogListenerProperties properties, String file, String loggerName,
+        boolean indexed, boolean binary) {
+        switch (properties.getOutputMode()) {
+            case FILE:
+                try {
+                    return createFileWriter(properties, Paths.get(file), indexed, binary,
+                        properties.getOutputBufferSize(), properties.getOutputStripes(), null);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to open " + file, e);
+                }
+            case LOGBACK:
+            default:
+                return new LogbackEventWriter(loggerContext, loggerName);
+        }
+    }
+
+    /**
+     * @param flusher shared by the writers of partitions, or {@code null}
+     */
+    private static FileChannelEventWriter createFileWriter(QueryLogListenerProperties properties, Path file, boolean indexed, boolean binary,
+        int bufferSize, int stripes, ScheduledExecutorService flusher) throws IOException {
+        BlockEncoder encoder = properties.getOutputCompression() == OutputCompression.GZIP ? new GzipBlockEncoder(properties.getOutputCompressionLevel()) : null;
+        return new FileChannelEventWriter(
+            file,
+            bufferSize,
+            properties.getOutputFlushIntervalMs(),
+            properties.getOutputFsync(),
+            new FileRollingPolicy(
+                properties.getOutputMaxFileSizeMB() * MB_BYTES,
+                properties.getOutputMaxHistory(),
+                properties.getOutputTotalSizeCapMB() * MB_BYTES,
+                properties.getOutputCompression()),
+            Clock.systemDefaultZone(),
+            binary ? new BinaryBlockEncoder(encoder) : encoder,
+            indexed,
+            stripes,
+            flusher);
+    }
+
+    /**
+     * @return {@code file} in a directory of its partition, e.g. {@code trino-query-log/hive/trino-query-log.log}
+     */
+    private static Path partitionFile(String file, String partition) {
+        Path path = Paths.get(file).toAbsolutePath();
+        return path.getParent().resolve(partition).resolve(path.getFileName());
     }
 
     @Override
     public void queryCreated(QueryCreatedEvent event) {
-        if (!properties.isQueryCreated()) {
-            return;
+        if (inFlight != null) {
+            inFlight.created(event);
         }
-        Optional<QueryType> queryType = event.getContext().getQueryType();
-        if (queryType.isEmpty() || !queryType.get().name().matches(properties.getQueryCreatedQueryTypePattern())) {
+        metrics.received(event);
+        if (!properties.isQueryCreated() || mergeCreated || !filter.acceptCreated(event)) {
+            metrics.filtered(event);
             return;
         }
-        handleQueryLength(event.getMetadata(), properties.getQueryCreatedQueryMaxLength());
-        try {
-            logger.info(mapper.writeValueAsString((event)));
-        } catch (JsonProcessingException ignored) {
-        }
+        dispatch(createdEvents != null ? new CreatedEventBuffer.Hold(event) : event);
     }
 
     @Override
     public void queryCompleted(QueryCompletedEvent event) {
-        if (!properties.isQueryCompleted()) {
-            return;
+        if (splitRollups != null) {
+            splitRollups.complete(event.getMetadata().getQueryId());
+        }
+        if (workloads != null) {
+            workloads.record(event);
+        }
+        if (inFlight != null) {
+            inFlight.completed(event.getMetadata().getQueryId());
         }
-        Optional<QueryType> queryType = event.getContext().getQueryType();
-        if (queryType.isEmpty() || !queryType.get().name().matches(properties.getQueryCompletedQueryTypePattern())) {
+        if (createdEvents != null) {
+            // ahead of the completed event, so the created event is written first
+            dispatch(new CreatedEventBuffer.Release(event.getMetadata().getQueryId(), thresholds.isInteresting(event)));
+        }
+        metrics.received(event);
+        if (!properties.isQueryCompleted() || !filter.acceptCompleted(event)) {
+            metrics.filtered(event);
             return;
         }
-        for (QueryInputMetadata i : event.getIoMetadata().getInputs()) {
-            if (i.getCatalogName().matches(properties.getQueryCompletedCatalogPattern())) {
-                handleQueryLength(event.getMetadata(), properties.getQueryCompletedQueryMaxLength());
-                try {
-                    logger.info(mapper.writeValueAsString(CustomQueryCompletedEvent.of(event)));
-                } catch (JsonProcessingException ignored) {
-                }
+        if (sampler != null) {
+            double weight = sampler.sample(event);
+            if (weight == 0) {
+                metrics.sampledOut(event);
                 return;
             }
+            dispatch(new SampledQueryCompletedEvent(event, weight));
+            return;
         }
+        dispatch(event);
     }
 
     @Override
     public void splitCompleted(SplitCompletedEvent event) {
+        metrics.received(event);
         if (!properties.isSplitCompleted()) {
+            metrics.filtered(event);
             return;
         }
+        if (splitRollups != null) {
+            splitRollups.record(event);
+            return;
+        }
+        dispatch(event);
+    }
+
+    /**
+     * Emit pending split rollups and workload summaries, stop in-flight tracking, drain the events accepted so far, stop the dispatcher thread,
+     * handle the created events still held like an overflow, and close the output, the Parquet files and the sinks.
+     */
+    @Override
+    public void close() {
+        if (splitRollups != null) {
+            splitRollups.flush();
+        }
+        if (workloads != null) {
+            workloads.close();
+        }
+        if (inFlight != null) {
+            inFlight.close();
+        }
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+        if (createdEvents != null) {
+            overflow(createdEvents.drain());
+            flush();
+        }
+        try {
+            if (dictionary != null) {
+                dictionary.close();
+            }
+        } catch (IOException ignored) {
+        }
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        if (partitionFlusher != null) {
+            partitionFlusher.shutdown();
+        }
         try {
-            logger.info(mapper.writeValueAsString(event));
-        } catch (JsonProcessingException ignored) {
+            if (parquet != null) {
+                parquet.close();
+            }
+        } catch (IOException ignored) {
+        }
+        for (Sink sink : sinks) {
+            try {
+                sink.writer.close();
+            } catch (IOException ignored) {
+            }
         }
     }
 
-    private void handleQueryLength(QueryMetadata metadata, int maxLength) {
-        if (maxLength != -1) {
-            // handle query
-            String query = metadata.getQuery();
-            if (query.length() > maxLength) {
-                StringBuilder sb = new StringBuilder(maxLength);
-                sb.append(query, 0, (maxLength - 4) / 2);
-                sb.append(" <truncated> ");
-                sb.append(query, query.length() - (maxLength - 4) / 2, query.length());
-                try {
-                    Field queryField = metadata.getClass().getDeclaredField("query");
-                    queryField.setAccessible(true);
-                    queryField.set(metadata, sb.toString());
-                } catch (NoSuchFieldException | IllegalAccessException ignore) {
+    private void dispatch(Object event) {
+        if (dispatcher != null) {
+            dispatcher.dispatch(event);
+        } else {
+            emit(event);
+            flush();
+        }
+    }
+
+    /**
+     * Serialize and write an event. Runs on the dispatcher thread unless async is disabled.
+     */
+    private void emit(Object event) {
+        if (event instanceof CreatedEventBuffer.Release) {
+            release((CreatedEventBuffer.Release) event);
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            RecordBuffer record = serializer.serialize(event);
+            long serialized = System.nanoTime();
+            if (event instanceof CreatedEventBuffer.Hold) {
+                metrics.held(serialized - start);
+                String partition = partitioner != null ? partitioner.partition(event) : null;
+                overflow(createdEvents.hold(IndexKey.of(event), partition, record.array(), record.size()));
+                return;
+            }
+            EventType type = EventType.of(event);
+            // ahead of the output, which may fail
+            fanOut(type, record.array(), record.size());
+            if (outputEvents.contains(type)) {
+                IndexKey key = indexed ? IndexKey.of(event) : null;
+                if (partitions != null) {
+                    partitions.write(partitioner.partition(event), record.array(), 0, record.size(), key);
+                } else {
+                    writer.write(record.array(), 0, record.size(), key);
                 }
             }
-            // handle prepare query
-            String preparedQuery = metadata.getPreparedQuery().orElse("");
-            if (preparedQuery.length() > maxLength) {
-                StringBuilder sb = new StringBuilder(maxLength);
-                sb.append(preparedQuery, 0, (maxLength - 4) / 2);
-                sb.append(" <truncated> ");
-                sb.append(preparedQuery, preparedQuery.length() - (maxLength - 4) / 2, preparedQuery.length());
-                try {
-                    Field queryField = metadata.getClass().getDeclaredField("preparedQuery");
-                    queryField.setAccessible(true);
-                    queryField.set(metadata, Optional.of(sb.toString()));
-                } catch (NoSuchFieldException | IllegalAccessException ignore) {
+            metrics.emitted(event, serialized - start, System.nanoTime() - serialized, record.size());
+        } catch (IOException e) {
+            metrics.failed(event, e);
+        }
+        if (parquet != null) {
+            writeParquet(event);
+        }
+    }
+
+    /**
+     * Write a completed event to the Parquet files too, whether the record was written or not, with the query texts
+     * truncated and fingerprinted as in the record.
+     */
+    private void writeParquet(Object event) {
+        QueryCompletedEvent completed;
+        Double samplingWeight;
+        if (event instanceof SampledQueryCompletedEvent) {
+            completed = ((SampledQueryCompletedEvent) event).getEvent();
+            samplingWeight = ((SampledQueryCompletedEvent) event).getSamplingWeight();
+        } else if (event instanceof QueryCompletedEvent) {
+            completed = (QueryCompletedEvent) event;
+            samplingWeight = null;
+        } else {
+            return;
+        }
+        QueryFingerprinter fingerprinter = serializer.getFingerprinter();
+        CustomQueryCompletedEvent row = CustomQueryCompletedEvent.of(completed,
+            fingerprinter != null ? fingerprinter.fingerprint(completed.getMetadata().getQuery()) : null, samplingWeight);
+        int maxLength = properties.getQueryCompletedQueryMaxLength();
+        QueryLengthUnit unit = properties.getQueryMaxLengthUnit();
+        row.getMetadata().setQuery(QueryTextModule.truncate(row.getMetadata().getQuery(), maxLength, unit));
+        row.getMetadata().setPreparedQuery(QueryTextModule.truncate(row.getMetadata().getPreparedQuery(), maxLength, unit));
+        try {
+            parquet.write(row);
+        } catch (IOException e) {
+            metrics.failed(event, e);
+        }
+    }
+
+    /**
+     * Queue a record to the sinks of its type, which never blocks nor fails.
+     */
+    private void fanOut(EventType type, byte[] record, int length) {
+        for (Sink sink : sinks) {
+            if (sink.types.contains(type)) {
+                sink.writer.write(record, 0, length);
+            }
+        }
+    }
+
+    private void release(CreatedEventBuffer.Release release) {
+        CreatedEventBuffer.Entry entry = createdEvents.release(release.getQueryId());
+        if (entry == null) {
+            return;
+        }
+        if (release.isInteresting()) {
+            writeHeld(entry);
+        } else {
+            metrics.tailDiscarded(entry);
+        }
+    }
+
+    private void overflow(List<CreatedEventBuffer.Entry> entries) {
+        for (CreatedEventBuffer.Entry entry : entries) {
+            if (createdEvents.isWriteOverflow()) {
+                writeHeld(entry);
+            } else {
+                metrics.tailDiscarded(entry);
+            }
+        }
+    }
+
+    private void writeHeld(CreatedEventBuffer.Entry entry) {
+        try {
+            long start = System.nanoTime();
+            byte[] record = entry.getRecord();
+            fanOut(EventType.QUERY_CREATED, record, record.length);
+            if (outputEvents.contains(EventType.QUERY_CREATED)) {
+                IndexKey key = indexed ? entry.getKey() : null;
+                if (partitions != null) {
+                    partitions.write(entry.getPartition(), record, 0, record.length, key);
+                } else {
+                    writer.write(record, 0, record.length, key);
                 }
             }
+            metrics.emittedHeld(entry, System.nanoTime() - start, record.length);
+        } catch (IOException e) {
+            metrics.failed(entry, e);
+        }
+    }
+
+    /**
+     * Whether the async buffer is half full, when the writer had better spill than make Trino wait or drop events.
+     */
+    private boolean isBackedUp() {
+        return dispatcher != null && dispatcher.getQueueDepth() >= properties.getAsyncBufferSize() / 2;
+    }
+
+    private long getDispatchDropped() {
+        return dispatcher != null ? dispatcher.getDroppedCount() : 0;
+    }
+
+    private int getDispatchQueueDepth() {
+        return dispatcher != null ? dispatcher.getQueueDepth() : 0;
+    }
+
+    QueryLogMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void flush() {
+        try {
+            // texts first, so they are never behind the events referencing them
+            if (dictionary != null) {
+                dictionary.flush();
+            }
+            writer.flush();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * A sink and the types of the records routed to it.
+     */
+    private static final class Sink {
+
+        private final Set<EventType> types;
+        private final QueuedEventWriter writer;
+
+        Sink(Set<EventType> types, QueuedEventWriter writer) {
+            this.types = types;
+            this.writer = writer;
         }
     }
 }
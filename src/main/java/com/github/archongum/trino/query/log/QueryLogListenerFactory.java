@@ -1,9 +1,13 @@
 package com.github.archongum.trino.query.log;
 
+import java.lang.management.ManagementFactory;
 import java.net.MalformedURLException;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.util.ContextInitializer;
 import ch.qos.logback.core.joran.spi.JoranException;
@@ -34,14 +38,46 @@ public class QueryLogListenerFactory implements EventListenerFactory {
         } catch (JoranException | MalformedURLException ignored) {
         }
         // 3. Object Mapper
+        ObjectMapper mapper = createObjectMapper(p.getTimestampFormat());
+        // 4. Listener, drained on coordinator shutdown
+        QueryLogListener listener = new QueryLogListener(loggerContext, mapper, p);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            listener.close();
+            loggerContext.stop();
+        }, "trino-query-log-shutdown"));
+        // 5. JMX
+        registerMetrics(listener.getMetrics());
+        return listener;
+    }
+
+    /**
+     * Register as {@value QueryLogMetrics#OBJECT_NAME}, replacing the metrics of a previously created listener.
+     */
+    static void registerMetrics(QueryLogMetrics metrics) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(QueryLogMetrics.OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+        } catch (JMException ignored) {
+        }
+    }
+
+    static ObjectMapper createObjectMapper() {
+        return createObjectMapper(TimestampFormat.SECONDS);
+    }
+
+    static ObjectMapper createObjectMapper(TimestampFormat timestampFormat) {
         ObjectMapper mapper = new ObjectMapper();
         // handle Instant Class
         mapper.registerModule(new JavaTimeModule()
-            .addSerializer(Instant.class, new ISOInstantSerializer())
+            .addSerializer(Instant.class, new ISOInstantSerializer(timestampFormat))
             .addDeserializer(Instant.class, new ISOInstantDeserializer())
         );
         // handle Optional Class
         mapper.registerModule(new Jdk8Module());
-        return new QueryLogListener(loggerContext, mapper, p);
+        return mapper;
     }
 }
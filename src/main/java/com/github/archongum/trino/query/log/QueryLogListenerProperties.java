@@ -16,6 +16,86 @@ public class QueryLogListenerProperties {
     private static final String QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_TYPE_PATTERN = "trino.query.log.log.queryCompletedEvent.queryTypePattern";
     private static final String QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_LENGTH       = "trino.query.log.log.queryCompletedEvent.queryMaxLength";
     private static final String QUERY_LOG_LOG_QUERY_COMPLETED_CATALOG_PATTERN    = "trino.query.log.log.queryCompletedEvent.catalogPattern";
+    private static final String QUERY_LOG_LOG_QUERY_CREATED_FILTER               = "trino.query.log.log.queryCreatedEvent.filter";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_FILTER             = "trino.query.log.log.queryCompletedEvent.filter";
+    private static final String QUERY_LOG_ASYNC_ENABLED                          = "trino.query.log.async.enabled";
+    private static final String QUERY_LOG_ASYNC_BUFFER_SIZE                      = "trino.query.log.async.bufferSize";
+    private static final String QUERY_LOG_ASYNC_OVERFLOW_POLICY                  = "trino.query.log.async.overflowPolicy";
+    private static final String QUERY_LOG_OUTPUT_MODE                            = "trino.query.log.output.mode";
+    private static final String QUERY_LOG_OUTPUT_FILE                            = "trino.query.log.output.file";
+    private static final String QUERY_LOG_LOG_QUERY_MAX_LENGTH_UNIT              = "trino.query.log.log.queryMaxLengthUnit";
+    private static final String QUERY_LOG_LOG_SPLIT_COMPLETED_EVENT_MODE         = "trino.query.log.log.splitCompletedEvent.mode";
+    private static final String QUERY_LOG_LOG_SPLIT_ROLLUP_MAX_QUERIES           = "trino.query.log.log.splitCompletedEvent.rollup.maxQueries";
+    private static final String QUERY_LOG_LOG_SPLIT_ROLLUP_TTL_SECONDS           = "trino.query.log.log.splitCompletedEvent.rollup.ttlSeconds";
+    private static final String QUERY_LOG_LOG_SPLIT_ROLLUP_SLOWEST_SPLITS        = "trino.query.log.log.splitCompletedEvent.rollup.slowestSplits";
+    private static final String QUERY_LOG_LOG_TIMESTAMP_FORMAT                   = "trino.query.log.log.timestampFormat";
+    private static final String QUERY_LOG_OUTPUT_BUFFER_SIZE                     = "trino.query.log.output.bufferSize";
+    private static final String QUERY_LOG_OUTPUT_FLUSH_INTERVAL_MS               = "trino.query.log.output.flushIntervalMs";
+    private static final String QUERY_LOG_OUTPUT_FSYNC                           = "trino.query.log.output.fsync";
+    private static final String QUERY_LOG_OUTPUT_MAX_FILE_SIZE_MB                = "trino.query.log.output.maxFileSizeMB";
+    private static final String QUERY_LOG_OUTPUT_MAX_HISTORY                     = "trino.query.log.output.maxHistory";
+    private static final String QUERY_LOG_OUTPUT_TOTAL_SIZE_CAP_MB               = "trino.query.log.output.totalSizeCapMB";
+    private static final String QUERY_LOG_OUTPUT_COMPRESSION                     = "trino.query.log.output.compression";
+    private static final String QUERY_LOG_OUTPUT_COMPRESSION_LEVEL               = "trino.query.log.output.compressionLevel";
+    private static final String QUERY_LOG_QUERY_DEDUP                            = "trino.query.log.log.queryDedup";
+    private static final String QUERY_LOG_QUERY_DEDUP_CACHE_SIZE                 = "trino.query.log.log.queryDedup.cacheSize";
+    private static final String QUERY_LOG_OUTPUT_QUERY_DICTIONARY_FILE           = "trino.query.log.output.queryDictionaryFile";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT        = "trino.query.log.log.queryCompletedEvent.fingerprint";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT_CACHE   = "trino.query.log.log.queryCompletedEvent.fingerprint.cacheSize";
+    private static final String QUERY_LOG_LOG_WORKLOAD_SUMMARY                   = "trino.query.log.log.workloadSummary";
+    private static final String QUERY_LOG_LOG_WORKLOAD_SUMMARY_INTERVAL          = "trino.query.log.log.workloadSummary.intervalSeconds";
+    private static final String QUERY_LOG_LOG_WORKLOAD_SUMMARY_MAX_KEYS          = "trino.query.log.log.workloadSummary.maxKeys";
+    private static final String QUERY_LOG_OUTPUT_INDEX                           = "trino.query.log.output.index";
+    private static final String QUERY_LOG_LOG_INFLIGHT                           = "trino.query.log.log.inFlight";
+    private static final String QUERY_LOG_LOG_INFLIGHT_MAX_QUERIES               = "trino.query.log.log.inFlight.maxQueries";
+    private static final String QUERY_LOG_LOG_INFLIGHT_INTERVAL                  = "trino.query.log.log.inFlight.intervalSeconds";
+    private static final String QUERY_LOG_LOG_INFLIGHT_LONG_RUNNING              = "trino.query.log.log.inFlight.longRunningSeconds";
+    private static final String QUERY_LOG_LOG_INFLIGHT_TTL                       = "trino.query.log.log.inFlight.ttlSeconds";
+    private static final String QUERY_LOG_LOG_INFLIGHT_MERGE_CREATED             = "trino.query.log.log.inFlight.mergeCreated";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING           = "trino.query.log.log.queryCompletedEvent.sampling";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_RATE      = "trino.query.log.log.queryCompletedEvent.sampling.perSecond";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_WALL      = "trino.query.log.log.queryCompletedEvent.sampling.wallMs";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_CPU       = "trino.query.log.log.queryCompletedEvent.sampling.cpuMs";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_MEMORY    = "trino.query.log.log.queryCompletedEvent.sampling.memoryMB";
+    private static final String QUERY_LOG_LOG_QUERY_CREATED_TAIL                 = "trino.query.log.log.queryCreatedEvent.tailSampling";
+    private static final String QUERY_LOG_LOG_QUERY_CREATED_TAIL_MAX             = "trino.query.log.log.queryCreatedEvent.tailSampling.maxMB";
+    private static final String QUERY_LOG_LOG_QUERY_CREATED_TAIL_OVERFLOW        = "trino.query.log.log.queryCreatedEvent.tailSampling.overflow";
+    private static final String QUERY_LOG_OUTPUT_STRIPES                         = "trino.query.log.output.stripes";
+    private static final String QUERY_LOG_LOG_QUERY_COMPLETED_FIELDS             = "trino.query.log.log.queryCompletedEvent.fields";
+    private static final String QUERY_LOG_OUTPUT_FORMAT                          = "trino.query.log.output.format";
+    private static final String QUERY_LOG_PARQUET                                = "trino.query.log.parquet.enabled";
+    private static final String QUERY_LOG_PARQUET_DIRECTORY                      = "trino.query.log.parquet.directory";
+    private static final String QUERY_LOG_PARQUET_ROW_GROUP_MB                   = "trino.query.log.parquet.rowGroupMB";
+    private static final String QUERY_LOG_PARQUET_MAX_FILE_MB                    = "trino.query.log.parquet.maxFileMB";
+    private static final String QUERY_LOG_PARQUET_COMPRESSION                    = "trino.query.log.parquet.compression";
+    private static final String QUERY_LOG_SPILL                                  = "trino.query.log.spill.enabled";
+    private static final String QUERY_LOG_SPILL_DIRECTORY                        = "trino.query.log.spill.directory";
+    private static final String QUERY_LOG_SPILL_SEGMENT_SIZE_MB                  = "trino.query.log.spill.segmentSizeMB";
+    private static final String QUERY_LOG_SPILL_MAX_SIZE_MB                      = "trino.query.log.spill.maxSizeMB";
+    private static final String QUERY_LOG_SPILL_RETRY_INTERVAL_MS                = "trino.query.log.spill.retryIntervalMs";
+    private static final String QUERY_LOG_OUTPUT_EVENTS                          = "trino.query.log.output.events";
+    private static final String QUERY_LOG_SINKS                                  = "trino.query.log.sinks";
+    private static final String QUERY_LOG_SINK_SOCKET_ADDRESS                    = "trino.query.log.sink.socket.address";
+    private static final String QUERY_LOG_SINK_SOCKET_EVENTS                     = "trino.query.log.sink.socket.events";
+    private static final String QUERY_LOG_SINK_SOCKET_QUEUE_SIZE                 = "trino.query.log.sink.socket.queueSize";
+    private static final String QUERY_LOG_SINK_SOCKET_BATCH_SIZE                 = "trino.query.log.sink.socket.batchSize";
+    private static final String QUERY_LOG_SINK_SOCKET_LINGER_MS                  = "trino.query.log.sink.socket.lingerMs";
+    private static final String QUERY_LOG_SINK_SOCKET_FAILURE_POLICY             = "trino.query.log.sink.socket.failurePolicy";
+    private static final String QUERY_LOG_SINK_HTTP_URL                          = "trino.query.log.sink.http.url";
+    private static final String QUERY_LOG_SINK_HTTP_EVENTS                       = "trino.query.log.sink.http.events";
+    private static final String QUERY_LOG_SINK_HTTP_QUEUE_SIZE                   = "trino.query.log.sink.http.queueSize";
+    private static final String QUERY_LOG_SINK_HTTP_BATCH_SIZE                   = "trino.query.log.sink.http.batchSize";
+    private static final String QUERY_LOG_SINK_HTTP_LINGER_MS                    = "trino.query.log.sink.http.lingerMs";
+    private static final String QUERY_LOG_SINK_HTTP_FAILURE_POLICY               = "trino.query.log.sink.http.failurePolicy";
+    private static final String QUERY_LOG_SINK_HTTP_TIMEOUT_MS                   = "trino.query.log.sink.http.timeoutMs";
+    private static final String QUERY_LOG_SINK_HTTP_COMPRESSION                  = "trino.query.log.sink.http.compression";
+    private static final String QUERY_LOG_SINK_STDOUT_EVENTS                     = "trino.query.log.sink.stdout.events";
+    private static final String QUERY_LOG_SINK_STDOUT_QUEUE_SIZE                 = "trino.query.log.sink.stdout.queueSize";
+    private static final String QUERY_LOG_SINK_STDOUT_BATCH_SIZE                 = "trino.query.log.sink.stdout.batchSize";
+    private static final String QUERY_LOG_SINK_STDOUT_LINGER_MS                  = "trino.query.log.sink.stdout.lingerMs";
+    private static final String QUERY_LOG_OUTPUT_PARTITION_BY                    = "trino.query.log.output.partitionBy";
+    private static final String QUERY_LOG_OUTPUT_PARTITION_RULES                 = "trino.query.log.output.partitionRules";
+    private static final String QUERY_LOG_OUTPUT_MAX_OPEN_PARTITIONS             = "trino.query.log.output.maxOpenPartitions";
 
     private static final String DEFAULT_VALUE_QUERY_LOG_CONFIG_FILE_LOCATION                   = "etc/event-listener-trino-query-log-logback.xml";
     private static final boolean DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_COMPLETED                   = true;
@@ -26,6 +106,86 @@ public class QueryLogListenerProperties {
     private static final String DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_TYPE_PATTERN = ".*";
     private static final int DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_LENGTH          = -1;
     private static final String DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_CATALOG_PATTERN    = ".*";
+    private static final String DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_FILTER               = "";
+    private static final String DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FILTER             = "";
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_ASYNC_ENABLED                         = true;
+    private static final int DEFAULT_VALUE_QUERY_LOG_ASYNC_BUFFER_SIZE                         = 16384;
+    private static final OverflowPolicy DEFAULT_VALUE_QUERY_LOG_ASYNC_OVERFLOW_POLICY          = OverflowPolicy.WAIT;
+    private static final OutputMode DEFAULT_VALUE_QUERY_LOG_OUTPUT_MODE                        = OutputMode.LOGBACK;
+    private static final String DEFAULT_VALUE_QUERY_LOG_OUTPUT_FILE                            = "trino-query-log/trino-query-log.log";
+    private static final QueryLengthUnit DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_MAX_LENGTH_UNIT     = QueryLengthUnit.CHARS;
+    private static final SplitLogMode DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_COMPLETED_EVENT_MODE   = SplitLogMode.RAW;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_MAX_QUERIES              = 1000;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_TTL_SECONDS              = 3600;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_SLOWEST_SPLITS           = 5;
+    private static final TimestampFormat DEFAULT_VALUE_QUERY_LOG_LOG_TIMESTAMP_FORMAT          = TimestampFormat.SECONDS;
+    private static final int DEFAULT_VALUE_QUERY_LOG_OUTPUT_BUFFER_SIZE                        = 1048576;
+    private static final int DEFAULT_VALUE_QUERY_LOG_OUTPUT_FLUSH_INTERVAL_MS                  = 1000;
+    private static final FsyncPolicy DEFAULT_VALUE_QUERY_LOG_OUTPUT_FSYNC                      = FsyncPolicy.NEVER;
+    private static final int DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_FILE_SIZE_MB                   = 100;
+    private static final int DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_HISTORY                        = 7;
+    private static final int DEFAULT_VALUE_QUERY_LOG_OUTPUT_TOTAL_SIZE_CAP_MB                  = 1000;
+    private static final OutputCompression DEFAULT_VALUE_QUERY_LOG_OUTPUT_COMPRESSION          = OutputCompression.NONE;
+    private static final int DEFAULT_VALUE_QUERY_LOG_OUTPUT_COMPRESSION_LEVEL                  = 6;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_QUERY_DEDUP                           = false;
+    private static final int DEFAULT_VALUE_QUERY_LOG_QUERY_DEDUP_CACHE_SIZE                    = 10000;
+    private static final String DEFAULT_VALUE_QUERY_LOG_OUTPUT_QUERY_DICTIONARY_FILE           = "trino-query-log/trino-query-log-queries.log";
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT       = false;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT_CACHE     = 10000;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY                  = false;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY_INTERVAL             = 60;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY_MAX_KEYS             = 1000;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_OUTPUT_INDEX                          = false;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT                          = false;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_MAX_QUERIES                  = 10000;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_INTERVAL                     = 60;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_LONG_RUNNING                 = 3600;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_TTL                          = 86400;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_MERGE_CREATED            = false;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING          = false;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_RATE         = 100;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_WALL         = 10000;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_CPU          = 10000;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_MEMORY       = 1024;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL                = false;
+    private static final int DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL_MAX                = 64;
+    private static final TailOverflowPolicy DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL_OVERFLOW = TailOverflowPolicy.WRITE_OLDEST;
+    private static final int DEFAULT_VALUE_QUERY_LOG_OUTPUT_STRIPES                            = 1;
+    private static final String DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FIELDS             = "";
+    private static final OutputFormat DEFAULT_VALUE_QUERY_LOG_OUTPUT_FORMAT                    = OutputFormat.JSON;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_PARQUET                               = false;
+    private static final String DEFAULT_VALUE_QUERY_LOG_PARQUET_DIRECTORY                      = "trino-query-log/parquet";
+    private static final int DEFAULT_VALUE_QUERY_LOG_PARQUET_ROW_GROUP_MB                      = 32;
+    private static final int DEFAULT_VALUE_QUERY_LOG_PARQUET_MAX_FILE_MB                       = 256;
+    private static final OutputCompression DEFAULT_VALUE_QUERY_LOG_PARQUET_COMPRESSION         = OutputCompression.GZIP;
+    private static final boolean DEFAULT_VALUE_QUERY_LOG_SPILL                                 = false;
+    private static final String DEFAULT_VALUE_QUERY_LOG_SPILL_DIRECTORY                        = "trino-query-log/spill";
+    private static final int DEFAULT_VALUE_QUERY_LOG_SPILL_SEGMENT_SIZE_MB                     = 64;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SPILL_MAX_SIZE_MB                         = 1024;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SPILL_RETRY_INTERVAL_MS                   = 1000;
+    private static final String DEFAULT_VALUE_QUERY_LOG_OUTPUT_EVENTS                          = "ALL";
+    private static final String DEFAULT_VALUE_QUERY_LOG_SINKS                                  = "";
+    private static final String DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_ADDRESS                    = "localhost:9000";
+    private static final String DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_EVENTS                     = "ALL";
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_QUEUE_SIZE                    = 10000;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_BATCH_SIZE                    = 500;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_LINGER_MS                     = 200;
+    private static final SinkFailurePolicy DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_FAILURE_POLICY  = SinkFailurePolicy.RETRY;
+    private static final String DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_URL                          = "http://localhost:9880/";
+    private static final String DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_EVENTS                       = "ALL";
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_QUEUE_SIZE                      = 10000;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_BATCH_SIZE                      = 1000;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_LINGER_MS                       = 1000;
+    private static final SinkFailurePolicy DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_FAILURE_POLICY    = SinkFailurePolicy.RETRY;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_TIMEOUT_MS                      = 10000;
+    private static final OutputCompression DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_COMPRESSION       = OutputCompression.GZIP;
+    private static final String DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_EVENTS                     = "ALL";
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_QUEUE_SIZE                    = 10000;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_BATCH_SIZE                    = 500;
+    private static final int DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_LINGER_MS                     = 200;
+    private static final PartitionKey DEFAULT_VALUE_QUERY_LOG_OUTPUT_PARTITION_BY              = PartitionKey.NONE;
+    private static final String DEFAULT_VALUE_QUERY_LOG_OUTPUT_PARTITION_RULES                 = "";
+    private static final int DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_OPEN_PARTITIONS                = 64;
 
     private String configFileLocation;
     private boolean splitCompleted;
@@ -36,6 +196,87 @@ public class QueryLogListenerProperties {
     private String queryCompletedQueryTypePattern;
     private int queryCompletedQueryMaxLength;
     private String queryCompletedCatalogPattern;
+    private String queryCreatedFilter;
+    private String queryCompletedFilter;
+    private boolean asyncEnabled;
+    private int asyncBufferSize;
+    private OverflowPolicy asyncOverflowPolicy;
+    private OutputMode outputMode;
+    private String outputFile;
+    private QueryLengthUnit queryMaxLengthUnit;
+    private SplitLogMode splitCompletedMode;
+    private int splitRollupMaxQueries;
+    private int splitRollupTtlSeconds;
+    private int splitRollupSlowestSplits;
+    private TimestampFormat timestampFormat;
+    private int outputBufferSize;
+    private int outputFlushIntervalMs;
+    private FsyncPolicy outputFsync;
+    private int outputMaxFileSizeMB;
+    private int outputMaxHistory;
+    private int outputTotalSizeCapMB;
+    private OutputCompression outputCompression;
+    private int outputCompressionLevel;
+    private boolean queryDedup;
+    private int queryDedupCacheSize;
+    private String outputQueryDictionaryFile;
+    private boolean queryCompletedFingerprint;
+    private int queryCompletedFingerprintCacheSize;
+    private boolean workloadSummary;
+    private int workloadSummaryIntervalSeconds;
+    private int workloadSummaryMaxKeys;
+    private boolean outputIndex;
+    private boolean inFlight;
+    private int inFlightMaxQueries;
+    private int inFlightIntervalSeconds;
+    private int inFlightLongRunningSeconds;
+    private int inFlightTtlSeconds;
+    private boolean inFlightMergeCreated;
+    private boolean queryCompletedSampling;
+    private int queryCompletedSamplingPerSecond;
+    private int queryCompletedSamplingWallMs;
+    private int queryCompletedSamplingCpuMs;
+    private int queryCompletedSamplingMemoryMB;
+    private boolean queryCreatedTailSampling;
+    private int queryCreatedTailSamplingMaxMB;
+    private TailOverflowPolicy queryCreatedTailSamplingOverflow;
+    private int outputStripes;
+    private String queryCompletedFields;
+    private OutputFormat outputFormat;
+    private boolean parquet;
+    private String parquetDirectory;
+    private int parquetRowGroupMB;
+    private int parquetMaxFileMB;
+    private OutputCompression parquetCompression;
+    private boolean spill;
+    private String spillDirectory;
+    private int spillSegmentSizeMB;
+    private int spillMaxSizeMB;
+    private int spillRetryIntervalMs;
+    private String outputEvents;
+    private String sinks;
+    private String sinkSocketAddress;
+    private String sinkSocketEvents;
+    private int sinkSocketQueueSize;
+    private int sinkSocketBatchSize;
+    private int sinkSocketLingerMs;
+    private SinkFailurePolicy sinkSocketFailurePolicy;
+    private String sinkHttpUrl;
+    private String sinkHttpEvents;
+    private int sinkHttpQueueSize;
+    private int sinkHttpBatchSize;
+    private int sinkHttpLingerMs;
+    private SinkFailurePolicy sinkHttpFailurePolicy;
+    private int sinkHttpTimeoutMs;
+    private OutputCompression sinkHttpCompression;
+    private String sinkStdoutEvents;
+    private int sinkStdoutQueueSize;
+    private int sinkStdoutBatchSize;
+    private int sinkStdoutLingerMs;
+    private PartitionKey outputPartitionBy;
+    private String outputPartitionRules;
+    private int outputMaxOpenPartitions;
+    private EventFilter eventFilter;
 
     private QueryLogListenerProperties(Map<String, String> map) {
         this.configFileLocation = requireNonNull(map.get(QUERY_LOG_CONFIG_FILE_LOCATION), QUERY_LOG_CONFIG_FILE_LOCATION + " is empty");
@@ -47,14 +288,97 @@ public class QueryLogListenerProperties {
         this.queryCompletedQueryTypePattern = getStringConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_TYPE_PATTERN, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_TYPE_PATTERN);
         this.queryCompletedQueryMaxLength = getIntegerConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_LENGTH, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_LENGTH);
         this.queryCompletedCatalogPattern = getStringConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_CATALOG_PATTERN, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_CATALOG_PATTERN);
+        this.queryCreatedFilter = getStringConfig(map, QUERY_LOG_LOG_QUERY_CREATED_FILTER, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_FILTER);
+        this.queryCompletedFilter = getStringConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_FILTER, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FILTER);
+        this.asyncEnabled = getBooleanConfig(map, QUERY_LOG_ASYNC_ENABLED, DEFAULT_VALUE_QUERY_LOG_ASYNC_ENABLED);
+        this.asyncBufferSize = getIntegerConfig(map, QUERY_LOG_ASYNC_BUFFER_SIZE, DEFAULT_VALUE_QUERY_LOG_ASYNC_BUFFER_SIZE);
+        this.asyncOverflowPolicy = OverflowPolicy.of(getStringConfig(map, QUERY_LOG_ASYNC_OVERFLOW_POLICY, DEFAULT_VALUE_QUERY_LOG_ASYNC_OVERFLOW_POLICY.name()));
+        this.outputMode = OutputMode.of(getStringConfig(map, QUERY_LOG_OUTPUT_MODE, DEFAULT_VALUE_QUERY_LOG_OUTPUT_MODE.name()));
+        this.outputFile = getStringConfig(map, QUERY_LOG_OUTPUT_FILE, DEFAULT_VALUE_QUERY_LOG_OUTPUT_FILE);
+        this.queryMaxLengthUnit = QueryLengthUnit.of(getStringConfig(map, QUERY_LOG_LOG_QUERY_MAX_LENGTH_UNIT, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_MAX_LENGTH_UNIT.name()));
+        this.splitCompletedMode = SplitLogMode.of(getStringConfig(map, QUERY_LOG_LOG_SPLIT_COMPLETED_EVENT_MODE, DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_COMPLETED_EVENT_MODE.name()));
+        this.splitRollupMaxQueries = getIntegerConfig(map, QUERY_LOG_LOG_SPLIT_ROLLUP_MAX_QUERIES, DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_MAX_QUERIES);
+        this.splitRollupTtlSeconds = getIntegerConfig(map, QUERY_LOG_LOG_SPLIT_ROLLUP_TTL_SECONDS, DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_TTL_SECONDS);
+        this.splitRollupSlowestSplits = getIntegerConfig(map, QUERY_LOG_LOG_SPLIT_ROLLUP_SLOWEST_SPLITS, DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_SLOWEST_SPLITS);
+        this.timestampFormat = TimestampFormat.of(getStringConfig(map, QUERY_LOG_LOG_TIMESTAMP_FORMAT, DEFAULT_VALUE_QUERY_LOG_LOG_TIMESTAMP_FORMAT.name()));
+        this.outputBufferSize = getIntegerConfig(map, QUERY_LOG_OUTPUT_BUFFER_SIZE, DEFAULT_VALUE_QUERY_LOG_OUTPUT_BUFFER_SIZE);
+        this.outputFlushIntervalMs = getIntegerConfig(map, QUERY_LOG_OUTPUT_FLUSH_INTERVAL_MS, DEFAULT_VALUE_QUERY_LOG_OUTPUT_FLUSH_INTERVAL_MS);
+        this.outputFsync = FsyncPolicy.of(getStringConfig(map, QUERY_LOG_OUTPUT_FSYNC, DEFAULT_VALUE_QUERY_LOG_OUTPUT_FSYNC.name()));
+        this.outputMaxFileSizeMB = getIntegerConfig(map, QUERY_LOG_OUTPUT_MAX_FILE_SIZE_MB, DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_FILE_SIZE_MB);
+        this.outputMaxHistory = getIntegerConfig(map, QUERY_LOG_OUTPUT_MAX_HISTORY, DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_HISTORY);
+        this.outputTotalSizeCapMB = getIntegerConfig(map, QUERY_LOG_OUTPUT_TOTAL_SIZE_CAP_MB, DEFAULT_VALUE_QUERY_LOG_OUTPUT_TOTAL_SIZE_CAP_MB);
+        this.outputCompression = OutputCompression.of(getStringConfig(map, QUERY_LOG_OUTPUT_COMPRESSION, DEFAULT_VALUE_QUERY_LOG_OUTPUT_COMPRESSION.name()));
+        this.outputCompressionLevel = getIntegerConfig(map, QUERY_LOG_OUTPUT_COMPRESSION_LEVEL, DEFAULT_VALUE_QUERY_LOG_OUTPUT_COMPRESSION_LEVEL);
+        this.queryDedup = getBooleanConfig(map, QUERY_LOG_QUERY_DEDUP, DEFAULT_VALUE_QUERY_LOG_QUERY_DEDUP);
+        this.queryDedupCacheSize = getIntegerConfig(map, QUERY_LOG_QUERY_DEDUP_CACHE_SIZE, DEFAULT_VALUE_QUERY_LOG_QUERY_DEDUP_CACHE_SIZE);
+        this.outputQueryDictionaryFile = getStringConfig(map, QUERY_LOG_OUTPUT_QUERY_DICTIONARY_FILE, DEFAULT_VALUE_QUERY_LOG_OUTPUT_QUERY_DICTIONARY_FILE);
+        this.queryCompletedFingerprint = getBooleanConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT);
+        this.queryCompletedFingerprintCacheSize = getIntegerConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT_CACHE, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT_CACHE);
+        this.workloadSummary = getBooleanConfig(map, QUERY_LOG_LOG_WORKLOAD_SUMMARY, DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY);
+        this.workloadSummaryIntervalSeconds = getIntegerConfig(map, QUERY_LOG_LOG_WORKLOAD_SUMMARY_INTERVAL, DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY_INTERVAL);
+        this.workloadSummaryMaxKeys = getIntegerConfig(map, QUERY_LOG_LOG_WORKLOAD_SUMMARY_MAX_KEYS, DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY_MAX_KEYS);
+        this.outputIndex = getBooleanConfig(map, QUERY_LOG_OUTPUT_INDEX, DEFAULT_VALUE_QUERY_LOG_OUTPUT_INDEX);
+        this.inFlight = getBooleanConfig(map, QUERY_LOG_LOG_INFLIGHT, DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT);
+        this.inFlightMaxQueries = getIntegerConfig(map, QUERY_LOG_LOG_INFLIGHT_MAX_QUERIES, DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_MAX_QUERIES);
+        this.inFlightIntervalSeconds = getIntegerConfig(map, QUERY_LOG_LOG_INFLIGHT_INTERVAL, DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_INTERVAL);
+        this.inFlightLongRunningSeconds = getIntegerConfig(map, QUERY_LOG_LOG_INFLIGHT_LONG_RUNNING, DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_LONG_RUNNING);
+        this.inFlightTtlSeconds = getIntegerConfig(map, QUERY_LOG_LOG_INFLIGHT_TTL, DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_TTL);
+        this.inFlightMergeCreated = getBooleanConfig(map, QUERY_LOG_LOG_INFLIGHT_MERGE_CREATED, DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_MERGE_CREATED);
+        this.queryCompletedSampling = getBooleanConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING);
+        this.queryCompletedSamplingPerSecond = getIntegerConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_RATE, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_RATE);
+        this.queryCompletedSamplingWallMs = getIntegerConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_WALL, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_WALL);
+        this.queryCompletedSamplingCpuMs = getIntegerConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_CPU, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_CPU);
+        this.queryCompletedSamplingMemoryMB = getIntegerConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_MEMORY, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_MEMORY);
+        this.queryCreatedTailSampling = getBooleanConfig(map, QUERY_LOG_LOG_QUERY_CREATED_TAIL, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL);
+        this.queryCreatedTailSamplingMaxMB = getIntegerConfig(map, QUERY_LOG_LOG_QUERY_CREATED_TAIL_MAX, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL_MAX);
+        this.queryCreatedTailSamplingOverflow = TailOverflowPolicy.of(getStringConfig(map, QUERY_LOG_LOG_QUERY_CREATED_TAIL_OVERFLOW, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL_OVERFLOW.name()));
+        this.outputStripes = getIntegerConfig(map, QUERY_LOG_OUTPUT_STRIPES, DEFAULT_VALUE_QUERY_LOG_OUTPUT_STRIPES);
+        this.queryCompletedFields = getStringConfig(map, QUERY_LOG_LOG_QUERY_COMPLETED_FIELDS, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FIELDS);
+        this.outputFormat = OutputFormat.of(getStringConfig(map, QUERY_LOG_OUTPUT_FORMAT, DEFAULT_VALUE_QUERY_LOG_OUTPUT_FORMAT.name()));
+        this.parquet = getBooleanConfig(map, QUERY_LOG_PARQUET, DEFAULT_VALUE_QUERY_LOG_PARQUET);
+        this.parquetDirectory = getStringConfig(map, QUERY_LOG_PARQUET_DIRECTORY, DEFAULT_VALUE_QUERY_LOG_PARQUET_DIRECTORY);
+        this.parquetRowGroupMB = getIntegerConfig(map, QUERY_LOG_PARQUET_ROW_GROUP_MB, DEFAULT_VALUE_QUERY_LOG_PARQUET_ROW_GROUP_MB);
+        this.parquetMaxFileMB = getIntegerConfig(map, QUERY_LOG_PARQUET_MAX_FILE_MB, DEFAULT_VALUE_QUERY_LOG_PARQUET_MAX_FILE_MB);
+        this.parquetCompression = OutputCompression.of(getStringConfig(map, QUERY_LOG_PARQUET_COMPRESSION, DEFAULT_VALUE_QUERY_LOG_PARQUET_COMPRESSION.name()));
+        this.spill = getBooleanConfig(map, QUERY_LOG_SPILL, DEFAULT_VALUE_QUERY_LOG_SPILL);
+        this.spillDirectory = getStringConfig(map, QUERY_LOG_SPILL_DIRECTORY, DEFAULT_VALUE_QUERY_LOG_SPILL_DIRECTORY);
+        this.spillSegmentSizeMB = getIntegerConfig(map, QUERY_LOG_SPILL_SEGMENT_SIZE_MB, DEFAULT_VALUE_QUERY_LOG_SPILL_SEGMENT_SIZE_MB);
+        this.spillMaxSizeMB = getIntegerConfig(map, QUERY_LOG_SPILL_MAX_SIZE_MB, DEFAULT_VALUE_QUERY_LOG_SPILL_MAX_SIZE_MB);
+        this.spillRetryIntervalMs = getIntegerConfig(map, QUERY_LOG_SPILL_RETRY_INTERVAL_MS, DEFAULT_VALUE_QUERY_LOG_SPILL_RETRY_INTERVAL_MS);
+        this.outputEvents = getStringConfig(map, QUERY_LOG_OUTPUT_EVENTS, DEFAULT_VALUE_QUERY_LOG_OUTPUT_EVENTS);
+        this.sinks = getStringConfig(map, QUERY_LOG_SINKS, DEFAULT_VALUE_QUERY_LOG_SINKS);
+        this.sinkSocketAddress = getStringConfig(map, QUERY_LOG_SINK_SOCKET_ADDRESS, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_ADDRESS);
+        this.sinkSocketEvents = getStringConfig(map, QUERY_LOG_SINK_SOCKET_EVENTS, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_EVENTS);
+        this.sinkSocketQueueSize = getIntegerConfig(map, QUERY_LOG_SINK_SOCKET_QUEUE_SIZE, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_QUEUE_SIZE);
+        this.sinkSocketBatchSize = getIntegerConfig(map, QUERY_LOG_SINK_SOCKET_BATCH_SIZE, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_BATCH_SIZE);
+        this.sinkSocketLingerMs = getIntegerConfig(map, QUERY_LOG_SINK_SOCKET_LINGER_MS, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_LINGER_MS);
+        this.sinkSocketFailurePolicy = SinkFailurePolicy.of(getStringConfig(map, QUERY_LOG_SINK_SOCKET_FAILURE_POLICY, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_FAILURE_POLICY.name()));
+        this.sinkHttpUrl = getStringConfig(map, QUERY_LOG_SINK_HTTP_URL, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_URL);
+        this.sinkHttpEvents = getStringConfig(map, QUERY_LOG_SINK_HTTP_EVENTS, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_EVENTS);
+        this.sinkHttpQueueSize = getIntegerConfig(map, QUERY_LOG_SINK_HTTP_QUEUE_SIZE, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_QUEUE_SIZE);
+        this.sinkHttpBatchSize = getIntegerConfig(map, QUERY_LOG_SINK_HTTP_BATCH_SIZE, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_BATCH_SIZE);
+        this.sinkHttpLingerMs = getIntegerConfig(map, QUERY_LOG_SINK_HTTP_LINGER_MS, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_LINGER_MS);
+        this.sinkHttpFailurePolicy = SinkFailurePolicy.of(getStringConfig(map, QUERY_LOG_SINK_HTTP_FAILURE_POLICY, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_FAILURE_POLICY.name()));
+        this.sinkHttpTimeoutMs = getIntegerConfig(map, QUERY_LOG_SINK_HTTP_TIMEOUT_MS, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_TIMEOUT_MS);
+        this.sinkHttpCompression = OutputCompression.of(getStringConfig(map, QUERY_LOG_SINK_HTTP_COMPRESSION, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_COMPRESSION.name()));
+        this.sinkStdoutEvents = getStringConfig(map, QUERY_LOG_SINK_STDOUT_EVENTS, DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_EVENTS);
+        this.sinkStdoutQueueSize = getIntegerConfig(map, QUERY_LOG_SINK_STDOUT_QUEUE_SIZE, DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_QUEUE_SIZE);
+        this.sinkStdoutBatchSize = getIntegerConfig(map, QUERY_LOG_SINK_STDOUT_BATCH_SIZE, DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_BATCH_SIZE);
+        this.sinkStdoutLingerMs = getIntegerConfig(map, QUERY_LOG_SINK_STDOUT_LINGER_MS, DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_LINGER_MS);
+        this.outputPartitionBy = PartitionKey.of(getStringConfig(map, QUERY_LOG_OUTPUT_PARTITION_BY, DEFAULT_VALUE_QUERY_LOG_OUTPUT_PARTITION_BY.name()));
+        this.outputPartitionRules = getStringConfig(map, QUERY_LOG_OUTPUT_PARTITION_RULES, DEFAULT_VALUE_QUERY_LOG_OUTPUT_PARTITION_RULES);
+        this.outputMaxOpenPartitions = getIntegerConfig(map, QUERY_LOG_OUTPUT_MAX_OPEN_PARTITIONS, DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_OPEN_PARTITIONS);
     }
 
     public static QueryLogListenerProperties of(Map<String, String> map) {
-        return new QueryLogListenerProperties(map);
+        QueryLogListenerProperties properties = new QueryLogListenerProperties(map);
+        // compile patterns and predicates up front, so a bad config fails at startup
+        properties.getEventFilter();
+        return properties;
     }
 
     public static QueryLogListenerProperties defaultInstance() {
-        Map<String, String> map = new HashMap<>(9);
+        Map<String, String> map = new HashMap<>(89);
         map.put(QUERY_LOG_CONFIG_FILE_LOCATION, DEFAULT_VALUE_QUERY_LOG_CONFIG_FILE_LOCATION);
         map.put(QUERY_LOG_LOG_SPLIT_COMPLETED, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_COMPLETED));
         map.put(QUERY_LOG_LOG_QUERY_CREATED, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED));
@@ -64,6 +388,86 @@ public class QueryLogListenerProperties {
         map.put(QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_TYPE_PATTERN, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_TYPE_PATTERN);
         map.put(QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_LENGTH, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_QUERY_LENGTH));
         map.put(QUERY_LOG_LOG_QUERY_COMPLETED_CATALOG_PATTERN, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_CATALOG_PATTERN);
+        map.put(QUERY_LOG_LOG_QUERY_CREATED_FILTER, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_FILTER);
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_FILTER, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FILTER);
+        map.put(QUERY_LOG_ASYNC_ENABLED, String.valueOf(DEFAULT_VALUE_QUERY_LOG_ASYNC_ENABLED));
+        map.put(QUERY_LOG_ASYNC_BUFFER_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_ASYNC_BUFFER_SIZE));
+        map.put(QUERY_LOG_ASYNC_OVERFLOW_POLICY, DEFAULT_VALUE_QUERY_LOG_ASYNC_OVERFLOW_POLICY.name());
+        map.put(QUERY_LOG_OUTPUT_MODE, DEFAULT_VALUE_QUERY_LOG_OUTPUT_MODE.name());
+        map.put(QUERY_LOG_OUTPUT_FILE, DEFAULT_VALUE_QUERY_LOG_OUTPUT_FILE);
+        map.put(QUERY_LOG_LOG_QUERY_MAX_LENGTH_UNIT, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_MAX_LENGTH_UNIT.name());
+        map.put(QUERY_LOG_LOG_SPLIT_COMPLETED_EVENT_MODE, DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_COMPLETED_EVENT_MODE.name());
+        map.put(QUERY_LOG_LOG_SPLIT_ROLLUP_MAX_QUERIES, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_MAX_QUERIES));
+        map.put(QUERY_LOG_LOG_SPLIT_ROLLUP_TTL_SECONDS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_TTL_SECONDS));
+        map.put(QUERY_LOG_LOG_SPLIT_ROLLUP_SLOWEST_SPLITS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_SPLIT_ROLLUP_SLOWEST_SPLITS));
+        map.put(QUERY_LOG_LOG_TIMESTAMP_FORMAT, DEFAULT_VALUE_QUERY_LOG_LOG_TIMESTAMP_FORMAT.name());
+        map.put(QUERY_LOG_OUTPUT_BUFFER_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_BUFFER_SIZE));
+        map.put(QUERY_LOG_OUTPUT_FLUSH_INTERVAL_MS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_FLUSH_INTERVAL_MS));
+        map.put(QUERY_LOG_OUTPUT_FSYNC, DEFAULT_VALUE_QUERY_LOG_OUTPUT_FSYNC.name());
+        map.put(QUERY_LOG_OUTPUT_MAX_FILE_SIZE_MB, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_FILE_SIZE_MB));
+        map.put(QUERY_LOG_OUTPUT_MAX_HISTORY, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_HISTORY));
+        map.put(QUERY_LOG_OUTPUT_TOTAL_SIZE_CAP_MB, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_TOTAL_SIZE_CAP_MB));
+        map.put(QUERY_LOG_OUTPUT_COMPRESSION, DEFAULT_VALUE_QUERY_LOG_OUTPUT_COMPRESSION.name());
+        map.put(QUERY_LOG_OUTPUT_COMPRESSION_LEVEL, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_COMPRESSION_LEVEL));
+        map.put(QUERY_LOG_QUERY_DEDUP, String.valueOf(DEFAULT_VALUE_QUERY_LOG_QUERY_DEDUP));
+        map.put(QUERY_LOG_QUERY_DEDUP_CACHE_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_QUERY_DEDUP_CACHE_SIZE));
+        map.put(QUERY_LOG_OUTPUT_QUERY_DICTIONARY_FILE, DEFAULT_VALUE_QUERY_LOG_OUTPUT_QUERY_DICTIONARY_FILE);
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT));
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT_CACHE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FINGERPRINT_CACHE));
+        map.put(QUERY_LOG_LOG_WORKLOAD_SUMMARY, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY));
+        map.put(QUERY_LOG_LOG_WORKLOAD_SUMMARY_INTERVAL, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY_INTERVAL));
+        map.put(QUERY_LOG_LOG_WORKLOAD_SUMMARY_MAX_KEYS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_WORKLOAD_SUMMARY_MAX_KEYS));
+        map.put(QUERY_LOG_OUTPUT_INDEX, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_INDEX));
+        map.put(QUERY_LOG_LOG_INFLIGHT, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT));
+        map.put(QUERY_LOG_LOG_INFLIGHT_MAX_QUERIES, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_MAX_QUERIES));
+        map.put(QUERY_LOG_LOG_INFLIGHT_INTERVAL, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_INTERVAL));
+        map.put(QUERY_LOG_LOG_INFLIGHT_LONG_RUNNING, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_LONG_RUNNING));
+        map.put(QUERY_LOG_LOG_INFLIGHT_TTL, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_TTL));
+        map.put(QUERY_LOG_LOG_INFLIGHT_MERGE_CREATED, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_INFLIGHT_MERGE_CREATED));
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING));
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_RATE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_RATE));
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_WALL, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_WALL));
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_CPU, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_CPU));
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_MEMORY, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_SAMPLING_MEMORY));
+        map.put(QUERY_LOG_LOG_QUERY_CREATED_TAIL, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL));
+        map.put(QUERY_LOG_LOG_QUERY_CREATED_TAIL_MAX, String.valueOf(DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL_MAX));
+        map.put(QUERY_LOG_LOG_QUERY_CREATED_TAIL_OVERFLOW, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_CREATED_TAIL_OVERFLOW.name());
+        map.put(QUERY_LOG_OUTPUT_STRIPES, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_STRIPES));
+        map.put(QUERY_LOG_LOG_QUERY_COMPLETED_FIELDS, DEFAULT_VALUE_QUERY_LOG_LOG_QUERY_COMPLETED_FIELDS);
+        map.put(QUERY_LOG_OUTPUT_FORMAT, DEFAULT_VALUE_QUERY_LOG_OUTPUT_FORMAT.name());
+        map.put(QUERY_LOG_PARQUET, String.valueOf(DEFAULT_VALUE_QUERY_LOG_PARQUET));
+        map.put(QUERY_LOG_PARQUET_DIRECTORY, DEFAULT_VALUE_QUERY_LOG_PARQUET_DIRECTORY);
+        map.put(QUERY_LOG_PARQUET_ROW_GROUP_MB, String.valueOf(DEFAULT_VALUE_QUERY_LOG_PARQUET_ROW_GROUP_MB));
+        map.put(QUERY_LOG_PARQUET_MAX_FILE_MB, String.valueOf(DEFAULT_VALUE_QUERY_LOG_PARQUET_MAX_FILE_MB));
+        map.put(QUERY_LOG_PARQUET_COMPRESSION, DEFAULT_VALUE_QUERY_LOG_PARQUET_COMPRESSION.name());
+        map.put(QUERY_LOG_SPILL, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SPILL));
+        map.put(QUERY_LOG_SPILL_DIRECTORY, DEFAULT_VALUE_QUERY_LOG_SPILL_DIRECTORY);
+        map.put(QUERY_LOG_SPILL_SEGMENT_SIZE_MB, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SPILL_SEGMENT_SIZE_MB));
+        map.put(QUERY_LOG_SPILL_MAX_SIZE_MB, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SPILL_MAX_SIZE_MB));
+        map.put(QUERY_LOG_SPILL_RETRY_INTERVAL_MS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SPILL_RETRY_INTERVAL_MS));
+        map.put(QUERY_LOG_OUTPUT_EVENTS, DEFAULT_VALUE_QUERY_LOG_OUTPUT_EVENTS);
+        map.put(QUERY_LOG_SINKS, DEFAULT_VALUE_QUERY_LOG_SINKS);
+        map.put(QUERY_LOG_SINK_SOCKET_ADDRESS, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_ADDRESS);
+        map.put(QUERY_LOG_SINK_SOCKET_EVENTS, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_EVENTS);
+        map.put(QUERY_LOG_SINK_SOCKET_QUEUE_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_QUEUE_SIZE));
+        map.put(QUERY_LOG_SINK_SOCKET_BATCH_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_BATCH_SIZE));
+        map.put(QUERY_LOG_SINK_SOCKET_LINGER_MS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_LINGER_MS));
+        map.put(QUERY_LOG_SINK_SOCKET_FAILURE_POLICY, DEFAULT_VALUE_QUERY_LOG_SINK_SOCKET_FAILURE_POLICY.name());
+        map.put(QUERY_LOG_SINK_HTTP_URL, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_URL);
+        map.put(QUERY_LOG_SINK_HTTP_EVENTS, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_EVENTS);
+        map.put(QUERY_LOG_SINK_HTTP_QUEUE_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_QUEUE_SIZE));
+        map.put(QUERY_LOG_SINK_HTTP_BATCH_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_BATCH_SIZE));
+        map.put(QUERY_LOG_SINK_HTTP_LINGER_MS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_LINGER_MS));
+        map.put(QUERY_LOG_SINK_HTTP_FAILURE_POLICY, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_FAILURE_POLICY.name());
+        map.put(QUERY_LOG_SINK_HTTP_TIMEOUT_MS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_TIMEOUT_MS));
+        map.put(QUERY_LOG_SINK_HTTP_COMPRESSION, DEFAULT_VALUE_QUERY_LOG_SINK_HTTP_COMPRESSION.name());
+        map.put(QUERY_LOG_SINK_STDOUT_EVENTS, DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_EVENTS);
+        map.put(QUERY_LOG_SINK_STDOUT_QUEUE_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_QUEUE_SIZE));
+        map.put(QUERY_LOG_SINK_STDOUT_BATCH_SIZE, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_BATCH_SIZE));
+        map.put(QUERY_LOG_SINK_STDOUT_LINGER_MS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_SINK_STDOUT_LINGER_MS));
+        map.put(QUERY_LOG_OUTPUT_PARTITION_BY, DEFAULT_VALUE_QUERY_LOG_OUTPUT_PARTITION_BY.name());
+        map.put(QUERY_LOG_OUTPUT_PARTITION_RULES, DEFAULT_VALUE_QUERY_LOG_OUTPUT_PARTITION_RULES);
+        map.put(QUERY_LOG_OUTPUT_MAX_OPEN_PARTITIONS, String.valueOf(DEFAULT_VALUE_QUERY_LOG_OUTPUT_MAX_OPEN_PARTITIONS));
         return new QueryLogListenerProperties(map);
     }
 
@@ -148,6 +552,7 @@ public class QueryLogListenerProperties {
 
     public QueryLogListenerProperties setQueryCreatedQueryTypePattern(String queryCreatedQueryTypePattern) {
         this.queryCreatedQueryTypePattern = queryCreatedQueryTypePattern;
+        this.eventFilter = null;
         return this;
     }
 
@@ -175,6 +580,7 @@ public class QueryLogListenerProperties {
 
     public QueryLogListenerProperties setQueryCompletedQueryTypePattern(String queryCompletedQueryTypePattern) {
         this.queryCompletedQueryTypePattern = queryCompletedQueryTypePattern;
+        this.eventFilter = null;
         return this;
     }
 
@@ -193,6 +599,739 @@ public class QueryLogListenerProperties {
 
     public QueryLogListenerProperties setQueryCompletedCatalogPattern(String queryCompletedCatalogPattern) {
         this.queryCompletedCatalogPattern = queryCompletedCatalogPattern;
+        this.eventFilter = null;
+        return this;
+    }
+
+    public String getQueryCreatedFilter() {
+        return queryCreatedFilter;
+    }
+
+    public QueryLogListenerProperties setQueryCreatedFilter(String queryCreatedFilter) {
+        this.queryCreatedFilter = queryCreatedFilter;
+        this.eventFilter = null;
+        return this;
+    }
+
+    public String getQueryCompletedFilter() {
+        return queryCompletedFilter;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedFilter(String queryCompletedFilter) {
+        this.queryCompletedFilter = queryCompletedFilter;
+        this.eventFilter = null;
+        return this;
+    }
+
+    /**
+     * The filter compiled from the patterns and predicates, rebuilt after any of them is changed.
+     */
+    public EventFilter getEventFilter() {
+        if (eventFilter == null) {
+            eventFilter = EventFilter.of(this);
+        }
+        return eventFilter;
+    }
+
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    public QueryLogListenerProperties setAsyncEnabled(boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+        return this;
+    }
+
+    public int getAsyncBufferSize() {
+        return asyncBufferSize;
+    }
+
+    public QueryLogListenerProperties setAsyncBufferSize(int asyncBufferSize) {
+        this.asyncBufferSize = asyncBufferSize;
+        return this;
+    }
+
+    public OverflowPolicy getAsyncOverflowPolicy() {
+        return asyncOverflowPolicy;
+    }
+
+    public QueryLogListenerProperties setAsyncOverflowPolicy(OverflowPolicy asyncOverflowPolicy) {
+        this.asyncOverflowPolicy = asyncOverflowPolicy;
+        return this;
+    }
+
+    public OutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    public QueryLogListenerProperties setOutputMode(OutputMode outputMode) {
+        this.outputMode = outputMode;
+        return this;
+    }
+
+    public String getOutputFile() {
+        return outputFile;
+    }
+
+    public QueryLogListenerProperties setOutputFile(String outputFile) {
+        this.outputFile = outputFile;
+        return this;
+    }
+
+    public QueryLengthUnit getQueryMaxLengthUnit() {
+        return queryMaxLengthUnit;
+    }
+
+    public QueryLogListenerProperties setQueryMaxLengthUnit(QueryLengthUnit queryMaxLengthUnit) {
+        this.queryMaxLengthUnit = queryMaxLengthUnit;
+        return this;
+    }
+
+    public SplitLogMode getSplitCompletedMode() {
+        return splitCompletedMode;
+    }
+
+    public QueryLogListenerProperties setSplitCompletedMode(SplitLogMode splitCompletedMode) {
+        this.splitCompletedMode = splitCompletedMode;
+        return this;
+    }
+
+    public int getSplitRollupMaxQueries() {
+        return splitRollupMaxQueries;
+    }
+
+    public QueryLogListenerProperties setSplitRollupMaxQueries(int splitRollupMaxQueries) {
+        this.splitRollupMaxQueries = splitRollupMaxQueries;
+        return this;
+    }
+
+    public int getSplitRollupTtlSeconds() {
+        return splitRollupTtlSeconds;
+    }
+
+    public QueryLogListenerProperties setSplitRollupTtlSeconds(int splitRollupTtlSeconds) {
+        this.splitRollupTtlSeconds = splitRollupTtlSeconds;
+        return this;
+    }
+
+    public int getSplitRollupSlowestSplits() {
+        return splitRollupSlowestSplits;
+    }
+
+    public QueryLogListenerProperties setSplitRollupSlowestSplits(int splitRollupSlowestSplits) {
+        this.splitRollupSlowestSplits = splitRollupSlowestSplits;
+        return this;
+    }
+
+    public TimestampFormat getTimestampFormat() {
+        return timestampFormat;
+    }
+
+    public QueryLogListenerProperties setTimestampFormat(TimestampFormat timestampFormat) {
+        this.timestampFormat = timestampFormat;
+        return this;
+    }
+
+    public int getOutputBufferSize() {
+        return outputBufferSize;
+    }
+
+    public QueryLogListenerProperties setOutputBufferSize(int outputBufferSize) {
+        this.outputBufferSize = outputBufferSize;
+        return this;
+    }
+
+    public int getOutputFlushIntervalMs() {
+        return outputFlushIntervalMs;
+    }
+
+    public QueryLogListenerProperties setOutputFlushIntervalMs(int outputFlushIntervalMs) {
+        this.outputFlushIntervalMs = outputFlushIntervalMs;
+        return this;
+    }
+
+    public FsyncPolicy getOutputFsync() {
+        return outputFsync;
+    }
+
+    public QueryLogListenerProperties setOutputFsync(FsyncPolicy outputFsync) {
+        this.outputFsync = outputFsync;
+        return this;
+    }
+
+    public int getOutputMaxFileSizeMB() {
+        return outputMaxFileSizeMB;
+    }
+
+    public QueryLogListenerProperties setOutputMaxFileSizeMB(int outputMaxFileSizeMB) {
+        this.outputMaxFileSizeMB = outputMaxFileSizeMB;
+        return this;
+    }
+
+    public int getOutputMaxHistory() {
+        return outputMaxHistory;
+    }
+
+    public QueryLogListenerProperties setOutputMaxHistory(int outputMaxHistory) {
+        this.outputMaxHistory = outputMaxHistory;
+        return this;
+    }
+
+    public int getOutputTotalSizeCapMB() {
+        return outputTotalSizeCapMB;
+    }
+
+    public QueryLogListenerProperties setOutputTotalSizeCapMB(int outputTotalSizeCapMB) {
+        this.outputTotalSizeCapMB = outputTotalSizeCapMB;
+        return this;
+    }
+
+    public OutputCompression getOutputCompression() {
+        return outputCompression;
+    }
+
+    public QueryLogListenerProperties setOutputCompression(OutputCompression outputCompression) {
+        this.outputCompression = outputCompression;
+        return this;
+    }
+
+    public int getOutputCompressionLevel() {
+        return outputCompressionLevel;
+    }
+
+    public QueryLogListenerProperties setOutputCompressionLevel(int outputCompressionLevel) {
+        this.outputCompressionLevel = outputCompressionLevel;
+        return this;
+    }
+
+    public boolean isQueryDedup() {
+        return queryDedup;
+    }
+
+    public QueryLogListenerProperties setQueryDedup(boolean queryDedup) {
+        this.queryDedup = queryDedup;
+        return this;
+    }
+
+    public int getQueryDedupCacheSize() {
+        return queryDedupCacheSize;
+    }
+
+    public QueryLogListenerProperties setQueryDedupCacheSize(int queryDedupCacheSize) {
+        this.queryDedupCacheSize = queryDedupCacheSize;
+        return this;
+    }
+
+    public String getOutputQueryDictionaryFile() {
+        return outputQueryDictionaryFile;
+    }
+
+    public QueryLogListenerProperties setOutputQueryDictionaryFile(String outputQueryDictionaryFile) {
+        this.outputQueryDictionaryFile = outputQueryDictionaryFile;
+        return this;
+    }
+
+    public boolean isQueryCompletedFingerprint() {
+        return queryCompletedFingerprint;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedFingerprint(boolean queryCompletedFingerprint) {
+        this.queryCompletedFingerprint = queryCompletedFingerprint;
+        return this;
+    }
+
+    public int getQueryCompletedFingerprintCacheSize() {
+        return queryCompletedFingerprintCacheSize;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedFingerprintCacheSize(int queryCompletedFingerprintCacheSize) {
+        this.queryCompletedFingerprintCacheSize = queryCompletedFingerprintCacheSize;
+        return this;
+    }
+
+    public boolean isWorkloadSummary() {
+        return workloadSummary;
+    }
+
+    public QueryLogListenerProperties setWorkloadSummary(boolean workloadSummary) {
+        this.workloadSummary = workloadSummary;
+        return this;
+    }
+
+    public int getWorkloadSummaryIntervalSeconds() {
+        return workloadSummaryIntervalSeconds;
+    }
+
+    public QueryLogListenerProperties setWorkloadSummaryIntervalSeconds(int workloadSummaryIntervalSeconds) {
+        this.workloadSummaryIntervalSeconds = workloadSummaryIntervalSeconds;
+        return this;
+    }
+
+    public int getWorkloadSummaryMaxKeys() {
+        return workloadSummaryMaxKeys;
+    }
+
+    public QueryLogListenerProperties setWorkloadSummaryMaxKeys(int workloadSummaryMaxKeys) {
+        this.workloadSummaryMaxKeys = workloadSummaryMaxKeys;
+        return this;
+    }
+
+    public boolean isOutputIndex() {
+        return outputIndex;
+    }
+
+    public QueryLogListenerProperties setOutputIndex(boolean outputIndex) {
+        this.outputIndex = outputIndex;
+        return this;
+    }
+
+    public boolean isInFlight() {
+        return inFlight;
+    }
+
+    public QueryLogListenerProperties setInFlight(boolean inFlight) {
+        this.inFlight = inFlight;
+        return this;
+    }
+
+    public int getInFlightMaxQueries() {
+        return inFlightMaxQueries;
+    }
+
+    public QueryLogListenerProperties setInFlightMaxQueries(int inFlightMaxQueries) {
+        this.inFlightMaxQueries = inFlightMaxQueries;
+        return this;
+    }
+
+    public int getInFlightIntervalSeconds() {
+        return inFlightIntervalSeconds;
+    }
+
+    public QueryLogListenerProperties setInFlightIntervalSeconds(int inFlightIntervalSeconds) {
+        this.inFlightIntervalSeconds = inFlightIntervalSeconds;
+        return this;
+    }
+
+    public int getInFlightLongRunningSeconds() {
+        return inFlightLongRunningSeconds;
+    }
+
+    public QueryLogListenerProperties setInFlightLongRunningSeconds(int inFlightLongRunningSeconds) {
+        this.inFlightLongRunningSeconds = inFlightLongRunningSeconds;
+        return this;
+    }
+
+    public int getInFlightTtlSeconds() {
+        return inFlightTtlSeconds;
+    }
+
+    public QueryLogListenerProperties setInFlightTtlSeconds(int inFlightTtlSeconds) {
+        this.inFlightTtlSeconds = inFlightTtlSeconds;
+        return this;
+    }
+
+    public boolean isInFlightMergeCreated() {
+        return inFlightMergeCreated;
+    }
+
+    public QueryLogListenerProperties setInFlightMergeCreated(boolean inFlightMergeCreated) {
+        this.inFlightMergeCreated = inFlightMergeCreated;
+        return this;
+    }
+
+    public boolean isQueryCompletedSampling() {
+        return queryCompletedSampling;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedSampling(boolean queryCompletedSampling) {
+        this.queryCompletedSampling = queryCompletedSampling;
+        return this;
+    }
+
+    public int getQueryCompletedSamplingPerSecond() {
+        return queryCompletedSamplingPerSecond;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedSamplingPerSecond(int queryCompletedSamplingPerSecond) {
+        this.queryCompletedSamplingPerSecond = queryCompletedSamplingPerSecond;
+        return this;
+    }
+
+    public int getQueryCompletedSamplingWallMs() {
+        return queryCompletedSamplingWallMs;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedSamplingWallMs(int queryCompletedSamplingWallMs) {
+        this.queryCompletedSamplingWallMs = queryCompletedSamplingWallMs;
+        return this;
+    }
+
+    public int getQueryCompletedSamplingCpuMs() {
+        return queryCompletedSamplingCpuMs;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedSamplingCpuMs(int queryCompletedSamplingCpuMs) {
+        this.queryCompletedSamplingCpuMs = queryCompletedSamplingCpuMs;
+        return this;
+    }
+
+    public int getQueryCompletedSamplingMemoryMB() {
+        return queryCompletedSamplingMemoryMB;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedSamplingMemoryMB(int queryCompletedSamplingMemoryMB) {
+        this.queryCompletedSamplingMemoryMB = queryCompletedSamplingMemoryMB;
+        return this;
+    }
+
+    public boolean isQueryCreatedTailSampling() {
+        return queryCreatedTailSampling;
+    }
+
+    public QueryLogListenerProperties setQueryCreatedTailSampling(boolean queryCreatedTailSampling) {
+        this.queryCreatedTailSampling = queryCreatedTailSampling;
+        return this;
+    }
+
+    public int getQueryCreatedTailSamplingMaxMB() {
+        return queryCreatedTailSamplingMaxMB;
+    }
+
+    public QueryLogListenerProperties setQueryCreatedTailSamplingMaxMB(int queryCreatedTailSamplingMaxMB) {
+        this.queryCreatedTailSamplingMaxMB = queryCreatedTailSamplingMaxMB;
+        return this;
+    }
+
+    public TailOverflowPolicy getQueryCreatedTailSamplingOverflow() {
+        return queryCreatedTailSamplingOverflow;
+    }
+
+    public QueryLogListenerProperties setQueryCreatedTailSamplingOverflow(TailOverflowPolicy queryCreatedTailSamplingOverflow) {
+        this.queryCreatedTailSamplingOverflow = queryCreatedTailSamplingOverflow;
+        return this;
+    }
+
+    public int getOutputStripes() {
+        return outputStripes;
+    }
+
+    public QueryLogListenerProperties setOutputStripes(int outputStripes) {
+        this.outputStripes = outputStripes;
+        return this;
+    }
+
+    public String getQueryCompletedFields() {
+        return queryCompletedFields;
+    }
+
+    public QueryLogListenerProperties setQueryCompletedFields(String queryCompletedFields) {
+        this.queryCompletedFields = queryCompletedFields;
+        return this;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public QueryLogListenerProperties setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+        return this;
+    }
+
+    public boolean isParquet() {
+        return parquet;
+    }
+
+    public QueryLogListenerProperties setParquet(boolean parquet) {
+        this.parquet = parquet;
+        return this;
+    }
+
+    public String getParquetDirectory() {
+        return parquetDirectory;
+    }
+
+    public QueryLogListenerProperties setParquetDirectory(String parquetDirectory) {
+        this.parquetDirectory = parquetDirectory;
+        return this;
+    }
+
+    public int getParquetRowGroupMB() {
+        return parquetRowGroupMB;
+    }
+
+    public QueryLogListenerProperties setParquetRowGroupMB(int parquetRowGroupMB) {
+        this.parquetRowGroupMB = parquetRowGroupMB;
+        return this;
+    }
+
+    public int getParquetMaxFileMB() {
+        return parquetMaxFileMB;
+    }
+
+    public QueryLogListenerProperties setParquetMaxFileMB(int parquetMaxFileMB) {
+        this.parquetMaxFileMB = parquetMaxFileMB;
+        return this;
+    }
+
+    public OutputCompression getParquetCompression() {
+        return parquetCompression;
+    }
+
+    public QueryLogListenerProperties setParquetCompression(OutputCompression parquetCompression) {
+        this.parquetCompression = parquetCompression;
+        return this;
+    }
+
+    public boolean isSpill() {
+        return spill;
+    }
+
+    public QueryLogListenerProperties setSpill(boolean spill) {
+        this.spill = spill;
+        return this;
+    }
+
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public QueryLogListenerProperties setSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    public int getSpillSegmentSizeMB() {
+        return spillSegmentSizeMB;
+    }
+
+    public QueryLogListenerProperties setSpillSegmentSizeMB(int spillSegmentSizeMB) {
+        this.spillSegmentSizeMB = spillSegmentSizeMB;
+        return this;
+    }
+
+    public int getSpillMaxSizeMB() {
+        return spillMaxSizeMB;
+    }
+
+    public QueryLogListenerProperties setSpillMaxSizeMB(int spillMaxSizeMB) {
+        this.spillMaxSizeMB = spillMaxSizeMB;
+        return this;
+    }
+
+    public int getSpillRetryIntervalMs() {
+        return spillRetryIntervalMs;
+    }
+
+    public QueryLogListenerProperties setSpillRetryIntervalMs(int spillRetryIntervalMs) {
+        this.spillRetryIntervalMs = spillRetryIntervalMs;
+        return this;
+    }
+
+    public String getOutputEvents() {
+        return outputEvents;
+    }
+
+    public QueryLogListenerProperties setOutputEvents(String outputEvents) {
+        this.outputEvents = outputEvents;
+        return this;
+    }
+
+    public String getSinks() {
+        return sinks;
+    }
+
+    public QueryLogListenerProperties setSinks(String sinks) {
+        this.sinks = sinks;
+        return this;
+    }
+
+    public String getSinkSocketAddress() {
+        return sinkSocketAddress;
+    }
+
+    public QueryLogListenerProperties setSinkSocketAddress(String sinkSocketAddress) {
+        this.sinkSocketAddress = sinkSocketAddress;
+        return this;
+    }
+
+    public String getSinkSocketEvents() {
+        return sinkSocketEvents;
+    }
+
+    public QueryLogListenerProperties setSinkSocketEvents(String sinkSocketEvents) {
+        this.sinkSocketEvents = sinkSocketEvents;
+        return this;
+    }
+
+    public int getSinkSocketQueueSize() {
+        return sinkSocketQueueSize;
+    }
+
+    public QueryLogListenerProperties setSinkSocketQueueSize(int sinkSocketQueueSize) {
+        this.sinkSocketQueueSize = sinkSocketQueueSize;
+        return this;
+    }
+
+    public int getSinkSocketBatchSize() {
+        return sinkSocketBatchSize;
+    }
+
+    public QueryLogListenerProperties setSinkSocketBatchSize(int sinkSocketBatchSize) {
+        this.sinkSocketBatchSize = sinkSocketBatchSize;
+        return this;
+    }
+
+    public int getSinkSocketLingerMs() {
+        return sinkSocketLingerMs;
+    }
+
+    public QueryLogListenerProperties setSinkSocketLingerMs(int sinkSocketLingerMs) {
+        this.sinkSocketLingerMs = sinkSocketLingerMs;
+        return this;
+    }
+
+    public SinkFailurePolicy getSinkSocketFailurePolicy() {
+        return sinkSocketFailurePolicy;
+    }
+
+    public QueryLogListenerProperties setSinkSocketFailurePolicy(SinkFailurePolicy sinkSocketFailurePolicy) {
+        this.sinkSocketFailurePolicy = sinkSocketFailurePolicy;
+        return this;
+    }
+
+    public String getSinkHttpUrl() {
+        return sinkHttpUrl;
+    }
+
+    public QueryLogListenerProperties setSinkHttpUrl(String sinkHttpUrl) {
+        this.sinkHttpUrl = sinkHttpUrl;
+        return this;
+    }
+
+    public String getSinkHttpEvents() {
+        return sinkHttpEvents;
+    }
+
+    public QueryLogListenerProperties setSinkHttpEvents(String sinkHttpEvents) {
+        this.sinkHttpEvents = sinkHttpEvents;
+        return this;
+    }
+
+    public int getSinkHttpQueueSize() {
+        return sinkHttpQueueSize;
+    }
+
+    public QueryLogListenerProperties setSinkHttpQueueSize(int sinkHttpQueueSize) {
+        this.sinkHttpQueueSize = sinkHttpQueueSize;
+        return this;
+    }
+
+    public int getSinkHttpBatchSize() {
+        return sinkHttpBatchSize;
+    }
+
+    public QueryLogListenerProperties setSinkHttpBatchSize(int sinkHttpBatchSize) {
+        this.sinkHttpBatchSize = sinkHttpBatchSize;
+        return this;
+    }
+
+    public int getSinkHttpLingerMs() {
+        return sinkHttpLingerMs;
+    }
+
+    public QueryLogListenerProperties setSinkHttpLingerMs(int sinkHttpLingerMs) {
+        this.sinkHttpLingerMs = sinkHttpLingerMs;
+        return this;
+    }
+
+    public SinkFailurePolicy getSinkHttpFailurePolicy() {
+        return sinkHttpFailurePolicy;
+    }
+
+    public QueryLogListenerProperties setSinkHttpFailurePolicy(SinkFailurePolicy sinkHttpFailurePolicy) {
+        this.sinkHttpFailurePolicy = sinkHttpFailurePolicy;
+        return this;
+    }
+
+    public int getSinkHttpTimeoutMs() {
+        return sinkHttpTimeoutMs;
+    }
+
+    public QueryLogListenerProperties setSinkHttpTimeoutMs(int sinkHttpTimeoutMs) {
+        this.sinkHttpTimeoutMs = sinkHttpTimeoutMs;
+        return this;
+    }
+
+    public OutputCompression getSinkHttpCompression() {
+        return sinkHttpCompression;
+    }
+
+    public QueryLogListenerProperties setSinkHttpCompression(OutputCompression sinkHttpCompression) {
+        this.sinkHttpCompression = sinkHttpCompression;
+        return this;
+    }
+
+    public String getSinkStdoutEvents() {
+        return sinkStdoutEvents;
+    }
+
+    public QueryLogListenerProperties setSinkStdoutEvents(String sinkStdoutEvents) {
+        this.sinkStdoutEvents = sinkStdoutEvents;
+        return this;
+    }
+
+    public int getSinkStdoutQueueSize() {
+        return sinkStdoutQueueSize;
+    }
+
+    public QueryLogListenerProperties setSinkStdoutQueueSize(int sinkStdoutQueueSize) {
+        this.sinkStdoutQueueSize = sinkStdoutQueueSize;
+        return this;
+    }
+
+    public int getSinkStdoutBatchSize() {
+        return sinkStdoutBatchSize;
+    }
+
+    public QueryLogListenerProperties setSinkStdoutBatchSize(int sinkStdoutBatchSize) {
+        this.sinkStdoutBatchSize = sinkStdoutBatchSize;
+        return this;
+    }
+
+    public int getSinkStdoutLingerMs() {
+        return sinkStdoutLingerMs;
+    }
+
+    public QueryLogListenerProperties setSinkStdoutLingerMs(int sinkStdoutLingerMs) {
+        this.sinkStdoutLingerMs = sinkStdoutLingerMs;
+        return this;
+    }
+
+    public PartitionKey getOutputPartitionBy() {
+        return outputPartitionBy;
+    }
+
+    public QueryLogListenerProperties setOutputPartitionBy(PartitionKey outputPartitionBy) {
+        this.outputPartitionBy = outputPartitionBy;
+        return this;
+    }
+
+    public String getOutputPartitionRules() {
+        return outputPartitionRules;
+    }
+
+    public QueryLogListenerProperties setOutputPartitionRules(String outputPartitionRules) {
+        this.outputPartitionRules = outputPartitionRules;
+        return this;
+    }
+
+    public int getOutputMaxOpenPartitions() {
+        return outputMaxOpenPartitions;
+    }
+
+    public QueryLogListenerProperties setOutputMaxOpenPartitions(int outputMaxOpenPartitions) {
+        this.outputMaxOpenPartitions = outputMaxOpenPartitions;
         return this;
     }
 
@@ -201,6 +1340,82 @@ public class QueryLogListenerProperties {
         return "QueryLogListenerProperties{" + "configFileLocation='" + configFileLocation + '\'' + ", splitCompleted=" + splitCompleted + ", queryCreated=" + queryCreated
             + ", queryCreatedQueryTypePattern='" + queryCreatedQueryTypePattern + '\'' + ", queryCreatedQueryMaxLength=" + queryCreatedQueryMaxLength + ", queryCompleted=" + queryCompleted
             + ", queryCompletedQueryTypePattern='" + queryCompletedQueryTypePattern + '\'' + ", queryCompletedQueryMaxLength=" + queryCompletedQueryMaxLength + ", queryCompletedCatalogPattern='"
-            + queryCompletedCatalogPattern + '\'' + '}';
+            + queryCompletedCatalogPattern + '\'' + ", queryCreatedFilter='" + queryCreatedFilter + '\'' + ", queryCompletedFilter='" + queryCompletedFilter + '\''
+            + ", asyncEnabled=" + asyncEnabled + ", asyncBufferSize=" + asyncBufferSize + ", asyncOverflowPolicy=" + asyncOverflowPolicy
+            + ", outputMode=" + outputMode
+            + ", outputFile='" + outputFile + '\''
+            + ", queryMaxLengthUnit=" + queryMaxLengthUnit
+            + ", splitCompletedMode=" + splitCompletedMode
+            + ", splitRollupMaxQueries=" + splitRollupMaxQueries
+            + ", splitRollupTtlSeconds=" + splitRollupTtlSeconds
+            + ", splitRollupSlowestSplits=" + splitRollupSlowestSplits
+            + ", timestampFormat=" + timestampFormat
+            + ", outputBufferSize=" + outputBufferSize
+            + ", outputFlushIntervalMs=" + outputFlushIntervalMs
+            + ", outputFsync=" + outputFsync
+            + ", outputMaxFileSizeMB=" + outputMaxFileSizeMB
+            + ", outputMaxHistory=" + outputMaxHistory
+            + ", outputTotalSizeCapMB=" + outputTotalSizeCapMB
+            + ", outputCompression=" + outputCompression
+            + ", outputCompressionLevel=" + outputCompressionLevel
+            + ", queryDedup=" + queryDedup
+            + ", queryDedupCacheSize=" + queryDedupCacheSize
+            + ", outputQueryDictionaryFile='" + outputQueryDictionaryFile + '\''
+            + ", queryCompletedFingerprint=" + queryCompletedFingerprint
+            + ", queryCompletedFingerprintCacheSize=" + queryCompletedFingerprintCacheSize
+            + ", workloadSummary=" + workloadSummary
+            + ", workloadSummaryIntervalSeconds=" + workloadSummaryIntervalSeconds
+            + ", workloadSummaryMaxKeys=" + workloadSummaryMaxKeys
+            + ", outputIndex=" + outputIndex
+            + ", inFlight=" + inFlight
+            + ", inFlightMaxQueries=" + inFlightMaxQueries
+            + ", inFlightIntervalSeconds=" + inFlightIntervalSeconds
+            + ", inFlightLongRunningSeconds=" + inFlightLongRunningSeconds
+            + ", inFlightTtlSeconds=" + inFlightTtlSeconds
+            + ", inFlightMergeCreated=" + inFlightMergeCreated
+            + ", queryCompletedSampling=" + queryCompletedSampling
+            + ", queryCompletedSamplingPerSecond=" + queryCompletedSamplingPerSecond
+            + ", queryCompletedSamplingWallMs=" + queryCompletedSamplingWallMs
+            + ", queryCompletedSamplingCpuMs=" + queryCompletedSamplingCpuMs
+            + ", queryCompletedSamplingMemoryMB=" + queryCompletedSamplingMemoryMB
+            + ", queryCreatedTailSampling=" + queryCreatedTailSampling
+            + ", queryCreatedTailSamplingMaxMB=" + queryCreatedTailSamplingMaxMB
+            + ", queryCreatedTailSamplingOverflow=" + queryCreatedTailSamplingOverflow
+            + ", outputStripes=" + outputStripes
+            + ", queryCompletedFields='" + queryCompletedFields + '\''
+            + ", outputFormat=" + outputFormat
+            + ", parquet=" + parquet
+            + ", parquetDirectory='" + parquetDirectory + '\''
+            + ", parquetRowGroupMB=" + parquetRowGroupMB
+            + ", parquetMaxFileMB=" + parquetMaxFileMB
+            + ", parquetCompression=" + parquetCompression
+            + ", spill=" + spill
+            + ", spillDirectory='" + spillDirectory + '\''
+            + ", spillSegmentSizeMB=" + spillSegmentSizeMB
+            + ", spillMaxSizeMB=" + spillMaxSizeMB
+            + ", spillRetryIntervalMs=" + spillRetryIntervalMs
+            + ", outputEvents='" + outputEvents + '\''
+            + ", sinks='" + sinks + '\''
+            + ", sinkSocketAddress='" + sinkSocketAddress + '\''
+            + ", sinkSocketEvents='" + sinkSocketEvents + '\''
+            + ", sinkSocketQueueSize=" + sinkSocketQueueSize
+            + ", sinkSocketBatchSize=" + sinkSocketBatchSize
+            + ", sinkSocketLingerMs=" + sinkSocketLingerMs
+            + ", sinkSocketFailurePolicy=" + sinkSocketFailurePolicy
+            + ", sinkHttpUrl='" + sinkHttpUrl + '\''
+            + ", sinkHttpEvents='" + sinkHttpEvents + '\''
+            + ", sinkHttpQueueSize=" + sinkHttpQueueSize
+            + ", sinkHttpBatchSize=" + sinkHttpBatchSize
+            + ", sinkHttpLingerMs=" + sinkHttpLingerMs
+            + ", sinkHttpFailurePolicy=" + sinkHttpFailurePolicy
+            + ", sinkHttpTimeoutMs=" + sinkHttpTimeoutMs
+            + ", sinkHttpCompression=" + sinkHttpCompression
+            + ", sinkStdoutEvents='" + sinkStdoutEvents + '\''
+            + ", sinkStdoutQueueSize=" + sinkStdoutQueueSize
+            + ", sinkStdoutBatchSize=" + sinkStdoutBatchSize
+            + ", sinkStdoutLingerMs=" + sinkStdoutLingerMs
+            + ", outputPartitionBy=" + outputPartitionBy
+            + ", outputPartitionRules='" + outputPartitionRules + '\''
+            + ", outputMaxOpenPartitions=" + outputMaxOpenPartitions + '}';
     }
 }
@@ -0,0 +1,367 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import io.trino.spi.eventlistener.SplitCompletedEvent;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Counters and latency histograms of a {@link QueryLogListener}. Recording is lock-free: counters are
+ * {@link LongAdder}s and latencies go to {@link LogHistogram}s, in nanoseconds up to about 18 minutes.
+ */
+final class QueryLogMetrics implements QueryLogMetricsMBean {
+
+    static final String OBJECT_NAME = "com.github.archongum.trino.query.log:name=QueryLogListener";
+
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private final Counters queryCreated = new Counters();
+    private final Counters queryCompleted = new Counters();
+    private final Counters splitCompleted = new Counters();
+    private final Counters workloadSummary = new Counters();
+    private final Counters inFlightSnapshot = new Counters();
+    private final LongAdder queryCompletedSampledOut = new LongAdder();
+    private final LongAdder queryCreatedTailDiscarded = new LongAdder();
+    private final LongAdder jsonProcessingErrors = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LogHistogram serializeNanos = new LogHistogram(5, 40);
+    private final LogHistogram writeNanos = new LogHistogram(5, 40);
+    private final LongSupplier dropped;
+    private final IntSupplier queueDepth;
+    private final SpillingEventWriter spill;
+    private final List<QueuedEventWriter> sinks;
+    private final PartitionedEventWriter partitions;
+
+    QueryLogMetrics() {
+        this(() -> 0, () -> 0);
+    }
+
+    QueryLogMetrics(LongSupplier dropped, IntSupplier queueDepth) {
+        this(dropped, queueDepth, null, Collections.emptyList(), null);
+    }
+
+    /**
+     * @param dropped    events dropped by the async dispatcher
+     * @param queueDepth events waiting in the async dispatcher
+     * @param spill      writer spilling to disk, or {@code null}
+     * @param sinks      writers of the sinks events are fanned out to
+     * @param partitions writer of the partitioned output, or {@code null}
+     */
+    QueryLogMetrics(LongSupplier dropped, IntSupplier queueDepth, SpillingEventWriter spill, List<QueuedEventWriter> sinks,
+        PartitionedEventWriter partitions) {
+        this.dropped = requireNonNull(dropped, "dropped is null");
+        this.queueDepth = requireNonNull(queueDepth, "queueDepth is null");
+        this.spill = spill;
+        this.sinks = requireNonNull(sinks, "sinks is null");
+        this.partitions = partitions;
+    }
+
+    void received(Object event) {
+        counters(event).received.increment();
+    }
+
+    void filtered(Object event) {
+        counters(event).filtered.increment();
+    }
+
+    /**
+     * A completed event dropped by the {@link QuerySampler}, counted as filtered too.
+     */
+    void sampledOut(Object event) {
+        filtered(event);
+        queryCompletedSampledOut.increment();
+    }
+
+    /**
+     * A created event discarded by tail-based sampling, counted as filtered too.
+     */
+    void tailDiscarded(Object event) {
+        filtered(event);
+        queryCreatedTailDiscarded.increment();
+    }
+
+    /**
+     * A created event serialized into the {@link CreatedEventBuffer}, not written yet.
+     */
+    void held(long serializeNanos) {
+        this.serializeNanos.record(serializeNanos);
+    }
+
+    /**
+     * A created event written from the {@link CreatedEventBuffer}, its serialization recorded by {@link #held(long)}.
+     */
+    void emittedHeld(Object event, long writeNanos, int bytes) {
+        counters(event).emitted.increment();
+        this.writeNanos.record(writeNanos);
+        bytesWritten.add(bytes);
+    }
+
+    void emitted(Object event, long serializeNanos, long writeNanos, int bytes) {
+        counters(event).emitted.increment();
+        this.serializeNanos.record(serializeNanos);
+        this.writeNanos.record(writeNanos);
+        bytesWritten.add(bytes);
+    }
+
+    void failed(Object event, IOException e) {
+        counters(event).failed.increment();
+        if (e instanceof JsonProcessingException) {
+            jsonProcessingErrors.increment();
+        }
+    }
+
+    private Counters counters(Object event) {
+        if (event instanceof QueryCreatedEvent || event instanceof CreatedEventBuffer.Hold || event instanceof CreatedEventBuffer.Entry) {
+            return queryCreated;
+        }
+        if (event instanceof SplitCompletedEvent || event instanceof SplitRollup) {
+            return splitCompleted;
+        }
+        if (event instanceof WorkloadSummary) {
+            return workloadSummary;
+        }
+        if (event instanceof InFlightSnapshot) {
+            return inFlightSnapshot;
+        }
+        return queryCompleted;
+    }
+
+    @Override
+    public long getQueryCreatedReceived() {
+        return queryCreated.received.sum();
+    }
+
+    @Override
+    public long getQueryCreatedFiltered() {
+        return queryCreated.filtered.sum();
+    }
+
+    @Override
+    public long getQueryCreatedTailDiscarded() {
+        return queryCreatedTailDiscarded.sum();
+    }
+
+    @Override
+    public long getQueryCreatedEmitted() {
+        return queryCreated.emitted.sum();
+    }
+
+    @Override
+    public long getQueryCreatedFailed() {
+        return queryCreated.failed.sum();
+    }
+
+    @Override
+    public long getQueryCompletedReceived() {
+        return queryCompleted.received.sum();
+    }
+
+    @Override
+    public long getQueryCompletedFiltered() {
+        return queryCompleted.filtered.sum();
+    }
+
+    @Override
+    public long getQueryCompletedSampledOut() {
+        return queryCompletedSampledOut.sum();
+    }
+
+    @Override
+    public long getQueryCompletedEmitted() {
+        return queryCompleted.emitted.sum();
+    }
+
+    @Override
+    public long getQueryCompletedFailed() {
+        return queryCompleted.failed.sum();
+    }
+
+    @Override
+    public long getSplitCompletedReceived() {
+        return splitCompleted.received.sum();
+    }
+
+    @Override
+    public long getSplitCompletedFiltered() {
+        return splitCompleted.filtered.sum();
+    }
+
+    @Override
+    public long getSplitCompletedEmitted() {
+        return splitCompleted.emitted.sum();
+    }
+
+    @Override
+    public long getSplitCompletedFailed() {
+        return splitCompleted.failed.sum();
+    }
+
+    @Override
+    public long getWorkloadSummaryEmitted() {
+        return workloadSummary.emitted.sum();
+    }
+
+    @Override
+    public long getWorkloadSummaryFailed() {
+        return workloadSummary.failed.sum();
+    }
+
+    @Override
+    public long getInFlightSnapshotEmitted() {
+        return inFlightSnapshot.emitted.sum();
+    }
+
+    @Override
+    public long getInFlightSnapshotFailed() {
+        return inFlightSnapshot.failed.sum();
+    }
+
+    @Override
+    public long getJsonProcessingErrors() {
+        return jsonProcessingErrors.sum();
+    }
+
+    @Override
+    public long getDropped() {
+        return dropped.getAsLong();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public long getSpillDepth() {
+        return spill == null ? 0 : spill.getDepth();
+    }
+
+    @Override
+    public long getSpillBytes() {
+        return spill == null ? 0 : spill.getBytes();
+    }
+
+    @Override
+    public long getSpilled() {
+        return spill == null ? 0 : spill.getSpilledCount();
+    }
+
+    @Override
+    public long getSpillReplayed() {
+        return spill == null ? 0 : spill.getReplayedCount();
+    }
+
+    @Override
+    public long getSpillDropped() {
+        return spill == null ? 0 : spill.getDroppedCount();
+    }
+
+    @Override
+    public long getSpillCorrupt() {
+        return spill == null ? 0 : spill.getCorruptCount();
+    }
+
+    @Override
+    public long getSinkSent() {
+        return sinks.stream().mapToLong(QueuedEventWriter::getSentCount).sum();
+    }
+
+    @Override
+    public long getSinkDropped() {
+        return sinks.stream().mapToLong(QueuedEventWriter::getDroppedCount).sum();
+    }
+
+    @Override
+    public long getSinkFailed() {
+        return sinks.stream().mapToLong(QueuedEventWriter::getFailedCount).sum();
+    }
+
+    @Override
+    public int getSinkQueueDepth() {
+        return sinks.stream().mapToInt(QueuedEventWriter::getQueueDepth).sum();
+    }
+
+    @Override
+    public int getPartitionsOpen() {
+        return partitions == null ? 0 : partitions.getOpenCount();
+    }
+
+    @Override
+    public long getPartitionsOpened() {
+        return partitions == null ? 0 : partitions.getOpenedCount();
+    }
+
+    @Override
+    public long getPartitionsEvicted() {
+        return partitions == null ? 0 : partitions.getEvictedCount();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getSerializeCount() {
+        return serializeNanos.getTotalCount();
+    }
+
+    @Override
+    public long getSerializeMicrosP50() {
+        return serializeNanos.getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getSerializeMicrosP90() {
+        return serializeNanos.getValueAtPercentile(90) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getSerializeMicrosP99() {
+        return serializeNanos.getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getSerializeMicrosMax() {
+        return serializeNanos.getValueAtPercentile(100) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getWriteCount() {
+        return writeNanos.getTotalCount();
+    }
+
+    @Override
+    public long getWriteMicrosP50() {
+        return writeNanos.getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getWriteMicrosP90() {
+        return writeNanos.getValueAtPercentile(90) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getWriteMicrosP99() {
+        return writeNanos.getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getWriteMicrosMax() {
+        return writeNanos.getValueAtPercentile(100) / NANOS_PER_MICRO;
+    }
+
+    private static final class Counters {
+        private final LongAdder received = new LongAdder();
+        private final LongAdder filtered = new LongAdder();
+        private final LongAdder emitted = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.archongum.trino.query.log;
+
+
+/**
+ * JMX view of {@link QueryLogMetrics}, as {@value QueryLogMetrics#OBJECT_NAME}.
+ * <p>
+ * Counts are since the listener was created. Received events are either filtered, dropped by the async
+ * overflow policy, or emitted or failed once serialized and written. Split events in {@code ROLLUP} mode are
+ * received one by one, and emitted as rollups.
+ */
+public interface QueryLogMetricsMBean {
+
+    long getQueryCreatedReceived();
+
+    long getQueryCreatedFiltered();
+
+    /**
+     * Created events discarded by tail-based sampling, among the filtered ones.
+     */
+    long getQueryCreatedTailDiscarded();
+
+    long getQueryCreatedEmitted();
+
+    long getQueryCreatedFailed();
+
+    long getQueryCompletedReceived();
+
+    long getQueryCompletedFiltered();
+
+    /**
+     * Completed events dropped by sampling, among the filtered ones.
+     */
+    long getQueryCompletedSampledOut();
+
+    long getQueryCompletedEmitted();
+
+    long getQueryCompletedFailed();
+
+    long getSplitCompletedReceived();
+
+    long getSplitCompletedFiltered();
+
+    long getSplitCompletedEmitted();
+
+    long getSplitCompletedFailed();
+
+    long getWorkloadSummaryEmitted();
+
+    long getWorkloadSummaryFailed();
+
+    long getInFlightSnapshotEmitted();
+
+    long getInFlightSnapshotFailed();
+
+    /**
+     * Serialization failures, among the failed events.
+     */
+    long getJsonProcessingErrors();
+
+    long getDropped();
+
+    int getQueueDepth();
+
+    /**
+     * Records spilled to disk and not replayed yet.
+     */
+    long getSpillDepth();
+
+    long getSpillBytes();
+
+    /**
+     * Records spilled to disk, among the emitted events.
+     */
+    long getSpilled();
+
+    long getSpillReplayed();
+
+    /**
+     * Records the spill queue had no room for, among the failed events.
+     */
+    long getSpillDropped();
+
+    /**
+     * Corrupt records found in the spill queue, each dropping the rest of its segment.
+     */
+    long getSpillCorrupt();
+
+    /**
+     * Records written to sinks, summed over the sinks.
+     */
+    long getSinkSent();
+
+    /**
+     * Records sinks had no room for in their queue.
+     */
+    long getSinkDropped();
+
+    /**
+     * Records of batches sinks failed to take and dropped.
+     */
+    long getSinkFailed();
+
+    int getSinkQueueDepth();
+
+    /**
+     * Writers of the partitioned output open now.
+     */
+    int getPartitionsOpen();
+
+    /**
+     * Writers of the partitioned output opened, including partitions opened again after an eviction.
+     */
+    long getPartitionsOpened();
+
+    /**
+     * Writers closed to keep within {@code output.maxOpenPartitions}.
+     */
+    long getPartitionsEvicted();
+
+    long getBytesWritten();
+
+    long getSerializeCount();
+
+    long getSerializeMicrosP50();
+
+    long getSerializeMicrosP90();
+
+    long getSerializeMicrosP99();
+
+    long getSerializeMicrosMax();
+
+    long getWriteCount();
+
+    long getWriteMicrosP50();
+
+    long getWriteMicrosP90();
+
+    long getWriteMicrosP99();
+
+    long getWriteMicrosMax();
+}
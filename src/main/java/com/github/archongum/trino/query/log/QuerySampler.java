@@ -0,0 +1,89 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Decides which completed queries are logged. Queries {@link QueryThresholds#isInteresting interesting} by the
+ * thresholds are always logged. Any other query is logged with a probability that keeps them to about
+ * {@code targetPerSecond}: the arrival rate is measured every second, smoothed, and the
+ * probability set to the target over it.
+ * <p>
+ * A query logged with probability {@code p} has a sampling weight of {@code 1 / p}, so the sum of the weights
+ * of the logged queries is an unbiased estimate of the number of queries, and likewise for any sum over them.
+ */
+final class QuerySampler {
+
+    private static final long ADAPT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double SMOOTHING = 0.5;
+
+    private final double targetPerSecond;
+    private final QueryThresholds thresholds;
+    private final LongSupplier ticker;
+    private final DoubleSupplier random;
+    private final LongAdder arrivals = new LongAdder();
+
+    private volatile double probability = 1;
+    private volatile long windowStart;
+    // guarded by this
+    private double rate = -1;
+
+    QuerySampler(double targetPerSecond, QueryThresholds thresholds) {
+        this(targetPerSecond, thresholds, System::nanoTime, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * @param ticker nanoseconds
+     * @param random uniform in [0, 1)
+     */
+    QuerySampler(double targetPerSecond, QueryThresholds thresholds, LongSupplier ticker, DoubleSupplier random) {
+        if (!(targetPerSecond > 0)) {
+            throw new IllegalArgumentException("Sampling target must be positive: " + targetPerSecond);
+        }
+        this.targetPerSecond = targetPerSecond;
+        this.thresholds = requireNonNull(thresholds, "thresholds is null");
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        this.random = requireNonNull(random, "random is null");
+        this.windowStart = ticker.getAsLong();
+    }
+
+    /**
+     * @return the sampling weight of the event, 1 for the ones always logged, or 0 to drop it
+     */
+    double sample(QueryCompletedEvent event) {
+        if (thresholds.isInteresting(event)) {
+            return 1;
+        }
+        arrivals.increment();
+        long now = ticker.getAsLong();
+        if (now - windowStart >= ADAPT_INTERVAL_NANOS) {
+            adapt(now);
+        }
+        double p = probability;
+        if (p >= 1) {
+            return 1;
+        }
+        return random.getAsDouble() < p ? 1 / p : 0;
+    }
+
+    double getProbability() {
+        return probability;
+    }
+
+    private synchronized void adapt(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed < ADAPT_INTERVAL_NANOS) {
+            return;
+        }
+        double observed = arrivals.sumThenReset() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        rate = rate < 0 ? observed : SMOOTHING * observed + (1 - SMOOTHING) * rate;
+        probability = rate <= targetPerSecond ? 1 : targetPerSecond / rate;
+        windowStart = now;
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Replaces repeated query texts by a 128-bit hash. A text is written to a side dictionary stream the first
+ * time it is seen in a day, as {@code {"queryHash":"...","query":"..."}}, and events only carry its
+ * {@code queryHash}. {@link QueryTextRehydrator} puts the texts back.
+ * <p>
+ * The hashes of recently seen texts are kept in an LRU cache of {@code cacheSize} entries, which is
+ * emptied when the day changes, so the dictionary of a day holds every text referenced by that day's events.
+ */
+final class QueryTextDictionary implements Closeable {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final EventWriter writer;
+    private final JsonFactory factory;
+    private final Clock clock;
+
+    // guarded by this
+    private final Map<String, Boolean> seen;
+    private final RecordBuffer buffer = new RecordBuffer();
+    private LocalDate period;
+
+    QueryTextDictionary(int cacheSize, EventWriter writer, JsonFactory factory, Clock clock) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+        }
+        this.writer = requireNonNull(writer, "writer is null");
+        this.factory = requireNonNull(factory, "factory is null");
+        this.clock = requireNonNull(clock, "clock is null");
+        this.seen = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.period = LocalDate.now(clock);
+    }
+
+    /**
+     * @return the hash of {@code text}, after writing it to the dictionary unless it was seen recently.
+     */
+    String reference(String text) throws IOException {
+        String hash = hash(text);
+        synchronized (this) {
+            LocalDate today = LocalDate.now(clock);
+            if (!today.equals(period)) {
+                seen.clear();
+                period = today;
+            }
+            if (seen.get(hash) == null) {
+                buffer.reset();
+                try (JsonGenerator generator = factory.createGenerator(buffer, JsonEncoding.UTF8)) {
+                    generator.writeStartObject();
+                    generator.writeStringField("queryHash", hash);
+                    generator.writeStringField("query", text);
+                    generator.writeEndObject();
+                }
+                writer.write(buffer.array(), 0, buffer.size());
+                // only once written, or the text would be missing from the dictionary for the rest of the day
+                seen.put(hash, Boolean.TRUE);
+            }
+        }
+        return hash;
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * MurmurHash3 x64 128 of the UTF-16LE bytes of {@code text}, read from its chars without encoding it.
+     *
+     * @return 32 hex digits, {@code h1} then {@code h2}
+     */
+    static String hash(String text) {
+        int length = text.length();
+        int blocks = length / 8;
+        long h1 = 0;
+        long h2 = 0;
+        for (int i = 0; i < blocks; i++) {
+            int offset = i * 8;
+            long k1 = pack(text, offset, 4);
+            long k2 = pack(text, offset + 4, 4);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = length - blocks * 8;
+        if (tail > 4) {
+            h2 ^= mixK2(pack(text, blocks * 8 + 4, tail - 4));
+        }
+        if (tail > 0) {
+            h1 ^= mixK1(pack(text, blocks * 8, Math.min(tail, 4)));
+        }
+        long bytes = 2L * length;
+        h1 ^= bytes;
+        h2 ^= bytes;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[i] = HEX[(int) (h1 >>> (60 - 4 * i)) & 0xf];
+            hex[16 + i] = HEX[(int) (h2 >>> (60 - 4 * i)) & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private static long pack(String text, int offset, int chars) {
+        long k = 0;
+        for (int i = 0; i < chars; i++) {
+            k |= (long) text.charAt(offset + i) << (16 * i);
+        }
+        return k;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Optional;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import io.trino.spi.eventlistener.QueryMetadata;
+
+
+/**
+ * Truncates {@code query} and {@code preparedQuery} while they are serialized, instead of mutating
+ * Trino's {@link QueryMetadata}, which is shared with other event listeners.
+ * <p>
+ * The limit is read from the {@link #MAX_LENGTH} and {@link #LENGTH_UNIT} attributes of the
+ * {@code ObjectWriter}, so created and completed events can use different limits with one mapper.
+ * A truncated text keeps its head and tail around a {@value #TRUNCATED} marker, and is streamed to the
+ * generator slice by slice without building the shortened String.
+ * <p>
+ * With a {@link QueryTextDictionary} in the {@link #DICTIONARY} attribute, {@code query} is written as
+ * its {@code queryHash} instead, and the full text only goes to the dictionary.
+ */
+final class QueryTextModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String MAX_LENGTH = "trino.query.log.queryMaxLength";
+    static final String LENGTH_UNIT = "trino.query.log.queryMaxLengthUnit";
+    static final String DICTIONARY = "trino.query.log.queryDictionary";
+    static final String FINGERPRINTER = "trino.query.log.queryFingerprinter";
+    static final String TRUNCATED = " <truncated> ";
+
+    QueryTextModule() {
+        super(QueryTextModule.class.getSimpleName());
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc, List<BeanPropertyWriter> beanProperties) {
+                Class<?> beanClass = beanDesc.getBeanClass();
+                if (beanClass == QueryMetadata.class || beanClass == CustomQueryCompletedEvent.Metadata.class) {
+                    for (int i = 0; i < beanProperties.size(); i++) {
+                        BeanPropertyWriter property = beanProperties.get(i);
+                        if ("query".equals(property.getName()) || "preparedQuery".equals(property.getName())) {
+                            beanProperties.set(i, new QueryTextPropertyWriter(property));
+                        }
+                    }
+                }
+                return beanProperties;
+            }
+        });
+    }
+
+    /**
+     * Write a query text, truncated to {@code maxLength} in {@code unit} unless {@code maxLength} is -1.
+     */
+    static void writeQueryText(JsonGenerator generator, String text, int maxLength, QueryLengthUnit unit) throws IOException {
+        long bounds = truncation(text, maxLength, unit);
+        if (bounds < 0) {
+            generator.writeString(text);
+            return;
+        }
+        int headEnd = (int) (bounds >>> 32);
+        int tailStart = (int) bounds;
+        int length = headEnd + TRUNCATED.length() + text.length() - tailStart;
+        generator.writeString(new TruncatedReader(text, headEnd, tailStart), length);
+    }
+
+    /**
+     * @return {@code text} truncated like {@link #writeQueryText} does, for where it is not serialized, or {@code null}
+     */
+    static String truncate(String text, int maxLength, QueryLengthUnit unit) {
+        if (text == null) {
+            return null;
+        }
+        long bounds = truncation(text, maxLength, unit);
+        if (bounds < 0) {
+            return text;
+        }
+        int headEnd = (int) (bounds >>> 32);
+        int tailStart = (int) bounds;
+        return text.substring(0, headEnd) + TRUNCATED + text.substring(tailStart);
+    }
+
+    /**
+     * @return the end of the head kept in the high int and the start of the tail in the low one, or -1 if
+     *         {@code text} fits
+     */
+    private static long truncation(String text, int maxLength, QueryLengthUnit unit) {
+        if (maxLength == -1) {
+            return -1;
+        }
+        int half = Math.max(0, (maxLength - 4) / 2);
+        int headEnd;
+        int tailStart;
+        if (unit == QueryLengthUnit.BYTES) {
+            if (utf8Length(text, 0, text.length()) <= maxLength) {
+                return -1;
+            }
+            headEnd = utf8Prefix(text, half);
+            tailStart = utf8Suffix(text, half);
+        } else {
+            if (text.length() <= maxLength) {
+                return -1;
+            }
+            headEnd = half;
+            tailStart = text.length() - half;
+        }
+        return (long) headEnd << 32 | tailStart;
+    }
+
+    private static int utf8Length(String text, int from, int to) {
+        int bytes = 0;
+        for (int i = from; i < to; i++) {
+            bytes += utf8Length(text.charAt(i));
+        }
+        return bytes;
+    }
+
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800) {
+            return 2;
+        }
+        // a surrogate pair is 4 bytes, counted as 2 per half
+        return Character.isSurrogate(c) ? 2 : 3;
+    }
+
+    /**
+     * @return end index of the longest prefix fitting in {@code maxBytes}, never splitting a surrogate pair.
+     */
+    private static int utf8Prefix(String text, int maxBytes) {
+        int bytes = 0;
+        int i = 0;
+        while (i < text.length()) {
+            bytes += utf8Length(text.charAt(i));
+            if (bytes > maxBytes) {
+                break;
+            }
+            i++;
+        }
+        if (i > 0 && i < text.length() && Character.isHighSurrogate(text.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * @return start index of the longest suffix fitting in {@code maxBytes}, never splitting a surrogate pair.
+     */
+    private static int utf8Suffix(String text, int maxBytes) {
+        int bytes = 0;
+        int i = text.length();
+        while (i > 0) {
+            bytes += utf8Length(text.charAt(i - 1));
+            if (bytes > maxBytes) {
+                break;
+            }
+            i--;
+        }
+        if (i > 0 && i < text.length() && Character.isLowSurrogate(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class QueryTextPropertyWriter extends BeanPropertyWriter {
+
+        private static final long serialVersionUID = 1L;
+
+        private QueryTextPropertyWriter(BeanPropertyWriter base) {
+            super(base);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator generator, SerializerProvider provider) throws Exception {
+            Object value = get(bean);
+            String text = value instanceof Optional ? ((Optional<?>) value).map(String.class::cast).orElse(null) : (String) value;
+            Object dictionary = provider.getAttribute(DICTIONARY);
+            if (dictionary != null && text != null && "query".equals(getName())) {
+                generator.writeStringField("queryHash", ((QueryTextDictionary) dictionary).reference(text));
+                return;
+            }
+            generator.writeFieldName(_name);
+            if (text == null) {
+                generator.writeNull();
+                return;
+            }
+            Object maxLength = provider.getAttribute(MAX_LENGTH);
+            Object unit = provider.getAttribute(LENGTH_UNIT);
+            writeQueryText(generator, text,
+                maxLength == null ? -1 : (Integer) maxLength,
+                unit == null ? QueryLengthUnit.CHARS : (QueryLengthUnit) unit);
+        }
+    }
+
+    /**
+     * Reads {@code head + TRUNCATED + tail} straight from the original text.
+     */
+    private static final class TruncatedReader extends Reader {
+
+        private final String text;
+        private final int headEnd;
+        private final int tailStart;
+        private int position;
+
+        private TruncatedReader(String text, int headEnd, int tailStart) {
+            this.text = text;
+            this.headEnd = headEnd;
+            this.tailStart = tailStart;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            int markerEnd = headEnd + TRUNCATED.length();
+            int end = markerEnd + text.length() - tailStart;
+            if (position >= end) {
+                return -1;
+            }
+            int read = 0;
+            while (read < length && position < end) {
+                int count;
+                if (position < headEnd) {
+                    count = Math.min(length - read, headEnd - position);
+                    text.getChars(position, position + count, buffer, offset + read);
+                } else if (position < markerEnd) {
+                    int from = position - headEnd;
+                    count = Math.min(length - read, TRUNCATED.length() - from);
+                    TRUNCATED.getChars(from, from + count, buffer, offset + read);
+                } else {
+                    int from = tailStart + position - markerEnd;
+                    count = Math.min(length - read, text.length() - from);
+                    text.getChars(from, from + count, buffer, offset + read);
+                }
+                read += count;
+                position += count;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+
+/**
+ * Puts the query texts of a {@link QueryTextDictionary} back into the events referencing them by hash.
+ * <pre>
+ * java -cp '&lt;TRINO_HOME&gt;/plugin/trino-query-log/*' com.github.archongum.trino.query.log.QueryTextRehydrator \
+ *     [--dictionary &lt;file&gt;]... [&lt;log file&gt;]... &gt; rehydrated.log
+ * </pre>
+ * Log files are read in order, or stdin without any. {@code .gz} files are decompressed. Dictionary records
+ * met in the log files themselves, as the default logback config writes them, are loaded and not printed.
+ * Events whose hash is unknown are printed as they are.
+ */
+public final class QueryTextRehydrator {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, String> texts = new HashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        QueryTextRehydrator rehydrator = new QueryTextRehydrator();
+        List<Path> logs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--dictionary".equals(args[i]) && i + 1 < args.length) {
+                try (BufferedReader reader = open(Paths.get(args[++i]))) {
+                    rehydrator.load(reader);
+                }
+            } else {
+                logs.add(Paths.get(args[i]));
+            }
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+        if (logs.isEmpty()) {
+            rehydrator.rehydrate(new BufferedReader(new InputStreamReader(System.in, UTF_8)), out);
+        }
+        for (Path log : logs) {
+            try (BufferedReader reader = open(log)) {
+                rehydrator.rehydrate(reader, out);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Load the dictionary records of {@code reader}, skipping any other line.
+     */
+    void load(BufferedReader reader) throws IOException {
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            JsonNode record = parse(line);
+            if (isDictionaryRecord(record)) {
+                texts.put(record.get("queryHash").asText(), record.get("query").asText());
+            }
+        }
+    }
+
+    /**
+     * Write every event of {@code reader} to {@code out}, one per line, with its query text put back.
+     */
+    void rehydrate(BufferedReader reader, Writer out) throws IOException {
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            String rehydrated = rehydrate(line);
+            if (rehydrated != null) {
+                out.write(rehydrated);
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * @return the event with its query text, or {@code null} for a dictionary record, which is loaded
+     */
+    String rehydrate(String line) {
+        JsonNode record = parse(line);
+        if (isDictionaryRecord(record)) {
+            texts.put(record.get("queryHash").asText(), record.get("query").asText());
+            return null;
+        }
+        JsonNode metadata = record == null ? null : record.get("metadata");
+        if (!(metadata instanceof ObjectNode) || !metadata.has("queryHash")) {
+            return line;
+        }
+        String text = texts.get(metadata.get("queryHash").asText());
+        if (text == null) {
+            return line;
+        }
+        // same field order as without dictionary: query in place of queryHash
+        ObjectNode rehydrated = mapper.createObjectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = metadata.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if ("queryHash".equals(field.getKey())) {
+                rehydrated.put("query", text);
+            } else {
+                rehydrated.set(field.getKey(), field.getValue());
+            }
+        }
+        ((ObjectNode) record).set("metadata", rehydrated);
+        return record.toString();
+    }
+
+    private JsonNode parse(String line) {
+        try {
+            return mapper.readTree(line);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isDictionaryRecord(JsonNode record) {
+        return record != null && record.size() == 2 && record.has("queryHash") && record.has("query");
+    }
+
+    private static BufferedReader open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            // reads every member of a block-gzip file
+            in = new GZIPInputStream(in);
+        }
+        return new BufferedReader(new InputStreamReader(in, UTF_8));
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.archongum.trino.query.log;
+
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryStatistics;
+import io.trino.spi.resourcegroups.QueryType;
+
+
+/**
+ * Which completed queries are worth a full record whatever the sampling: failed queries, writes, and queries at or
+ * over the wall time, CPU time or peak memory thresholds.
+ */
+final class QueryThresholds {
+
+    private final long wallMillis;
+    private final long cpuMillis;
+    private final long memoryBytes;
+
+    QueryThresholds(long wallMillis, long cpuMillis, long memoryBytes) {
+        this.wallMillis = wallMillis;
+        this.cpuMillis = cpuMillis;
+        this.memoryBytes = memoryBytes;
+    }
+
+    boolean isInteresting(QueryCompletedEvent event) {
+        if (event.getFailureInfo().isPresent() || event.getIoMetadata().getOutput().isPresent()) {
+            return true;
+        }
+        QueryType queryType = event.getContext().getQueryType().orElse(null);
+        if (queryType != null && queryType != QueryType.SELECT && queryType != QueryType.EXPLAIN && queryType != QueryType.DESCRIBE) {
+            return true;
+        }
+        QueryStatistics statistics = event.getStatistics();
+        return statistics.getWallTime().toMillis() >= wallMillis
+            || statistics.getCpuTime().toMillis() >= cpuMillis
+            || statistics.getPeakUserMemoryBytes() >= memoryBytes;
+    }
+}
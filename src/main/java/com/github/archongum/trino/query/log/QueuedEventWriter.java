@@ -0,0 +1,202 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Hands records over to a sink on a thread of its own, through a bounded queue, so a slow or failing sink holds
+ * back neither the listener nor the other sinks: records are dropped when the queue is full.
+ * <p>
+ * The thread writes records in batches of up to {@code batchSize}, waiting up to {@code lingerMillis} after the
+ * first one for more, then flushes the sink. A batch the sink fails to take is dropped or retried, per the
+ * {@link SinkFailurePolicy}; a retried batch may be partly written twice.
+ */
+final class QueuedEventWriter implements EventWriter {
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final EventWriter sink;
+    private final BlockingQueue<byte[]> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final SinkFailurePolicy failurePolicy;
+    private final Thread thread;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean running = true;
+    private volatile IOException closeFailure;
+
+    /**
+     * @param name of the sink, for the name of the thread
+     */
+    QueuedEventWriter(String name, EventWriter sink, int queueSize, int batchSize, long lingerMillis, SinkFailurePolicy failurePolicy) {
+        if (queueSize <= 0 || batchSize <= 0 || lingerMillis < 0) {
+            throw new IllegalArgumentException("Invalid queue size, batch size or linger");
+        }
+        this.sink = requireNonNull(sink, "sink is null");
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.failurePolicy = requireNonNull(failurePolicy, "failurePolicy is null");
+        this.thread = new Thread(this::run, "trino-query-log-sink-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length) {
+        if (!running || !queue.offer(Arrays.copyOfRange(record, offset, offset + length))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Nothing to do, batches are flushed by the thread of the sink.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Stop accepting records, write the queued ones trying each batch once, and close the sink.
+     * <p>
+     * The sink is closed by its own thread once done, never while it is being written. A thread still writing
+     * after the timeout is interrupted, and left to close the sink whenever the write returns.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        // wake a thread backing off from a failed batch
+        LockSupport.unpark(thread);
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+            if (thread.isAlive()) {
+                thread.interrupt();
+                thread.join(CLOSE_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (closeFailure != null) {
+            throw closeFailure;
+        }
+    }
+
+    /**
+     * @return records written and flushed to the sink
+     */
+    long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * @return records dropped because the queue was full, or closed
+     */
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return records of batches the sink failed to take and were dropped, or that closing cut short
+     */
+    long getFailedCount() {
+        return failed.sum();
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void run() {
+        try {
+            drain();
+        } finally {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                closeFailure = e;
+            }
+        }
+    }
+
+    private void drain() {
+        List<byte[]> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            byte[] first;
+            try {
+                first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                abandon(batch);
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + lingerNanos;
+            while (batch.size() < batchSize) {
+                // wait in slices, so closing cuts the linger short
+                long remaining = deadline - System.nanoTime();
+                byte[] next;
+                try {
+                    next = remaining > 0 && running ? queue.poll(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS) : queue.poll();
+                } catch (InterruptedException e) {
+                    abandon(batch);
+                    return;
+                }
+                if (next != null) {
+                    batch.add(next);
+                } else if (remaining <= 0 || !running) {
+                    break;
+                }
+            }
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Count the records of a batch and of the queue as lost, when closing interrupts the thread.
+     */
+    private void abandon(List<byte[]> batch) {
+        failed.add(batch.size());
+        batch.clear();
+        while (queue.poll() != null) {
+            dropped.increment();
+        }
+    }
+
+    private void send(List<byte[]> batch) {
+        long backoff = MIN_BACKOFF_NANOS;
+        while (true) {
+            try {
+                for (byte[] record : batch) {
+                    sink.write(record, 0, record.length);
+                }
+                sink.flush();
+                sent.add(batch.size());
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (failurePolicy == SinkFailurePolicy.DROP || !running) {
+                    failed.add(batch.size());
+                    return;
+                }
+            }
+            LockSupport.parkNanos(backoff);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.archongum.trino.query.log;
+
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * A completed event kept by the {@link QuerySampler}, written with its {@code samplingWeight}.
+ */
+final class SampledQueryCompletedEvent {
+
+    private final QueryCompletedEvent event;
+    private final double samplingWeight;
+
+    SampledQueryCompletedEvent(QueryCompletedEvent event, double samplingWeight) {
+        this.event = requireNonNull(event, "event is null");
+        this.samplingWeight = samplingWeight;
+    }
+
+    QueryCompletedEvent getEvent() {
+        return event;
+    }
+
+    double getSamplingWeight() {
+        return samplingWeight;
+    }
+}
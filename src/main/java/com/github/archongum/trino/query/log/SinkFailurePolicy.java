@@ -0,0 +1,22 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * What the thread of a sink does with a batch the sink fails to take.
+ */
+public enum SinkFailurePolicy {
+    /**
+     * Discard the batch and go on with the next one.
+     */
+    DROP,
+    /**
+     * Send the batch again with exponential backoff, events queued meanwhile being dropped once the queue is full.
+     */
+    RETRY;
+
+    public static SinkFailurePolicy of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * Sinks events are fanned out to besides the output, each behind a {@link QueuedEventWriter}.
+ */
+public enum SinkType {
+    /**
+     * Lines to {@code host:port} over TCP or to {@code unix:<path>}, see {@link SocketEventWriter}.
+     */
+    SOCKET,
+    /**
+     * Batches POSTed as newline delimited JSON, see {@link HttpEventWriter}.
+     */
+    HTTP,
+    /**
+     * Lines to the standard output of the process.
+     */
+    STDOUT;
+
+    public static SinkType of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
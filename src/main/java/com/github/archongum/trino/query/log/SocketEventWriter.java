@@ -0,0 +1,121 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Writes records as lines to a stream socket, e.g. the socket source of a local Vector or Fluent Bit agent:
+ * {@code host:port} over TCP, or {@code unix:<path>} for a Unix domain socket, which needs Java 16 or later.
+ * <p>
+ * Records are buffered until {@link #flush()}, which connects if not connected. A failed flush closes the
+ * connection and discards the buffered records, so they are written again, or not, by the caller.
+ * <p>
+ * Not thread safe.
+ */
+final class SocketEventWriter implements EventWriter {
+
+    static final String UNIX_PREFIX = "unix:";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(10);
+    private static final byte NEW_LINE = '\n';
+
+    private final String address;
+    private final RecordBuffer buffer = new RecordBuffer();
+    private SocketChannel channel;
+
+    SocketEventWriter(String address) {
+        this.address = requireNonNull(address, "address is null").trim();
+        if (!this.address.startsWith(UNIX_PREFIX) && this.address.lastIndexOf(':') <= 0) {
+            throw new IllegalArgumentException("Invalid socket address, expected host:port or unix:<path>: " + address);
+        }
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length) {
+        buffer.write(record, offset, length);
+        buffer.write(NEW_LINE);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffer.size() == 0) {
+            return;
+        }
+        try {
+            if (channel == null) {
+                channel = connect();
+            }
+            ByteBuffer records = ByteBuffer.wrap(buffer.array(), 0, buffer.size());
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            disconnect();
+        }
+    }
+
+    private SocketChannel connect() throws IOException {
+        if (address.startsWith(UNIX_PREFIX)) {
+            return connectUnix(address.substring(UNIX_PREFIX.length()));
+        }
+        int colon = address.lastIndexOf(':');
+        SocketChannel tcp = SocketChannel.open();
+        try {
+            tcp.socket().connect(new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))), CONNECT_TIMEOUT_MILLIS);
+            return tcp;
+        } catch (IOException | RuntimeException e) {
+            tcp.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Connect through {@code UnixDomainSocketAddress} and {@code SocketChannel.open(ProtocolFamily)}, found at
+     * runtime since the plugin is built for Java 11.
+     */
+    private static SocketChannel connectUnix(String path) throws IOException {
+        SocketAddress unixAddress;
+        SocketChannel unix;
+        try {
+            unixAddress = (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class).invoke(null, path);
+            unix = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, StandardProtocolFamily.valueOf("UNIX"));
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new IOException("Unix domain sockets need Java 16 or later", e);
+        }
+        try {
+            unix.connect(unixAddress);
+            return unix;
+        } catch (IOException | RuntimeException e) {
+            unix.close();
+            throw e;
+        }
+    }
+
+    private void disconnect() throws IOException {
+        if (channel != null) {
+            SocketChannel closed = channel;
+            channel = null;
+            closed.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * A FIFO of records on local disk, in memory-mapped segment files {@code <directory>/<sequence>.spill} of
+ * {@code segmentSize} bytes. A record is its length, the CRC32C of its bytes and its bytes; the length is written
+ * last and a zero length ends the records of a segment.
+ * <p>
+ * Records are read with {@link #peek()} and {@link #remove()}, and {@link #commit()} saves the read position to
+ * {@code <directory>/checkpoint} and deletes the segments read. On open, reading resumes from the checkpoint, so
+ * records removed but not committed are read again, and the records after a torn or corrupt one are dropped from
+ * the last segment. Records go to the page cache as appended, surviving a crash of the process but not of the
+ * machine, unless forced by {@link #close()}.
+ * <p>
+ * Thread safe.
+ */
+final class SpillQueue implements Closeable {
+
+    static final String EXTENSION = ".spill";
+    static final String CHECKPOINT = "checkpoint";
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int CHECKPOINT_SIZE = Long.BYTES + 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final CRC32C crc = new CRC32C();
+    private final FileChannel checkpoint;
+    // segments from the one read to the one appended to
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSequence;
+    private int readOffset;
+    // records of the first segment before readOffset
+    private long readRecords;
+    private long readBytes;
+    private long depth;
+    private long bytes;
+    private long corrupt;
+    private boolean closed;
+
+    /**
+     * @param segmentSize bytes of a segment, which records must fit in along with their header
+     * @param maxSize     bytes of the segments past which appending fails
+     */
+    SpillQueue(Path directory, int segmentSize, long maxSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE || maxSize < segmentSize) {
+            throw new IllegalArgumentException("Invalid segment size or max size");
+        }
+        this.directory = directory.toAbsolutePath();
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.min(Integer.MAX_VALUE, maxSize / segmentSize);
+        Files.createDirectories(this.directory);
+        this.checkpoint = FileChannel.open(this.directory.resolve(CHECKPOINT), CREATE, READ, WRITE);
+        recover();
+    }
+
+    /**
+     * @return {@code false} if the record is larger than a segment, or the queue is full
+     */
+    synchronized boolean append(byte[] record, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Queue is closed");
+        }
+        if (length > segmentSize - HEADER_SIZE) {
+            return false;
+        }
+        Segment last = segments.peekLast();
+        if (last == null || last.writeOffset + HEADER_SIZE + length > segmentSize) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            last = openSegment(nextSequence++);
+            segments.addLast(last);
+        }
+        crc.reset();
+        crc.update(record, offset, length);
+        int position = last.writeOffset;
+        last.buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        last.buffer.duplicate().position(position + HEADER_SIZE).put(record, offset, length);
+        last.buffer.putInt(position, length);
+        last.writeOffset = position + HEADER_SIZE + length;
+        last.records++;
+        last.bytes += length;
+        depth++;
+        bytes += length;
+        return true;
+    }
+
+    /**
+     * @return a copy of the oldest record, or {@code null} if there is none
+     */
+    synchronized byte[] peek() {
+        while (true) {
+            Segment first = segments.peekFirst();
+            if (first == null) {
+                return null;
+            }
+            if (readOffset < first.writeOffset) {
+                byte[] record = read(first.buffer, readOffset);
+                if (record != null) {
+                    return record;
+                }
+                // changed on disk since it was appended: skip what is left of the segment
+                corrupt++;
+                depth -= first.records - readRecords;
+                bytes -= first.bytes - readBytes;
+                readOffset = first.writeOffset;
+            }
+            if (segments.size() == 1) {
+                return null;
+            }
+            // read to the end, and no longer appended to
+            segments.removeFirst();
+            readOffset = 0;
+            readRecords = 0;
+            readBytes = 0;
+        }
+    }
+
+    /**
+     * Skip the record {@link #peek()} returned.
+     */
+    synchronized void remove() {
+        Segment first = requireNonNull(segments.peekFirst(), "queue is empty");
+        int length = first.buffer.getInt(readOffset);
+        readOffset += HEADER_SIZE + length;
+        readRecords++;
+        readBytes += length;
+        depth--;
+        bytes -= length;
+    }
+
+    /**
+     * Save the read position, and delete the segments read before it.
+     */
+    synchronized void commit() throws IOException {
+        Segment first = segments.peekFirst();
+        ByteBuffer position = ByteBuffer.allocate(CHECKPOINT_SIZE);
+        position.putLong(first == null ? nextSequence : first.sequence).putInt(first == null ? 0 : readOffset);
+        crc.reset();
+        crc.update(position.array(), 0, Long.BYTES + Integer.BYTES);
+        position.putInt((int) crc.getValue()).flip();
+        while (position.hasRemaining()) {
+            checkpoint.write(position, position.position());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                long sequence = sequence(file);
+                if (sequence >= 0 && (first == null ? sequence < nextSequence : sequence < first.sequence)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return depth == 0;
+    }
+
+    /**
+     * @return the records not removed yet
+     */
+    synchronized long getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the bytes of the records not removed yet
+     */
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the corrupt records found, each dropping what is left of its segment
+     */
+    synchronized long getCorruptCount() {
+        return corrupt;
+    }
+
+    /**
+     * Force the segments to disk. The read position is left at the last {@link #commit()}.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+            checkpoint.force(false);
+        } finally {
+            segments.clear();
+            checkpoint.close();
+        }
+    }
+
+    private void recover() throws IOException {
+        long checkpointSequence = -1;
+        int checkpointOffset = 0;
+        ByteBuffer position = ByteBuffer.allocate(CHECKPOINT_SIZE);
+        while (position.hasRemaining() && checkpoint.read(position, position.position()) > 0) {
+            // read fully
+        }
+        if (!position.hasRemaining()) {
+            crc.reset();
+            crc.update(position.array(), 0, Long.BYTES + Integer.BYTES);
+            if ((int) crc.getValue() == position.getInt(Long.BYTES + Integer.BYTES)) {
+                checkpointSequence = position.getLong(0);
+                checkpointOffset = Math.max(0, Math.min(position.getInt(Long.BYTES), segmentSize));
+            }
+        }
+        List<Long> sequences = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                long sequence = sequence(file);
+                if (sequence < 0) {
+                    continue;
+                }
+                if (sequence < checkpointSequence) {
+                    Files.deleteIfExists(file);
+                } else {
+                    sequences.add(sequence);
+                }
+            }
+        }
+        sequences.sort(null);
+        nextSequence = Math.max(checkpointSequence, 0);
+        for (long sequence : sequences) {
+            Segment segment = openSegment(sequence);
+            int from = sequence == checkpointSequence ? checkpointOffset : 0;
+            scan(segment, from);
+            if (segments.isEmpty()) {
+                readOffset = from;
+            }
+            segments.addLast(segment);
+            nextSequence = sequence + 1;
+        }
+    }
+
+    /**
+     * Find the end of the records of a segment from {@code from}, counting them, and clear a torn or corrupt record
+     * there so it is appended over.
+     */
+    private void scan(Segment segment, int from) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = from;
+        while (offset + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > segmentSize - HEADER_SIZE - offset) {
+                break;
+            }
+            if (read(buffer, offset) == null) {
+                corrupt++;
+                break;
+            }
+            offset += HEADER_SIZE + length;
+            segment.records++;
+            segment.bytes += length;
+            depth++;
+            bytes += length;
+        }
+        if (offset + Integer.BYTES <= segmentSize && buffer.getInt(offset) != 0) {
+            buffer.putInt(offset, 0);
+        }
+        segment.writeOffset = offset;
+    }
+
+    /**
+     * @return a copy of the record at {@code offset}, or {@code null} if its CRC does not match
+     */
+    private byte[] read(MappedByteBuffer buffer, int offset) {
+        byte[] record = new byte[buffer.getInt(offset)];
+        buffer.duplicate().position(offset + HEADER_SIZE).get(record);
+        crc.reset();
+        crc.update(record);
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES) ? record : null;
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", sequence, EXTENSION));
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+            // a new file reads as zeros, so as a segment without records
+            return new Segment(sequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+    }
+
+    /**
+     * @return the sequence of a segment file, or -1 for other files
+     */
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(EXTENSION)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Segment {
+
+        private final long sequence;
+        private final MappedByteBuffer buffer;
+        private int writeOffset;
+        // records appended, or found on open
+        private long records;
+        private long bytes;
+
+        Segment(long sequence, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Writes records to a sink, or to a {@link SpillQueue} on local disk when the sink fails or falls behind, i.e.
+ * under {@code backpressure}. Once spilling, every record goes to the queue, and a replay thread writes them to
+ * the sink in order, retrying every {@code retryIntervalMillis} while it fails, until the queue is empty again.
+ * Records spilled before a restart are replayed first.
+ * <p>
+ * Records are replayed at least once: a crash replays them again from the last batch committed to the queue.
+ * {@link IndexKey}s are spilled along with the records.
+ */
+final class SpillingEventWriter implements EventWriter {
+
+    private static final int REPLAY_BATCH = 1000;
+    private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final EventWriter sink;
+    private final SpillQueue queue;
+    private final BooleanSupplier backpressure;
+    private final long retryIntervalMillis;
+    private final Thread replayer;
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    // guarded by this
+    private final RecordBuffer buffer = new RecordBuffer();
+    private final DataOutputStream data = new DataOutputStream(buffer);
+    private boolean spilling;
+    private volatile boolean running = true;
+
+    /**
+     * @param backpressure whether the sink falls behind, e.g. events queue up in front of it
+     */
+    SpillingEventWriter(EventWriter sink, SpillQueue queue, BooleanSupplier backpressure, long retryIntervalMillis) {
+        if (retryIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Invalid retry interval");
+        }
+        this.sink = requireNonNull(sink, "sink is null");
+        this.queue = requireNonNull(queue, "queue is null");
+        this.backpressure = requireNonNull(backpressure, "backpressure is null");
+        this.retryIntervalMillis = retryIntervalMillis;
+        this.spilling = !queue.isEmpty();
+        this.replayer = new Thread(this::replay, "trino-query-log-spill");
+        this.replayer.setDaemon(true);
+        this.replayer.start();
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length) throws IOException {
+        write(record, offset, length, null);
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length, IndexKey key) throws IOException {
+        synchronized (this) {
+            if (spilling || backpressure.getAsBoolean()) {
+                spill(record, offset, length, key);
+                return;
+            }
+        }
+        // the replay thread only writes to the sink while spilling
+        try {
+            sink.write(record, offset, length, key);
+        } catch (IOException e) {
+            synchronized (this) {
+                spill(record, offset, length, key);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        synchronized (this) {
+            if (spilling) {
+                return;
+            }
+        }
+        sink.flush();
+    }
+
+    /**
+     * Stop the replay thread, after a last attempt to replay what is spilled, and close the sink. Records left are
+     * replayed on the next start.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        synchronized (this) {
+            notifyAll();
+        }
+        try {
+            replayer.join(TimeUnit.NANOSECONDS.toMillis(CLOSE_TIMEOUT_NANOS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            queue.close();
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * @return records spilled since the listener started
+     */
+    long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    /**
+     * @return records written to the sink from the queue since the listener started
+     */
+    long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    /**
+     * @return records the queue had no room for
+     */
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    long getDepth() {
+        return queue.getDepth();
+    }
+
+    long getBytes() {
+        return queue.getBytes();
+    }
+
+    long getCorruptCount() {
+        return queue.getCorruptCount();
+    }
+
+    /**
+     * Append a record to the queue along with its key. Called holding the lock.
+     */
+    private void spill(byte[] record, int offset, int length, IndexKey key) throws IOException {
+        buffer.reset();
+        data.writeBoolean(key != null);
+        if (key != null) {
+            data.writeUTF(key.getQueryId());
+            data.writeBoolean(key.getUser() != null);
+            if (key.getUser() != null) {
+                data.writeUTF(key.getUser());
+            }
+            data.writeLong(key.getCreateTimeMillis());
+        }
+        data.write(record, offset, length);
+        if (!queue.append(buffer.array(), 0, buffer.size())) {
+            dropped.increment();
+            throw new IOException("Spill queue is full");
+        }
+        spilled.increment();
+        if (!spilling) {
+            spilling = true;
+            notifyAll();
+        }
+    }
+
+    private void replay() {
+        while (running) {
+            boolean failed = false;
+            try {
+                if (replayBatch()) {
+                    continue;
+                }
+            } catch (IOException | RuntimeException e) {
+                failed = true;
+            }
+            synchronized (this) {
+                try {
+                    // until spilling starts, or to retry the sink
+                    if (running && (failed || !spilling)) {
+                        wait(failed ? retryIntervalMillis : 0);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT_NANOS / 2;
+        try {
+            while (System.nanoTime() < deadline && replayBatch()) {
+                // until empty
+            }
+        } catch (IOException | RuntimeException ignored) {
+        }
+    }
+
+    /**
+     * Write a batch of spilled records to the sink, commit them to it and then to the queue, and stop spilling
+     * if there are no more.
+     *
+     * @return whether records were replayed
+     */
+    private boolean replayBatch() throws IOException {
+        int count = 0;
+        byte[] record;
+        while (count < REPLAY_BATCH && (record = queue.peek()) != null) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            IndexKey key = null;
+            if (in.readBoolean()) {
+                String queryId = in.readUTF();
+                String user = in.readBoolean() ? in.readUTF() : null;
+                key = new IndexKey(queryId, user, in.readLong());
+            }
+            int offset = record.length - in.available();
+            sink.write(record, offset, record.length - offset, key);
+            queue.remove();
+            replayed.increment();
+            count++;
+        }
+        if (count > 0) {
+            // the replayed records must be in the sink, not in its buffers, before the queue lets go of them
+            sink.commit();
+            queue.commit();
+        }
+        synchronized (this) {
+            if (spilling && queue.isEmpty()) {
+                spilling = false;
+            }
+        }
+        return count > 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * How {@code SplitCompletedEvent}s are logged.
+ */
+public enum SplitLogMode {
+    /**
+     * One line per split.
+     */
+    RAW,
+    /**
+     * One {@link SplitRollup} line per stage, when the query completes.
+     */
+    ROLLUP;
+
+    public static SplitLogMode of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Instant;
+import java.util.List;
+
+
+/**
+ * Summary of the splits of one stage, logged instead of one line per {@code SplitCompletedEvent}.
+ */
+public class SplitRollup {
+
+    private String queryId;
+    private String stageId;
+    private boolean queryCompleted;
+    private long splits;
+    private long failedSplits;
+    private long tasks;
+    private DurationSummary cpuMs;
+    private DurationSummary wallMs;
+    private DurationSummary queuedMs;
+    private long completedDataSizeBytes;
+    private long completedPositions;
+    private Instant createTime;
+    private Instant endTime;
+    private List<SlowSplit> slowestSplits;
+
+    public String getQueryId() {
+        return queryId;
+    }
+
+    public void setQueryId(String queryId) {
+        this.queryId = queryId;
+    }
+
+    public String getStageId() {
+        return stageId;
+    }
+
+    public void setStageId(String stageId) {
+        this.stageId = stageId;
+    }
+
+    /**
+     * @return {@code false} if the rollup was evicted before its query completed.
+     */
+    public boolean isQueryCompleted() {
+        return queryCompleted;
+    }
+
+    public void setQueryCompleted(boolean queryCompleted) {
+        this.queryCompleted = queryCompleted;
+    }
+
+    public long getSplits() {
+        return splits;
+    }
+
+    public void setSplits(long splits) {
+        this.splits = splits;
+    }
+
+    public long getFailedSplits() {
+        return failedSplits;
+    }
+
+    public void setFailedSplits(long failedSplits) {
+        this.failedSplits = failedSplits;
+    }
+
+    public long getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(long tasks) {
+        this.tasks = tasks;
+    }
+
+    public DurationSummary getCpuMs() {
+        return cpuMs;
+    }
+
+    public void setCpuMs(DurationSummary cpuMs) {
+        this.cpuMs = cpuMs;
+    }
+
+    public DurationSummary getWallMs() {
+        return wallMs;
+    }
+
+    public void setWallMs(DurationSummary wallMs) {
+        this.wallMs = wallMs;
+    }
+
+    public DurationSummary getQueuedMs() {
+        return queuedMs;
+    }
+
+    public void setQueuedMs(DurationSummary queuedMs) {
+        this.queuedMs = queuedMs;
+    }
+
+    public long getCompletedDataSizeBytes() {
+        return completedDataSizeBytes;
+    }
+
+    public void setCompletedDataSizeBytes(long completedDataSizeBytes) {
+        this.completedDataSizeBytes = completedDataSizeBytes;
+    }
+
+    public long getCompletedPositions() {
+        return completedPositions;
+    }
+
+    public void setCompletedPositions(long completedPositions) {
+        this.completedPositions = completedPositions;
+    }
+
+    public Instant getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Instant createTime) {
+        this.createTime = createTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Instant endTime) {
+        this.endTime = endTime;
+    }
+
+    public List<SlowSplit> getSlowestSplits() {
+        return slowestSplits;
+    }
+
+    public void setSlowestSplits(List<SlowSplit> slowestSplits) {
+        this.slowestSplits = slowestSplits;
+    }
+
+    public static class DurationSummary {
+        private long sum;
+        private long min;
+        private long max;
+        private long p50;
+        private long p90;
+        private long p99;
+
+        public long getSum() {
+            return sum;
+        }
+
+        public void setSum(long sum) {
+            this.sum = sum;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public void setMin(long min) {
+            this.min = min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public void setMax(long max) {
+            this.max = max;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public void setP50(long p50) {
+            this.p50 = p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public void setP90(long p90) {
+            this.p90 = p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public void setP99(long p99) {
+            this.p99 = p99;
+        }
+    }
+
+    public static class SlowSplit {
+        private String taskId;
+        private long wallMs;
+        private long cpuMs;
+        private long queuedMs;
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public void setTaskId(String taskId) {
+            this.taskId = taskId;
+        }
+
+        public long getWallMs() {
+            return wallMs;
+        }
+
+        public void setWallMs(long wallMs) {
+            this.wallMs = wallMs;
+        }
+
+        public long getCpuMs() {
+            return cpuMs;
+        }
+
+        public void setCpuMs(long cpuMs) {
+            this.cpuMs = cpuMs;
+        }
+
+        public long getQueuedMs() {
+            return queuedMs;
+        }
+
+        public void setQueuedMs(long queuedMs) {
+            this.queuedMs = queuedMs;
+        }
+    }
+}
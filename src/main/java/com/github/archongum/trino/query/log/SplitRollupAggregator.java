@@ -0,0 +1,392 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import io.trino.spi.eventlistener.SplitCompletedEvent;
+import io.trino.spi.eventlistener.SplitStatistics;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Accumulates {@link SplitCompletedEvent}s per query and stage in striped, primitive accumulators,
+ * and hands one {@link SplitRollup} per stage to the sink when the query completes.
+ * <p>
+ * Memory is bounded: at most {@code maxQueries} queries are tracked, the least recently updated of the oldest
+ * few is evicted first, and queries without a split for {@code ttlMillis} are evicted too. Evicted queries are
+ * emitted with {@code queryCompleted=false}, so their splits are not lost.
+ * <p>
+ * Splits are recorded lock-free; only tracking a new query and removing one take a lock. A query is retired before
+ * it is emitted: the splits being recorded into it finish first, and later ones start over. A split of a query that
+ * already completed is emitted at once, on its own, rather than held until the TTL as an orphan.
+ */
+final class SplitRollupAggregator {
+
+    private static final int MAX_TRACKED_TASKS_PER_STAGE = 4096;
+    private static final int HISTOGRAM_PRECISION_BITS = 3;
+    private static final int HISTOGRAM_MAX_VALUE_BITS = 32;
+    private static final int EVICTION_CANDIDATES = 16;
+
+    private final Map<String, QueryRollup> queries = new ConcurrentHashMap<>();
+    // guarded by itself: the tracked queries oldest first, and the ids of recently completed queries
+    private final LinkedHashMap<String, QueryRollup> order = new LinkedHashMap<>();
+    private final Set<String> completed;
+    private final int maxQueries;
+    private final long ttlNanos;
+    private final int slowestSplits;
+    private final Consumer<SplitRollup> sink;
+    private final AtomicLong nextSweepNanos;
+
+    SplitRollupAggregator(int maxQueries, long ttlMillis, int slowestSplits, Consumer<SplitRollup> sink) {
+        if (maxQueries < 1 || ttlMillis < 1 || slowestSplits < 0) {
+            throw new IllegalArgumentException("Invalid split rollup limits");
+        }
+        this.maxQueries = maxQueries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.slowestSplits = slowestSplits;
+        this.sink = requireNonNull(sink, "sink is null");
+        this.nextSweepNanos = new AtomicLong(System.nanoTime() + sweepInterval());
+        this.completed = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxQueries;
+            }
+        });
+    }
+
+    void record(SplitCompletedEvent event) {
+        long now = System.nanoTime();
+        while (true) {
+            QueryRollup query = queries.get(event.getQueryId());
+            if (query == null) {
+                query = track(event.getQueryId());
+            }
+            if (query == null) {
+                QueryRollup late = new QueryRollup(event.getQueryId());
+                late.record(event, slowestSplits);
+                late.emit(true, sink);
+                break;
+            }
+            query.writers.incrementAndGet();
+            try {
+                // retired in between, and may be emitted without waiting for us
+                if (query.retired) {
+                    continue;
+                }
+                query.lastUpdateNanos = now;
+                query.record(event, slowestSplits);
+                break;
+            } finally {
+                query.writers.decrementAndGet();
+            }
+        }
+
+        long nextSweep = nextSweepNanos.get();
+        if (now - nextSweep >= 0 && nextSweepNanos.compareAndSet(nextSweep, now + sweepInterval())) {
+            evictExpired(now);
+        }
+    }
+
+    /**
+     * Emit and forget the rollups of a completed query.
+     */
+    void complete(String queryId) {
+        QueryRollup query;
+        synchronized (order) {
+            completed.add(queryId);
+            query = queries.get(queryId);
+            if (query == null || !untrack(query)) {
+                return;
+            }
+        }
+        retire(query);
+        query.emit(true, sink);
+    }
+
+    /**
+     * Emit and forget everything still tracked, e.g. on shutdown.
+     */
+    void flush() {
+        List<QueryRollup> tracked;
+        synchronized (order) {
+            tracked = new ArrayList<>(order.values());
+            queries.clear();
+            order.clear();
+        }
+        for (QueryRollup query : tracked) {
+            retire(query);
+            query.emit(false, sink);
+        }
+    }
+
+    int getTrackedQueries() {
+        return queries.size();
+    }
+
+    private long sweepInterval() {
+        return Math.max(ttlNanos / 4, TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void evictExpired(long now) {
+        for (QueryRollup query : queries.values()) {
+            if (now - query.lastUpdateNanos > ttlNanos) {
+                boolean removed;
+                synchronized (order) {
+                    removed = untrack(query);
+                }
+                if (removed) {
+                    retire(query);
+                    query.emit(false, sink);
+                }
+            }
+        }
+    }
+
+    /**
+     * Track a new query, evicting one if full.
+     *
+     * @return the rollup of the query, or {@code null} if it already completed
+     */
+    private QueryRollup track(String queryId) {
+        QueryRollup query;
+        QueryRollup evicted = null;
+        synchronized (order) {
+            query = queries.get(queryId);
+            if (query != null || completed.contains(queryId)) {
+                return query;
+            }
+            if (queries.size() >= maxQueries) {
+                evicted = leastRecentlyUpdated();
+                untrack(evicted);
+            }
+            query = new QueryRollup(queryId);
+            queries.put(queryId, query);
+            order.put(queryId, query);
+        }
+        if (evicted != null) {
+            retire(evicted);
+            evicted.emit(false, sink);
+        }
+        return query;
+    }
+
+    /**
+     * The least recently updated of the oldest tracked queries, so eviction costs the same however many are tracked.
+     */
+    private QueryRollup leastRecentlyUpdated() {
+        QueryRollup oldest = null;
+        int candidates = 0;
+        for (QueryRollup query : order.values()) {
+            if (oldest == null || query.lastUpdateNanos - oldest.lastUpdateNanos < 0) {
+                oldest = query;
+            }
+            if (++candidates == EVICTION_CANDIDATES) {
+                break;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Stop tracking a query, holding the lock of {@code order}.
+     *
+     * @return whether it was still tracked
+     */
+    private boolean untrack(QueryRollup query) {
+        if (!queries.remove(query.queryId, query)) {
+            return false;
+        }
+        order.remove(query.queryId);
+        return true;
+    }
+
+    /**
+     * Wait for the splits being recorded into an untracked query, so none is lost when it is emitted.
+     */
+    private static void retire(QueryRollup query) {
+        query.retired = true;
+        while (query.writers.get() != 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class QueryRollup {
+        private final String queryId;
+        private final Map<String, StageRollup> stages = new ConcurrentHashMap<>();
+        private final AtomicInteger writers = new AtomicInteger();
+        private volatile boolean retired;
+        private volatile long lastUpdateNanos = System.nanoTime();
+
+        private QueryRollup(String queryId) {
+            this.queryId = queryId;
+        }
+
+        private void record(SplitCompletedEvent event, int slowestSplits) {
+            stages.computeIfAbsent(event.getStageId(), stageId -> new StageRollup(stageId, slowestSplits)).record(event);
+        }
+
+        private void emit(boolean queryCompleted, Consumer<SplitRollup> sink) {
+            stages.values().stream()
+                .sorted(Comparator.comparing(stage -> stage.stageId))
+                .forEach(stage -> sink.accept(stage.toRollup(queryId, queryCompleted)));
+        }
+    }
+
+    private static final class StageRollup {
+        private final String stageId;
+        private final LongAdder splits = new LongAdder();
+        private final LongAdder failedSplits = new LongAdder();
+        private final LongAdder completedDataSizeBytes = new LongAdder();
+        private final LongAdder completedPositions = new LongAdder();
+        private final DurationAccumulator cpu = new DurationAccumulator();
+        private final DurationAccumulator wall = new DurationAccumulator();
+        private final DurationAccumulator queued = new DurationAccumulator();
+        private final LongAccumulator firstCreateMillis = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator lastEndMillis = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        private final Set<String> tasks = ConcurrentHashMap.newKeySet();
+        private final SlowestSplits slowest;
+
+        private StageRollup(String stageId, int slowestSplits) {
+            this.stageId = stageId;
+            this.slowest = new SlowestSplits(slowestSplits);
+        }
+
+        private void record(SplitCompletedEvent event) {
+            SplitStatistics statistics = event.getStatistics();
+            long cpuMillis = statistics.getCpuTime().toMillis();
+            long wallMillis = statistics.getWallTime().toMillis();
+            long queuedMillis = statistics.getQueuedTime().toMillis();
+            splits.increment();
+            if (event.getFailureInfo().isPresent()) {
+                failedSplits.increment();
+            }
+            completedDataSizeBytes.add(statistics.getCompletedDataSizeBytes());
+            completedPositions.add(statistics.getCompletedPositions());
+            cpu.record(cpuMillis);
+            wall.record(wallMillis);
+            queued.record(queuedMillis);
+            firstCreateMillis.accumulate(event.getCreateTime().toEpochMilli());
+            event.getEndTime().ifPresent(endTime -> lastEndMillis.accumulate(endTime.toEpochMilli()));
+            if (tasks.size() < MAX_TRACKED_TASKS_PER_STAGE) {
+                tasks.add(event.getTaskId());
+            }
+            slowest.offer(event.getTaskId(), wallMillis, cpuMillis, queuedMillis);
+        }
+
+        private SplitRollup toRollup(String queryId, boolean queryCompleted) {
+            SplitRollup rollup = new SplitRollup();
+            rollup.setQueryId(queryId);
+            rollup.setStageId(stageId);
+            rollup.setQueryCompleted(queryCompleted);
+            rollup.setSplits(splits.sum());
+            rollup.setFailedSplits(failedSplits.sum());
+            rollup.setTasks(tasks.size());
+            rollup.setCpuMs(cpu.summary());
+            rollup.setWallMs(wall.summary());
+            rollup.setQueuedMs(queued.summary());
+            rollup.setCompletedDataSizeBytes(completedDataSizeBytes.sum());
+            rollup.setCompletedPositions(completedPositions.sum());
+            long createMillis = firstCreateMillis.get();
+            rollup.setCreateTime(createMillis == Long.MAX_VALUE ? null : Instant.ofEpochMilli(createMillis));
+            long endMillis = lastEndMillis.get();
+            rollup.setEndTime(endMillis == Long.MIN_VALUE ? null : Instant.ofEpochMilli(endMillis));
+            rollup.setSlowestSplits(slowest.snapshot());
+            return rollup;
+        }
+    }
+
+    private static final class DurationAccumulator {
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final LogHistogram histogram = new LogHistogram(HISTOGRAM_PRECISION_BITS, HISTOGRAM_MAX_VALUE_BITS);
+
+        private void record(long millis) {
+            sum.add(millis);
+            min.accumulate(millis);
+            max.accumulate(millis);
+            histogram.record(millis);
+        }
+
+        private SplitRollup.DurationSummary summary() {
+            SplitRollup.DurationSummary summary = new SplitRollup.DurationSummary();
+            long maxMillis = max.get();
+            long[] counts = histogram.snapshot();
+            summary.setSum(sum.sum());
+            summary.setMin(min.get() == Long.MAX_VALUE ? 0 : min.get());
+            summary.setMax(maxMillis);
+            // bucket upper bounds can overshoot the largest value actually seen
+            summary.setP50(Math.min(histogram.getValueAtPercentile(counts, 50), maxMillis));
+            summary.setP90(Math.min(histogram.getValueAtPercentile(counts, 90), maxMillis));
+            summary.setP99(Math.min(histogram.getValueAtPercentile(counts, 99), maxMillis));
+            return summary;
+        }
+    }
+
+    /**
+     * The N slowest splits by wall time. Splits faster than the current N-th skip the lock.
+     */
+    private static final class SlowestSplits {
+        private final SplitRollup.SlowSplit[] splits;
+        private int size;
+        private volatile long threshold = -1;
+
+        private SlowestSplits(int capacity) {
+            this.splits = new SplitRollup.SlowSplit[capacity];
+        }
+
+        private void offer(String taskId, long wallMillis, long cpuMillis, long queuedMillis) {
+            if (splits.length == 0 || wallMillis <= threshold) {
+                return;
+            }
+            synchronized (this) {
+                int index;
+                if (size < splits.length) {
+                    index = size++;
+                } else {
+                    index = 0;
+                    for (int i = 1; i < size; i++) {
+                        if (splits[i].getWallMs() < splits[index].getWallMs()) {
+                            index = i;
+                        }
+                    }
+                    if (splits[index].getWallMs() >= wallMillis) {
+                        return;
+                    }
+                }
+                SplitRollup.SlowSplit split = new SplitRollup.SlowSplit();
+                split.setTaskId(taskId);
+                split.setWallMs(wallMillis);
+                split.setCpuMs(cpuMillis);
+                split.setQueuedMs(queuedMillis);
+                splits[index] = split;
+                if (size == splits.length) {
+                    long min = Long.MAX_VALUE;
+                    for (int i = 0; i < size; i++) {
+                        min = Math.min(min, splits[i].getWallMs());
+                    }
+                    threshold = min;
+                }
+            }
+        }
+
+        private synchronized List<SplitRollup.SlowSplit> snapshot() {
+            SplitRollup.SlowSplit[] copy = Arrays.copyOf(splits, size);
+            Arrays.sort(copy, Comparator.comparingLong(SplitRollup.SlowSplit::getWallMs).reversed());
+            return Arrays.asList(copy);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Writes records as lines to the standard output of the process, e.g. for the log collector of a container.
+ * The file descriptor is written to directly, since Trino redirects {@link System#out} to its server log.
+ * <p>
+ * Not thread safe.
+ */
+final class StdoutEventWriter implements EventWriter {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final OutputStream out;
+
+    StdoutEventWriter() {
+        this(new FileOutputStream(FileDescriptor.out));
+    }
+
+    StdoutEventWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(requireNonNull(out, "out is null"), 64 * 1024);
+    }
+
+    @Override
+    public void write(byte[] record, int offset, int length) throws IOException {
+        out.write(record, offset, length);
+        out.write(NEW_LINE);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flush, leaving the standard output open.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
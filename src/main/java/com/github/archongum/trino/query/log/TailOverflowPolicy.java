@@ -0,0 +1,26 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * What the {@link CreatedEventBuffer} does with a created event it has no room for.
+ */
+public enum TailOverflowPolicy {
+    /**
+     * Discard the incoming event.
+     */
+    DROP,
+    /**
+     * Discard the oldest held events to make room for the incoming one.
+     */
+    DROP_OLDEST,
+    /**
+     * Write the oldest held events without waiting for their queries to complete, to make room for the incoming one.
+     */
+    WRITE_OLDEST;
+
+    public static TailOverflowPolicy of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.archongum.trino.query.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+
+/**
+ * Writes structs in the Thrift compact protocol, as the Parquet footer and page headers are, into a
+ * {@link RecordBuffer}. Fields must be written in increasing id order within a struct.
+ */
+final class ThriftCompactWriter {
+
+    static final byte I32 = 5;
+    static final byte I64 = 6;
+    static final byte BINARY = 8;
+    static final byte STRUCT = 12;
+
+    private static final byte BOOLEAN_TRUE = 1;
+    private static final byte BOOLEAN_FALSE = 2;
+    private static final byte LIST = 9;
+
+    private final RecordBuffer out;
+    // last field id of each enclosing struct
+    private final short[] lastIds = new short[16];
+    private int depth;
+
+    ThriftCompactWriter(RecordBuffer out) {
+        this.out = out;
+    }
+
+    /**
+     * Start a top level struct, or a struct element of a list.
+     */
+    void beginStruct() {
+        lastIds[++depth] = 0;
+    }
+
+    void endStruct() {
+        out.write(0);
+        depth--;
+    }
+
+    void fieldStruct(int id) {
+        fieldHeader(id, STRUCT);
+        beginStruct();
+    }
+
+    void fieldBoolean(int id, boolean value) {
+        fieldHeader(id, value ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+    }
+
+    void fieldI32(int id, int value) {
+        fieldHeader(id, I32);
+        i32(value);
+    }
+
+    void fieldI64(int id, long value) {
+        fieldHeader(id, I64);
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    void fieldBinary(int id, byte[] value) {
+        fieldHeader(id, BINARY);
+        binary(value);
+    }
+
+    void fieldString(int id, String value) {
+        fieldBinary(id, value.getBytes(UTF_8));
+    }
+
+    /**
+     * Start a list field of {@code size} elements, written with {@link #i32}, {@link #binary} or {@link #beginStruct}.
+     */
+    void fieldList(int id, byte elementType, int size) {
+        fieldHeader(id, LIST);
+        if (size < 15) {
+            out.write((size << 4) | elementType);
+        } else {
+            out.write(0xf0 | elementType);
+            writeVarint(size);
+        }
+    }
+
+    void i32(int value) {
+        writeVarint(((value << 1) ^ (value >> 31)) & 0xffffffffL);
+    }
+
+    void binary(byte[] value) {
+        writeVarint(value.length);
+        out.write(value, 0, value.length);
+    }
+
+    private void fieldHeader(int id, byte type) {
+        int delta = id - lastIds[depth];
+        if (delta > 0 && delta <= 15) {
+            out.write((delta << 4) | type);
+        } else {
+            out.write(type);
+            writeVarint(((id << 1) ^ (id >> 31)) & 0xffffffffL);
+        }
+        lastIds[depth] = (short) id;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
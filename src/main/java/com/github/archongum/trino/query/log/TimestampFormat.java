@@ -0,0 +1,26 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Locale;
+
+
+/**
+ * How {@link java.time.Instant}s are written, always in UTC.
+ */
+public enum TimestampFormat {
+    /**
+     * {@code "yyyy-MM-dd HH:mm:ss"}
+     */
+    SECONDS,
+    /**
+     * {@code "yyyy-MM-dd HH:mm:ss.SSS"}
+     */
+    MILLIS,
+    /**
+     * Milliseconds since the epoch, as a number.
+     */
+    EPOCH_MILLIS;
+
+    public static TimestampFormat of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,231 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryContext;
+import io.trino.spi.eventlistener.QueryStatistics;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Accumulates {@link QueryCompletedEvent}s per user, source, resource group, query type and session catalog,
+ * and hands one {@link WorkloadSummary} per key to the sink every {@code intervalMillis}, aligned to the clock.
+ * <p>
+ * Recording is lock-free: counts go to {@link LongAdder}s and durations to mergeable {@link LogHistogram}s.
+ * A window holds at most {@code maxKeys} keys, queries of any further key are summed up under
+ * {@link WorkloadSummary#OTHER}, and each window starts empty, so keys not seen anymore are dropped.
+ */
+final class WorkloadAggregator implements Closeable {
+
+    private static final int HISTOGRAM_PRECISION_BITS = 4;
+    private static final int HISTOGRAM_MAX_VALUE_BITS = 32;
+    private static final Key OTHER = new Key(WorkloadSummary.OTHER, WorkloadSummary.OTHER, WorkloadSummary.OTHER, WorkloadSummary.OTHER,
+        WorkloadSummary.OTHER);
+
+    private final int maxKeys;
+    private final Consumer<WorkloadSummary> sink;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private volatile Window current;
+
+    WorkloadAggregator(int maxKeys, long intervalMillis, Consumer<WorkloadSummary> sink, Clock clock) {
+        if (maxKeys < 1 || intervalMillis < 1) {
+            throw new IllegalArgumentException("Invalid workload summary limits");
+        }
+        this.maxKeys = maxKeys;
+        this.sink = requireNonNull(sink, "sink is null");
+        this.clock = requireNonNull(clock, "clock is null");
+        this.current = new Window(clock.instant());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trino-query-log-workload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(() -> {
+            try {
+                flush();
+            } catch (RuntimeException ignored) {
+            }
+        }, intervalMillis - Math.floorMod(clock.millis(), intervalMillis), intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void record(QueryCompletedEvent event) {
+        Key key = Key.of(event.getContext());
+        while (true) {
+            Window window = current;
+            window.writers.incrementAndGet();
+            try {
+                // the window was retired in between, and may be emitted without waiting for us
+                if (window != current) {
+                    continue;
+                }
+                window.aggregate(key, maxKeys).record(event);
+                return;
+            } finally {
+                window.writers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Start a new window, and emit the current one once the events being recorded into it are.
+     */
+    synchronized void flush() {
+        Window window = current;
+        current = new Window(clock.instant());
+        while (window.writers.get() != 0) {
+            Thread.onSpinWait();
+        }
+        Instant end = current.start;
+        window.aggregates.forEach((key, aggregate) -> sink.accept(aggregate.toSummary(key, window.start, end)));
+    }
+
+    /**
+     * Stop the schedule and emit the current window, e.g. on shutdown.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    private static final class Window {
+        private final Instant start;
+        private final Map<Key, Aggregate> aggregates = new ConcurrentHashMap<>();
+        private final AtomicInteger writers = new AtomicInteger();
+
+        private Window(Instant start) {
+            this.start = start;
+        }
+
+        private Aggregate aggregate(Key key, int maxKeys) {
+            Aggregate aggregate = aggregates.get(key);
+            if (aggregate != null) {
+                return aggregate;
+            }
+            return aggregates.computeIfAbsent(aggregates.size() < maxKeys ? key : OTHER, k -> new Aggregate());
+        }
+    }
+
+    private static final class Key {
+        private final String user;
+        private final String source;
+        private final String resourceGroup;
+        private final String queryType;
+        private final String catalog;
+        private final int hashCode;
+
+        private Key(String user, String source, String resourceGroup, String queryType, String catalog) {
+            this.user = user;
+            this.source = source;
+            this.resourceGroup = resourceGroup;
+            this.queryType = queryType;
+            this.catalog = catalog;
+            this.hashCode = Objects.hash(user, source, resourceGroup, queryType, catalog);
+        }
+
+        private static Key of(QueryContext context) {
+            return new Key(
+                context.getUser(),
+                context.getSource().orElse(null),
+                context.getResourceGroupId().map(Object::toString).orElse(null),
+                context.getQueryType().map(Enum::name).orElse(null),
+                context.getCatalog().orElse(null));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hashCode == key.hashCode
+                && Objects.equals(user, key.user)
+                && Objects.equals(source, key.source)
+                && Objects.equals(resourceGroup, key.resourceGroup)
+                && Objects.equals(queryType, key.queryType)
+                && Objects.equals(catalog, key.catalog);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Aggregate {
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder failedQueries = new LongAdder();
+        private final DurationAccumulator wall = new DurationAccumulator();
+        private final DurationAccumulator cpu = new DurationAccumulator();
+        private final DurationAccumulator queued = new DurationAccumulator();
+
+        private void record(QueryCompletedEvent event) {
+            QueryStatistics statistics = event.getStatistics();
+            queries.increment();
+            if (event.getFailureInfo().isPresent()) {
+                failedQueries.increment();
+            }
+            wall.record(statistics.getWallTime().toMillis());
+            cpu.record(statistics.getCpuTime().toMillis());
+            queued.record(statistics.getQueuedTime().toMillis());
+        }
+
+        private WorkloadSummary toSummary(Key key, Instant windowStart, Instant windowEnd) {
+            WorkloadSummary summary = new WorkloadSummary();
+            summary.setWindowStart(windowStart);
+            summary.setWindowEnd(windowEnd);
+            summary.setUser(key.user);
+            summary.setSource(key.source);
+            summary.setResourceGroup(key.resourceGroup);
+            summary.setQueryType(key.queryType);
+            summary.setCatalog(key.catalog);
+            summary.setQueries(queries.sum());
+            summary.setFailedQueries(failedQueries.sum());
+            summary.setWallMs(wall.summary());
+            summary.setCpuMs(cpu.summary());
+            summary.setQueuedMs(queued.summary());
+            return summary;
+        }
+    }
+
+    private static final class DurationAccumulator {
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final LogHistogram histogram = new LogHistogram(HISTOGRAM_PRECISION_BITS, HISTOGRAM_MAX_VALUE_BITS);
+
+        private void record(long millis) {
+            sum.add(millis);
+            max.accumulate(millis);
+            histogram.record(millis);
+        }
+
+        private WorkloadSummary.DurationSummary summary() {
+            WorkloadSummary.DurationSummary summary = new WorkloadSummary.DurationSummary();
+            long maxMillis = max.get();
+            long[] counts = histogram.snapshot();
+            summary.setSum(sum.sum());
+            summary.setMax(maxMillis);
+            // bucket upper bounds can overshoot the largest value actually seen
+            summary.setP50(Math.min(histogram.getValueAtPercentile(counts, 50), maxMillis));
+            summary.setP95(Math.min(histogram.getValueAtPercentile(counts, 95), maxMillis));
+            summary.setP99(Math.min(histogram.getValueAtPercentile(counts, 99), maxMillis));
+            return summary;
+        }
+    }
+}
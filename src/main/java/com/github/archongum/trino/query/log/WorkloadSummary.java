@@ -0,0 +1,173 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Instant;
+
+
+/**
+ * Completed queries of one user, source, resource group, query type and catalog over a window,
+ * logged every {@code workloadSummary.intervalSeconds}.
+ */
+public class WorkloadSummary {
+
+    /**
+     * Key of the queries beyond {@code workloadSummary.maxKeys} in a window.
+     */
+    static final String OTHER = "<other>";
+
+    private Instant windowStart;
+    private Instant windowEnd;
+    private String user;
+    private String source;
+    private String resourceGroup;
+    private String queryType;
+    private String catalog;
+    private long queries;
+    private long failedQueries;
+    private DurationSummary wallMs;
+    private DurationSummary cpuMs;
+    private DurationSummary queuedMs;
+
+    public Instant getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(Instant windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public Instant getWindowEnd() {
+        return windowEnd;
+    }
+
+    public void setWindowEnd(Instant windowEnd) {
+        this.windowEnd = windowEnd;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public void setUser(String user) {
+        this.user = user;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getResourceGroup() {
+        return resourceGroup;
+    }
+
+    public void setResourceGroup(String resourceGroup) {
+        this.resourceGroup = resourceGroup;
+    }
+
+    public String getQueryType() {
+        return queryType;
+    }
+
+    public void setQueryType(String queryType) {
+        this.queryType = queryType;
+    }
+
+    public String getCatalog() {
+        return catalog;
+    }
+
+    public void setCatalog(String catalog) {
+        this.catalog = catalog;
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    public void setQueries(long queries) {
+        this.queries = queries;
+    }
+
+    public long getFailedQueries() {
+        return failedQueries;
+    }
+
+    public void setFailedQueries(long failedQueries) {
+        this.failedQueries = failedQueries;
+    }
+
+    public DurationSummary getWallMs() {
+        return wallMs;
+    }
+
+    public void setWallMs(DurationSummary wallMs) {
+        this.wallMs = wallMs;
+    }
+
+    public DurationSummary getCpuMs() {
+        return cpuMs;
+    }
+
+    public void setCpuMs(DurationSummary cpuMs) {
+        this.cpuMs = cpuMs;
+    }
+
+    public DurationSummary getQueuedMs() {
+        return queuedMs;
+    }
+
+    public void setQueuedMs(DurationSummary queuedMs) {
+        this.queuedMs = queuedMs;
+    }
+
+    public static class DurationSummary {
+        private long sum;
+        private long max;
+        private long p50;
+        private long p95;
+        private long p99;
+
+        public long getSum() {
+            return sum;
+        }
+
+        public void setSum(long sum) {
+            this.sum = sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public void setMax(long max) {
+            this.max = max;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public void setP50(long p50) {
+            this.p50 = p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+
+        public void setP95(long p95) {
+            this.p95 = p95;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public void setP99(long p99) {
+            this.p99 = p99;
+        }
+    }
+}
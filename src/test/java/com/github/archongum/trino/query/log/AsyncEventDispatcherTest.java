@@ -0,0 +1,115 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class AsyncEventDispatcherTest {
+
+    @Test
+    void ringBufferIsBoundedAndOrdered() {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void drainOnClose() throws InterruptedException {
+        List<Object> handled = Collections.synchronizedList(new ArrayList<>());
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(64, OverflowPolicy.WAIT, handled::add);
+        int producers = 4;
+        int eventsPerProducer = 10_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    dispatcher.dispatch(i);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        dispatcher.close();
+        assertEquals(producers * eventsPerProducer, handled.size());
+        assertEquals(0, dispatcher.getDroppedCount());
+        assertFalse(dispatcher.dispatch("late"));
+    }
+
+    @Test
+    void wakesParkedConsumer() throws InterruptedException {
+        BlockingQueue<Object> handled = new LinkedBlockingQueue<>();
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(64, OverflowPolicy.DROP, handled::add);
+        for (int i = 0; i < 3; i++) {
+            // let the consumer run out of spins and park with no timeout
+            Thread.sleep(50);
+            assertTrue(dispatcher.dispatch(i));
+            assertEquals(i, handled.poll(10, TimeUnit.SECONDS));
+        }
+        dispatcher.close();
+    }
+
+    @Test
+    void overflowPolicies() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> handled = Collections.synchronizedList(new ArrayList<>());
+        AsyncEventDispatcher dropping = new AsyncEventDispatcher(2, OverflowPolicy.DROP, e -> {
+            awaitQuietly(release);
+            handled.add(e);
+        });
+        // the first event blocks the consumer, the next two fill the buffer
+        dropping.dispatch(0);
+        while (dropping.getQueueDepth() > 0) {
+            Thread.onSpinWait();
+        }
+        assertTrue(dropping.dispatch(1));
+        assertTrue(dropping.dispatch(2));
+        assertFalse(dropping.dispatch(3));
+        release.countDown();
+        dropping.close();
+        assertEquals(List.of(0, 1, 2), handled);
+
+        CountDownLatch releaseOldest = new CountDownLatch(1);
+        handled.clear();
+        AsyncEventDispatcher droppingOldest = new AsyncEventDispatcher(2, OverflowPolicy.DROP_OLDEST, e -> {
+            awaitQuietly(releaseOldest);
+            handled.add(e);
+        });
+        droppingOldest.dispatch(0);
+        while (droppingOldest.getQueueDepth() > 0) {
+            Thread.onSpinWait();
+        }
+        assertTrue(droppingOldest.dispatch(1));
+        assertTrue(droppingOldest.dispatch(2));
+        assertTrue(droppingOldest.dispatch(3));
+        releaseOldest.countDown();
+        droppingOldest.close();
+        assertEquals(List.of(0, 2, 3), handled);
+        assertEquals(1, droppingOldest.getDroppedCount());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class BinaryLogDecoderTest {
+
+    private final ObjectMapper mapper = QueryLogListenerFactory.createObjectMapper();
+    private final EventSerializer json = new EventSerializer(mapper, QueryLogListenerProperties.defaultInstance());
+    private final EventSerializer binary = new EventSerializer(mapper, QueryLogListenerProperties.defaultInstance(), null, true);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void decodesToJson() throws IOException {
+        List<Object> events = events();
+        Path file = write(events, null);
+        List<String> expected = new ArrayList<>();
+        long jsonSize = 0;
+        for (Object event : events) {
+            RecordBuffer record = json.serialize(event);
+            expected.add(new String(record.array(), 0, record.size(), UTF_8));
+            jsonSize += record.size() + 1;
+        }
+        assertEquals(expected, decode(Files.newInputStream(file)));
+        long binarySize = Files.size(file);
+        assertTrue(binarySize * 3 < jsonSize, binarySize + " bytes, " + jsonSize + " as JSON");
+    }
+
+    @Test
+    void decodesGzipBlocks() throws IOException {
+        List<Object> events = events();
+        Path file = write(events, new GzipBlockEncoder(6));
+        List<String> expected = new ArrayList<>();
+        for (Object event : events) {
+            RecordBuffer record = json.serialize(event);
+            expected.add(new String(record.array(), 0, record.size(), UTF_8));
+        }
+        assertEquals(expected, decode(new GZIPInputStream(Files.newInputStream(file))));
+    }
+
+    @Test
+    void decodesEdgeValues() throws IOException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("empty", "");
+        values.put("unicode", "café 中文 😀 \"quoted\"\n");
+        values.put("long", TestingEvents.query(1000));
+        values.put("negative", -42L);
+        values.put("min", Long.MIN_VALUE);
+        values.put("double", 0.1);
+        values.put("float", 1.5f);
+        values.put("decimal", new BigDecimal("12345678901234567890.123"));
+        values.put("bytes", new byte[] {0, 1, 2, (byte) 0xff});
+        values.put("null", null);
+        values.put("flags", Arrays.asList(true, false));
+        List<String> repeated = new ArrayList<>();
+        // more strings than a one byte reference can address, and empty strings referenced after them
+        for (int i = 0; i < 300; i++) {
+            repeated.add("s" + i);
+        }
+        repeated.addAll(repeated);
+        repeated.add("");
+        values.put("repeated", repeated);
+        List<Object> events = Arrays.asList(values, values);
+        RecordBuffer record = json.serialize(values);
+        String expected = new String(record.array(), 0, record.size(), UTF_8);
+        assertEquals(Arrays.asList(expected, expected), decode(Files.newInputStream(write(events, null))));
+    }
+
+    private List<Object> events() {
+        List<Object> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String queryId = "20220601_000000_" + String.format("%05d", i) + "_abcde";
+            events.add(TestingEvents.queryCreatedEvent(TestingEvents.queryMetadata(queryId, "SELECT " + i)));
+            events.add(TestingEvents.splitCompletedEvent(queryId, "0", "0.0", TestingEvents.splitStatistics()));
+            events.add(TestingEvents.queryCompletedEvent(TestingEvents.queryMetadata(queryId, "SELECT " + i), TestingEvents.queryStatistics(),
+                TestingEvents.queryContext(), TestingEvents.queryIOMetadata("hive.default.t" + i % 10)));
+        }
+        return events;
+    }
+
+    /**
+     * Write the events in binary blocks of at most 16KB.
+     */
+    private Path write(List<Object> events, BlockEncoder gzip) throws IOException {
+        Path file = directory.resolve("trino-query-log.log");
+        FileChannelEventWriter writer = new FileChannelEventWriter(file, 16 * 1024, 1000, FsyncPolicy.NEVER, new FileRollingPolicy(0, 0, 0),
+            Clock.systemUTC(), new BinaryBlockEncoder(gzip), false, 1);
+        for (Object event : events) {
+            RecordBuffer record = binary.serialize(event);
+            writer.write(record.array(), 0, record.size());
+        }
+        writer.close();
+        return file;
+    }
+
+    private static List<String> decode(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream blocks = in) {
+            BinaryLogDecoder.decode(blocks, out);
+        }
+        String decoded = out.toString(UTF_8);
+        assertTrue(decoded.endsWith("\n"));
+        return Arrays.asList(decoded.substring(0, decoded.length() - 1).split("\n", -1));
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.archongum.trino.query.log;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class CreatedEventBufferTest {
+
+    @Test
+    void holdsUntilReleased() {
+        CreatedEventBuffer buffer = new CreatedEventBuffer(100, TailOverflowPolicy.DROP);
+        assertTrue(hold(buffer, "q1", 40).isEmpty());
+        assertTrue(hold(buffer, "q2", 40).isEmpty());
+        assertEquals(80, buffer.getHeldBytes());
+        assertEquals("q1", buffer.release("q1").getKey().getQueryId());
+        assertNull(buffer.release("q1"));
+        assertEquals(1, buffer.getHeldCount());
+        assertEquals(40, buffer.getHeldBytes());
+    }
+
+    @Test
+    void dropsIncomingWhenFull() {
+        CreatedEventBuffer buffer = new CreatedEventBuffer(100, TailOverflowPolicy.DROP);
+        hold(buffer, "q1", 60);
+        assertEquals(List.of("q2"), queryIds(hold(buffer, "q2", 60)));
+        assertEquals(List.of("q1"), queryIds(buffer.drain()));
+        assertEquals(0, buffer.getHeldBytes());
+    }
+
+    @Test
+    void evictsOldestWhenFull() {
+        for (TailOverflowPolicy policy : new TailOverflowPolicy[] {TailOverflowPolicy.DROP_OLDEST, TailOverflowPolicy.WRITE_OLDEST}) {
+            CreatedEventBuffer buffer = new CreatedEventBuffer(100, policy);
+            hold(buffer, "q1", 30);
+            hold(buffer, "q2", 30);
+            hold(buffer, "q3", 30);
+            assertEquals(List.of("q1", "q2"), queryIds(hold(buffer, "q4", 60)));
+            assertEquals(90, buffer.getHeldBytes());
+            // never held, larger than the whole buffer
+            assertEquals(List.of("q5"), queryIds(hold(buffer, "q5", 101)));
+            assertEquals(List.of("q3", "q4"), queryIds(buffer.drain()));
+            assertEquals(policy == TailOverflowPolicy.WRITE_OLDEST, buffer.isWriteOverflow());
+        }
+    }
+
+    @Test
+    void replacesHeldQuery() {
+        CreatedEventBuffer buffer = new CreatedEventBuffer(100, TailOverflowPolicy.DROP_OLDEST);
+        hold(buffer, "q1", 30);
+        hold(buffer, "q2", 60);
+        // the room of the replaced q2 is enough, nothing older is evicted for it
+        assertTrue(hold(buffer, "q2", 70).isEmpty());
+        assertEquals(2, buffer.getHeldCount());
+        assertEquals(100, buffer.getHeldBytes());
+        assertEquals(70, buffer.release("q2").getRecord().length);
+    }
+
+    @Test
+    void copiesTheRecord() {
+        CreatedEventBuffer buffer = new CreatedEventBuffer(100, TailOverflowPolicy.DROP);
+        byte[] record = "{\"q\":1}...".getBytes(StandardCharsets.UTF_8);
+        buffer.hold(new IndexKey("q1", "user", 0), record, 7);
+        record[0] = 'x';
+        assertEquals("{\"q\":1}", new String(buffer.release("q1").getRecord(), StandardCharsets.UTF_8));
+    }
+
+    private static List<CreatedEventBuffer.Entry> hold(CreatedEventBuffer buffer, String queryId, int length) {
+        return buffer.hold(new IndexKey(queryId, "user", 0), new byte[length], length);
+    }
+
+    private static List<String> queryIds(List<CreatedEventBuffer.Entry> entries) {
+        return entries.stream().map(entry -> entry.getKey().getQueryId()).collect(Collectors.toList());
+    }
+}
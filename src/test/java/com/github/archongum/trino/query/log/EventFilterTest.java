@@ -0,0 +1,78 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Optional;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.resourcegroups.QueryType;
+import org.junit.jupiter.api.Test;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCreatedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class EventFilterTest {
+
+    @Test
+    void queryTypeAndCatalogPatterns() {
+        EventFilter filter = QueryLogListenerProperties.defaultInstance()
+            .setQueryCreatedQueryTypePattern("INSERT|DELETE")
+            .setQueryCompletedCatalogPattern("^\\w+")
+            .getEventFilter();
+        assertFalse(filter.acceptCreated(queryCreatedEvent()));
+        assertTrue(filter.acceptCompleted(queryCompletedEvent()));
+        assertFalse(filter.acceptCompleted(completed("user", ofMillis(10), "$info.a.b")));
+        assertTrue(filter.acceptCompleted(completed("user", ofMillis(10), "$info.a.b", "hive.a.b")));
+    }
+
+    @Test
+    void predicates() {
+        EventFilter filter = QueryLogListenerProperties.defaultInstance()
+            .setQueryCreatedFilter("user != 'admin'")
+            .setQueryCompletedFilter("user ~ etl_.* and wallMs >= 60000 and table ~ hive\\.ads\\..* and resourceGroup = global.etl")
+            .getEventFilter();
+        assertTrue(filter.acceptCreated(queryCreatedEvent()));
+        assertTrue(filter.acceptCompleted(completed("etl_daily", ofMillis(60_000), "hive.ads.dim_date")));
+        assertFalse(filter.acceptCompleted(completed("adhoc", ofMillis(60_000), "hive.ads.dim_date")));
+        assertFalse(filter.acceptCompleted(completed("etl_daily", ofMillis(59_999), "hive.ads.dim_date")));
+        assertFalse(filter.acceptCompleted(completed("etl_daily", ofMillis(60_000), "hive.dw.dim_date")));
+    }
+
+    @Test
+    void valuesContainingAnd() {
+        EventFilter filter = QueryLogListenerProperties.defaultInstance()
+            .setQueryCompletedFilter("user ~ etl and adhoc|etl_.* AND resourceGroup = 'global.etl and x = y' and queryState = \"queryState\"")
+            .getEventFilter();
+        assertTrue(filter.acceptCompleted(completed("etl and adhoc", "global.etl and x = y")));
+        assertTrue(filter.acceptCompleted(completed("etl_daily", "global.etl and x = y")));
+        assertFalse(filter.acceptCompleted(completed("etl", "global.etl and x = y")));
+        assertFalse(filter.acceptCompleted(completed("etl_daily", "global.etl")));
+        assertThrows(IllegalArgumentException.class, () -> QueryLogListenerProperties.defaultInstance().setQueryCreatedFilter("user = 'a").getEventFilter());
+        assertThrows(IllegalArgumentException.class, () -> QueryLogListenerProperties.defaultInstance().setQueryCreatedFilter("user = 'a' b").getEventFilter());
+    }
+
+    @Test
+    void invalidPredicates() {
+        assertThrows(IllegalArgumentException.class, () -> QueryLogListenerProperties.defaultInstance().setQueryCreatedFilter("wallMs > 1").getEventFilter());
+        assertThrows(IllegalArgumentException.class, () -> QueryLogListenerProperties.defaultInstance().setQueryCompletedFilter("catalog = hive").getEventFilter());
+        assertThrows(IllegalArgumentException.class, () -> QueryLogListenerProperties.defaultInstance().setQueryCompletedFilter("user > 1").getEventFilter());
+        assertThrows(IllegalArgumentException.class, () -> QueryLogListenerProperties.defaultInstance().setQueryCompletedFilter("cpuMs > one").getEventFilter());
+    }
+
+    private static QueryCompletedEvent completed(String user, java.time.Duration wallTime, String... tables) {
+        return queryCompletedEvent(
+            queryMetadata(),
+            queryStatistics(ofMillis(1000), wallTime),
+            queryContext(user, Optional.of("global.etl"), QueryType.SELECT),
+            queryIOMetadata(tables));
+    }
+
+    private static QueryCompletedEvent completed(String user, String resourceGroup) {
+        return queryCompletedEvent(queryMetadata(), queryStatistics(), queryContext(user, Optional.of(resourceGroup), QueryType.SELECT), queryIOMetadata());
+    }
+}
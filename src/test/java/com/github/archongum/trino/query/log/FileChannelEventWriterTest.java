@@ -0,0 +1,236 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class FileChannelEventWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void concurrentWritesStayWholeLines() throws Exception {
+        concurrentWrites(1);
+    }
+
+    @Test
+    void stripedConcurrentWritesStayWholeLines() throws Exception {
+        concurrentWrites(3);
+    }
+
+    private void concurrentWrites(int stripes) throws Exception {
+        Path file = directory.resolve("trino-query-log.log");
+        FileChannelEventWriter writer = new FileChannelEventWriter(file, 4096, 5, FsyncPolicy.NEVER, new FileRollingPolicy(0, 0, 0), Clock.systemUTC(),
+            null, false, stripes);
+        int threads = 8;
+        int records = 2000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < records; i++) {
+                        // every 100th record is larger than a buffer
+                        char[] padding = new char[i % 100 == 0 ? 5000 : i % 50];
+                        Arrays.fill(padding, 'x');
+                        byte[] record = (thread + ":" + i + ":" + new String(padding)).getBytes(UTF_8);
+                        writer.write(record, 0, record.length);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        writer.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(threads * records, lines.size());
+        int[] next = new int[threads];
+        for (String line : lines) {
+            String[] parts = line.split(":");
+            int thread = Integer.parseInt(parts[0]);
+            int i = Integer.parseInt(parts[1]);
+            // a thread's records keep their order
+            assertEquals(next[thread]++, i);
+            assertEquals(i % 100 == 0 ? 5000 : i % 50, parts.length > 2 ? parts[2].length() : 0);
+        }
+    }
+
+    @Test
+    void groupCommitOnInterval() throws Exception {
+        Path file = directory.resolve("trino-query-log.log");
+        FileChannelEventWriter writer = new FileChannelEventWriter(file, 1 << 20, 20, FsyncPolicy.COMMIT, new FileRollingPolicy(0, 0, 0), Clock.systemUTC());
+        byte[] record = "{}".getBytes(UTF_8);
+        writer.write(record, 0, record.length);
+        writer.flush();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (Files.size(file) == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("{}\n", new String(Files.readAllBytes(file), UTF_8));
+        writer.close();
+    }
+
+    @Test
+    void sharedFlusherOutlivesWriter() throws Exception {
+        ScheduledExecutorService flusher = FileChannelEventWriter.newFlusher();
+        Path closed = directory.resolve("a").resolve("trino-query-log.log");
+        Path open = directory.resolve("b").resolve("trino-query-log.log");
+        FileRollingPolicy rollingPolicy = new FileRollingPolicy(0, 0, 0);
+        new FileChannelEventWriter(closed, 4096, 20, FsyncPolicy.NEVER, rollingPolicy, Clock.systemUTC(), null, false, 1, flusher).close();
+        FileChannelEventWriter writer = new FileChannelEventWriter(open, 4096, 20, FsyncPolicy.NEVER, rollingPolicy, Clock.systemUTC(), null, false, 1, flusher);
+        byte[] record = "{}".getBytes(UTF_8);
+        writer.write(record, 0, record.length);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (Files.size(open) == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("{}\n", new String(Files.readAllBytes(open), UTF_8));
+        writer.close();
+        flusher.shutdown();
+    }
+
+    @Test
+    void keepsFailedCommitUntilWritten() throws Exception {
+        Path file = directory.resolve("trino-query-log.log");
+        FailingFileChannel[] channel = new FailingFileChannel[1];
+        FileChannelEventWriter writer = new FileChannelEventWriter(file, 4096, 20, FsyncPolicy.NEVER, new FileRollingPolicy(0, 0, 0), Clock.systemUTC(),
+            null, false, 1, null, path -> channel[0] = new FailingFileChannel(path));
+        channel[0].failing = true;
+        write(writer, "a");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (channel[0].failures.get() == 0) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+        // the failure of the flusher is not missed
+        assertThrows(IOException.class, () -> write(writer, "b"));
+        assertThrows(IOException.class, writer::flush);
+        channel[0].failing = false;
+        write(writer, "c");
+        writer.commit();
+        // nothing lost of the failed commit, nor left of its partial writes
+        assertEquals("a\nc\n", new String(Files.readAllBytes(file), UTF_8));
+        writer.close();
+    }
+
+    @Test
+    void rollsBySizeAndDayInLogbackLayout() throws Exception {
+        Path file = directory.resolve("trino-query-log.log");
+        MutableClock clock = new MutableClock(Instant.parse("2022-06-01T10:00:00Z"));
+        FileChannelEventWriter writer = new FileChannelEventWriter(file, 1024, 0, FsyncPolicy.ROLL, new FileRollingPolicy(100, 2, 0), clock);
+        byte[] record = new byte[59];
+        Arrays.fill(record, (byte) 'a');
+        for (int i = 0; i < 3; i++) {
+            writer.write(record, 0, record.length);
+            writer.flush();
+        }
+        Path day1 = directory.resolve("2022-06-01");
+        assertTrue(Files.exists(day1.resolve("trino-query-log.2022-06-01.0.log")));
+        assertTrue(Files.exists(day1.resolve("trino-query-log.2022-06-01.1.log")));
+        assertEquals(60, Files.size(file));
+
+        clock.instant = Instant.parse("2022-06-02T00:00:01Z");
+        writer.write(record, 0, record.length);
+        writer.flush();
+        assertTrue(Files.exists(day1.resolve("trino-query-log.2022-06-01.2.log")));
+        assertEquals(60, Files.size(file));
+
+        // maxHistory of 2 days keeps 2022-06-02 and 2022-06-03
+        clock.instant = Instant.parse("2022-06-04T00:00:01Z");
+        writer.write(record, 0, record.length);
+        writer.flush();
+        assertFalse(Files.exists(day1));
+        assertTrue(Files.exists(directory.resolve("2022-06-02").resolve("trino-query-log.2022-06-02.0.log")));
+        writer.close();
+    }
+
+    @Test
+    void totalSizeCapDeletesOldestFirst() throws Exception {
+        Path file = directory.resolve("trino-query-log.log");
+        FileChannelEventWriter writer = new FileChannelEventWriter(file, 1024, 0, FsyncPolicy.NEVER, new FileRollingPolicy(100, 0, 150),
+            new MutableClock(Instant.parse("2022-06-01T10:00:00Z")));
+        byte[] record = new byte[59];
+        for (int i = 0; i < 5; i++) {
+            writer.write(record, 0, record.length);
+            writer.flush();
+        }
+        writer.close();
+        Path day = directory.resolve("2022-06-01");
+        assertFalse(Files.exists(day.resolve("trino-query-log.2022-06-01.0.log")));
+        assertFalse(Files.exists(day.resolve("trino-query-log.2022-06-01.1.log")));
+        assertTrue(Files.exists(day.resolve("trino-query-log.2022-06-01.2.log")));
+        assertTrue(Files.exists(day.resolve("trino-query-log.2022-06-01.3.log")));
+    }
+
+    @Test
+    void gzipBlocksDecodeIndependently() throws Exception {
+        Path file = directory.resolve("trino-query-log.log");
+        FileChannelEventWriter writer = new FileChannelEventWriter(file, 4096, 0, FsyncPolicy.NEVER,
+            new FileRollingPolicy(2000, 0, 0, OutputCompression.GZIP), new MutableClock(Instant.parse("2022-06-01T10:00:00Z")), new GzipBlockEncoder(6));
+        Path active = directory.resolve("trino-query-log.log.gz");
+        List<String> expected = new ArrayList<>();
+        List<String> blocks = new ArrayList<>();
+        long offset = 0;
+        for (int i = 0; i < 200; i++) {
+            String record = "{\"queryId\":\"" + i + "\",\"query\":\"select * from dim_date where id = " + i + "\"}";
+            expected.add(record);
+            byte[] bytes = record.getBytes(UTF_8);
+            writer.write(bytes, 0, bytes.length);
+            if (i % 10 == 9) {
+                writer.flush();
+                byte[] content = Files.readAllBytes(active);
+                offset = content.length < offset ? 0 : offset;
+                // the bytes a commit appended are a gzip member of whole records
+                String block = gunzip(Arrays.copyOfRange(content, (int) offset, content.length));
+                assertTrue(block.endsWith("\n"));
+                blocks.add(block);
+                offset = content.length;
+            }
+        }
+        writer.close();
+        assertEquals(String.join("\n", expected) + "\n", String.join("", blocks));
+
+        // rolled like logback's gzip rollover, and the whole file is one gzip stream
+        Path rolled = directory.resolve("2022-06-01").resolve("trino-query-log.2022-06-01.0.gz");
+        assertTrue(Files.exists(rolled));
+        assertTrue(gunzip(Files.readAllBytes(rolled)).startsWith(expected.get(0) + "\n" + expected.get(1) + "\n"));
+    }
+
+    private static void write(FileChannelEventWriter writer, String record) throws IOException {
+        byte[] bytes = record.getBytes(UTF_8);
+        writer.write(bytes, 0, bytes.length);
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toString(UTF_8);
+        }
+    }
+}
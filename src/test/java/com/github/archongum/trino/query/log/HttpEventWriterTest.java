@@ -0,0 +1,89 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class HttpEventWriterTest {
+
+    private HttpServer server;
+    private final List<String> bodies = new ArrayList<>();
+    private final List<String> encodings = new ArrayList<>();
+    private volatile int status = 200;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/logs", exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            try (InputStream body = "gzip".equals(encoding) ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+                synchronized (bodies) {
+                    bodies.add(new String(body.readAllBytes(), UTF_8));
+                    encodings.add(String.valueOf(encoding));
+                }
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void postsGzipBatches() throws IOException {
+        HttpEventWriter writer = new HttpEventWriter(uri(), Duration.ofSeconds(10), OutputCompression.GZIP);
+        write(writer, "{\"a\":1}");
+        write(writer, "{\"a\":2}");
+        writer.flush();
+        // nothing to send
+        writer.flush();
+        write(writer, "{\"a\":3}");
+        writer.close();
+        assertEquals(List.of("{\"a\":1}\n{\"a\":2}\n", "{\"a\":3}\n"), bodies);
+        assertEquals(List.of("gzip", "gzip"), encodings);
+    }
+
+    @Test
+    void failsOnErrorStatus() throws IOException {
+        HttpEventWriter writer = new HttpEventWriter(uri(), Duration.ofSeconds(10), OutputCompression.NONE);
+        status = 503;
+        write(writer, "{\"a\":1}");
+        IOException e = assertThrows(IOException.class, writer::flush);
+        assertTrue(e.getMessage().contains("503"), e.getMessage());
+        status = 200;
+        // the failed batch was discarded
+        write(writer, "{\"a\":2}");
+        writer.flush();
+        assertEquals(List.of("{\"a\":1}\n", "{\"a\":2}\n"), bodies);
+        assertEquals(List.of("null", "null"), encodings);
+        writer.close();
+    }
+
+    private URI uri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/logs");
+    }
+
+    private static void write(HttpEventWriter writer, String record) {
+        byte[] bytes = record.getBytes(UTF_8);
+        writer.write(bytes, 0, bytes.length);
+    }
+}
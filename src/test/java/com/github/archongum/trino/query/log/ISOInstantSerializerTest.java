@@ -0,0 +1,45 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class ISOInstantSerializerTest {
+
+    private static final DateTimeFormatter MILLIS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+
+    @Test
+    void cachedMinuteMatchesDateTimeFormatter() throws IOException {
+        ObjectMapper seconds = QueryLogListenerFactory.createObjectMapper(TimestampFormat.SECONDS);
+        ObjectMapper millis = QueryLogListenerFactory.createObjectMapper(TimestampFormat.MILLIS);
+        Random random = new Random(42);
+        Instant instant = Instant.parse("2022-12-31T23:58:00.000Z");
+        for (int i = 0; i < 10_000; i++) {
+            // mostly within the cached minute, sometimes across minutes, days and years
+            instant = instant.plusMillis(random.nextInt(i % 100 == 0 ? 100_000_000 : 1_000));
+            String expected = MILLIS.format(instant);
+            assertEquals('"' + expected.substring(0, 19) + '"', seconds.writeValueAsString(instant));
+            assertEquals('"' + expected + '"', millis.writeValueAsString(instant));
+        }
+        assertEquals("\"1969-12-31 23:59:59.999\"", millis.writeValueAsString(Instant.ofEpochMilli(-1)));
+        assertEquals("\"+10000-01-01 00:00:00\"", seconds.writeValueAsString(Instant.parse("+10000-01-01T00:00:00Z")));
+    }
+
+    @Test
+    void everyFormatRoundTrips() throws IOException {
+        Instant instant = Instant.parse("2022-06-01T08:30:15.123Z");
+        ObjectMapper epochMillis = QueryLogListenerFactory.createObjectMapper(TimestampFormat.EPOCH_MILLIS);
+        assertEquals("1654072215123", epochMillis.writeValueAsString(instant));
+        for (TimestampFormat format : TimestampFormat.values()) {
+            ObjectMapper mapper = QueryLogListenerFactory.createObjectMapper(format);
+            Instant expected = format == TimestampFormat.SECONDS ? instant.minusMillis(123) : instant;
+            assertEquals(expected, mapper.readValue(mapper.writeValueAsString(instant), Instant.class));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import io.trino.spi.resourcegroups.QueryType;
+import org.junit.jupiter.api.Test;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class InFlightQueryTrackerTest {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final Instant NOW = Instant.parse("2022-06-01T10:00:00Z");
+
+    @Test
+    void countsRunningQueriesPerResourceGroup() {
+        InFlightQueryTracker tracker = new InFlightQueryTracker(100, HOUR_MILLIS, HOUR_MILLIS, 24 * HOUR_MILLIS, snapshot -> {}, new MutableClock(NOW));
+        for (int i = 0; i < 10; i++) {
+            tracker.created(created(queryId(i), i % 2 == 0 ? "global.etl" : null, NOW));
+        }
+        // created twice
+        tracker.created(created(queryId(0), "global.etl", NOW));
+        tracker.completed(queryId(0));
+        tracker.completed(queryId(1));
+        tracker.completed(queryId(2));
+        tracker.completed("unknown");
+
+        InFlightSnapshot snapshot = tracker.snapshot();
+        tracker.close();
+        assertEquals(7, snapshot.getRunning());
+        assertEquals(Map.of("global.etl", 3L, InFlightSnapshot.NO_RESOURCE_GROUP, 4L), snapshot.getResourceGroups());
+        assertEquals(NOW, snapshot.getTime());
+        assertTrue(snapshot.getLongRunning().isEmpty());
+        assertTrue(snapshot.getExpired().isEmpty());
+    }
+
+    @Test
+    void flagsLongRunningOnceAndExpiresLostCompletions() {
+        MutableClock clock = new MutableClock(NOW);
+        InFlightQueryTracker tracker = new InFlightQueryTracker(100, HOUR_MILLIS, HOUR_MILLIS, 24 * HOUR_MILLIS, snapshot -> {}, clock);
+        tracker.created(created(queryId(1), "global.adhoc", NOW));
+        tracker.created(created(queryId(2), "global.adhoc", NOW.plusSeconds(3000)));
+
+        clock.instant = NOW.plusSeconds(3600);
+        InFlightSnapshot snapshot = tracker.snapshot();
+        assertEquals(1, snapshot.getLongRunning().size());
+        InFlightSnapshot.Query query = snapshot.getLongRunning().get(0);
+        assertEquals(queryId(1), query.getQueryId());
+        assertEquals("global.adhoc", query.getResourceGroup());
+        assertEquals(NOW, query.getCreateTime());
+        assertEquals(HOUR_MILLIS, query.getRunningMs());
+        assertTrue(tracker.snapshot().getLongRunning().isEmpty());
+
+        clock.instant = NOW.plusSeconds(24 * 3600);
+        snapshot = tracker.snapshot();
+        assertEquals(1, snapshot.getExpired().size());
+        assertEquals(queryId(1), snapshot.getExpired().get(0).getQueryId());
+        assertEquals(1, snapshot.getRunning());
+        assertEquals(1, tracker.getRunning());
+        tracker.close();
+    }
+
+    @Test
+    void boundedThroughChurn() {
+        int maxQueries = 1000;
+        InFlightQueryTracker tracker = new InFlightQueryTracker(maxQueries, HOUR_MILLIS, HOUR_MILLIS, 24 * HOUR_MILLIS, snapshot -> {}, new MutableClock(NOW));
+        Set<String> running = new HashSet<>();
+        long untracked = 0;
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String queryId = queryId(random.nextInt(3000));
+            if (random.nextBoolean()) {
+                if (!running.contains(queryId)) {
+                    if (running.size() < maxQueries) {
+                        running.add(queryId);
+                    } else {
+                        untracked++;
+                    }
+                }
+                tracker.created(created(queryId, null, NOW));
+            } else {
+                running.remove(queryId);
+                tracker.completed(queryId);
+            }
+        }
+        assertEquals(running.size(), tracker.getRunning());
+        InFlightSnapshot snapshot = tracker.snapshot();
+        assertEquals(running.size(), snapshot.getRunning());
+        assertEquals(untracked, snapshot.getUntracked());
+        for (String queryId : running) {
+            tracker.completed(queryId);
+        }
+        assertEquals(0, tracker.getRunning());
+        tracker.close();
+    }
+
+    @Test
+    void rejectsSlotsLargerThanBuffer() {
+        // 2^25 slots of 64 bytes would overflow the size of the buffer
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new InFlightQueryTracker(
+            InFlightQueryTracker.MAX_QUERIES + 1, HOUR_MILLIS, HOUR_MILLIS, HOUR_MILLIS, snapshot -> {}, new MutableClock(NOW)));
+        assertTrue(e.getMessage().contains("max queries"));
+    }
+
+    private static String queryId(int i) {
+        return String.format("20220601_100000_%05d_abcde", i);
+    }
+
+    private static QueryCreatedEvent created(String queryId, String resourceGroup, Instant createTime) {
+        return new QueryCreatedEvent(createTime, queryContext("user", Optional.ofNullable(resourceGroup), QueryType.SELECT),
+            queryMetadata(queryId, "SELECT 1"));
+    }
+}
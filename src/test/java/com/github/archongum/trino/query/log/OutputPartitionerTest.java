@@ -0,0 +1,65 @@
+package com.github.archongum.trino.query.log;
+
+import java.util.Optional;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.resourcegroups.QueryType;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class OutputPartitionerTest {
+
+    @Test
+    void partitionsByKey() {
+        assertEquals("hive", new OutputPartitioner(PartitionKey.CATALOG, "").partition(TestingEvents.queryCompletedEvent()));
+        assertEquals("user", new OutputPartitioner(PartitionKey.USER, "").partition(TestingEvents.queryCreatedEvent()));
+        assertEquals("global.etl", new OutputPartitioner(PartitionKey.RESOURCE_GROUP, "").partition(completed("etl_1", "global.etl")));
+        // sampled and held events go with their query
+        assertEquals("etl_1", new OutputPartitioner(PartitionKey.USER, "").partition(new SampledQueryCompletedEvent(completed("etl_1", "global"), 2)));
+        assertEquals("user", new OutputPartitioner(PartitionKey.USER, "").partition(new CreatedEventBuffer.Hold(TestingEvents.queryCreatedEvent())));
+    }
+
+    @Test
+    void defaultsWithoutKey() {
+        OutputPartitioner partitioner = new OutputPartitioner(PartitionKey.RESOURCE_GROUP, "");
+        assertEquals(OutputPartitioner.DEFAULT_PARTITION, partitioner.partition(TestingEvents.queryCompletedEvent()));
+        assertEquals(OutputPartitioner.DEFAULT_PARTITION, partitioner.partition(TestingEvents.splitCompletedEvent()));
+    }
+
+    @Test
+    void routesByRules() {
+        OutputPartitioner partitioner = new OutputPartitioner(PartitionKey.USER, "etl:etl_.*, adhoc : alice|bob");
+        assertEquals("etl", partitioner.partition(completed("etl_1", "global")));
+        assertEquals("etl", partitioner.partition(completed("etl_2", "global")));
+        assertEquals("adhoc", partitioner.partition(completed("bob", "global")));
+        assertEquals("carol", partitioner.partition(completed("carol", "global")));
+    }
+
+    @Test
+    void sanitizesPartitions() {
+        OutputPartitioner partitioner = new OutputPartitioner(PartitionKey.USER, "");
+        assertEquals("%2E.%2Fetc%2Fpasswd", partitioner.partition(completed("../etc/passwd", "global")));
+        assertEquals("alice%40example.com", partitioner.partition(completed("alice@example.com", "global")));
+        assertEquals("%E6%9D%8E", partitioner.partition(completed("\u674e", "global")));
+        assertThrows(IllegalArgumentException.class, () -> new OutputPartitioner(PartitionKey.USER, "etl_.*"));
+        assertThrows(IllegalArgumentException.class, () -> new OutputPartitioner(PartitionKey.USER, "../etl:etl_.*"));
+    }
+
+    @Test
+    void neverCollides() {
+        OutputPartitioner partitioner = new OutputPartitioner(PartitionKey.USER, "");
+        assertNotEquals(partitioner.partition(completed("a b", "global")), partitioner.partition(completed("a_b", "global")));
+        assertNotEquals(partitioner.partition(completed("alice@x.com", "global")), partitioner.partition(completed("alice_x.com", "global")));
+        assertNotEquals(partitioner.partition(completed("a%20b", "global")), partitioner.partition(completed("a b", "global")));
+        // a user named after the default partition is not mixed up with the events of no user
+        assertEquals("default", partitioner.partition(completed("default", "global")));
+        assertNotEquals(OutputPartitioner.DEFAULT_PARTITION, partitioner.partition(completed("@default", "global")));
+    }
+
+    private static QueryCompletedEvent completed(String user, String resourceGroup) {
+        return TestingEvents.queryCompletedEvent(TestingEvents.queryMetadata(), TestingEvents.queryStatistics(),
+            TestingEvents.queryContext(user, Optional.of(resourceGroup), QueryType.SELECT), TestingEvents.queryIOMetadata());
+    }
+}
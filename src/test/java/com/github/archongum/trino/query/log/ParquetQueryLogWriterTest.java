@@ -0,0 +1,274 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class ParquetQueryLogWriterTest {
+
+    private static final Instant TEN = Instant.parse("2022-06-01T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesReadableFile() throws IOException {
+        assertReadable(OutputCompression.NONE);
+    }
+
+    @Test
+    void writesReadableGzipFile() throws IOException {
+        assertReadable(OutputCompression.GZIP);
+    }
+
+    private void assertReadable(OutputCompression compression) throws IOException {
+        MutableClock clock = new MutableClock(TEN.plusSeconds(60));
+        try (ParquetQueryLogWriter writer = new ParquetQueryLogWriter(directory, 1 << 20, 1 << 30, compression, clock, 0)) {
+            for (int i = 0; i < 3; i++) {
+                writer.write(row("20220601_100000_0000" + i + "_abcde", TEN.plusSeconds(i)));
+            }
+        }
+        List<Path> files = files();
+        assertEquals(1, files.size());
+        assertEquals("query_log.20220601100100.0.parquet", files.get(0).getFileName().toString());
+        assertEquals(directory.resolve("dt=2022-06-01").resolve("hour=10"), files.get(0).getParent());
+
+        byte[] bytes = Files.readAllBytes(files.get(0));
+        Map<Integer, Object> footer = footer(bytes);
+        assertEquals(3L, footer.get(3));
+        List<String> names = list(footer.get(2)).stream()
+            .map(element -> new String((byte[]) struct(element).get(4), UTF_8))
+            .collect(Collectors.toList());
+        assertEquals("schema", names.get(0));
+        assertEquals(ParquetQueryLogWriter.columns().size() + 1, names.size());
+        assertEquals(Arrays.asList("query_id", "transaction_id", "query"), names.subList(1, 4));
+
+        List<Object> rowGroups = list(footer.get(4));
+        assertEquals(1, rowGroups.size());
+        Map<Integer, Object> rowGroup = struct(rowGroups.get(0));
+        assertEquals(3L, rowGroup.get(3));
+        // the first column chunk is query_id
+        Map<Integer, Object> chunk = struct(struct(list(rowGroup.get(1)).get(0)).get(3));
+        assertEquals(compression == OutputCompression.GZIP ? 2L : 0L, chunk.get(4));
+        Map<Integer, Object> statistics = struct(chunk.get(12));
+        assertEquals(0L, statistics.get(3));
+        assertArrayEquals("20220601_100000_00000_abcde".getBytes(UTF_8), (byte[]) statistics.get(6));
+        assertArrayEquals("20220601_100000_00002_abcde".getBytes(UTF_8), (byte[]) statistics.get(5));
+
+        ThriftReader page = new ThriftReader(bytes, ((Long) chunk.get(9)).intValue());
+        Map<Integer, Object> header = page.readStruct();
+        assertEquals(3L, struct(header.get(5)).get(1));
+        byte[] data = Arrays.copyOfRange(bytes, page.position, page.position + ((Long) header.get(3)).intValue());
+        if (compression == OutputCompression.GZIP) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+                data = in.readAllBytes();
+            }
+        }
+        assertEquals(((Long) header.get(2)).intValue(), data.length);
+        ByteBuffer values = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        // definition levels: one bit-packed run of all 1
+        values.position(values.getInt() + Integer.BYTES - 1);
+        assertEquals(0b111, values.get());
+        for (int i = 0; i < 3; i++) {
+            byte[] value = new byte[values.getInt()];
+            values.get(value);
+            assertEquals("20220601_100000_0000" + i + "_abcde", new String(value, UTF_8));
+        }
+        assertEquals(data.length, values.position());
+    }
+
+    @Test
+    void flushesRowGroupsAndCompletesFilesBySize() throws IOException {
+        MutableClock clock = new MutableClock(TEN);
+        // a row group per row
+        try (ParquetQueryLogWriter writer = new ParquetQueryLogWriter(directory.resolve("groups"), 1, 1 << 30, OutputCompression.NONE, clock, 0)) {
+            for (int i = 0; i < 5; i++) {
+                writer.write(row("q" + i, TEN));
+            }
+        }
+        Map<Integer, Object> footer = footer(Files.readAllBytes(files(directory.resolve("groups")).get(0)));
+        assertEquals(5, list(footer.get(4)).size());
+
+        // a file per row
+        try (ParquetQueryLogWriter writer = new ParquetQueryLogWriter(directory.resolve("files"), 1, 1, OutputCompression.NONE, clock, 0)) {
+            for (int i = 0; i < 3; i++) {
+                writer.write(row("q" + i, TEN));
+                assertEquals(i + 1, files(directory.resolve("files")).size());
+            }
+        }
+        List<String> names = files(directory.resolve("files")).stream().map(file -> file.getFileName().toString()).collect(Collectors.toList());
+        assertEquals(Arrays.asList("query_log.20220601100000.0.parquet", "query_log.20220601100000.1.parquet", "query_log.20220601100000.2.parquet"), names);
+    }
+
+    @Test
+    void completesFilesByHour() throws IOException {
+        MutableClock clock = new MutableClock(TEN.plusSeconds(1800));
+        try (ParquetQueryLogWriter writer = new ParquetQueryLogWriter(directory, 1 << 20, 1 << 30, OutputCompression.NONE, clock, 0)) {
+            writer.write(row("q1", TEN.plusSeconds(1200)));
+            // written as a hidden file until complete
+            assertEquals(0, files().size());
+            assertEquals(1, temporaryFiles().size());
+
+            writer.write(row("q2", TEN.plusSeconds(3900)));
+            assertEquals(Arrays.asList(directory.resolve("dt=2022-06-01").resolve("hour=10")), parents(files()));
+
+            clock.instant = TEN.plusSeconds(7199);
+            writer.completeExpired();
+            assertEquals(1, files().size());
+
+            clock.instant = TEN.plusSeconds(7200);
+            writer.completeExpired();
+            assertEquals(Arrays.asList(directory.resolve("dt=2022-06-01").resolve("hour=10"), directory.resolve("dt=2022-06-01").resolve("hour=11")),
+                parents(files()));
+            assertEquals(0, temporaryFiles().size());
+
+            // a late row opens another file of its hour
+            writer.write(row("q3", TEN.plusSeconds(600)));
+        }
+        assertEquals(3, files().size());
+        assertEquals(0, temporaryFiles().size());
+    }
+
+    private static CustomQueryCompletedEvent row(String queryId, Instant endTime) {
+        CustomQueryCompletedEvent row = CustomQueryCompletedEvent.of(queryCompletedEvent(queryMetadata(queryId, "SELECT 1"), queryStatistics(), queryContext(),
+            queryIOMetadata("hive.ads.fact_order")));
+        row.setEndTime(endTime);
+        return row;
+    }
+
+    private List<Path> files() throws IOException {
+        return files(directory);
+    }
+
+    private static List<Path> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".parquet")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private List<Path> temporaryFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".tmp")).collect(Collectors.toList());
+        }
+    }
+
+    private static List<Path> parents(List<Path> files) {
+        return files.stream().map(Path::getParent).collect(Collectors.toList());
+    }
+
+    private static Map<Integer, Object> footer(byte[] bytes) {
+        assertArrayEquals("PAR1".getBytes(UTF_8), Arrays.copyOfRange(bytes, 0, 4));
+        assertArrayEquals("PAR1".getBytes(UTF_8), Arrays.copyOfRange(bytes, bytes.length - 4, bytes.length));
+        int length = ByteBuffer.wrap(bytes, bytes.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        ThriftReader reader = new ThriftReader(bytes, bytes.length - 8 - length);
+        Map<Integer, Object> footer = reader.readStruct();
+        assertEquals(bytes.length - 8, reader.position);
+        return footer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, Object> struct(Object value) {
+        return (Map<Integer, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Object value) {
+        return (List<Object>) value;
+    }
+
+    /**
+     * Reads Thrift compact structs as maps by field id of {@link Long}, {@link Boolean}, {@code byte[]}, lists and maps.
+     */
+    private static final class ThriftReader {
+
+        private final byte[] bytes;
+        private int position;
+
+        ThriftReader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        Map<Integer, Object> readStruct() {
+            Map<Integer, Object> struct = new HashMap<>();
+            int id = 0;
+            while (true) {
+                int header = bytes[position++] & 0xff;
+                if (header == 0) {
+                    return struct;
+                }
+                int delta = header >>> 4;
+                id = delta != 0 ? id + delta : (int) zigzag(readVarint());
+                struct.put(id, read(header & 0x0f));
+            }
+        }
+
+        private Object read(int type) {
+            switch (type) {
+                case 1:
+                    return true;
+                case 2:
+                    return false;
+                case 5:
+                case 6:
+                    return zigzag(readVarint());
+                case 8:
+                    int length = (int) readVarint();
+                    byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+                    position += length;
+                    return value;
+                case 9:
+                    int header = bytes[position++] & 0xff;
+                    int size = header >>> 4 == 15 ? (int) readVarint() : header >>> 4;
+                    List<Object> list = new ArrayList<>();
+                    for (int i = 0; i < size; i++) {
+                        list.add(read(header & 0x0f));
+                    }
+                    return list;
+                case 12:
+                    return readStruct();
+                default:
+                    throw new IllegalStateException("Unexpected type " + type);
+            }
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = bytes[position++] & 0xff;
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        private static long zigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class PartitionedEventWriterTest {
+
+    private final List<String> log = new ArrayList<>();
+
+    @Test
+    void closesLeastRecentlyWritten() throws IOException {
+        PartitionedEventWriter writer = new PartitionedEventWriter(TestingWriter::new, 2);
+        write(writer, "a", "1");
+        write(writer, "b", "2");
+        write(writer, "a", "3");
+        // b is the least recently written
+        write(writer, "c", "4");
+        write(writer, "a", "5");
+        write(writer, "b", "6");
+        assertEquals(2, writer.getOpenCount());
+        assertEquals(4, writer.getOpenedCount());
+        assertEquals(2, writer.getEvictedCount());
+        writer.flush();
+        writer.close();
+        assertEquals(0, writer.getOpenCount());
+        assertEquals(List.of(
+            "open a", "open b", "close b 2", "open c", "close c 4", "open b", "flush a 1,3,5", "flush b 6", "close a 1,3,5", "close b 6"), log);
+    }
+
+    @Test
+    void writesToDefaultPartition() throws IOException {
+        PartitionedEventWriter writer = new PartitionedEventWriter(TestingWriter::new, 2);
+        byte[] record = "1".getBytes(UTF_8);
+        writer.write(record, 0, record.length);
+        writer.close();
+        assertEquals(List.of("open @default", "close @default 1"), log);
+    }
+
+    @Test
+    void failsToOpen() throws IOException {
+        PartitionedEventWriter writer = new PartitionedEventWriter(partition -> {
+            throw new IOException("No room for " + partition);
+        }, 2);
+        assertThrows(IOException.class, () -> write(writer, "a", "1"));
+        assertEquals(0, writer.getOpenCount());
+        writer.close();
+    }
+
+    private static void write(PartitionedEventWriter writer, String partition, String record) throws IOException {
+        byte[] bytes = record.getBytes(UTF_8);
+        writer.write(partition, bytes, 0, bytes.length, null);
+    }
+
+    private final class TestingWriter implements EventWriter {
+
+        private final String partition;
+        private final List<String> records = new ArrayList<>();
+
+        TestingWriter(String partition) {
+            this.partition = partition;
+            log.add("open " + partition);
+        }
+
+        @Override
+        public void write(byte[] record, int offset, int length) {
+            records.add(new String(record, offset, length, UTF_8));
+        }
+
+        @Override
+        public void flush() {
+            log.add("flush " + partition + " " + String.join(",", records));
+        }
+
+        @Override
+        public void close() {
+            log.add("close " + partition + " " + String.join(",", records));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryIOMetadata;
+import io.trino.spi.eventlistener.QueryInputMetadata;
+import io.trino.spi.eventlistener.QueryMetadata;
+import io.trino.spi.resourcegroups.QueryType;
+import org.junit.jupiter.api.Test;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class QueryCompletedEventSerializerTest {
+
+    @Test
+    void sameBytesAsCustomQueryCompletedEvent() throws IOException {
+        assertSameBytes(queryCompletedEvent(), QueryLogListenerProperties.defaultInstance());
+        assertSameBytes(queryCompletedEvent(queryMetadata("q1", TestingEvents.query(5000)), queryStatistics(Duration.ofMinutes(90), Duration.ofMillis(1999)),
+            queryContext("etl_user", Optional.of("global.etl"), QueryType.INSERT), queryIOMetadata("hive.ads.a", "iceberg.dw.b", "mysql.app.c")),
+            QueryLogListenerProperties.defaultInstance().setQueryCompletedQueryMaxLength(100));
+        assertSameBytes(queryCompletedEvent(queryMetadata("q2", "select '查询 \"quoted\" \\\\ \n 😀'"), queryStatistics(), queryContext(), queryIOMetadata()),
+            QueryLogListenerProperties.defaultInstance().setQueryCompletedQueryMaxLength(20).setQueryMaxLengthUnit(QueryLengthUnit.BYTES));
+    }
+
+    @Test
+    void sameBytesForOptionalFields() throws IOException {
+        QueryMetadata metadata = new QueryMetadata(
+            "q3",
+            Optional.of("transactionId"),
+            "select 1",
+            Optional.empty(),
+            Optional.empty(),
+            "FAILED",
+            Collections.emptyList(),
+            Collections.emptyList(),
+            URI.create("http://localhost:8080/v1/query/q3"),
+            Optional.empty(),
+            Optional.empty()
+        );
+        Map<String, Object> connectorInfo = new LinkedHashMap<>();
+        connectorInfo.put("partitions", Arrays.asList("dt=2022-06-01", "dt=2022-06-02"));
+        connectorInfo.put("bytes", 12345L);
+        QueryIOMetadata ioMetadata = new QueryIOMetadata(Arrays.asList(
+            new QueryInputMetadata("hive", "ads", "a", Collections.emptyList(), Optional.of(connectorInfo), OptionalLong.of(5L << 30), OptionalLong.of(42)),
+            new QueryInputMetadata("hive", "ads", "b", Collections.emptyList(), Optional.empty(), OptionalLong.empty(), OptionalLong.empty())
+        ), Optional.empty());
+        QueryCompletedEvent event = queryCompletedEvent(metadata, queryStatistics(), queryContext(), ioMetadata);
+        assertSameBytes(event, QueryLogListenerProperties.defaultInstance());
+    }
+
+    @Test
+    void sameBytesWithFingerprint() throws IOException {
+        assertSameBytes(queryCompletedEvent(), QueryLogListenerProperties.defaultInstance().setQueryCompletedFingerprint(true));
+    }
+
+    @Test
+    void sameBytesWithSamplingWeight() throws IOException {
+        QueryCompletedEvent event = queryCompletedEvent();
+        EventSerializer serializer = new EventSerializer(QueryLogListenerFactory.createObjectMapper(), QueryLogListenerProperties.defaultInstance());
+        RecordBuffer record = serializer.serialize(CustomQueryCompletedEvent.of(event, null, 12.5));
+        String expected = new String(record.array(), 0, record.size(), UTF_8);
+        record = serializer.serialize(new SampledQueryCompletedEvent(event, 12.5));
+        assertEquals(expected, new String(record.array(), 0, record.size(), UTF_8));
+        assertTrue(expected.endsWith(",\"samplingWeight\":12.5}"), expected);
+    }
+
+    @Test
+    void projectedFields() throws IOException {
+        QueryCompletedEvent event = queryCompletedEvent(queryMetadata("q4", "select 1"), queryStatistics(Duration.ofSeconds(7), Duration.ofSeconds(9)),
+            queryContext("etl_user", Optional.of("global.etl"), QueryType.SELECT), queryIOMetadata("hive.ads.a"));
+        assertEquals("{\"metadata\":{\"queryId\":\"q4\"},\"statistics\":{\"cpuSecond\":7,\"wallSecond\":9},\"context\":{\"user\":\"etl_user\"},"
+                + "\"inputMetaDataList\":[{\"catalogName\":\"hive\",\"table\":\"a\"}]}",
+            serialize(event, "metadata.queryId, statistics.cpuSecond, statistics.wallSecond, context.user, inputMetaDataList.catalogName, inputMetaDataList.table"));
+
+        // excluded from everything
+        JsonNode excluded = QueryLogListenerFactory.createObjectMapper().readTree(
+            serialize(event, "-context.sessionProperties,-context.resourceEstimates,-statistics,-inputMetaDataList.connectorInfo"));
+        assertFalse(excluded.has("statistics"));
+        assertFalse(excluded.get("context").has("sessionProperties"));
+        assertEquals("etl_user", excluded.get("context").get("user").asText());
+        assertEquals("global.etl", excluded.get("context").get("resourceGroupId").get(0).asText());
+        assertFalse(excluded.get("inputMetaDataList").get(0).has("connectorInfo"));
+        assertEquals("q4", excluded.get("metadata").get("queryId").asText());
+        assertTrue(excluded.has("endTime"));
+
+        // whole objects, but a field
+        JsonNode included = QueryLogListenerFactory.createObjectMapper().readTree(serialize(event, "metadata,endTime,-metadata.query"));
+        List<String> names = new ArrayList<>();
+        included.fieldNames().forEachRemaining(names::add);
+        assertEquals(Arrays.asList("metadata", "endTime"), names);
+        assertFalse(included.get("metadata").has("query"));
+        assertTrue(included.get("metadata").has("preparedQuery"));
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        for (String fields : Arrays.asList("metadata.nope", "nope", "createTime.seconds", "context.nope", "statistics.cpuSecond.x", "metadata.")) {
+            assertThrows(IllegalArgumentException.class, () -> serialize(queryCompletedEvent(), fields), fields);
+        }
+    }
+
+    private static String serialize(QueryCompletedEvent event, String fields) throws IOException {
+        EventSerializer serializer = new EventSerializer(QueryLogListenerFactory.createObjectMapper(),
+            QueryLogListenerProperties.defaultInstance().setQueryCompletedFields(fields));
+        RecordBuffer record = serializer.serialize(event);
+        return new String(record.array(), 0, record.size(), UTF_8);
+    }
+
+    private static void assertSameBytes(QueryCompletedEvent event, QueryLogListenerProperties properties) throws IOException {
+        EventSerializer serializer = new EventSerializer(QueryLogListenerFactory.createObjectMapper(), properties);
+        String fingerprint = properties.isQueryCompletedFingerprint() ? new QueryFingerprinter(1).fingerprint(event.getMetadata().getQuery()) : null;
+        RecordBuffer record = serializer.serialize(CustomQueryCompletedEvent.of(event, fingerprint));
+        String expected = new String(record.array(), 0, record.size(), UTF_8);
+        record = serializer.serialize(event);
+        assertEquals(expected, new String(record.array(), 0, record.size(), UTF_8));
+        assertEquals(fingerprint != null, expected.contains("\"queryId\":\"" + event.getMetadata().getQueryId() + "\",\"fingerprint\":\""));
+    }
+}
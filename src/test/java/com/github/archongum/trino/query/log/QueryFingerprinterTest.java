@@ -0,0 +1,40 @@
+package com.github.archongum.trino.query.log;
+
+import org.junit.jupiter.api.Test;
+import static com.github.archongum.trino.query.log.QueryFingerprinter.normalize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+
+class QueryFingerprinterTest {
+
+    @Test
+    void normalizesLiteralsCaseAndWhitespace() {
+        assertEquals("select a, b.c from t where x = ? and y in (?+) limit ?",
+            normalize("SELECT  a,\n\tB.c FROM T -- comment\n WHERE x = 'it''s' /* block */ AND y IN (1, 2.5e-3, -3) LIMIT 10"));
+        assertEquals("select \"Quoted\".x from t where d = date ? and b = ? and p = ?",
+            normalize("select \"Quoted\".x from t where d = DATE '2022-06-01' and b = X'00ff' and p = ?"));
+        assertEquals("select count (*) from t where x in (select y from u) and z in (?+ a)",
+            normalize("select count(*) from t where x IN (select y from u) and z in (1, a)"));
+        assertEquals("select a >= ?, b <> ?, c || d, 查询", normalize("select a>=1, b<>'x', c||d, 查询"));
+    }
+
+    @Test
+    void foldsUnarySigns() {
+        assertEquals(normalize("select * from t where x = 3"), normalize("select * from t where x = -3"));
+        assertEquals("select ?, a - ?, (?), f (?, ?), x [ ? ] - ? from t where y between ? and ? limit ?",
+            normalize("select -1.5e-3, a-1, (+2), f(- 1, -.5), x[1] - 2 from t where y between -2 and -1 limit -1"));
+        assertEquals("select a - ? from t", normalize("select a -3 from t"));
+    }
+
+    @Test
+    void sameFingerprintForSameShape() {
+        QueryFingerprinter fingerprinter = new QueryFingerprinter(2);
+        String fingerprint = fingerprinter.fingerprint("select * from t where id in (1, 2, 3) and name = 'a'");
+        assertEquals(32, fingerprint.length());
+        assertEquals(fingerprint, fingerprinter.fingerprint("SELECT *\nFROM t\nWHERE id IN (4) AND name = 'b'"));
+        assertEquals(fingerprint, fingerprinter.fingerprint("select * from t where id in (1, 2, 3) and name = 'a'"));
+        assertNotEquals(fingerprint, fingerprinter.fingerprint("select * from t where id in (1, 2, 3) or name = 'a'"));
+        assertNotEquals(fingerprint, fingerprinter.fingerprint("select * from u where id in (1, 2, 3) and name = 'a'"));
+    }
+}
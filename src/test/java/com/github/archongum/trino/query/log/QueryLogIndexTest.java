@@ -0,0 +1,148 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class QueryLogIndexTest {
+
+    private static final Instant CREATE_TIME = Instant.parse("2022-06-01T10:00:00Z");
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void indexesWhileWritingAndRebuildsTheSame() throws IOException {
+        indexesWhileWritingAndRebuildsTheSame(null);
+        indexesWhileWritingAndRebuildsTheSame(new GzipBlockEncoder(6));
+    }
+
+    private void indexesWhileWritingAndRebuildsTheSame(GzipBlockEncoder encoder) throws IOException {
+        Path dir = Files.createDirectories(directory.resolve(encoder == null ? "plain" : "gzip"));
+        // several commits, and records larger than a buffer
+        FileChannelEventWriter writer = new FileChannelEventWriter(dir.resolve("trino-query-log.log"), 1024, 0, FsyncPolicy.NEVER,
+            new FileRollingPolicy(0, 0, 0, encoder == null ? OutputCompression.NONE : OutputCompression.GZIP),
+            new MutableClock(CREATE_TIME), encoder, true);
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String record = record(i, "user" + (i % 3), i % 10 == 0 ? 2000 : 50);
+            records.add(record);
+            writer.write(bytes(record), 0, bytes(record).length, key(i, "user" + (i % 3)));
+            if (i % 7 == 0) {
+                writer.flush();
+            }
+        }
+        // no key, not indexed
+        byte[] summary = "{\"user\":\"user0\",\"queries\":1}".getBytes(UTF_8);
+        writer.write(summary, 0, summary.length, null);
+        writer.close();
+
+        Path segment = dir.resolve(encoder == null ? "trino-query-log.log" : "trino-query-log.log.gz");
+        Path index = QueryLogIndex.indexFile(segment);
+        List<String> lines = Files.readAllLines(index);
+        assertEquals(100, lines.size());
+        List<QueryLogIndex.Entry> entries = new ArrayList<>();
+        for (String line : lines) {
+            entries.add(QueryLogIndex.Entry.parse(line));
+        }
+        assertEquals(records, QueryLogIndex.readRecords(segment, entries));
+
+        QueryLogIndex.rebuild(segment);
+        assertEquals(lines, Files.readAllLines(index));
+    }
+
+    @Test
+    void indexRollsWithItsFile() throws IOException {
+        MutableClock clock = new MutableClock(CREATE_TIME);
+        Path file = directory.resolve("trino-query-log.log");
+        FileChannelEventWriter writer = new FileChannelEventWriter(file, 4096, 0, FsyncPolicy.NEVER, new FileRollingPolicy(0, 0, 0), clock, null, true);
+        for (int i = 0; i < 6; i++) {
+            String record = record(i, i % 2 == 0 ? "etl" : "bi", 10);
+            writer.write(bytes(record), 0, bytes(record).length, key(i, i % 2 == 0 ? "etl" : "bi"));
+            writer.flush();
+            if (i == 2) {
+                clock.instant = Instant.parse("2022-06-02T10:00:00Z");
+            }
+        }
+        writer.close();
+        Path rolled = directory.resolve("2022-06-01").resolve("trino-query-log.2022-06-01.0.log");
+        assertEquals(3, Files.readAllLines(QueryLogIndex.indexFile(rolled)).size());
+        assertEquals(3, Files.readAllLines(QueryLogIndex.indexFile(file)).size());
+
+        QueryLogIndex.Lookup byQueryId = new QueryLogIndex.Lookup();
+        byQueryId.queryId = queryId(1);
+        assertEquals(record(1, "bi", 10) + "\n", lookup(file, byQueryId));
+
+        QueryLogIndex.Lookup byUser = new QueryLogIndex.Lookup();
+        byUser.user = "etl";
+        assertEquals(record(0, "etl", 10) + "\n" + record(2, "etl", 10) + "\n" + record(4, "etl", 10) + "\n", lookup(file, byUser));
+
+        QueryLogIndex.Lookup byTime = new QueryLogIndex.Lookup();
+        byTime.from = CREATE_TIME.plusSeconds(4);
+        assertEquals(record(4, "etl", 10) + "\n" + record(5, "bi", 10) + "\n", lookup(file, byTime));
+
+        // retention deletes the sidecar with its file
+        new FileRollingPolicy(0, 0, 1).applyRetention(file, clock.instant.atZone(clock.getZone()).toLocalDate());
+        assertFalse(Files.exists(rolled));
+        assertFalse(Files.exists(QueryLogIndex.indexFile(rolled)));
+        assertTrue(Files.exists(QueryLogIndex.indexFile(file)));
+    }
+
+    @Test
+    void keysOfSerializedEvents() {
+        byte[] completed = bytes(record(7, "etl", 0));
+        IndexKey key = QueryLogIndex.key(completed, completed.length);
+        assertEquals(queryId(7), key.getQueryId());
+        assertEquals("etl", key.getUser());
+        assertEquals(CREATE_TIME.plusSeconds(7).toEpochMilli(), key.getCreateTimeMillis());
+
+        byte[] split = bytes("{\"queryId\":\"q\",\"createTime\":1654077600000}");
+        key = QueryLogIndex.key(split, split.length);
+        assertEquals("q", key.getQueryId());
+        assertEquals(null, key.getUser());
+        assertEquals(CREATE_TIME.toEpochMilli(), key.getCreateTimeMillis());
+
+        byte[] dictionary = bytes("{\"queryHash\":\"h\",\"query\":\"SELECT 1\"}");
+        assertEquals(null, QueryLogIndex.key(dictionary, dictionary.length));
+    }
+
+    private static String lookup(Path file, QueryLogIndex.Lookup lookup) throws IOException {
+        StringWriter out = new StringWriter();
+        QueryLogIndex.lookup(file, lookup, out);
+        return out.toString();
+    }
+
+    private static String queryId(int i) {
+        return String.format("20220601_100000_%05d_abcde", i);
+    }
+
+    private static IndexKey key(int i, String user) {
+        return new IndexKey(queryId(i), user, CREATE_TIME.plusSeconds(i).toEpochMilli());
+    }
+
+    /**
+     * @return a completed event of {@code key(i, user)}, as serialized with {@code SECONDS} timestamps
+     */
+    private static String record(int i, String user, int padding) {
+        return "{\"metadata\":{\"queryId\":\"" + queryId(i) + "\",\"query\":\"" + "x".repeat(padding) + "\"},"
+            + "\"context\":{\"user\":\"" + user + "\"},\"createTime\":\"" + SECONDS.format(CREATE_TIME.plusSeconds(i)) + "\"}";
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(UTF_8);
+    }
+}
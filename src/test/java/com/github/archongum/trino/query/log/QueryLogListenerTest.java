@@ -2,11 +2,13 @@ package com.github.archongum.trino.query.log;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URI;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -14,13 +16,10 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.OptionalLong;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.util.ContextInitializer;
 import ch.qos.logback.core.joran.spi.JoranException;
@@ -30,20 +29,12 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import io.trino.spi.eventlistener.QueryCompletedEvent;
-import io.trino.spi.eventlistener.QueryContext;
-import io.trino.spi.eventlistener.QueryCreatedEvent;
-import io.trino.spi.eventlistener.QueryIOMetadata;
-import io.trino.spi.eventlistener.QueryInputMetadata;
-import io.trino.spi.eventlistener.QueryMetadata;
-import io.trino.spi.eventlistener.QueryStatistics;
-import io.trino.spi.eventlistener.SplitCompletedEvent;
-import io.trino.spi.eventlistener.SplitStatistics;
+import com.sun.net.httpserver.HttpServer;
 import io.trino.spi.resourcegroups.QueryType;
-import io.trino.spi.session.ResourceEstimates;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
-import static java.time.Duration.ofMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Duration.ofSeconds;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -159,9 +150,11 @@ class QueryLogListenerTest {
                 .setQueryCreatedQueryMaxLength(20)
         );
 
-        listener.splitCompleted(prepareSplitCompletedEvent());
-        listener.queryCreated(prepareQueryCreatedEvent());
-        truncateListener.queryCreated(prepareQueryCreatedEvent());
+        listener.splitCompleted(TestingEvents.splitCompletedEvent());
+        listener.queryCreated(TestingEvents.queryCreatedEvent());
+        listener.close();
+        truncateListener.queryCreated(TestingEvents.queryCreatedEvent());
+        truncateListener.close();
 
         List<String> lines = Files.lines(Paths.get(logBaseDir, "queryCreatedEvents.log")).collect(Collectors.toList());
         assertEquals(2, lines.size());
@@ -203,11 +196,14 @@ class QueryLogListenerTest {
                 .setQueryCompletedQueryMaxLength(Integer.MAX_VALUE)
         );
 
-        listener.splitCompleted(prepareSplitCompletedEvent());
-        listener.queryCreated(prepareQueryCreatedEvent());
-        listener.queryCompleted(prepareCompletedEvent());
-        truncateListener.queryCompleted(prepareCompletedEvent());
-        wontTruncateListener.queryCompleted(prepareCompletedEvent());
+        listener.splitCompleted(TestingEvents.splitCompletedEvent());
+        listener.queryCreated(TestingEvents.queryCreatedEvent());
+        listener.queryCompleted(TestingEvents.queryCompletedEvent());
+        listener.close();
+        truncateListener.queryCompleted(TestingEvents.queryCompletedEvent());
+        truncateListener.close();
+        wontTruncateListener.queryCompleted(TestingEvents.queryCompletedEvent());
+        wontTruncateListener.close();
 
         List<String> lines = Files.lines(Paths.get(logBaseDir, "queryCompletedEvents.log")).collect(Collectors.toList());
         assertEquals(3, lines.size());
@@ -215,150 +211,137 @@ class QueryLogListenerTest {
         assertFalse(lines.get(2).contains("<truncated>"));
     }
 
-    private QueryCreatedEvent prepareQueryCreatedEvent() {
-        return new QueryCreatedEvent(
-                Instant.now(),
-                getQueryContext(),
-                getQueryMetadata()
-        );
-    }
+    @Test
+    void fileOutputMode() throws IOException {
+        String logBaseDir = new File(QueryLogListenerTest.class.getClassLoader().getResource(".").getPath()).toString();
+        Path file = Paths.get(logBaseDir, "fileOutputMode", "trino-query-log.log");
+        Files.deleteIfExists(file);
 
-    private SplitCompletedEvent prepareSplitCompletedEvent() {
-        return new SplitCompletedEvent(
-                "queryId",
-                "stageId",
-                "taskId",
-                Optional.empty(),
-                Instant.now(),
-                Optional.of(Instant.now()),
-                Optional.of(Instant.now()),
-                getSplitStatistics(),
-                Optional.empty(),
-                "payload"
+        QueryLogListener listener = new QueryLogListener(
+            new LoggerContext(),
+            mapper,
+            QueryLogListenerProperties.defaultInstance()
+                .setOutputMode(OutputMode.FILE)
+                .setOutputFile(file.toString())
         );
-    }
+        listener.queryCreated(TestingEvents.queryCreatedEvent());
+        listener.queryCompleted(TestingEvents.queryCompletedEvent());
+        listener.close();
 
-    private QueryCompletedEvent prepareCompletedEvent() {
-        return new QueryCompletedEvent(
-            getQueryMetadata(),
-            getQueryStatistics(),
-            getQueryContext(),
-            getQueryIOMetadata(),
-            Optional.empty(),
-            Collections.emptyList(),
-            LocalDateTime.now().toInstant(ZoneOffset.UTC),
-            LocalDateTime.now().toInstant(ZoneOffset.UTC),
-            LocalDateTime.now().toInstant(ZoneOffset.UTC)
-        );
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertEquals(mapper.writeValueAsString(TestingEvents.queryCreatedEvent()).length(), lines.get(0).length());
+        assertEquals("queryId", mapper.readTree(lines.get(1)).get("metadata").get("queryId").asText());
     }
 
-    private SplitStatistics getSplitStatistics() {
-        return new SplitStatistics(
-                ofMillis(1000),
-                ofMillis(2000),
-                ofMillis(3000),
-                ofMillis(4000),
-                1,
-                2,
-                Optional.of(Duration.ofMillis(100)),
-                Optional.of(Duration.ofMillis(200))
-        );
-    }
+    @Test
+    void tailSampledCreatedEvents() throws IOException {
+        String logBaseDir = new File(QueryLogListenerTest.class.getClassLoader().getResource(".").getPath()).toString();
+        Path file = Paths.get(logBaseDir, "tailSampledCreatedEvents", "trino-query-log.log");
+        Files.deleteIfExists(file);
 
-    private QueryMetadata getQueryMetadata() {
-        return new QueryMetadata(
-            "queryId",
-            Optional.empty(),
-            "select * from dim_date limit 10000",
-            Optional.of("updateType"),
-            Optional.of("prepare s1 from select * from dim_date limit 10000"),
-            "queryState",
-            new ArrayList<>(),
-            new ArrayList<>(),
-            URI.create("http://localhost:18010/"),
-            Optional.empty(),
-            Optional.empty()
+        QueryLogListener listener = new QueryLogListener(
+            new LoggerContext(),
+            mapper,
+            QueryLogListenerProperties.defaultInstance()
+                .setOutputMode(OutputMode.FILE)
+                .setOutputFile(file.toString())
+                .setQueryCreatedTailSampling(true)
         );
+        listener.queryCreated(TestingEvents.queryCreatedEvent(TestingEvents.queryMetadata("fast", "select 1")));
+        listener.queryCreated(TestingEvents.queryCreatedEvent(TestingEvents.queryMetadata("slow", "select 2")));
+        listener.queryCreated(TestingEvents.queryCreatedEvent(TestingEvents.queryMetadata("running", "select 3")));
+        listener.queryCompleted(TestingEvents.queryCompletedEvent(TestingEvents.queryMetadata("fast", "select 1"),
+            TestingEvents.queryStatistics(), TestingEvents.queryContext(), TestingEvents.queryIOMetadata()));
+        listener.queryCompleted(TestingEvents.queryCompletedEvent(TestingEvents.queryMetadata("slow", "select 2"),
+            TestingEvents.queryStatistics(ofSeconds(5), ofSeconds(20)), TestingEvents.queryContext(), TestingEvents.queryIOMetadata()));
+        listener.close();
+
+        // the created event of the fast query is discarded, the one of the running query written on close
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(4, lines.size());
+        assertEquals("fast", mapper.readTree(lines.get(0)).get("metadata").get("queryId").asText());
+        assertFalse(mapper.readTree(lines.get(1)).has("statistics"));
+        assertEquals("slow", mapper.readTree(lines.get(1)).get("metadata").get("queryId").asText());
+        assertEquals("slow", mapper.readTree(lines.get(2)).get("metadata").get("queryId").asText());
+        assertFalse(mapper.readTree(lines.get(3)).has("statistics"));
+        assertEquals("running", mapper.readTree(lines.get(3)).get("metadata").get("queryId").asText());
+        assertEquals(1, listener.getMetrics().getQueryCreatedTailDiscarded());
+        assertEquals(2, listener.getMetrics().getQueryCreatedEmitted());
     }
 
-    private QueryContext getQueryContext() {
-        return new QueryContext(
-            "user",
-            Optional.of("principal"),
-            new HashSet<>(),
-            Optional.empty(),
-            Optional.empty(),
-            Optional.empty(),
-            Optional.empty(),
-            new HashSet<>(),
-            new HashSet<>(),
-            Optional.empty(),
-            Optional.of("hive"),
-            Optional.empty(),
-            Optional.empty(),
-            new HashMap<>(),
-            new ResourceEstimates(Optional.empty(), Optional.empty(), Optional.empty()),
-            "serverAddress",
-            "serverVersion",
-            "environment",
-            Optional.of(QueryType.SELECT)
-        );
-    }
+    @Test
+    void routesEventsToSinks() throws IOException {
+        String logBaseDir = new File(QueryLogListenerTest.class.getClassLoader().getResource(".").getPath()).toString();
+        Path file = Paths.get(logBaseDir, "routesEventsToSinks", "trino-query-log.log");
+        Files.deleteIfExists(file);
+        List<String> posted = new ArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream body = new GZIPInputStream(exchange.getRequestBody())) {
+                synchronized (posted) {
+                    posted.addAll(Arrays.asList(new String(body.readAllBytes(), UTF_8).split("\n")));
+                }
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            QueryLogListener listener = new QueryLogListener(
+                new LoggerContext(),
+                mapper,
+                QueryLogListenerProperties.defaultInstance()
+                    .setOutputMode(OutputMode.FILE)
+                    .setOutputFile(file.toString())
+                    .setOutputEvents("query_completed")
+                    .setSinks("http")
+                    .setSinkHttpUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/")
+                    .setSinkHttpEvents("QUERY_CREATED")
+            );
+            listener.queryCreated(TestingEvents.queryCreatedEvent());
+            listener.queryCompleted(TestingEvents.queryCompletedEvent());
+            listener.close();
+            assertEquals(1, listener.getMetrics().getSinkSent());
+        } finally {
+            server.stop(0);
+        }
 
-    private QueryIOMetadata getQueryIOMetadata() {
-        return new QueryIOMetadata(
-            Collections.singletonList(new QueryInputMetadata(
-                "hive",
-                "ads",
-                "dim_date",
-                Collections.emptyList(),
-                Optional.empty(),
-                OptionalLong.of(1),
-                OptionalLong.of(2)
-            )),
-            Optional.empty()
-        );
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertTrue(mapper.readTree(lines.get(0)).has("statistics"));
+        assertEquals(1, posted.size());
+        assertFalse(mapper.readTree(posted.get(0)).has("statistics"));
     }
 
-    private QueryStatistics getQueryStatistics() {
-        return new QueryStatistics(
-            ofMillis(1000),
-            ofMillis(2000),
-            ofMillis(3000),
-            ofMillis(4000),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            Optional.of(Duration.ofMillis(100)),
-            1,
-            2,
-            3,
-            4,
-            5,
-            6,
-            7,
-            8,
-            9,
-            10,
-            11,
-            12,
-            13,
-            14,
-            15,
-            1.1,
-            1.2,
-            Collections.emptyList(),
-            11,
-            true,
-            Collections.emptyList(),
-            Collections.emptyList(),
-            Optional.of("plan")
+    @Test
+    void partitionsOutputByUser() throws IOException {
+        String logBaseDir = new File(QueryLogListenerTest.class.getClassLoader().getResource(".").getPath()).toString();
+        Path dir = Paths.get(logBaseDir, "partitionsOutputByUser");
+        for (String user : List.of("alice", "bob", OutputPartitioner.DEFAULT_PARTITION)) {
+            Files.deleteIfExists(dir.resolve(user).resolve("trino-query-log.log"));
+        }
+
+        QueryLogListener listener = new QueryLogListener(
+            new LoggerContext(),
+            mapper,
+            QueryLogListenerProperties.defaultInstance()
+                .setOutputMode(OutputMode.FILE)
+                .setOutputFile(dir.resolve("trino-query-log.log").toString())
+                .setOutputPartitionBy(PartitionKey.USER)
+                .setOutputMaxOpenPartitions(1)
         );
+        for (String user : List.of("alice", "bob", "alice")) {
+            listener.queryCompleted(TestingEvents.queryCompletedEvent(TestingEvents.queryMetadata(), TestingEvents.queryStatistics(),
+                TestingEvents.queryContext(user, Optional.empty(), QueryType.SELECT), TestingEvents.queryIOMetadata()));
+        }
+        listener.splitCompleted(TestingEvents.splitCompletedEvent());
+        listener.close();
+
+        // alice was closed for bob, then opened again, appending
+        assertEquals(2, Files.readAllLines(dir.resolve("alice").resolve("trino-query-log.log")).size());
+        assertEquals(1, Files.readAllLines(dir.resolve("bob").resolve("trino-query-log.log")).size());
+        assertEquals(1, Files.readAllLines(dir.resolve(OutputPartitioner.DEFAULT_PARTITION).resolve("trino-query-log.log")).size());
+        assertEquals(3, listener.getMetrics().getPartitionsEvicted());
     }
 }
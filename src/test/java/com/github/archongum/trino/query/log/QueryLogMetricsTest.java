@@ -0,0 +1,75 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import ch.qos.logback.classic.LoggerContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class QueryLogMetricsTest {
+
+    @Test
+    void countsEventsAndBytes(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("query.log");
+        QueryLogListener listener = new QueryLogListener(new LoggerContext(), QueryLogListenerFactory.createObjectMapper(),
+            QueryLogListenerProperties.defaultInstance()
+                .setAsyncEnabled(false)
+                .setQueryCreated(false)
+                .setSplitCompleted(false)
+                .setOutputMode(OutputMode.FILE)
+                .setOutputFile(file.toString())
+                .setOutputFlushIntervalMs(0));
+        listener.queryCreated(TestingEvents.queryCreatedEvent());
+        listener.queryCompleted(TestingEvents.queryCompletedEvent());
+        listener.queryCompleted(TestingEvents.queryCompletedEvent());
+        listener.splitCompleted(TestingEvents.splitCompletedEvent());
+        listener.close();
+
+        QueryLogMetrics metrics = listener.getMetrics();
+        assertEquals(1, metrics.getQueryCreatedReceived());
+        assertEquals(1, metrics.getQueryCreatedFiltered());
+        assertEquals(0, metrics.getQueryCreatedEmitted());
+        assertEquals(2, metrics.getQueryCompletedReceived());
+        assertEquals(2, metrics.getQueryCompletedEmitted());
+        assertEquals(0, metrics.getQueryCompletedFailed());
+        assertEquals(1, metrics.getSplitCompletedFiltered());
+        assertEquals(2, metrics.getSerializeCount());
+        assertEquals(2, metrics.getWriteCount());
+        assertTrue(metrics.getSerializeMicrosMax() >= metrics.getSerializeMicrosP50());
+        // records are written with a line separator
+        assertEquals(Files.size(file), metrics.getBytesWritten() + 2);
+    }
+
+    @Test
+    void countsJsonProcessingErrors() {
+        QueryLogMetrics metrics = new QueryLogMetrics();
+        metrics.failed(TestingEvents.queryCreatedEvent(), new JsonMappingException(null, "bad"));
+        metrics.failed(TestingEvents.queryCreatedEvent(), new IOException("disk full"));
+        assertEquals(2, metrics.getQueryCreatedFailed());
+        assertEquals(1, metrics.getJsonProcessingErrors());
+    }
+
+    @Test
+    void registeredAsMBean() throws JMException {
+        QueryLogMetrics metrics = new QueryLogMetrics();
+        metrics.received(TestingEvents.queryCompletedEvent());
+        QueryLogListenerFactory.registerMetrics(metrics);
+        // a newer listener replaces it
+        QueryLogListenerFactory.registerMetrics(metrics);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(QueryLogMetrics.OBJECT_NAME);
+        assertEquals(1L, server.getAttribute(name, "QueryCompletedReceived"));
+        assertEquals(0, server.getAttribute(name, "QueueDepth"));
+        server.unregisterMBean(name);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import io.trino.spi.ErrorCode;
+import io.trino.spi.ErrorType;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryFailureInfo;
+import io.trino.spi.resourcegroups.QueryType;
+import org.junit.jupiter.api.Test;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class QuerySamplerTest {
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void adaptsToTargetAndStaysUnbiased() {
+        long[] now = {0};
+        Random random = new Random(42);
+        QuerySampler sampler = new QuerySampler(100, new QueryThresholds(10_000, 10_000, Long.MAX_VALUE), () -> now[0], random::nextDouble);
+        QueryCompletedEvent fast = completed(QueryType.SELECT, 100, false);
+        int perSecond = 1000;
+        int seconds = 30;
+        double weights = 0;
+        long logged = 0;
+        for (int i = 0; i < perSecond * seconds; i++) {
+            now[0] = i * SECOND_NANOS / perSecond;
+            double weight = sampler.sample(fast);
+            if (weight > 0) {
+                weights += weight;
+                logged++;
+            }
+        }
+        assertEquals(0.1, sampler.getProbability(), 0.001);
+        // the first second is logged whole, then about the target
+        assertTrue(logged < perSecond + 100 * seconds * 1.2, "logged " + logged);
+        assertEquals(perSecond * seconds, weights, perSecond * seconds * 0.05);
+    }
+
+    @Test
+    void alwaysLogsFailuresWritesAndExpensiveQueries() {
+        long[] now = {0};
+        QuerySampler sampler = new QuerySampler(1, new QueryThresholds(20_000, 5_000, Long.MAX_VALUE), () -> now[0], () -> 0.99);
+        QueryCompletedEvent fast = completed(QueryType.SELECT, 100, false);
+        for (int i = 0; i < 1000; i++) {
+            sampler.sample(fast);
+        }
+        now[0] = SECOND_NANOS;
+        assertEquals(0, sampler.sample(fast));
+        assertEquals(1, sampler.sample(completed(QueryType.SELECT, 100, true)));
+        assertEquals(1, sampler.sample(completed(QueryType.INSERT, 100, false)));
+        assertEquals(1, sampler.sample(completed(QueryType.DATA_DEFINITION, 100, false)));
+        assertEquals(1, sampler.sample(completed(QueryType.SELECT, 20_000, false)));
+        // CPU time is half the wall time
+        assertEquals(1, sampler.sample(completed(QueryType.SELECT, 10_000, false)));
+        assertEquals(0, sampler.sample(completed(QueryType.SELECT, 8_000, false)));
+    }
+
+    private static QueryCompletedEvent completed(QueryType queryType, long wallMillis, boolean failed) {
+        QueryCompletedEvent event = queryCompletedEvent(queryMetadata(), queryStatistics(Duration.ofMillis(wallMillis / 2), Duration.ofMillis(wallMillis)),
+            queryContext("user", Optional.empty(), queryType), queryIOMetadata());
+        if (!failed) {
+            return event;
+        }
+        return new QueryCompletedEvent(event.getMetadata(), event.getStatistics(), event.getContext(), event.getIoMetadata(),
+            Optional.of(new QueryFailureInfo(new ErrorCode(1, "GENERIC_USER_ERROR", ErrorType.USER_ERROR), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), "[]")),
+            Collections.emptyList(), event.getCreateTime(), event.getExecutionStartTime(), event.getEndTime());
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import org.junit.jupiter.api.Test;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCreatedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class QueryTextDictionaryTest {
+
+    @Test
+    void hashIsMurmur3OfUtf16() {
+        assertEquals("00000000000000000000000000000000", QueryTextDictionary.hash(""));
+        assertEquals("96a698500b4e98bdb278c9bfc754677d", QueryTextDictionary.hash("a"));
+        assertEquals("2803a5bc696daeb2a2b1eb7540d6d1fa", QueryTextDictionary.hash("abcdefgh"));
+        assertEquals("1ac6acfe7367072eceacd682c36f564a", QueryTextDictionary.hash("abcdefghi"));
+        assertEquals("0058a287cabccb3f48821b75124a91b2", QueryTextDictionary.hash("select * from t where x = '查询😀' limit 100"));
+    }
+
+    @Test
+    void writesTextOncePerDayWhileCached() throws IOException {
+        CollectingWriter writer = new CollectingWriter();
+        MutableClock clock = new MutableClock(Instant.parse("2022-06-01T10:00:00Z"));
+        QueryTextDictionary dictionary = new QueryTextDictionary(2, writer, new ObjectMapper().getFactory(), clock);
+
+        String a = dictionary.reference("select a");
+        dictionary.reference("select b");
+        assertEquals(a, dictionary.reference("select a"));
+        assertEquals(2, writer.records.size());
+        assertEquals("{\"queryHash\":\"" + a + "\",\"query\":\"select a\"}", writer.records.get(0));
+
+        // least recently used "select b" is evicted
+        dictionary.reference("select c");
+        dictionary.reference("select a");
+        assertEquals(3, writer.records.size());
+        dictionary.reference("select b");
+        assertEquals(4, writer.records.size());
+
+        clock.instant = Instant.parse("2022-06-02T00:00:01Z");
+        dictionary.reference("select b");
+        assertEquals(5, writer.records.size());
+    }
+
+    @Test
+    void writesTextAgainAfterFailure() throws IOException {
+        CollectingWriter writer = new CollectingWriter();
+        writer.failures = 1;
+        QueryTextDictionary dictionary = new QueryTextDictionary(2, writer, new ObjectMapper().getFactory(), new MutableClock(Instant.EPOCH));
+        assertThrows(IOException.class, () -> dictionary.reference("select a"));
+        // not taken for written by the next event of the query
+        String a = dictionary.reference("select a");
+        assertEquals(List.of("{\"queryHash\":\"" + a + "\",\"query\":\"select a\"}"), writer.records);
+    }
+
+    @Test
+    void rehydratesEvents() throws IOException {
+        QueryCreatedEvent created = queryCreatedEvent(queryMetadata("q1", TestingEvents.query(5000)));
+        QueryCompletedEvent completed = queryCompletedEvent(queryMetadata("q1", TestingEvents.query(5000)), queryStatistics(), queryContext(), queryIOMetadata());
+        QueryCompletedEvent other = queryCompletedEvent(queryMetadata("q2", "select '查询 \"quoted\"'"), queryStatistics(), queryContext(), queryIOMetadata());
+        ObjectMapper mapper = QueryLogListenerFactory.createObjectMapper();
+        QueryLogListenerProperties properties = QueryLogListenerProperties.defaultInstance();
+
+        List<String> expected = new ArrayList<>();
+        EventSerializer serializer = new EventSerializer(mapper, properties);
+        for (Object event : new Object[] {created, completed, other, completed}) {
+            expected.add(toString(serializer.serialize(event)));
+        }
+
+        // dictionary records in the same stream, as with the default logback config
+        CollectingWriter writer = new CollectingWriter();
+        serializer = new EventSerializer(mapper, properties, new QueryTextDictionary(10, writer, mapper.getFactory(), new MutableClock(Instant.EPOCH)));
+        for (Object event : new Object[] {created, completed, other, completed}) {
+            writer.write(serializer.serialize(event));
+        }
+        assertEquals(6, writer.records.size());
+        assertFalse(writer.records.get(1).contains("\"query\":"));
+        assertTrue(writer.records.get(1).contains("\"queryHash\":"));
+
+        QueryTextRehydrator rehydrator = new QueryTextRehydrator();
+        List<String> actual = new ArrayList<>();
+        for (String record : writer.records) {
+            String rehydrated = rehydrator.rehydrate(record);
+            if (rehydrated != null) {
+                actual.add(rehydrated);
+            }
+        }
+        assertEquals(expected, actual);
+        assertEquals(expected.get(2), new QueryTextRehydrator().rehydrate(expected.get(2)));
+        assertNull(rehydrator.rehydrate(writer.records.get(0)));
+    }
+
+    private static String toString(RecordBuffer record) {
+        return new String(record.array(), 0, record.size(), UTF_8);
+    }
+
+    private static final class CollectingWriter implements EventWriter {
+        private final List<String> records = new ArrayList<>();
+        private int failures;
+
+        void write(RecordBuffer record) throws IOException {
+            write(record.array(), 0, record.size());
+        }
+
+        @Override
+        public void write(byte[] record, int offset, int length) throws IOException {
+            if (failures > 0) {
+                failures--;
+                throw new IOException("Writer is failing");
+            }
+            records.add(new String(record, offset, length, UTF_8));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import org.junit.jupiter.api.Test;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class QueryTextModuleTest {
+
+    @Test
+    void charsKeepsHeadAndTail() throws IOException {
+        String query = "123456789012345678901234567890";
+        assertEquals("12345678 <truncated> 34567890", write(query, 20, QueryLengthUnit.CHARS));
+        assertEquals(query, write(query, 30, QueryLengthUnit.CHARS));
+        assertEquals(query, write(query, -1, QueryLengthUnit.CHARS));
+    }
+
+    @Test
+    void bytesNeverSplitCharacters() throws IOException {
+        // 3 bytes per CJK char, 4 bytes per emoji
+        String query = "查询查询查询😀😀😀";
+        String truncated = write(query, 20, QueryLengthUnit.BYTES);
+        assertEquals("查询 <truncated> 😀😀", truncated);
+        assertTrue(truncated.getBytes(UTF_8).length <= 20 + QueryTextModule.TRUNCATED.length());
+        assertEquals(query, write(query, query.getBytes(UTF_8).length, QueryLengthUnit.BYTES));
+    }
+
+    @Test
+    void truncatesAsWritten() throws IOException {
+        for (String query : new String[] {"123456789012345678901234567890", "查询查询查询😀😀😀", "select 1"}) {
+            for (QueryLengthUnit unit : QueryLengthUnit.values()) {
+                assertEquals(write(query, 20, unit), QueryTextModule.truncate(query, 20, unit));
+            }
+        }
+        assertNull(QueryTextModule.truncate(null, 20, QueryLengthUnit.CHARS));
+    }
+
+    @Test
+    void metadataIsNotMutated() throws IOException {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new Jdk8Module()).registerModule(new JavaTimeModule());
+        EventSerializer serializer = new EventSerializer(mapper, QueryLogListenerProperties.defaultInstance().setQueryCreatedQueryMaxLength(20));
+        QueryCreatedEvent event = TestingEvents.queryCreatedEvent();
+        String query = event.getMetadata().getQuery();
+
+        RecordBuffer record = serializer.serialize(event);
+        JsonNode metadata = mapper.readTree(record.array(), 0, record.size()).get("metadata");
+        assertEquals("select * <truncated> it 10000", metadata.get("query").asText());
+        assertTrue(metadata.get("preparedQuery").asText().contains(QueryTextModule.TRUNCATED));
+        assertEquals(query, event.getMetadata().getQuery());
+    }
+
+    private static String write(String text, int maxLength, QueryLengthUnit unit) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(out)) {
+            QueryTextModule.writeQueryText(generator, text, maxLength, unit);
+        }
+        return new ObjectMapper().readValue(out.toString(), String.class);
+    }
+}
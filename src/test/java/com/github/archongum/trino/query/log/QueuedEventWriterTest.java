@@ -0,0 +1,187 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class QueuedEventWriterTest {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void writesInBatches() throws Exception {
+        TestingSink sink = new TestingSink();
+        QueuedEventWriter writer = new QueuedEventWriter("test", sink, 100, 3, 60_000, SinkFailurePolicy.DROP);
+        for (int i = 0; i < 7; i++) {
+            write(writer, String.valueOf(i));
+        }
+        // two full batches, the last one lingering
+        await(() -> writer.getSentCount() == 6);
+        assertEquals(2, sink.flushes);
+        writer.close();
+        assertEquals(7, writer.getSentCount());
+        assertEquals(List.of("0", "1", "2", "3", "4", "5", "6"), sink.records);
+    }
+
+    @Test
+    void flushesAfterLinger() throws Exception {
+        TestingSink sink = new TestingSink();
+        QueuedEventWriter writer = new QueuedEventWriter("test", sink, 100, 100, 10, SinkFailurePolicy.DROP);
+        write(writer, "0");
+        await(() -> writer.getSentCount() == 1);
+        writer.close();
+    }
+
+    @Test
+    void dropsWhileSinkIsStuck() throws Exception {
+        TestingSink sink = new TestingSink();
+        sink.stuck = new CountDownLatch(1);
+        QueuedEventWriter writer = new QueuedEventWriter("test", sink, 2, 1, 0, SinkFailurePolicy.DROP);
+        write(writer, "0");
+        await(() -> writer.getQueueDepth() == 0);
+        // the thread is stuck writing the first record, the queue takes two more
+        for (int i = 1; i < 10; i++) {
+            write(writer, String.valueOf(i));
+        }
+        assertEquals(7, writer.getDroppedCount());
+        sink.stuck.countDown();
+        writer.close();
+        assertEquals(List.of("0", "1", "2"), sink.records);
+    }
+
+    @Test
+    void retriesOrDropsFailedBatches() throws Exception {
+        TestingSink retried = new TestingSink();
+        retried.failures = 2;
+        QueuedEventWriter retrying = new QueuedEventWriter("test", retried, 100, 10, 0, SinkFailurePolicy.RETRY);
+        write(retrying, "0");
+        await(() -> retrying.getSentCount() == 1);
+        assertEquals(0, retrying.getFailedCount());
+        retrying.close();
+        assertEquals(List.of("0"), retried.records);
+
+        TestingSink dropped = new TestingSink();
+        dropped.failures = 1;
+        QueuedEventWriter dropping = new QueuedEventWriter("test", dropped, 100, 10, 0, SinkFailurePolicy.DROP);
+        write(dropping, "0");
+        await(() -> dropping.getFailedCount() == 1);
+        write(dropping, "1");
+        await(() -> dropping.getSentCount() == 1);
+        dropping.close();
+        assertEquals(List.of("1"), dropped.records);
+    }
+
+    @Test
+    void closesSinkAfterLastWrite() throws Exception {
+        TestingSink sink = new TestingSink();
+        sink.stuck = new CountDownLatch(1);
+        QueuedEventWriter writer = new QueuedEventWriter("test", sink, 100, 10, 0, SinkFailurePolicy.DROP);
+        write(writer, "0");
+        await(() -> writer.getQueueDepth() == 0);
+        Thread closing = new Thread(() -> {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        closing.start();
+        // still writing, the sink is not closed under it
+        Thread.sleep(50);
+        assertNull(sink.closedBy);
+        sink.stuck.countDown();
+        closing.join();
+        assertEquals(List.of("0"), sink.records);
+        assertEquals("trino-query-log-sink-test", sink.closedBy);
+    }
+
+    @Test
+    void countsBatchCutShort() throws Exception {
+        TestingSink sink = new TestingSink();
+        QueuedEventWriter writer = new QueuedEventWriter("interrupted", sink, 100, 10, 60_000, SinkFailurePolicy.DROP);
+        write(writer, "0");
+        write(writer, "1");
+        // lingering for more, as when closing times out and interrupts the thread
+        await(() -> writer.getQueueDepth() == 0);
+        Thread thread = Thread.getAllStackTraces().keySet().stream()
+            .filter(t -> t.getName().equals("trino-query-log-sink-interrupted"))
+            .findFirst()
+            .orElseThrow();
+        thread.interrupt();
+        await(() -> writer.getFailedCount() == 2);
+        writer.close();
+        assertEquals(0, writer.getSentCount());
+        assertTrue(sink.records.isEmpty());
+    }
+
+    private static void write(QueuedEventWriter writer, String record) {
+        byte[] bytes = record.getBytes(UTF_8);
+        writer.write(bytes, 0, bytes.length);
+    }
+
+    private static void await(Condition condition) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!condition.isMet()) {
+            assertTrue(System.nanoTime() - start < TIMEOUT_NANOS);
+            Thread.sleep(5);
+        }
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    /**
+     * Takes the records of a batch on flush, failing the first {@code failures} flushes.
+     */
+    private static final class TestingSink implements EventWriter {
+
+        private final List<String> batch = new ArrayList<>();
+        private final List<String> records = new ArrayList<>();
+        private volatile int flushes;
+        private volatile int failures;
+        private volatile CountDownLatch stuck;
+        private volatile String closedBy;
+
+        @Override
+        public void write(byte[] record, int offset, int length) {
+            CountDownLatch latch = stuck;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batch.add(new String(record, offset, length, UTF_8));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                if (failures > 0) {
+                    failures--;
+                    throw new IOException("Sink is failing");
+                }
+                records.addAll(batch);
+                flushes++;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            closedBy = Thread.currentThread().getName();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import org.junit.jupiter.api.Test;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class SocketEventWriterTest {
+
+    @Test
+    void writesLinesAndReconnects() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            SocketEventWriter writer = new SocketEventWriter("127.0.0.1:" + server.getLocalPort());
+            write(writer, "{\"a\":1}");
+            write(writer, "{\"a\":2}");
+            writer.flush();
+            try (Socket socket = server.accept()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+                assertEquals("{\"a\":1}", reader.readLine());
+                assertEquals("{\"a\":2}", reader.readLine());
+            }
+            // the peer is gone: the next writes fail once it is noticed, then connect again
+            IOException failure = null;
+            for (int i = 0; i < 100 && failure == null; i++) {
+                write(writer, "{\"a\":3}");
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            assertEquals(true, failure != null);
+            write(writer, "{\"a\":4}");
+            writer.flush();
+            try (Socket socket = server.accept()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+                writer.close();
+                assertEquals("{\"a\":4}", reader.readLine());
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidAddress() {
+        assertThrows(IllegalArgumentException.class, () -> new SocketEventWriter("localhost"));
+    }
+
+    private static void write(SocketEventWriter writer, String record) {
+        byte[] bytes = record.getBytes(UTF_8);
+        writer.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class SpillQueueTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsInOrderAcrossSegments() throws IOException {
+        try (SpillQueue queue = new SpillQueue(directory, 64, 1024)) {
+            assertNull(queue.peek());
+            for (int i = 0; i < 20; i++) {
+                assertTrue(append(queue, "record-" + i));
+            }
+            assertEquals(20, queue.getDepth());
+            assertEquals(20 * 8 + 10 * 1, queue.getBytes());
+            assertTrue(segments().size() > 1);
+
+            assertEquals(range(0, 20), poll(queue, 20));
+            assertTrue(queue.isEmpty());
+            assertEquals(0, queue.getBytes());
+            queue.commit();
+            // all read, only the one appended to is left
+            assertEquals(1, segments().size());
+        }
+    }
+
+    @Test
+    void rejectsRecordsPastTheLimits() throws IOException {
+        try (SpillQueue queue = new SpillQueue(directory, 64, 128)) {
+            assertFalse(queue.append(new byte[57], 0, 57));
+            assertTrue(queue.append(new byte[56], 0, 56));
+            assertTrue(queue.append(new byte[56], 0, 56));
+            assertFalse(queue.append(new byte[1], 0, 1));
+
+            // room again once read and committed
+            assertEquals(56, queue.peek().length);
+            queue.remove();
+            queue.peek();
+            queue.commit();
+            assertTrue(queue.append(new byte[1], 0, 1));
+        }
+    }
+
+    @Test
+    void resumesFromCheckpoint() throws IOException {
+        try (SpillQueue queue = new SpillQueue(directory, 64, 1024)) {
+            for (int i = 0; i < 10; i++) {
+                append(queue, "record-" + i);
+            }
+            assertEquals(range(0, 4), poll(queue, 4));
+            queue.commit();
+            // removed but not committed
+            poll(queue, 2);
+        }
+        try (SpillQueue queue = new SpillQueue(directory, 64, 1024)) {
+            assertEquals(6, queue.getDepth());
+            append(queue, "record-10");
+            assertEquals(range(4, 11), poll(queue, 7));
+            assertNull(queue.peek());
+        }
+    }
+
+    @Test
+    void dropsTornRecords() throws IOException {
+        try (SpillQueue queue = new SpillQueue(directory, 1024, 1024)) {
+            append(queue, "record-0");
+            append(queue, "record-1");
+            append(queue, "record-2");
+        }
+        // corrupt the bytes of the second record
+        try (FileChannel channel = FileChannel.open(segments().get(0), WRITE)) {
+            channel.write(ByteBuffer.wrap("X".getBytes(UTF_8)), 16 + 8);
+        }
+        try (SpillQueue queue = new SpillQueue(directory, 1024, 1024)) {
+            assertEquals(1, queue.getDepth());
+            assertEquals(1, queue.getCorruptCount());
+            // appended over the corrupt record
+            append(queue, "record-3");
+            List<String> records = poll(queue, 2);
+            assertEquals(Arrays.asList("record-0", "record-3"), records);
+        }
+    }
+
+    private static boolean append(SpillQueue queue, String record) throws IOException {
+        byte[] bytes = record.getBytes(UTF_8);
+        return queue.append(bytes, 0, bytes.length);
+    }
+
+    private static List<String> poll(SpillQueue queue, int count) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new String(queue.peek(), UTF_8));
+            queue.remove();
+        }
+        return records;
+    }
+
+    private static List<String> range(int from, int to) {
+        List<String> records = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            records.add("record-" + i);
+        }
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(SpillQueue.EXTENSION)).sorted().collect(Collectors.toList());
+        }
+    }
+}
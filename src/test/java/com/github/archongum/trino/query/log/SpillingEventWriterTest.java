@@ -0,0 +1,171 @@
+package com.github.archongum.trino.query.log;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class SpillingEventWriterTest {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void spillsWhileSinkFailsAndReplaysInOrder() throws Exception {
+        TestingSink sink = new TestingSink();
+        SpillingEventWriter writer = new SpillingEventWriter(sink, new SpillQueue(directory, 1024, 1 << 20), () -> false, 10);
+        write(writer, "0", null);
+        sink.failing = true;
+        write(writer, "1", new IndexKey("q1", "alice", 1000));
+        write(writer, "2", new IndexKey("q2", null, 2000));
+        assertEquals(2, writer.getSpilledCount());
+        sink.failing = false;
+        // spilling until the queue is replayed
+        write(writer, "3", null);
+
+        awaitReplayed(writer, 3);
+        assertEquals(Arrays.asList("0", "1", "2", "3"), sink.records());
+        assertEquals("alice", sink.keys.get(1).getUser());
+        assertNull(sink.keys.get(2).getUser());
+        assertEquals(2000, sink.keys.get(2).getCreateTimeMillis());
+        assertEquals(0, writer.getDepth());
+
+        // back to writing to the sink
+        write(writer, "4", null);
+        assertEquals(3, writer.getSpilledCount());
+        assertEquals(5, sink.records().size());
+        writer.close();
+    }
+
+    @Test
+    void spillsUnderBackpressure() throws Exception {
+        TestingSink sink = new TestingSink();
+        boolean[] backpressure = {true};
+        SpillingEventWriter writer = new SpillingEventWriter(sink, new SpillQueue(directory, 1024, 1 << 20), () -> backpressure[0], 10);
+        write(writer, "0", null);
+        backpressure[0] = false;
+        // spilled too, unless the replay thread is done with the first one
+        write(writer, "1", null);
+        long start = System.nanoTime();
+        while (sink.records().size() < 2) {
+            assertTrue(System.nanoTime() - start < TIMEOUT_NANOS, "written " + sink.records());
+            Thread.sleep(5);
+        }
+        assertEquals(Arrays.asList("0", "1"), sink.records());
+        assertTrue(writer.getReplayedCount() >= 1);
+        writer.close();
+    }
+
+    @Test
+    void replaysAfterRestart() throws Exception {
+        TestingSink failing = new TestingSink();
+        failing.failing = true;
+        SpillingEventWriter writer = new SpillingEventWriter(failing, new SpillQueue(directory, 1024, 1 << 20), () -> false, 10);
+        for (int i = 0; i < 5; i++) {
+            write(writer, String.valueOf(i), null);
+        }
+        writer.close();
+        assertTrue(failing.records().isEmpty());
+
+        TestingSink sink = new TestingSink();
+        writer = new SpillingEventWriter(sink, new SpillQueue(directory, 1024, 1 << 20), () -> false, 10);
+        // written to the sink as is, unless the five are still being replayed
+        write(writer, "5", null);
+        awaitReplayed(writer, 5);
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5"), sink.records());
+        writer.close();
+    }
+
+    @Test
+    void letsGoOfReplayedRecordsOnceInFile() throws Exception {
+        Path spill = directory.resolve("spill");
+        Path file = directory.resolve("trino-query-log.log");
+        FailingFileChannel[] channel = new FailingFileChannel[1];
+        // committed by a flusher only once a minute
+        FileChannelEventWriter failing = new FileChannelEventWriter(file, 4096, 60_000, FsyncPolicy.NEVER, new FileRollingPolicy(0, 0, 0),
+            Clock.systemUTC(), null, false, 1, null, path -> channel[0] = new FailingFileChannel(path));
+        channel[0].failing = true;
+        boolean[] backpressure = {true};
+        SpillingEventWriter writer = new SpillingEventWriter(failing, new SpillQueue(spill, 1024, 1 << 20), () -> backpressure[0], 10);
+        write(writer, "0", null);
+        write(writer, "1", null);
+        backpressure[0] = false;
+        long start = System.nanoTime();
+        while (channel[0].failures.get() == 0) {
+            assertTrue(System.nanoTime() - start < TIMEOUT_NANOS);
+            Thread.sleep(5);
+        }
+        assertThrows(IOException.class, writer::close);
+        assertEquals(0, Files.size(file));
+
+        // the failed records were not let go of, and are in the file as soon as replayed
+        writer = new SpillingEventWriter(new FileChannelEventWriter(file, 4096, 60_000, FsyncPolicy.NEVER, new FileRollingPolicy(0, 0, 0),
+            Clock.systemUTC()), new SpillQueue(spill, 1024, 1 << 20), () -> false, 10);
+        awaitReplayed(writer, 2);
+        assertEquals(Arrays.asList("0", "1"), Files.readAllLines(file));
+        writer.close();
+    }
+
+    private static void write(SpillingEventWriter writer, String record, IndexKey key) throws IOException {
+        byte[] bytes = record.getBytes(UTF_8);
+        writer.write(bytes, 0, bytes.length, key);
+    }
+
+    private static void awaitReplayed(SpillingEventWriter writer, long records) throws InterruptedException {
+        long start = System.nanoTime();
+        while (writer.getReplayedCount() < records || writer.getDepth() > 0) {
+            assertTrue(System.nanoTime() - start < TIMEOUT_NANOS, "replayed " + writer.getReplayedCount());
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class TestingSink implements EventWriter {
+
+        private final List<String> records = new ArrayList<>();
+        private final List<IndexKey> keys = new ArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public void write(byte[] record, int offset, int length) throws IOException {
+            write(record, offset, length, null);
+        }
+
+        @Override
+        public synchronized void write(byte[] record, int offset, int length, IndexKey key) throws IOException {
+            if (failing) {
+                throw new IOException("Sink is failing");
+            }
+            records.add(new String(record, offset, length, UTF_8));
+            keys.add(key);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (failing) {
+                throw new IOException("Sink is failing");
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        synchronized List<String> records() {
+            return new ArrayList<>(records);
+        }
+    }
+}
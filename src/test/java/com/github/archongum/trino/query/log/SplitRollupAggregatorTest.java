@@ -0,0 +1,125 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+import static com.github.archongum.trino.query.log.TestingEvents.splitCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.splitStatistics;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class SplitRollupAggregatorTest {
+
+    @Test
+    void histogramPercentilesStayWithinPrecision() {
+        LogHistogram histogram = new LogHistogram(3, 32);
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10_000, histogram.getTotalCount());
+        assertWithin(5_000, histogram.getValueAtPercentile(50), 0.25);
+        assertWithin(9_900, histogram.getValueAtPercentile(99), 0.25);
+        assertEquals(0, new LogHistogram(3, 32).getValueAtPercentile(50));
+    }
+
+    @Test
+    void rollupPerStageOnQueryCompletion() {
+        List<SplitRollup> rollups = new ArrayList<>();
+        SplitRollupAggregator aggregator = new SplitRollupAggregator(10, 60_000, 2, rollups::add);
+        for (int i = 1; i <= 100; i++) {
+            aggregator.record(splitCompletedEvent("q1", "q1.0", "q1.0." + (i % 4), splitStatistics(Duration.ofMillis(i), Duration.ofMillis(i * 10L))));
+        }
+        aggregator.record(splitCompletedEvent("q1", "q1.1", "q1.1.0", splitStatistics(Duration.ofMillis(1), Duration.ofMillis(2))));
+        aggregator.record(splitCompletedEvent("q2", "q2.0", "q2.0.0", splitStatistics(Duration.ofMillis(1), Duration.ofMillis(2))));
+        assertTrue(rollups.isEmpty());
+
+        aggregator.complete("q1");
+        assertEquals(2, rollups.size());
+        assertEquals(1, aggregator.getTrackedQueries());
+        SplitRollup stage = rollups.get(0);
+        assertEquals("q1.0", stage.getStageId());
+        assertTrue(stage.isQueryCompleted());
+        assertEquals(100, stage.getSplits());
+        assertEquals(4, stage.getTasks());
+        assertEquals(5050, stage.getCpuMs().getSum());
+        assertEquals(1, stage.getCpuMs().getMin());
+        assertEquals(100, stage.getCpuMs().getMax());
+        assertWithin(500, stage.getWallMs().getP50(), 0.25);
+        assertEquals(1000, stage.getWallMs().getP99());
+        assertEquals(2, stage.getSlowestSplits().size());
+        assertEquals(1000, stage.getSlowestSplits().get(0).getWallMs());
+        assertEquals(990, stage.getSlowestSplits().get(1).getWallMs());
+        assertEquals(1, rollups.get(1).getSplits());
+    }
+
+    @Test
+    void evictsLeastRecentlyUpdatedQuery() throws InterruptedException {
+        List<SplitRollup> rollups = new ArrayList<>();
+        SplitRollupAggregator aggregator = new SplitRollupAggregator(2, 60_000, 0, rollups::add);
+        aggregator.record(splitCompletedEvent("q1", "q1.0", "q1.0.0", splitStatistics()));
+        Thread.sleep(2);
+        aggregator.record(splitCompletedEvent("q2", "q2.0", "q2.0.0", splitStatistics()));
+        aggregator.record(splitCompletedEvent("q3", "q3.0", "q3.0.0", splitStatistics()));
+        assertEquals(2, aggregator.getTrackedQueries());
+        assertEquals(1, rollups.size());
+        assertEquals("q1", rollups.get(0).getQueryId());
+        assertFalse(rollups.get(0).isQueryCompleted());
+        assertTrue(rollups.get(0).getSlowestSplits().isEmpty());
+
+        aggregator.flush();
+        assertEquals(3, rollups.size());
+        assertEquals(0, aggregator.getTrackedQueries());
+    }
+
+    @Test
+    void emitsLateSplitAtOnce() {
+        List<SplitRollup> rollups = new ArrayList<>();
+        SplitRollupAggregator aggregator = new SplitRollupAggregator(10, 60_000, 0, rollups::add);
+        aggregator.record(splitCompletedEvent("q1", "q1.0", "q1.0.0", splitStatistics()));
+        aggregator.complete("q1");
+        aggregator.record(splitCompletedEvent("q1", "q1.0", "q1.0.1", splitStatistics()));
+        assertEquals(0, aggregator.getTrackedQueries());
+        assertEquals(2, rollups.size());
+        assertTrue(rollups.get(1).isQueryCompleted());
+        assertEquals(1, rollups.get(1).getSplits());
+    }
+
+    @Test
+    void loseNoSplitCompletedConcurrently() throws InterruptedException {
+        LongAdder emitted = new LongAdder();
+        SplitRollupAggregator aggregator = new SplitRollupAggregator(1000, 60_000, 0, rollup -> emitted.add(rollup.getSplits()));
+        int threads = 4;
+        int queries = 2000;
+        int splitsPerQuery = 20;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int q = 0; q < queries; q++) {
+                    for (int i = 0; i < splitsPerQuery; i++) {
+                        aggregator.record(splitCompletedEvent("q" + q, "q" + q + ".0", "q" + q + ".0.0", splitStatistics()));
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        Thread completer = new Thread(() -> {
+            for (int q = 0; q < queries; q++) {
+                aggregator.complete("q" + q);
+            }
+        });
+        completer.start();
+        done.await();
+        completer.join();
+        aggregator.flush();
+        assertEquals((long) threads * queries * splitsPerQuery, emitted.sum());
+    }
+
+    private static void assertWithin(long expected, long actual, double relativeError) {
+        assertTrue(Math.abs(actual - expected) <= expected * relativeError, expected + " vs " + actual);
+    }
+}
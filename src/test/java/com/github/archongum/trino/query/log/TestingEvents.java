@@ -0,0 +1,234 @@
+package com.github.archongum.trino.query.log;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryContext;
+import io.trino.spi.eventlistener.QueryCreatedEvent;
+import io.trino.spi.eventlistener.QueryIOMetadata;
+import io.trino.spi.eventlistener.QueryInputMetadata;
+import io.trino.spi.eventlistener.QueryMetadata;
+import io.trino.spi.eventlistener.QueryStatistics;
+import io.trino.spi.eventlistener.SplitCompletedEvent;
+import io.trino.spi.eventlistener.SplitStatistics;
+import io.trino.spi.resourcegroups.QueryType;
+import io.trino.spi.resourcegroups.ResourceGroupId;
+import io.trino.spi.session.ResourceEstimates;
+import static java.time.Duration.ofMillis;
+
+
+/**
+ * Event fixtures shared by tests and benchmarks.
+ */
+final class TestingEvents {
+
+    private TestingEvents() {
+    }
+
+    static QueryCreatedEvent queryCreatedEvent() {
+        return queryCreatedEvent(queryMetadata());
+    }
+
+    static QueryCreatedEvent queryCreatedEvent(QueryMetadata metadata) {
+        return new QueryCreatedEvent(
+                Instant.now(),
+                queryContext(),
+                metadata
+        );
+    }
+
+    static SplitCompletedEvent splitCompletedEvent() {
+        return splitCompletedEvent("queryId", "stageId", "taskId", splitStatistics());
+    }
+
+    static SplitCompletedEvent splitCompletedEvent(String queryId, String stageId, String taskId, SplitStatistics statistics) {
+        return new SplitCompletedEvent(
+                queryId,
+                stageId,
+                taskId,
+                Optional.empty(),
+                Instant.now(),
+                Optional.of(Instant.now()),
+                Optional.of(Instant.now()),
+                statistics,
+                Optional.empty(),
+                "payload"
+        );
+    }
+
+    static QueryCompletedEvent queryCompletedEvent() {
+        return queryCompletedEvent(queryMetadata(), queryStatistics(), queryContext(), queryIOMetadata());
+    }
+
+    static QueryCompletedEvent queryCompletedEvent(QueryMetadata metadata, QueryStatistics statistics, QueryContext context, QueryIOMetadata ioMetadata) {
+        return new QueryCompletedEvent(
+            metadata,
+            statistics,
+            context,
+            ioMetadata,
+            Optional.empty(),
+            Collections.emptyList(),
+            LocalDateTime.now().toInstant(ZoneOffset.UTC),
+            LocalDateTime.now().toInstant(ZoneOffset.UTC),
+            LocalDateTime.now().toInstant(ZoneOffset.UTC)
+        );
+    }
+
+    static SplitStatistics splitStatistics() {
+        return splitStatistics(ofMillis(1000), ofMillis(2000));
+    }
+
+    static SplitStatistics splitStatistics(Duration cpuTime, Duration wallTime) {
+        return new SplitStatistics(
+                cpuTime,
+                wallTime,
+                ofMillis(3000),
+                ofMillis(4000),
+                1,
+                2,
+                Optional.of(Duration.ofMillis(100)),
+                Optional.of(Duration.ofMillis(200))
+        );
+    }
+
+    static QueryMetadata queryMetadata() {
+        return queryMetadata("queryId", "select * from dim_date limit 10000");
+    }
+
+    static QueryMetadata queryMetadata(String queryId, String query) {
+        return new QueryMetadata(
+            queryId,
+            Optional.empty(),
+            query,
+            Optional.of("updateType"),
+            Optional.of("prepare s1 from " + query),
+            "queryState",
+            new ArrayList<>(),
+            new ArrayList<>(),
+            URI.create("http://localhost:18010/"),
+            Optional.empty(),
+            Optional.empty()
+        );
+    }
+
+    /**
+     * @return a plausible SQL text of exactly {@code length} chars
+     */
+    static String query(int length) {
+        StringBuilder query = new StringBuilder(length + 128).append("select d.date_id, d.year, d.month, count(*) as cnt from dim_date d");
+        for (int i = 0; query.length() < length; i++) {
+            query.append(" left join hive.ads.fact_order_").append(i).append(" o").append(i)
+                .append(" on d.date_id = o").append(i).append(".date_id and o").append(i).append(".status in ('PAID', 'SHIPPED', '已完成')");
+        }
+        query.setLength(length);
+        return query.toString();
+    }
+
+    static QueryContext queryContext() {
+        return queryContext("user", Optional.empty(), QueryType.SELECT);
+    }
+
+    static QueryContext queryContext(String user, Optional<String> resourceGroup, QueryType queryType) {
+        return new QueryContext(
+            user,
+            Optional.of("principal"),
+            new HashSet<>(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            new HashSet<>(),
+            new HashSet<>(),
+            Optional.empty(),
+            Optional.of("hive"),
+            Optional.empty(),
+            resourceGroup.map(ResourceGroupId::new),
+            new HashMap<>(),
+            new ResourceEstimates(Optional.empty(), Optional.empty(), Optional.empty()),
+            "serverAddress",
+            "serverVersion",
+            "environment",
+            Optional.of(queryType)
+        );
+    }
+
+    static QueryIOMetadata queryIOMetadata() {
+        return queryIOMetadata("hive.ads.dim_date");
+    }
+
+    /**
+     * @param tables {@code catalog.schema.table} names of the inputs
+     */
+    static QueryIOMetadata queryIOMetadata(String... tables) {
+        List<QueryInputMetadata> inputs = new ArrayList<>(tables.length);
+        for (String table : tables) {
+            String[] parts = table.split("\\.");
+            inputs.add(new QueryInputMetadata(
+                parts[0],
+                parts[1],
+                parts[2],
+                Collections.emptyList(),
+                Optional.empty(),
+                OptionalLong.of(1),
+                OptionalLong.of(2)
+            ));
+        }
+        return new QueryIOMetadata(inputs, Optional.empty());
+    }
+
+    static QueryStatistics queryStatistics() {
+        return queryStatistics(ofMillis(1000), ofMillis(3000));
+    }
+
+    static QueryStatistics queryStatistics(Duration cpuTime, Duration wallTime) {
+        return new QueryStatistics(
+            cpuTime,
+            ofMillis(2000),
+            wallTime,
+            ofMillis(4000),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            Optional.of(Duration.ofMillis(100)),
+            1,
+            2,
+            3,
+            4,
+            5,
+            6,
+            7,
+            8,
+            9,
+            10,
+            11,
+            12,
+            13,
+            14,
+            15,
+            1.1,
+            1.2,
+            Collections.emptyList(),
+            11,
+            true,
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Optional.of("plan")
+        );
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.archongum.trino.query.log;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import io.trino.spi.ErrorCode;
+import io.trino.spi.ErrorType;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryContext;
+import io.trino.spi.eventlistener.QueryFailureInfo;
+import io.trino.spi.resourcegroups.QueryType;
+import org.junit.jupiter.api.Test;
+import static com.github.archongum.trino.query.log.TestingEvents.queryCompletedEvent;
+import static com.github.archongum.trino.query.log.TestingEvents.queryContext;
+import static com.github.archongum.trino.query.log.TestingEvents.queryIOMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryMetadata;
+import static com.github.archongum.trino.query.log.TestingEvents.queryStatistics;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class WorkloadAggregatorTest {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    void summarizesPerKeyAndWindow() {
+        List<WorkloadSummary> summaries = new ArrayList<>();
+        MutableClock clock = new MutableClock(Instant.parse("2022-06-01T10:00:00Z"));
+        WorkloadAggregator aggregator = new WorkloadAggregator(10, HOUR_MILLIS, summaries::add, clock);
+
+        QueryContext etl = queryContext("etl", Optional.of("global.etl"), QueryType.INSERT);
+        for (int i = 1; i <= 100; i++) {
+            aggregator.record(completed(etl, i * 1000, false));
+        }
+        aggregator.record(completed(etl, 500, true));
+        aggregator.record(completed(queryContext("bi", Optional.empty(), QueryType.SELECT), 42, false));
+        clock.instant = Instant.parse("2022-06-01T10:01:00Z");
+        aggregator.flush();
+
+        assertEquals(2, summaries.size());
+        WorkloadSummary summary = summaries.stream().filter(s -> s.getUser().equals("etl")).findFirst().get();
+        assertEquals(Instant.parse("2022-06-01T10:00:00Z"), summary.getWindowStart());
+        assertEquals(Instant.parse("2022-06-01T10:01:00Z"), summary.getWindowEnd());
+        assertEquals("global.etl", summary.getResourceGroup());
+        assertEquals("INSERT", summary.getQueryType());
+        assertEquals("hive", summary.getCatalog());
+        assertNull(summary.getSource());
+        assertEquals(101, summary.getQueries());
+        assertEquals(1, summary.getFailedQueries());
+        assertEquals(5050_500, summary.getWallMs().getSum());
+        assertEquals(100_000, summary.getWallMs().getMax());
+        assertWithin(50_000, summary.getWallMs().getP50());
+        assertWithin(95_000, summary.getWallMs().getP95());
+        assertWithin(99_000, summary.getWallMs().getP99());
+        assertEquals(101 * 4000, summary.getQueuedMs().getSum());
+
+        // every window starts empty
+        aggregator.record(completed(etl, 1, false));
+        aggregator.flush();
+        assertEquals(3, summaries.size());
+        assertEquals(1, summaries.get(2).getQueries());
+        assertEquals(Instant.parse("2022-06-01T10:01:00Z"), summaries.get(2).getWindowStart());
+        aggregator.close();
+        assertEquals(3, summaries.size());
+    }
+
+    @Test
+    void foldsKeysBeyondLimit() {
+        List<WorkloadSummary> summaries = new ArrayList<>();
+        WorkloadAggregator aggregator = new WorkloadAggregator(2, HOUR_MILLIS, summaries::add, new MutableClock(Instant.EPOCH));
+        for (int i = 0; i < 5; i++) {
+            aggregator.record(completed(queryContext("user" + i, Optional.empty(), QueryType.SELECT), 10, false));
+        }
+        aggregator.close();
+        assertEquals(3, summaries.size());
+        WorkloadSummary other = summaries.stream().filter(s -> s.getUser().equals(WorkloadSummary.OTHER)).findFirst().get();
+        assertEquals(3, other.getQueries());
+    }
+
+    @Test
+    void losesNothingWhileFlushing() throws InterruptedException {
+        ConcurrentLinkedQueue<WorkloadSummary> summaries = new ConcurrentLinkedQueue<>();
+        WorkloadAggregator aggregator = new WorkloadAggregator(100, HOUR_MILLIS, summaries::add, new MutableClock(Instant.EPOCH));
+        QueryCompletedEvent event = completed(queryContext(), 10, false);
+        int threads = 4;
+        int events = 20_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    aggregator.record(event);
+                }
+                done.countDown();
+            }).start();
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            aggregator.flush();
+        }
+        aggregator.close();
+        assertEquals((long) threads * events, summaries.stream().mapToLong(WorkloadSummary::getQueries).sum());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // 4 precision bits: buckets are at most 1/8 wide
+        assertTrue(actual >= expected && actual <= expected * 9 / 8, expected + " vs " + actual);
+    }
+
+    private static QueryCompletedEvent completed(QueryContext context, long wallMillis, boolean failed) {
+        QueryCompletedEvent event = queryCompletedEvent(queryMetadata(), queryStatistics(Duration.ofMillis(wallMillis / 2), Duration.ofMillis(wallMillis)),
+            context, queryIOMetadata());
+        if (!failed) {
+            return event;
+        }
+        return new QueryCompletedEvent(event.getMetadata(), event.getStatistics(), event.getContext(), event.getIoMetadata(),
+            Optional.of(new QueryFailureInfo(new ErrorCode(1, "GENERIC_USER_ERROR", ErrorType.USER_ERROR), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), "[]")),
+            Collections.emptyList(), event.getCreateTime(), event.getExecutionStartTime(), event.getEndTime());
+    }
+}